@@ -0,0 +1,82 @@
+package org.dashui;
+
+import org.dashutils.*;
+import org.jfree.data.xy.XYSeries;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SmileSeriesBenchmark {
+    // 2026-10-18 08:00 UTC
+    private static final long AS_OF = 1792310400000L;
+
+    @Param({"1000", "10000", "100000", "300000"})
+    public int chainSize;
+
+    private HashMap<String, OptionChain> optionChains;
+    private HashMap<String, OptionMarketData> marketData;
+    private ColumnarOptionChain columnarChain;
+    private SmileIndex smileIndex;
+    private RiskEngine.RepricedChain repricedChain;
+    private long expiryMillis;
+    private double[] strikes;
+    private double[] vols;
+    private XYSeries shownSeries;
+
+    @Setup
+    public void setup() {
+        optionChains = BenchmarkFixtures.optionChains(chainSize);
+        marketData = BenchmarkFixtures.optionMarketData(chainSize);
+        columnarChain = ColumnarOptionChain.of(optionChains.get("BTCUSDT"), marketData, new SymbolTable());
+        smileIndex = SmileIndex.build(optionChains, marketData);
+        repricedChain = new RiskEngine().reprice(Map.of("BTCUSDT", smileIndex.chain("BTCUSDT")),
+                Map.of("BTCUSDT", 108012.34), Map.of("USDT", 0.05, "BTC", 0.002), null, AS_OF)
+                .chains().get("BTCUSDT");
+        expiryMillis = columnarChain.expiry(0);
+        strikes = new double[columnarChain.size()];
+        vols = new double[columnarChain.size()];
+        shownSeries = new XYSeries("Implied Volatility", true, false);
+        VolatilitySmileUI.fillSmileSeries(shownSeries, repricedChain, smileIndex.slice("BTCUSDT", LocalDate.of(2026, 12, 25)));
+    }
+
+    /**
+     * The once per data load cost of the index the UI slices smiles from.
+     */
+    @Benchmark
+    public SmileIndex buildSmileIndex() {
+        return SmileIndex.build(optionChains, marketData);
+    }
+
+    @Benchmark
+    public XYSeries buildSmileSeries() {
+        var slice = smileIndex.slice("BTCUSDT", LocalDate.of(2026, 12, 25));
+        return VolatilitySmileUI.buildSmileSeries(repricedChain, slice);
+    }
+
+    /**
+     * What a refresh of the shown smile costs: the same strikes, so vols are updated in place.
+     */
+    @Benchmark
+    public XYSeries refillShownSmileSeries() {
+        var slice = smileIndex.slice("BTCUSDT", LocalDate.of(2026, 12, 25));
+        VolatilitySmileUI.fillSmileSeries(shownSeries, repricedChain, slice);
+        return shownSeries;
+    }
+
+    @Benchmark
+    public XYSeries buildSmileSeriesColumnar() {
+        var series = new XYSeries("Implied Volatility");
+        int count = columnarChain.smile(columnarChain.findExpiry(expiryMillis), CallPut.CALL, strikes, vols);
+        for (int i = 0; i < count; i++) series.add(strikes[i], vols[i] * 100, false);
+        return series;
+    }
+}
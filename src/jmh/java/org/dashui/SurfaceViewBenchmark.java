@@ -0,0 +1,94 @@
+package org.dashui;
+
+import org.dashutils.MockDataProvider;
+import org.dashutils.RiskEngine;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per load cost of the all expiries dataset and the cost of drawing the overlay from it, against drawing
+ * every listed strike, at the chart's usual size. Drawing has to fit in a frame at the UI's frame cap.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class SurfaceViewBenchmark {
+    // 2026-10-18 08:00 UTC
+    private static final long AS_OF = 1792310400000L;
+
+    @Param({"20", "40"})
+    public int expiries;
+
+    @Param({"200", "1000"})
+    public int strikes;
+
+    private SmileIndex index;
+    private RiskEngine.RepricedChain priced;
+    private JFreeChart downsampledChart;
+    private JFreeChart fullChart;
+    private Graphics2D graphics;
+    private final Rectangle2D area = new Rectangle2D.Double(0, 0, 825, 750);
+
+    @Setup
+    public void setup() {
+        var mock = new MockDataProvider(new MockDataProvider.Config(1, 1, expiries, strikes, AS_OF, 0));
+        index = SmileIndex.build(mock.getOptionChain(), mock.getOptionMarketData());
+        priced = new RiskEngine().reprice(Map.of("BTCUSDT", index.chain("BTCUSDT")),
+                Map.of("BTCUSDT", mock.getSpotMarketPrice("BTCUSDT")), mock.getBorrowRates(), null, AS_OF)
+                .chains().get("BTCUSDT");
+
+        var downsampled = new XYSeriesCollection();
+        for (var smile : buildSurfaceData().smiles()) {
+            var series = new XYSeries(smile.expiry().toString());
+            for (int i = 0; i < smile.strikes().length; i++) series.add(smile.strikes()[i], smile.vols()[i], false);
+            downsampled.addSeries(series);
+        }
+        var full = new XYSeriesCollection();
+        for (var slice : index.expiries("BTCUSDT").values()) {
+            var series = new XYSeries(slice.expiry().toString());
+            VolatilitySmileUI.fillSmileSeries(series, priced, slice);
+            full.addSeries(series);
+        }
+        downsampledChart = chart(downsampled);
+        fullChart = chart(full);
+        graphics = new BufferedImage(825, 750, BufferedImage.TYPE_INT_ARGB).createGraphics();
+    }
+
+    private static JFreeChart chart(XYSeriesCollection dataset) {
+        return ChartFactory.createXYLineChart("Volatility Smiles", "Strike Price", "Implied Volatility (%)",
+                dataset, PlotOrientation.VERTICAL, true, false, false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public SurfaceViewData buildSurfaceData() {
+        return SurfaceViewData.build(priced, index.expiries("BTCUSDT").values(), 64, 80);
+    }
+
+    @Benchmark
+    public void drawDownsampledOverlay() {
+        downsampledChart.draw(graphics, area);
+    }
+
+    @Benchmark
+    public void drawFullOverlay() {
+        fullChart.draw(graphics, area);
+    }
+}
@@ -0,0 +1,84 @@
+package org.dashutils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+
+/**
+ * Offline benchmark inputs built from the recorded payloads under {@code fixtures/binance}. Larger chains
+ * are made by replicating the recorded symbols with shifted strikes so they keep the real payload shape.
+ */
+public final class BenchmarkFixtures {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private BenchmarkFixtures() {}
+
+    public static JsonNode readFixture(String name) {
+        try (InputStream in = BenchmarkFixtures.class.getResourceAsStream("/fixtures/binance/" + name)) {
+            if (in == null) throw new IllegalStateException("Missing fixture " + name);
+            return MAPPER.readTree(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static byte[] exchangeInfoPayload(int optionCount) {
+        var exchangeInfo = (ObjectNode) readFixture("exchangeInfo.json");
+        var recorded = (ArrayNode) exchangeInfo.get("optionSymbols");
+        var scaled = MAPPER.createArrayNode();
+
+        for (int i = 0; i < optionCount; i++) {
+            var node = ((ObjectNode) recorded.get(i % recorded.size())).deepCopy();
+            int copy = i / recorded.size();
+            var strike = node.get("strikePrice").asDouble() * (1 + 0.001 * copy);
+            node.put("strikePrice", String.format("%.8f", strike));
+            node.put("symbol", node.get("symbol").asText() + "-" + copy);
+            scaled.add(node);
+        }
+
+        exchangeInfo.set("optionSymbols", scaled);
+        return toBytes(exchangeInfo);
+    }
+
+    public static byte[] markPayload(int optionCount) {
+        var recorded = (ArrayNode) readFixture("mark.json");
+        var scaled = MAPPER.createArrayNode();
+
+        for (int i = 0; i < optionCount; i++) {
+            var node = ((ObjectNode) recorded.get(i % recorded.size())).deepCopy();
+            node.put("symbol", node.get("symbol").asText() + "-" + i / recorded.size());
+            scaled.add(node);
+        }
+        return toBytes(scaled);
+    }
+
+    public static HashMap<String, OptionChain> optionChains(int optionCount) {
+        return BinanceDataRequest.parseOptionChain(readTree(exchangeInfoPayload(optionCount)));
+    }
+
+    public static HashMap<String, OptionMarketData> optionMarketData(int optionCount) {
+        return BinanceDataRequest.parseOptionMarketData(readTree(markPayload(optionCount)));
+    }
+
+    static JsonNode readTree(byte[] payload) {
+        try {
+            return MAPPER.readTree(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] toBytes(JsonNode node) {
+        try {
+            return MAPPER.writeValueAsBytes(node);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.dashutils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinanceParseBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int optionCount;
+
+    private byte[] exchangeInfoPayload;
+    private byte[] markPayload;
+
+    @Setup
+    public void setup() {
+        exchangeInfoPayload = BenchmarkFixtures.exchangeInfoPayload(optionCount);
+        markPayload = BenchmarkFixtures.markPayload(optionCount);
+    }
+
+    /** Tree parse of the body as a string, as {@code BinanceApiQuery.queryEndpoint} does. */
+    @Benchmark
+    public HashMap<String, OptionChain> parseExchangeInfoTree() throws IOException {
+        var body = new String(exchangeInfoPayload, StandardCharsets.UTF_8);
+        return BinanceDataRequest.parseOptionChain(BinanceApiQuery.OBJECT_MAPPER.readTree(body));
+    }
+
+    @Benchmark
+    public HashMap<String, OptionMarketData> parseMarkTree() throws IOException {
+        var body = new String(markPayload, StandardCharsets.UTF_8);
+        return BinanceDataRequest.parseOptionMarketData(BinanceApiQuery.OBJECT_MAPPER.readTree(body));
+    }
+
+    @Benchmark
+    public HashMap<String, OptionChain> parseExchangeInfoStreaming() throws IOException {
+        try (var parser = BinanceApiQuery.JSON_FACTORY.createParser(new ByteArrayInputStream(exchangeInfoPayload))) {
+            return BinanceStreamParser.parseOptionChain(parser);
+        }
+    }
+
+    @Benchmark
+    public HashMap<String, OptionMarketData> parseMarkStreaming() throws IOException {
+        try (var parser = BinanceApiQuery.JSON_FACTORY.createParser(new ByteArrayInputStream(markPayload))) {
+            return BinanceStreamParser.parseOptionMarketData(parser);
+        }
+    }
+}
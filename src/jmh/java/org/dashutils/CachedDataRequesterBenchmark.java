@@ -0,0 +1,62 @@
+package org.dashutils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CachedDataRequesterBenchmark {
+    @Param({"1000", "100000"})
+    public int optionCount;
+
+    private CachedDataRequester cache;
+    private String[] symbols;
+    private int next;
+
+    @Setup
+    public void setup() {
+        var chains = BenchmarkFixtures.optionChains(optionCount);
+        var marketData = BenchmarkFixtures.optionMarketData(optionCount);
+        cache = new CachedDataRequester(new FixedDataRequester(chains, marketData));
+        symbols = marketData.keySet().toArray(new String[0]);
+        cache.getOptionChain();
+        cache.getOptionMarketData();
+        cache.getSpotMarketPrice("BTCUSDT");
+    }
+
+    @Benchmark
+    public OptionMarketData marketDataLookup() {
+        next = (next + 1) % symbols.length;
+        return cache.getOptionMarketData().get(symbols[next]);
+    }
+
+    @Benchmark
+    public Double spotPriceLookup() {
+        return cache.getSpotMarketPrice("BTCUSDT");
+    }
+
+    private record FixedDataRequester(HashMap<String, OptionChain> chains,
+                                      HashMap<String, OptionMarketData> marketData) implements DataRequester {
+        public HashMap<String, Double> getBorrowRates() {
+            return new HashMap<>();
+        }
+
+        public HashMap<String, OptionChain> getOptionChain() {
+            return chains;
+        }
+
+        public HashMap<String, OptionMarketData> getOptionMarketData() {
+            return marketData;
+        }
+
+        public Double getSpotMarketPrice(String ticker) {
+            return 108000.0;
+        }
+    }
+}
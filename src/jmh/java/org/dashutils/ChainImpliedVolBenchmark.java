@@ -0,0 +1,44 @@
+package org.dashutils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChainImpliedVolBenchmark {
+    @Param({"1000", "10000", "100000", "300000"})
+    public int chainSize;
+
+    private final BlackScholesPricer pricer = new BlackScholesPricer();
+    private final Date currentDate = new Date(1792310400000L);
+    private OptionChain chain;
+    private HashMap<String, OptionMarketData> marketData;
+
+    @Setup
+    public void setup() {
+        chain = BenchmarkFixtures.optionChains(chainSize).get("BTCUSDT");
+        marketData = BenchmarkFixtures.optionMarketData(chainSize);
+    }
+
+    @Benchmark
+    public double[] batchImpliedVols() {
+        return pricer.impliedVols(chain, marketData, 108000.0, 0.0, 0.0, currentDate);
+    }
+
+    @Benchmark
+    public double bisectionImpliedVols() {
+        double sum = 0;
+        for (var option : chain.optionSeries()) {
+            var data = marketData.get(option.symbol());
+            if (data != null) sum += pricer.impliedVol(option, data.price(), 108000.0, 0.0, 0.0, currentDate);
+        }
+        return sum;
+    }
+}
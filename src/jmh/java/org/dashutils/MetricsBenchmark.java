@@ -0,0 +1,36 @@
+package org.dashutils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of timing a stage with {@link Metrics} while collection is off and on.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    private final LatencyHistogram timer = Metrics.timer("bench.stage");
+
+    @Param({"false", "true"})
+    public boolean enabled;
+
+    @Setup
+    public void setup() {
+        Metrics.setEnabled(enabled);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Metrics.setEnabled(false);
+    }
+
+    @Benchmark
+    public void timeStage() {
+        Metrics.stop(timer, Metrics.start());
+    }
+}
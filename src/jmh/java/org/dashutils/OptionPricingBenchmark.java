@@ -0,0 +1,50 @@
+package org.dashutils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OptionPricingBenchmark {
+    private final Option option = new Option("BTC-261225-110000-C", "BTCUSDT", 110000.0, new Date(1798185600000L), CallPut.CALL);
+    private final Date currentDate = new Date(1792310400000L);
+    private final double[] greeks = new double[BlackScholesKernel.WIDTH];
+    private final BlackScholesPricer pricer = new BlackScholesPricer();
+
+    private double spot = 108000.0;
+    private double vol = 0.5;
+    private double yearsToExpiry = BlackScholesKernel.yearFraction(currentDate.getTime(), option.expiry().getTime());
+    private double price = BlackScholesKernel.price(true, spot, 110000.0, yearsToExpiry, 0.0, 0.0, vol);
+
+    @Benchmark
+    public double legacyPrice() {
+        return BlackScholesPricer.blackScholesPrice(option, spot, 0.0, 0.0, vol, currentDate);
+    }
+
+    @Benchmark
+    public double kernelPrice() {
+        return BlackScholesKernel.price(true, spot, 110000.0, yearsToExpiry, 0.0, 0.0, vol);
+    }
+
+    @Benchmark
+    public double[] kernelPriceAndGreeks() {
+        BlackScholesKernel.priceAndGreeks(true, spot, 110000.0, yearsToExpiry, 0.0, 0.0, vol, greeks, 0);
+        return greeks;
+    }
+
+    @Benchmark
+    public Double legacyImpliedVol() {
+        return pricer.impliedVol(option, price, spot, 0.0, 0.0, currentDate);
+    }
+
+    @Benchmark
+    public double solverImpliedVol() {
+        return BlackScholesPricer.solveImpliedVol(true, price, spot, 110000.0, yearsToExpiry, 0.0, 0.0);
+    }
+}
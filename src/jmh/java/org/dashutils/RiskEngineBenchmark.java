@@ -0,0 +1,55 @@
+package org.dashutils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full repricing and risk aggregation of every chain at increasing pool sizes, to check that it scales with
+ * cores. Throughput in options per second is printed at the end of each trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RiskEngineBenchmark {
+    // 2026-10-18 08:00 UTC
+    private static final long AS_OF = 1792310400000L;
+
+    @Param({"100000", "300000"})
+    public int optionCount;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private HashMap<String, ColumnarOptionChain> chains;
+    private final Map<String, Double> spots = Map.of("BTCUSDT", 108012.34, "ETHUSDT", 3901.27);
+    private final Map<String, Double> rates = Map.of("USDT", 0.05, "BTC", 0.002, "ETH", 0.003);
+    private ForkJoinPool pool;
+    private RiskEngine engine;
+
+    @Setup
+    public void setup() {
+        chains = ColumnarOptionChain.ofAll(BenchmarkFixtures.optionChains(optionCount),
+                BenchmarkFixtures.optionMarketData(optionCount), new SymbolTable());
+        pool = new ForkJoinPool(parallelism);
+        engine = new RiskEngine(pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        var report = engine.reprice(chains, spots, rates, null, AS_OF);
+        System.out.printf("%n%,.0f options/s on %d threads%n", report.optionsPerSecond(), parallelism);
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public RiskEngine.Report reprice() {
+        return engine.reprice(chains, spots, rates, null, AS_OF);
+    }
+}
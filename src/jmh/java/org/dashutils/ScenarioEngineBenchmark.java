@@ -0,0 +1,73 @@
+package org.dashutils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A 50x50 spot/vol shock grid (spot ±30%, vol ±20 points) over the BTC chain, on a single thread: the scenario
+ * engine against repricing every option in every scenario with {@link BlackScholesPricer#blackScholesPrice}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScenarioEngineBenchmark {
+    // 2026-10-18 08:00 UTC
+    private static final long AS_OF = 1792310400000L;
+    private static final double SPOT = 108012.34;
+    private static final double RATE = 0.05;
+    private static final double YIELD = 0.002;
+
+    @Param({"52", "1000"})
+    public int optionCount;
+
+    private final ScenarioEngine.Grid grid = ScenarioEngine.Grid.ladder(0.3, 50, 0.2, 50);
+    private OptionChain chain;
+    private HashMap<String, OptionMarketData> marks;
+    private ColumnarOptionChain columnar;
+    private ForkJoinPool pool;
+    private ScenarioEngine engine;
+
+    @Setup
+    public void setup() {
+        chain = BenchmarkFixtures.optionChains(optionCount).get("BTCUSDT");
+        marks = BenchmarkFixtures.optionMarketData(optionCount);
+        columnar = ColumnarOptionChain.of(chain, marks, new SymbolTable());
+        pool = new ForkJoinPool(1);
+        engine = new ScenarioEngine(pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public double[] engine() {
+        return engine.run(columnar, SPOT, RATE, YIELD, AS_OF, grid, null, null).pnl();
+    }
+
+    @Benchmark
+    public double[] naive() {
+        var asOf = new Date(AS_OF);
+        var values = new double[grid.size()];
+        for (var option : chain.optionSeries()) {
+            var mark = marks.get(option.symbol());
+            if (mark == null || mark.impliedVol() == null) continue;
+            for (int i = 0; i < grid.spotShocks().length; i++) {
+                double spot = SPOT * (1 + grid.spotShocks()[i]);
+                for (int j = 0; j < grid.volShocks().length; j++) {
+                    values[grid.index(i, j)] += BlackScholesPricer.blackScholesPrice(option, spot, RATE, YIELD,
+                            mark.impliedVol() + grid.volShocks()[j], asOf);
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,61 @@
+package org.dashutils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start cost of restoring chains and marks from a snapshot file against streaming parses of the same
+ * data from the exchangeInfo and mark responses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotFileBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int optionCount;
+
+    private byte[] exchangeInfoPayload;
+    private byte[] markPayload;
+    private Path snapshotPath;
+
+    @Setup
+    public void setup() throws IOException {
+        exchangeInfoPayload = BenchmarkFixtures.exchangeInfoPayload(optionCount);
+        markPayload = BenchmarkFixtures.markPayload(optionCount);
+        snapshotPath = Files.createTempFile("snapshot-benchmark", ".bin");
+        SnapshotFile.write(snapshotPath, new MarketSnapshot(new HashMap<>(),
+                BenchmarkFixtures.optionChains(optionCount), BenchmarkFixtures.optionMarketData(optionCount),
+                new HashMap<>()));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshotPath);
+    }
+
+    @Benchmark
+    public MarketSnapshot readSnapshot() throws IOException {
+        return SnapshotFile.read(snapshotPath);
+    }
+
+    @Benchmark
+    public MarketSnapshot parseJson() throws IOException {
+        HashMap<String, OptionChain> chains;
+        try (var parser = BinanceApiQuery.JSON_FACTORY.createParser(new ByteArrayInputStream(exchangeInfoPayload))) {
+            chains = BinanceStreamParser.parseOptionChain(parser);
+        }
+        try (var parser = BinanceApiQuery.JSON_FACTORY.createParser(new ByteArrayInputStream(markPayload))) {
+            return new MarketSnapshot(new HashMap<>(), chains, BinanceStreamParser.parseOptionMarketData(parser),
+                    new HashMap<>());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.dashutils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prices whole chains through Strata's Black FX pricer, with its market data cached and rebuilt per call, and
+ * solves the chain's implied vols from its marks through each {@link OptionPricer}, Strata's against
+ * {@link BlackScholesPricer}. The largest difference of each engine's vols from the exchange's mark vols is
+ * printed at the end of each trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StrataPricingBenchmark {
+    // 2026-10-18 08:00 UTC
+    private static final long AS_OF = 1792310400000L;
+
+    @Param({"52", "1000", "10000"})
+    public int optionCount;
+
+    private MarketSnapshot snapshot;
+    private ColumnarOptionChain chain;
+    private StrataFxOptionPricer pricer;
+    private List<Option> options;
+    private double spot;
+    private double riskFreeRate;
+    private double dividendRate;
+
+    @Setup
+    public void setup() {
+        var borrowRates = new HashMap<String, Double>();
+        borrowRates.put("USDT", 0.05);
+        borrowRates.put("BTC", 0.002);
+        var spots = new HashMap<String, Double>();
+        spots.put("BTCUSDT", 108012.34);
+        snapshot = new MarketSnapshot(borrowRates, BenchmarkFixtures.optionChains(optionCount),
+                BenchmarkFixtures.optionMarketData(optionCount), spots);
+        chain = ColumnarOptionChain.of(snapshot.optionChains().get("BTCUSDT"), snapshot.optionMarketData(), new SymbolTable());
+        pricer = new StrataFxOptionPricer();
+        options = snapshot.optionChains().get("BTCUSDT").optionSeries();
+        spot = spots.get("BTCUSDT");
+        riskFreeRate = 0.05;
+        dividendRate = 0.002;
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%nLargest implied vol difference from the marks over %d options: Strata %.3e, "
+                + "BlackScholesPricer %.3e%n", options.size(), maxMarkVolDifference(strataImpliedVols()),
+                maxMarkVolDifference(blackScholesPricerImpliedVols()));
+    }
+
+    private double maxMarkVolDifference(double[] vols) {
+        double maxDifference = 0;
+        for (int i = 0; i < vols.length; i++) {
+            var data = snapshot.optionMarketData().get(options.get(i).symbol());
+            if (Double.isFinite(vols[i]) && data != null && data.impliedVol() != null) {
+                maxDifference = Math.max(maxDifference, Math.abs(vols[i] - data.impliedVol()));
+            }
+        }
+        return maxDifference;
+    }
+
+    @Benchmark
+    public double[] strataCachedMarket() {
+        return pricer.prices(snapshot, chain, AS_OF);
+    }
+
+    @Benchmark
+    public double[] strataMarketPerCall() {
+        return new StrataFxOptionPricer().prices(snapshot, chain, AS_OF);
+    }
+
+    @Benchmark
+    public double[] strataImpliedVols() {
+        return impliedVols(pricer);
+    }
+
+    @Benchmark
+    public double[] blackScholesPricerImpliedVols() {
+        return impliedVols(new BlackScholesPricer());
+    }
+
+    // One option at a time through the interface both engines implement
+    private double[] impliedVols(OptionPricer engine) {
+        var currentDate = new Date(AS_OF);
+        var vols = new double[options.size()];
+        for (int i = 0; i < vols.length; i++) {
+            var option = options.get(i);
+            var data = snapshot.optionMarketData().get(option.symbol());
+            vols[i] = data == null || data.price() == null || option.expiry().getTime() <= AS_OF ? Double.NaN
+                    : engine.impliedVol(option, data.price(), spot, riskFreeRate, dividendRate, currentDate);
+        }
+        return vols;
+    }
+}
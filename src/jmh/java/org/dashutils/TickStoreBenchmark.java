@@ -0,0 +1,134 @@
+package org.dashutils;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tick store ingest and range scan rates, per tick, over a few million ticks: 1000 symbols with marks moving
+ * as small random walks at roughly one second intervals.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class TickStoreBenchmark {
+    static final int SYMBOLS = 1000;
+    static final int SNAPSHOTS = 2000;
+    static final int TICKS = SYMBOLS * SNAPSHOTS;
+
+    @State(Scope.Benchmark)
+    public static class Ticks {
+        final long[] timestamps = new long[SNAPSHOTS];
+        final double[][] vols = new double[SYMBOLS][SNAPSHOTS];
+
+        @Setup
+        public void setup() {
+            var random = new SplittableRandom(11);
+            long timestamp = 1798185600000L;
+            for (int i = 0; i < SNAPSHOTS; i++) {
+                timestamp += 1000 + random.nextInt(-50, 50);
+                timestamps[i] = timestamp;
+                for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                    vols[symbol][i] = i == 0 ? 0.5 + symbol * 1e-4 : vols[symbol][i - 1] + random.nextGaussian() * 1e-4;
+                }
+            }
+        }
+
+        void appendAll(TickStore store) throws IOException {
+            var ids = new int[SYMBOLS];
+            for (int symbol = 0; symbol < SYMBOLS; symbol++) ids[symbol] = store.symbolId("BTC-261225-" + symbol + "-C");
+            for (int i = 0; i < SNAPSHOTS; i++) {
+                for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                    double vol = vols[symbol][i];
+                    store.append(ids[symbol], timestamps[i], vol * 2000, vol, 0.5);
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EmptyStore {
+        Path directory;
+        TickStore store;
+
+        @Setup(Level.Invocation)
+        public void open() throws IOException {
+            directory = Files.createTempDirectory("tick-store-benchmark");
+            store = TickStore.open(directory, Duration.ZERO);
+        }
+
+        @TearDown(Level.Invocation)
+        public void close() throws IOException {
+            store.close();
+            deleteRecursively(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class FilledStore {
+        Path directory;
+        TickStore store;
+        int[] expirySymbolIds;
+
+        @Setup
+        public void fill(Ticks ticks) throws IOException {
+            directory = Files.createTempDirectory("tick-store-benchmark");
+            store = TickStore.open(directory, Duration.ZERO);
+            ticks.appendAll(store);
+            store.flush();
+            // One expiry's worth of strikes
+            expirySymbolIds = new int[100];
+            for (int i = 0; i < expirySymbolIds.length; i++) expirySymbolIds[i] = store.symbols().find("BTC-261225-" + i + "-C");
+            System.out.printf("%n%d ticks in %.1f MB (%.1f bytes per tick)%n", store.tickCount(),
+                    store.dataBytes() / 1e6, (double) store.dataBytes() / store.tickCount());
+        }
+
+        @TearDown
+        public void close() throws IOException {
+            store.close();
+            deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TICKS)
+    public long ingest(Ticks ticks, EmptyStore empty) throws IOException {
+        ticks.appendAll(empty.store);
+        empty.store.flush();
+        return empty.store.tickCount();
+    }
+
+    /**
+     * All implied vols of one expiry over the whole recorded day, per tick visited.
+     */
+    @Benchmark
+    @OperationsPerInvocation(100 * SNAPSHOTS)
+    public void scanExpiryVols(FilledStore filled, Blackhole blackhole) {
+        for (int symbolId : filled.expirySymbolIds) {
+            filled.store.scan(symbolId, TickStore.Column.IMPLIED_VOL, 0, Long.MAX_VALUE,
+                    (id, timestamp, value) -> blackhole.consume(value));
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (var paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
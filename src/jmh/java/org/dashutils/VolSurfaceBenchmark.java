@@ -0,0 +1,49 @@
+package org.dashutils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calibration of every underlying's surface, cold against warm started from the previous fit as on a market
+ * data tick.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VolSurfaceBenchmark {
+    // 2026-10-18 08:00 UTC
+    private static final long AS_OF = 1792310400000L;
+
+    @Param({"52", "1000", "10000"})
+    public int optionCount;
+
+    private HashMap<String, ColumnarOptionChain> chains;
+    private final Map<String, Double> spots = Map.of("BTCUSDT", 108012.34, "ETHUSDT", 3901.27);
+    private final Map<String, Double> rates = Map.of("USDT", 0.05, "BTC", 0.002, "ETH", 0.003);
+    private VolSurfaceEngine engine;
+
+    @Setup
+    public void setup() {
+        chains = ColumnarOptionChain.ofAll(BenchmarkFixtures.optionChains(optionCount),
+                BenchmarkFixtures.optionMarketData(optionCount), new SymbolTable());
+        engine = new VolSurfaceEngine();
+        engine.calibrate(chains, spots, rates, AS_OF);
+    }
+
+    @Benchmark
+    public HashMap<String, VolSurface> calibrateCold() {
+        engine.reset();
+        return engine.calibrate(chains, spots, rates, AS_OF);
+    }
+
+    @Benchmark
+    public HashMap<String, VolSurface> calibrateWarm() {
+        return engine.calibrate(chains, spots, rates, AS_OF);
+    }
+}
@@ -0,0 +1,296 @@
+package org.dash;
+
+import org.dashutils.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Headless batch job: loads market data through a {@link DataRequester}, fits every underlying's vol surface
+ * and reprices every option in parallel, then streams one record per option to a file or stdout. Files are
+ * replaced atomically, timings and peak heap go to stderr and the exit status is non-zero on failure, so it can
+ * run from cron: 2 for bad arguments, 3 when nothing was loaded or priced, leaving the previous output file as
+ * it was, and 1 for any other error.
+ */
+public final class BatchCli {
+    static final String USAGE = """
+            usage: BatchCli [options]
+              --help                          print this message
+              --source mock|binance|snapshot  data source (default mock)
+              --snapshot PATH                 snapshot file of the snapshot source (default ~/.optiondash/snapshot.bin)
+              --format csv|jsonl|columnar     output format (default csv)
+              --output PATH|-                 output file, - for stdout (default -)
+              --underlyings BTCUSDT,...       underlyings to process (default all listed)
+              --threads N                     worker threads (default available processors)
+              --as-of INSTANT|EPOCH_MILLIS    valuation time (default now)""";
+
+    record Options(String source, Path snapshot, ResultWriter.Format format, Path output, Set<String> underlyings,
+                   int threads, long asOfMillis) {}
+
+    record Summary(int underlyings, int options, List<String> skipped, long loadNanos, long computeNanos,
+                   long writeNanos) {}
+
+    /**
+     * Nothing was loaded or priced, e.g. the source failed, so the previous output is left in place.
+     */
+    static final class NoResultsException extends Exception {
+        NoResultsException(String message) {
+            super(message);
+        }
+    }
+
+    private BatchCli() {}
+
+    public static void main(String[] args) {
+        if (Arrays.asList(args).contains("--help")) {
+            System.out.println(USAGE);
+            return;
+        }
+        long startupMillis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        int status;
+        try {
+            var options = parse(args);
+            var summary = run(requester(options), options, System.out);
+            report(System.err, startupMillis, summary);
+            status = 0;
+        } catch (IllegalArgumentException e) {
+            System.err.println("BatchCli: " + e.getMessage());
+            System.err.println(USAGE);
+            status = 2;
+        } catch (NoResultsException e) {
+            System.err.println("BatchCli: " + e.getMessage());
+            status = 3;
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    static Options parse(String[] args) {
+        String source = "mock";
+        Path snapshot = SnapshotFile.defaultPath();
+        var format = ResultWriter.Format.CSV;
+        Path output = null;
+        Set<String> underlyings = Set.of();
+        int threads = Runtime.getRuntime().availableProcessors();
+        long asOfMillis = System.currentTimeMillis();
+
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (i + 1 == args.length) throw new IllegalArgumentException("Missing value for " + name);
+            String value = args[++i];
+            switch (name) {
+                case "--source" -> source = value;
+                case "--snapshot" -> snapshot = Path.of(value);
+                case "--format" -> format = parseFormat(value);
+                case "--output" -> output = "-".equals(value) ? null : Path.of(value);
+                case "--underlyings" -> underlyings = new HashSet<>(Arrays.asList(value.split(",")));
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--as-of" -> asOfMillis = parseAsOf(value);
+                default -> throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        if (threads < 1) throw new IllegalArgumentException("--threads must be at least 1");
+        return new Options(source, snapshot, format, output, underlyings, threads, asOfMillis);
+    }
+
+    private static long parseAsOf(String value) {
+        try {
+            return value.chars().allMatch(Character::isDigit) ? Long.parseLong(value) : Instant.parse(value).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Bad --as-of " + value + ", expected an ISO instant or epoch millis");
+        }
+    }
+
+    private static ResultWriter.Format parseFormat(String value) {
+        try {
+            return ResultWriter.Format.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown format " + value);
+        }
+    }
+
+    static DataRequester requester(Options options) throws IOException {
+        return switch (options.source()) {
+            case "mock" -> new MockDataProvider(MockDataProvider.Config.fromSystemProperties());
+            case "binance" -> new BinanceDataRequest();
+            case "snapshot" -> SnapshotDataRequester.load(options.snapshot());
+            default -> throw new IllegalArgumentException("Unknown source " + options.source());
+        };
+    }
+
+    static Summary run(DataRequester requester, Options options, OutputStream stdout)
+            throws IOException, NoResultsException {
+        long start = System.nanoTime();
+        var snapshot = load(requester, options.underlyings());
+        long loaded = System.nanoTime();
+        // The requesters report failed fetches with empty data
+        if (!snapshot.hasMarketData()) throw new NoResultsException("No option chains or marks loaded from " + options.source());
+
+        RiskEngine.Report report;
+        HashMap<String, VolSurface> surfaces;
+        try (var pool = new ForkJoinPool(options.threads())) {
+            var symbols = new SymbolTable();
+            var chains = pool.submit(() -> snapshot.optionChains().entrySet().parallelStream()
+                    .collect(Collectors.toMap(Map.Entry::getKey,
+                            entry -> ColumnarOptionChain.of(entry.getValue(), snapshot.optionMarketData(), symbols),
+                            (first, second) -> first, HashMap::new))).join();
+            surfaces = new VolSurfaceEngine(pool).calibrate(chains, snapshot.spotPrices(), snapshot.borrowRates(),
+                    options.asOfMillis());
+            report = new RiskEngine(pool).reprice(chains, snapshot.spotPrices(), snapshot.borrowRates(), null,
+                    options.asOfMillis());
+        }
+        long computed = System.nanoTime();
+
+        int written = 0;
+        var skipped = new ArrayList<String>();
+        try (var out = new AtomicOutput(options.output(), stdout);
+             var writer = ResultWriter.open(options.format(), out.stream())) {
+            for (var underlying : new TreeSet<>(snapshot.optionChains().keySet())) {
+                var repriced = report.chains().get(underlying);
+                if (repriced == null) {
+                    skipped.add(underlying);
+                    continue;
+                }
+                var surface = surfaces.get(underlying);
+                var chain = repriced.chain();
+                for (int row = 0; row < chain.size(); row++) {
+                    double fittedVol = surface == null ? Double.NaN : surface.impliedVol(chain.strike(row), chain.expiryAt(row));
+                    writer.write(repriced, row, fittedVol);
+                    written++;
+                }
+            }
+            if (written == 0) {
+                throw new NoResultsException("No options priced, skipped underlyings without a spot price: "
+                        + String.join(", ", skipped));
+            }
+            writer.close();
+            out.commit();
+        }
+        long finished = System.nanoTime();
+
+        return new Summary(report.chains().size(), written, skipped, loaded - start, computed - loaded, finished - computed);
+    }
+
+    /**
+     * Loads the chains first, then rates, marks and the spot price of each listed underlying concurrently. When
+     * underlyings are named only theirs are requested, otherwise every dataset is loaded whole.
+     */
+    static MarketSnapshot load(DataRequester requester, Set<String> underlyings) {
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var chains = new HashMap<String, OptionChain>();
+            CompletableFuture<HashMap<String, OptionMarketData>> marketData;
+            if (underlyings.isEmpty()) {
+                chains.putAll(requester.getOptionChain());
+                marketData = CompletableFuture.supplyAsync(requester::getOptionMarketData, executor);
+            } else {
+                var chainRequests = new HashMap<String, CompletableFuture<OptionChain>>();
+                var marketDataRequests = new ArrayList<CompletableFuture<HashMap<String, OptionMarketData>>>();
+                for (var underlying : underlyings) {
+                    chainRequests.put(underlying, CompletableFuture.supplyAsync(() -> requester.getOptionChain(underlying), executor));
+                    marketDataRequests.add(CompletableFuture.supplyAsync(() -> requester.getOptionMarketData(underlying), executor));
+                }
+                chainRequests.forEach((underlying, request) -> {
+                    if (request.join() != null) chains.put(underlying, request.join());
+                });
+                marketData = CompletableFuture.supplyAsync(() -> {
+                    var merged = new HashMap<String, OptionMarketData>();
+                    marketDataRequests.forEach(request -> merged.putAll(request.join()));
+                    return merged;
+                }, executor);
+            }
+
+            var borrowRates = CompletableFuture.supplyAsync(requester::getBorrowRates, executor);
+            var spotRequests = new HashMap<String, CompletableFuture<Double>>();
+            for (var underlying : chains.keySet()) {
+                spotRequests.put(underlying, CompletableFuture.supplyAsync(() -> requester.getSpotMarketPrice(underlying), executor));
+            }
+
+            var spotPrices = new HashMap<String, Double>();
+            spotRequests.forEach((underlying, request) -> {
+                if (request.join() != null) spotPrices.put(underlying, request.join());
+            });
+            return new MarketSnapshot(borrowRates.join(), chains, marketData.join(), spotPrices);
+        }
+    }
+
+    static void report(PrintStream err, long startupMillis, Summary summary) {
+        long peakHeap = 0;
+        for (var pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) peakHeap += pool.getPeakUsage().getUsed();
+        }
+        if (!summary.skipped().isEmpty()) {
+            err.println("BatchCli: skipped underlyings without a spot price: " + String.join(", ", summary.skipped()));
+        }
+        err.printf(Locale.ROOT, "BatchCli: %d options across %d underlyings; startup %d ms, load %.1f ms, compute %.1f ms, "
+                        + "write %.1f ms; peak heap %.1f MB%n", summary.options(), summary.underlyings(), startupMillis,
+                summary.loadNanos() / 1e6, summary.computeNanos() / 1e6, summary.writeNanos() / 1e6, peakHeap / 1e6);
+    }
+
+    /**
+     * Stdout, or a temp file next to the output that replaces it only once everything has been written, so
+     * readers polling the output never see a partial file.
+     */
+    private static final class AtomicOutput implements AutoCloseable {
+        private final Path path;
+        private final Path temp;
+        private final OutputStream stream;
+
+        AtomicOutput(Path path, OutputStream stdout) throws IOException {
+            this.path = path;
+            if (path == null) {
+                this.temp = null;
+                this.stream = new OutputStream() {
+                    // The writer's close must not close stdout
+                    @Override
+                    public void write(int b) throws IOException {
+                        stdout.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        stdout.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        stdout.flush();
+                    }
+                };
+            } else {
+                var parent = path.toAbsolutePath().getParent();
+                Files.createDirectories(parent);
+                this.temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+                this.stream = Files.newOutputStream(temp);
+            }
+        }
+
+        OutputStream stream() {
+            return stream;
+        }
+
+        void commit() throws IOException {
+            if (temp != null) Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+            if (temp != null) Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.dash;
+
+import org.dashutils.RiskEngine;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Parquet style columnar binary, big endian:
+ * <pre>
+ * int magic 'ODCR', int version
+ * row group*:  int rows, then per column: int byte length, values
+ * footer:      int columns, per column: UTF name, byte type
+ *              int row groups, per row group: long file offset, int rows
+ * int footer length, int magic
+ * </pre>
+ * Column types are {@code 'S'} (modified UTF-8 strings), {@code 'J'} (longs), {@code 'D'} (doubles, NaN where
+ * missing) and {@code 'B'} (bytes, 1 for calls). Length prefixed column chunks let readers skip the columns they
+ * don't need, and the footer lets them find row groups without scanning.
+ */
+final class ColumnarResultWriter implements ResultWriter {
+    static final int MAGIC = 0x4F444352;
+    static final int VERSION = 1;
+    static final int ROW_GROUP_ROWS = 16_384;
+    static final String TYPES = "SSJDBDDDDDDDDDD";
+    private static final int DOUBLE_COLUMNS = 11;
+
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream chunkBytes = new ByteArrayOutputStream(ROW_GROUP_ROWS * 8);
+    private final DataOutputStream chunk = new DataOutputStream(chunkBytes);
+    private long position;
+
+    private final String[] underlyings = new String[ROW_GROUP_ROWS];
+    private final String[] symbols = new String[ROW_GROUP_ROWS];
+    private final long[] expiries = new long[ROW_GROUP_ROWS];
+    private final byte[] sides = new byte[ROW_GROUP_ROWS];
+    // strike, mark, mark_iv, implied_vol, fitted_vol, then the Greeks
+    private final double[][] doubles = new double[DOUBLE_COLUMNS][ROW_GROUP_ROWS];
+    private int rows;
+
+    private final ByteArrayOutputStream rowGroupIndex = new ByteArrayOutputStream();
+    private final DataOutputStream rowGroups = new DataOutputStream(rowGroupIndex);
+    private int rowGroupCount;
+    private boolean closed;
+
+    ColumnarResultWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+        position = 8;
+    }
+
+    @Override
+    public void write(RiskEngine.RepricedChain repriced, int row, double fittedVol) throws IOException {
+        var chain = repriced.chain();
+        underlyings[rows] = chain.underlying();
+        symbols[rows] = chain.symbol(row);
+        expiries[rows] = chain.expiryAt(row);
+        sides[rows] = (byte) (chain.isCall(row) ? 1 : 0);
+        doubles[0][rows] = chain.strike(row);
+        doubles[1][rows] = chain.mark(row);
+        doubles[2][rows] = chain.impliedVol(row);
+        doubles[3][rows] = repriced.impliedVols()[row];
+        doubles[4][rows] = fittedVol;
+        for (int i = 0; i < GREEKS.length; i++) {
+            doubles[5 + i][rows] = repriced.greek(row, GREEKS[i]);
+        }
+        if (++rows == ROW_GROUP_ROWS) flushRowGroup();
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (rows == 0) return;
+        rowGroups.writeLong(position);
+        rowGroups.writeInt(rows);
+        rowGroupCount++;
+
+        out.writeInt(rows);
+        position += 4;
+        for (int i = 0; i < rows; i++) chunk.writeUTF(underlyings[i]);
+        writeChunk();
+        for (int i = 0; i < rows; i++) chunk.writeUTF(symbols[i]);
+        writeChunk();
+        for (int i = 0; i < rows; i++) chunk.writeLong(expiries[i]);
+        writeChunk();
+        writeDoubles(doubles[0]);
+        chunk.write(sides, 0, rows);
+        writeChunk();
+        for (int column = 1; column < DOUBLE_COLUMNS; column++) writeDoubles(doubles[column]);
+        rows = 0;
+    }
+
+    private void writeDoubles(double[] values) throws IOException {
+        for (int i = 0; i < rows; i++) chunk.writeDouble(values[i]);
+        writeChunk();
+    }
+
+    private void writeChunk() throws IOException {
+        out.writeInt(chunkBytes.size());
+        chunkBytes.writeTo(out);
+        position += 4 + chunkBytes.size();
+        chunkBytes.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        flushRowGroup();
+
+        chunk.writeInt(COLUMNS.size());
+        for (int column = 0; column < COLUMNS.size(); column++) {
+            chunk.writeUTF(COLUMNS.get(column));
+            chunk.writeByte(TYPES.charAt(column));
+        }
+        chunk.writeInt(rowGroupCount);
+        rowGroupIndex.writeTo(chunk);
+        int footerLength = chunkBytes.size();
+        chunkBytes.writeTo(out);
+        out.writeInt(footerLength);
+        out.writeInt(MAGIC);
+        out.close();
+    }
+}
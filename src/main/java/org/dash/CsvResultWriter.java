@@ -0,0 +1,60 @@
+package org.dash;
+
+import org.dashutils.RiskEngine;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * RFC 4180 style CSV with a header line. Symbols and underlyings never contain separators or quotes, so fields
+ * are written unquoted.
+ */
+final class CsvResultWriter implements ResultWriter {
+    private final BufferedWriter out;
+
+    CsvResultWriter(OutputStream out) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        this.out.write(String.join(",", COLUMNS));
+        this.out.write("\r\n");
+    }
+
+    @Override
+    public void write(RiskEngine.RepricedChain repriced, int row, double fittedVol) throws IOException {
+        var chain = repriced.chain();
+        out.write(chain.underlying());
+        out.write(',');
+        out.write(chain.symbol(row));
+        out.write(',');
+        out.write(Instant.ofEpochMilli(chain.expiryAt(row)).toString());
+        out.write(',');
+        writeNumber(chain.strike(row));
+        out.write(',');
+        out.write(chain.isCall(row) ? "CALL" : "PUT");
+        out.write(',');
+        writeNumber(chain.mark(row));
+        out.write(',');
+        writeNumber(chain.impliedVol(row));
+        out.write(',');
+        writeNumber(repriced.impliedVols()[row]);
+        out.write(',');
+        writeNumber(fittedVol);
+        for (int greek : GREEKS) {
+            out.write(',');
+            writeNumber(repriced.greek(row, greek));
+        }
+        out.write("\r\n");
+    }
+
+    private void writeNumber(double value) throws IOException {
+        if (Double.isFinite(value)) out.write(Double.toString(value));
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
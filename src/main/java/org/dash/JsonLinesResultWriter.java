@@ -0,0 +1,54 @@
+package org.dash;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.dashutils.RiskEngine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+
+/**
+ * One JSON object per line, written with Jackson's streaming generator.
+ */
+final class JsonLinesResultWriter implements ResultWriter {
+    private final JsonGenerator generator;
+
+    JsonLinesResultWriter(OutputStream out) throws IOException {
+        this.generator = new JsonFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void write(RiskEngine.RepricedChain repriced, int row, double fittedVol) throws IOException {
+        var chain = repriced.chain();
+        generator.writeStartObject();
+        generator.writeStringField(COLUMNS.get(0), chain.underlying());
+        generator.writeStringField(COLUMNS.get(1), chain.symbol(row));
+        generator.writeStringField(COLUMNS.get(2), Instant.ofEpochMilli(chain.expiryAt(row)).toString());
+        writeNumber(COLUMNS.get(3), chain.strike(row));
+        generator.writeStringField(COLUMNS.get(4), chain.isCall(row) ? "CALL" : "PUT");
+        writeNumber(COLUMNS.get(5), chain.mark(row));
+        writeNumber(COLUMNS.get(6), chain.impliedVol(row));
+        writeNumber(COLUMNS.get(7), repriced.impliedVols()[row]);
+        writeNumber(COLUMNS.get(8), fittedVol);
+        for (int i = 0; i < GREEKS.length; i++) {
+            writeNumber(COLUMNS.get(9 + i), repriced.greek(row, GREEKS[i]));
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private void writeNumber(String field, double value) throws IOException {
+        if (Double.isFinite(value)) {
+            generator.writeNumberField(field, value);
+        } else {
+            generator.writeNullField(field);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,44 @@
+package org.dash;
+
+import org.dashutils.BlackScholesKernel;
+import org.dashutils.RiskEngine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Streams one record per option to an output format, straight from the repriced primitive columns.
+ */
+interface ResultWriter extends Closeable {
+    enum Format {
+        CSV, JSONL, COLUMNAR
+    }
+
+    /**
+     * Output columns in order. Expiry is epoch millis in the columnar format and an ISO-8601 instant otherwise;
+     * missing values are empty in CSV, null in JSON lines and NaN in the columnar format.
+     */
+    List<String> COLUMNS = List.of("underlying", "symbol", "expiry", "strike", "side", "mark", "mark_iv",
+            "implied_vol", "fitted_vol", "price", "delta", "gamma", "vega", "theta", "rho");
+
+    /**
+     * Greek columns in {@link #COLUMNS} order, as offsets into {@link RiskEngine.RepricedChain#greeks()}.
+     */
+    int[] GREEKS = {BlackScholesKernel.PRICE, BlackScholesKernel.DELTA, BlackScholesKernel.GAMMA,
+            BlackScholesKernel.VEGA, BlackScholesKernel.THETA, BlackScholesKernel.RHO};
+
+    /**
+     * @param fittedVol the calibrated surface's vol at the option's strike and expiry, NaN without a surface
+     */
+    void write(RiskEngine.RepricedChain repriced, int row, double fittedVol) throws IOException;
+
+    static ResultWriter open(Format format, OutputStream out) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvResultWriter(out);
+            case JSONL -> new JsonLinesResultWriter(out);
+            case COLUMNAR -> new ColumnarResultWriter(out);
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package org.dashui;
+
+/**
+ * Largest-triangle-three-buckets downsampling (Steinarsson, 2013): keeps the first and last points and, from
+ * each bucket in between, the point forming the largest triangle with the point kept before it and the average
+ * of the next bucket. Keeps the visual shape of a line, wings and kinks included, at a fraction of the points.
+ */
+final class Lttb {
+    private Lttb() {}
+
+    /**
+     * @param x         x values in increasing order
+     * @param y         y values
+     * @param count     number of points in {@code x} and {@code y} to use
+     * @param threshold most points to keep, at least 3
+     * @return the indexes of the kept points in increasing order, all of them when there are no more than
+     *         {@code threshold}
+     */
+    static int[] downsample(double[] x, double[] y, int count, int threshold) {
+        if (threshold < 3) throw new IllegalArgumentException("Threshold must be at least 3, was " + threshold);
+        if (count <= threshold) {
+            var all = new int[count];
+            for (int i = 0; i < count; i++) all[i] = i;
+            return all;
+        }
+
+        var kept = new int[threshold];
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int previous = 0;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+
+            // Average of the next bucket, or the last point after the final bucket
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, count);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            averageX /= nextEnd - nextStart;
+            averageY /= nextEnd - nextStart;
+
+            double largestArea = -1;
+            int largest = start;
+            for (int i = start; i < end; i++) {
+                // Twice the triangle's area, which orders the same
+                double area = Math.abs((x[previous] - averageX) * (y[i] - y[previous])
+                        - (x[previous] - x[i]) * (averageY - y[previous]));
+                if (area > largestArea) {
+                    largestArea = area;
+                    largest = i;
+                }
+            }
+            kept[bucket + 1] = largest;
+            previous = largest;
+        }
+        kept[threshold - 1] = count - 1;
+        return kept;
+    }
+}
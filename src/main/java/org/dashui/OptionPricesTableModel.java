@@ -0,0 +1,198 @@
+package org.dashui;
+
+import org.dashutils.BlackScholesKernel;
+import org.dashutils.RiskEngine;
+
+import javax.swing.JLabel;
+import javax.swing.RowFilter;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Option prices table over the columns of a repriced chain, one row per expiry and strike with the call and put
+ * side by side. Rows point into the chain rather than copying it, values are only formatted when a visible cell
+ * is painted, and a repricing swaps in the new copy of the chain and fires events for the changed cells alone.
+ * Sorting and filtering are left to a row sorter, which only maps view rows to these rows.
+ */
+final class OptionPricesTableModel extends AbstractTableModel {
+    static final int EXPIRY = 0;
+    static final int STRIKE = 1;
+    static final int CALL_PRICE = 2;
+    static final int PUT_PRICE = 3;
+    static final int IMPLIED_VOL = 4;
+    static final int CALL_DELTA = 5;
+    static final int VEGA = 6;
+
+    private static final String[] COLUMNS = {"Expiry", "Strike", "Call Price", "Put Price", "Implied Vol (%)",
+            "Call Delta", "Vega (1%)"};
+    private static final int[] NO_ROWS = new int[0];
+
+    // Only ever replaced on the event thread, by a copy the repricer no longer writes to
+    private RiskEngine.RepricedChain priced;
+    private LocalDate[] expiries = new LocalDate[0];
+    private double[] strikes = new double[0];
+    private int[] callRows = NO_ROWS;
+    private int[] putRows = NO_ROWS;
+    // Table row of each chain row, -1 where the chain row isn't shown
+    private int[] tableRows = NO_ROWS;
+    private int rowCount;
+
+    /**
+     * Shows the given expiry slices of the chain, in order.
+     */
+    void show(RiskEngine.RepricedChain priced, Collection<SmileIndex.ExpirySlice> slices) {
+        int count = 0;
+        for (var slice : slices) count += slice.strikes().length;
+
+        this.priced = priced;
+        expiries = new LocalDate[count];
+        strikes = new double[count];
+        callRows = new int[count];
+        putRows = new int[count];
+        tableRows = new int[priced == null ? 0 : priced.chain().size()];
+        Arrays.fill(tableRows, -1);
+
+        int row = 0;
+        for (var slice : slices) {
+            for (int i = 0; i < slice.strikes().length; i++, row++) {
+                expiries[row] = slice.expiry();
+                strikes[row] = slice.strikes()[i];
+                callRows[row] = slice.callRows()[i];
+                putRows[row] = slice.putRows()[i];
+                if (callRows[row] >= 0) tableRows[callRows[row]] = row;
+                if (putRows[row] >= 0) tableRows[putRows[row]] = row;
+            }
+        }
+        rowCount = count;
+        fireTableDataChanged();
+    }
+
+    void clear() {
+        show(null, List.of());
+    }
+
+    /**
+     * Switches to a later copy of the shown chain, in the same rows, and fires updates for the cells of the shown
+     * chain rows that were repriced, or one update of every row when most of them were.
+     */
+    void marksChanged(RiskEngine.RepricedChain priced, BitSet changedRows) {
+        this.priced = priced;
+        // Each table row shows up to two chain rows
+        int shownChanged = 0;
+        for (int chainRow = changedRows.nextSetBit(0); chainRow >= 0 && chainRow < tableRows.length;
+             chainRow = changedRows.nextSetBit(chainRow + 1)) {
+            if (tableRows[chainRow] >= 0) shownChanged++;
+        }
+        if (shownChanged > rowCount) {
+            fireTableRowsUpdated(0, rowCount - 1);
+            return;
+        }
+
+        for (int chainRow = changedRows.nextSetBit(0); chainRow >= 0 && chainRow < tableRows.length;
+             chainRow = changedRows.nextSetBit(chainRow + 1)) {
+            int row = tableRows[chainRow];
+            if (row < 0) continue;
+            if (chainRow == callRows[row]) {
+                fireTableCellUpdated(row, CALL_PRICE);
+                fireTableCellUpdated(row, IMPLIED_VOL);
+                fireTableCellUpdated(row, CALL_DELTA);
+                fireTableCellUpdated(row, VEGA);
+            } else {
+                fireTableCellUpdated(row, PUT_PRICE);
+            }
+        }
+    }
+
+    /**
+     * Whether the expiry date or plain strike of a row contains the text, for filtering without formatting
+     * every cell.
+     */
+    boolean matches(int row, String text) {
+        if (text.isEmpty()) return true;
+        return expiries[row].toString().contains(text) || strikeText(strikes[row]).contains(text);
+    }
+
+    RowFilter<OptionPricesTableModel, Integer> filter(String text) {
+        return new RowFilter<>() {
+            @Override
+            public boolean include(Entry<? extends OptionPricesTableModel, ? extends Integer> entry) {
+                return matches(entry.getIdentifier(), text);
+            }
+        };
+    }
+
+    private static String strikeText(double strike) {
+        return strike == Math.rint(strike) ? Long.toString((long) strike) : Double.toString(strike);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == EXPIRY ? LocalDate.class : Double.class;
+    }
+
+    /**
+     * @return the expiry date, or the raw strike, price, the call's mark implied vol (as a fraction) or its Greeks,
+     * NaN where not marked or priced
+     */
+    @Override
+    public Object getValueAt(int row, int column) {
+        int callRow = callRows[row];
+        return switch (column) {
+            case EXPIRY -> expiries[row];
+            case STRIKE -> strikes[row];
+            case CALL_PRICE -> mark(callRow);
+            case PUT_PRICE -> mark(putRows[row]);
+            case IMPLIED_VOL -> Double.isNaN(mark(callRow)) ? Double.NaN : priced.chain().impliedVol(callRow);
+            case CALL_DELTA -> callRow < 0 ? Double.NaN : priced.greek(callRow, BlackScholesKernel.DELTA);
+            case VEGA -> callRow < 0 ? Double.NaN : priced.greek(callRow, BlackScholesKernel.VEGA);
+            default -> throw new IndexOutOfBoundsException(column);
+        };
+    }
+
+    private double mark(int chainRow) {
+        return chainRow < 0 ? Double.NaN : priced.chain().mark(chainRow);
+    }
+
+    /**
+     * Right aligned number formatted when its cell is painted, with N/A for NaN.
+     */
+    static final class NumberRenderer extends DefaultTableCellRenderer {
+        private final DecimalFormat format;
+        private final String prefix;
+        private final double scale;
+
+        NumberRenderer(String pattern, String prefix, double scale) {
+            this.format = new DecimalFormat(pattern);
+            this.prefix = prefix;
+            this.scale = scale;
+            setHorizontalAlignment(JLabel.RIGHT);
+        }
+
+        @Override
+        protected void setValue(Object value) {
+            if (value instanceof Double number) {
+                setText(number.isNaN() ? "N/A" : prefix + format.format(number * scale));
+            } else {
+                setText(value == null ? "" : value.toString());
+            }
+        }
+    }
+}
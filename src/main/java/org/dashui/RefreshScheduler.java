@@ -0,0 +1,146 @@
+package org.dashui;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Runs the window's loads off the event thread, one at a time per lane (the data source, a reload, the view),
+ * and hands their results back on the event thread.
+ * <p>
+ * A superseding request, one that makes what's loading stale such as picking another underlying, cancels the
+ * running load and is debounced: the lane starts loading once no request has come in for the debounce delay, and
+ * only the latest of a burst runs. Other requests, such as redraws for streamed marks, aren't debounced, since a
+ * steady stream of them would keep restarting the delay; they start straight away when the lane is idle.
+ * <p>
+ * A request made while the lane is loading waits for that load and replaces any request already waiting,
+ * except that a plain request never replaces a waiting superseding one, which loads the latest data anyway and
+ * whose apply the caller relies on, e.g. to leave its loading state. Each request gets a generation number, and a
+ * result is only applied if no superseding request came after it, so a slow stale load can't overwrite a newer
+ * one.
+ */
+final class RefreshScheduler implements AutoCloseable {
+    private record Request<T>(long generation, boolean supersede, Callable<T> load, Consumer<T> apply,
+                              Consumer<Exception> failed) {}
+
+    private static final class Lane {
+        long generation;
+        // Results of requests before this one are stale
+        long validFrom;
+        Request<?> waiting;
+        ScheduledFuture<?> debounce;
+        Request<?> runningRequest;
+        Future<?> running;
+
+        // A cancelled load is let go rather than waited for, so the next request can start straight away
+        void cancelRunning() {
+            if (running != null) running.cancel(true);
+            running = null;
+            runningRequest = null;
+        }
+    }
+
+    private final Duration debounce;
+    private final Executor applyExecutor;
+    private final ScheduledExecutorService timer =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("refresh-timer").factory());
+    // One load per lane at a time, besides cancelled ones still unwinding
+    private final ExecutorService loads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("refresh-", 0).factory());
+    private final Map<String, Lane> lanes = new HashMap<>();
+    private boolean closed;
+
+    /**
+     * @param applyExecutor runs the apply and failure callbacks, the event thread in the UI
+     */
+    RefreshScheduler(Duration debounce, Executor applyExecutor) {
+        this.debounce = debounce;
+        this.applyExecutor = applyExecutor;
+    }
+
+    /**
+     * Requests a run of {@code load} on the lane, with its result passed to {@code apply}, or the exception it
+     * threw to {@code failed}, unless it has gone stale by then.
+     *
+     * @param supersede whether this request makes the lane's running load stale, cancelling it
+     */
+    synchronized <T> void request(String lane, boolean supersede, Callable<T> load, Consumer<T> apply,
+                                  Consumer<Exception> failed) {
+        if (closed) return;
+        var state = lanes.computeIfAbsent(lane, key -> new Lane());
+        if (!supersede && state.waiting != null && state.waiting.supersede()) return;
+
+        long generation = ++state.generation;
+        state.waiting = new Request<>(generation, supersede, load, apply, failed);
+        if (!supersede) {
+            startWaiting(state);
+            return;
+        }
+
+        state.validFrom = generation;
+        state.cancelRunning();
+        if (state.debounce != null) state.debounce.cancel(false);
+        state.debounce = timer.schedule(() -> debounced(state, generation), debounce.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Drops the lane's waiting request and makes its running load stale, cancelling it.
+     */
+    synchronized void cancel(String lane) {
+        var state = lanes.get(lane);
+        if (state == null) return;
+        state.validFrom = ++state.generation;
+        state.waiting = null;
+        if (state.debounce != null) state.debounce.cancel(false);
+        state.debounce = null;
+        state.cancelRunning();
+    }
+
+    private synchronized void debounced(Lane state, long generation) {
+        // A later request restarted the delay
+        if (state.waiting == null || state.waiting.generation() != generation) return;
+        state.debounce = null;
+        startWaiting(state);
+    }
+
+    private void startWaiting(Lane state) {
+        if (closed || state.running != null || state.waiting == null || state.debounce != null) return;
+        var request = state.waiting;
+        state.waiting = null;
+        state.runningRequest = request;
+        state.running = loads.submit(() -> run(state, request));
+    }
+
+    private <T> void run(Lane state, Request<T> request) {
+        try {
+            T result = request.load().call();
+            applyExecutor.execute(() -> {
+                if (isCurrent(state, request)) request.apply().accept(result);
+            });
+        } catch (Exception e) {
+            applyExecutor.execute(() -> {
+                if (isCurrent(state, request)) request.failed().accept(e);
+            });
+        } finally {
+            synchronized (this) {
+                if (state.runningRequest == request) {
+                    state.running = null;
+                    state.runningRequest = null;
+                }
+                startWaiting(state);
+            }
+        }
+    }
+
+    private synchronized boolean isCurrent(Lane state, Request<?> request) {
+        return !closed && request.generation() >= state.validFrom;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        timer.shutdownNow();
+        loads.shutdownNow();
+    }
+}
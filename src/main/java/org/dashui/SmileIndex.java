@@ -0,0 +1,105 @@
+package org.dashui;
+
+import org.dashutils.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Index of underlying -> expiry date -> strike sorted call/put row pairs into the columnar chains, built once
+ * per set of listed contracts, so the chart, table and expiry selector are lookups rather than scans of the
+ * whole chain. A chain listing two expiries on the same UTC date, which the date keys can't tell apart, keeps the
+ * earlier one and drops the other, counted in {@code ui.index.duplicateExpiries}; the underlying's other expiries
+ * and the other underlyings are indexed as usual.
+ */
+final class SmileIndex {
+    /**
+     * One expiry of an underlying. {@code callRows[i]} and {@code putRows[i]} are rows in the columnar chain
+     * for {@code strikes[i]}, or -1 where that side isn't listed.
+     */
+    record ExpirySlice(LocalDate expiry, long expiryMillis, double[] strikes, int[] callRows, int[] putRows, int callCount) {}
+
+    static final Metrics.Counter DUPLICATE_EXPIRIES = Metrics.counter("ui.index.duplicateExpiries");
+
+    private final Map<String, ColumnarOptionChain> chains;
+    private final Map<String, NavigableMap<LocalDate, ExpirySlice>> slices = new HashMap<>();
+
+    private SmileIndex(Map<String, ColumnarOptionChain> chains) {
+        this.chains = chains;
+        chains.forEach((underlying, chain) -> slices.put(underlying, buildSlices(chain)));
+    }
+
+    static SmileIndex build(Map<String, OptionChain> optionChains, Map<String, OptionMarketData> marketData) {
+        return new SmileIndex(ColumnarOptionChain.ofAll(optionChains, marketData, new SymbolTable()));
+    }
+
+    /**
+     * Indexes chains whose market data columns may later be updated in place, as long as their rows don't change.
+     */
+    static SmileIndex build(Map<String, ColumnarOptionChain> chains) {
+        return new SmileIndex(chains);
+    }
+
+    /**
+     * Whether this index was built from exactly this map of chains.
+     */
+    boolean isBuiltFrom(Map<String, ColumnarOptionChain> chains) {
+        return this.chains == chains;
+    }
+
+    static LocalDate expiryDate(long expiryMillis) {
+        return Instant.ofEpochMilli(expiryMillis).atZone(ZoneOffset.UTC).toLocalDate();
+    }
+
+    ColumnarOptionChain chain(String underlying) {
+        return chains.get(underlying);
+    }
+
+    NavigableMap<LocalDate, ExpirySlice> expiries(String underlying) {
+        return slices.getOrDefault(underlying, Collections.emptyNavigableMap());
+    }
+
+    ExpirySlice slice(String underlying, LocalDate expiry) {
+        return expiry == null ? null : expiries(underlying).get(expiry);
+    }
+
+    private static NavigableMap<LocalDate, ExpirySlice> buildSlices(ColumnarOptionChain chain) {
+        var expirySlices = new TreeMap<LocalDate, ExpirySlice>();
+
+        for (int e = 0; e < chain.expiryCount(); e++) {
+            int start = chain.expiryStart(e);
+            int end = chain.expiryEnd(e);
+            var strikes = new double[end - start];
+            var callRows = new int[end - start];
+            var putRows = new int[end - start];
+            int count = 0;
+            int callCount = 0;
+
+            // Rows are sorted by strike within an expiry, so equal strikes are adjacent
+            for (int row = start; row < end; row++) {
+                if (count == 0 || strikes[count - 1] != chain.strike(row)) {
+                    strikes[count] = chain.strike(row);
+                    callRows[count] = -1;
+                    putRows[count] = -1;
+                    count++;
+                }
+                if (chain.isCall(row)) {
+                    callRows[count - 1] = row;
+                    callCount++;
+                } else {
+                    putRows[count - 1] = row;
+                }
+            }
+
+            // Expiries are at a fixed time of day, so a date identifies one expiry; another on the same date is
+            // bad data, and expiries are in time order so the first listed is kept
+            var date = expiryDate(chain.expiry(e));
+            var previous = expirySlices.putIfAbsent(date, new ExpirySlice(date, chain.expiry(e),
+                    Arrays.copyOf(strikes, count), Arrays.copyOf(callRows, count), Arrays.copyOf(putRows, count), callCount));
+            if (previous != null) DUPLICATE_EXPIRIES.increment();
+        }
+        return expirySlices;
+    }
+}
@@ -0,0 +1,123 @@
+package org.dashui;
+
+import org.dashutils.RiskEngine;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Call smiles of every expiry of one underlying, with the marks' implied vols, built once per load off the event
+ * thread for the overlay and heatmap views. Smiles are downsampled with {@link Lttb} and the heatmap is the
+ * full smiles resampled onto a common strike grid, so what gets drawn stays bounded however dense the chain is.
+ */
+final class SurfaceViewData {
+    /**
+     * One expiry's call vols in percent, by increasing strike.
+     */
+    record Smile(LocalDate expiry, double[] strikes, double[] vols) {}
+
+    static final SurfaceViewData EMPTY = new SurfaceViewData(List.of(), new double[0], new double[0][]);
+
+    private final List<Smile> smiles;
+    private final double[] gridStrikes;
+    // [smile][strike], NaN outside the strikes listed for that expiry
+    private final double[][] gridVols;
+
+    private SurfaceViewData(List<Smile> smiles, double[] gridStrikes, double[][] gridVols) {
+        this.smiles = smiles;
+        this.gridStrikes = gridStrikes;
+        this.gridVols = gridVols;
+    }
+
+    /**
+     * @param maxPoints   most points kept per smile
+     * @param gridColumns strikes of the heatmap grid, evenly spaced over every listed strike
+     */
+    static SurfaceViewData build(RiskEngine.RepricedChain priced, Collection<SmileIndex.ExpirySlice> slices,
+                                 int maxPoints, int gridColumns) {
+        if (priced == null) return EMPTY;
+
+        var fullSmiles = new ArrayList<Smile>();
+        double minStrike = Double.POSITIVE_INFINITY;
+        double maxStrike = Double.NEGATIVE_INFINITY;
+        var chain = priced.chain();
+        for (var slice : slices) {
+            var strikes = new double[slice.strikes().length];
+            var vols = new double[slice.strikes().length];
+            int count = 0;
+            for (int i = 0; i < strikes.length; i++) {
+                int callRow = slice.callRows()[i];
+                if (callRow >= 0 && !Double.isNaN(chain.impliedVol(callRow))) {
+                    strikes[count] = slice.strikes()[i];
+                    vols[count++] = chain.impliedVol(callRow) * 100;
+                }
+            }
+            if (count < 2) continue;
+            fullSmiles.add(new Smile(slice.expiry(), Arrays.copyOf(strikes, count), Arrays.copyOf(vols, count)));
+            minStrike = Math.min(minStrike, strikes[0]);
+            maxStrike = Math.max(maxStrike, strikes[count - 1]);
+        }
+        if (fullSmiles.isEmpty()) return EMPTY;
+
+        var gridStrikes = new double[gridColumns];
+        double step = (maxStrike - minStrike) / Math.max(1, gridColumns - 1);
+        for (int i = 0; i < gridColumns; i++) gridStrikes[i] = minStrike + i * step;
+
+        var smiles = new ArrayList<Smile>(fullSmiles.size());
+        var gridVols = new double[fullSmiles.size()][];
+        for (int s = 0; s < fullSmiles.size(); s++) {
+            var smile = fullSmiles.get(s);
+            gridVols[s] = resample(smile, gridStrikes);
+
+            var kept = Lttb.downsample(smile.strikes(), smile.vols(), smile.strikes().length, maxPoints);
+            var strikes = new double[kept.length];
+            var vols = new double[kept.length];
+            for (int i = 0; i < kept.length; i++) {
+                strikes[i] = smile.strikes()[kept[i]];
+                vols[i] = smile.vols()[kept[i]];
+            }
+            smiles.add(new Smile(smile.expiry(), strikes, vols));
+        }
+        return new SurfaceViewData(List.copyOf(smiles), gridStrikes, gridVols);
+    }
+
+    // Linear in strike between listed strikes
+    private static double[] resample(Smile smile, double[] gridStrikes) {
+        var strikes = smile.strikes();
+        var vols = new double[gridStrikes.length];
+        int upper = 1;
+        for (int i = 0; i < gridStrikes.length; i++) {
+            double strike = gridStrikes[i];
+            if (strike < strikes[0] || strike > strikes[strikes.length - 1]) {
+                vols[i] = Double.NaN;
+                continue;
+            }
+            while (upper < strikes.length - 1 && strikes[upper] < strike) upper++;
+            double weight = (strike - strikes[upper - 1]) / (strikes[upper] - strikes[upper - 1]);
+            vols[i] = smile.vols()[upper - 1] + weight * (smile.vols()[upper] - smile.vols()[upper - 1]);
+        }
+        return vols;
+    }
+
+    List<Smile> smiles() {
+        return smiles;
+    }
+
+    double[] gridStrikes() {
+        return gridStrikes;
+    }
+
+    /**
+     * @return the vol in percent of the given smile at the given grid strike, NaN outside its listed strikes
+     */
+    double gridVol(int smile, int column) {
+        return gridVols[smile][column];
+    }
+
+    double gridStep() {
+        return gridStrikes.length < 2 ? 1 : gridStrikes[1] - gridStrikes[0];
+    }
+}
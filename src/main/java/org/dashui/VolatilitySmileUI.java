@@ -4,37 +4,116 @@ import org.dashutils.*;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.axis.SymbolAxis;
 import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.LookupPaintScale;
+import org.jfree.chart.renderer.xy.XYBlockRenderer;
+import org.jfree.chart.title.PaintScaleLegend;
+import org.jfree.chart.ui.RectangleEdge;
+import org.jfree.data.xy.DefaultXYZDataset;
 import org.jfree.data.xy.XYSeries;
 import org.jfree.data.xy.XYSeriesCollection;
 
+import javax.management.JMException;
 import javax.swing.*;
+import javax.swing.Timer;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableRowSorter;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.text.DecimalFormat;
-import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 public class VolatilitySmileUI extends JFrame {
-    private CachedDataRequester dataProvider;
+    private static final LatencyHistogram CHART_DATA_TIMER = Metrics.timer("ui.chart.load");
+    private static final LatencyHistogram CHART_REBUILD_TIMER = Metrics.timer("ui.chart.rebuild");
+    private static final LatencyHistogram CHART_UPDATE_TIMER = Metrics.timer("ui.chart.update");
+    private static final LatencyHistogram SURFACE_BUILD_TIMER = Metrics.timer("ui.surface.build");
+    private static final LatencyHistogram SURFACE_RENDER_TIMER = Metrics.timer("ui.surface.render");
+    private static final Metrics.Counter UI_ERRORS = Metrics.counter("ui.errors");
+    // Cap on chart redraws driven by stream updates
+    private static final int MAX_FRAMES_PER_SECOND = Math.max(1, Integer.getInteger("optiondash.ui.maxFps", 10));
+    // Level of detail of the all expiries views: points per overlaid smile and strikes across the heatmap
+    private static final int OVERLAY_POINTS = 64;
+    private static final int HEATMAP_COLUMNS = 80;
+    private static final String SMILE_VIEW = "Smile";
+    private static final String OVERLAY_VIEW = "All Expiries";
+    private static final String HEATMAP_VIEW = "Heatmap";
+    // Refresh lanes, each running one load at a time
+    private static final String SOURCE_LANE = "source";
+    private static final String RELOAD_LANE = "reload";
+    private static final String VIEW_LANE = "view";
+    
+    private volatile CachedDataRequester dataProvider;
     private JComboBox<String> coinSelector;
     private JComboBox<String> dataSourceSelector;
-    private JComboBox<String> expirySelector;
+    private JComboBox<LocalDate> expirySelector;
     private ChartPanel chartPanel;
     private JButton refreshButton;
     private JLabel statusLabel;
     private JTable interestRatesTable;
-    private JTable optionPricesTable;
-    private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+    private final OptionPricesTableModel optionPrices = new OptionPricesTableModel();
+    private JCheckBox allExpiries;
     private DecimalFormat percentFormat = new DecimalFormat("#,##0.00");
-    private DecimalFormat priceFormat = new DecimalFormat("#,##0.00");
+    private DecimalFormat latencyFormat = new DecimalFormat("#,##0.000");
+    private DefaultTableModel metricsModel;
+    private final Timer metricsRefreshTimer = new Timer(1000, e -> updateMetricsTable());
+    // Source loads hold this, so one still unwinding after being superseded can't interleave with the next
+    private final Object sourceLock = new Object();
+    // Set by source loads on the loader threads
+    private volatile BinanceStreamingDataRequester streamingProvider;
+    private volatile MockDataProvider mockProvider;
+    private final Timer streamRefreshTimer = new Timer(1000 / MAX_FRAMES_PER_SECOND, e -> refreshView(false));
+    private final RefreshScheduler refreshScheduler = new RefreshScheduler(Duration.ofMillis(50), SwingUtilities::invokeLater);
+    // Set while the expiry selector is refilled, whose selection events aren't the user's
+    private boolean fillingExpiries;
+    // The window's monitor guards the repricer, index, pending rows and the caches built from them; it's only
+    // held to update those, never across a provider fetch or a fit, so the event thread can always take it
+    private SmileIndex smileIndex;
+    private IncrementalRepricer market = new IncrementalRepricer();
+    private final Map<String, BitSet> changedRows = new HashMap<>();
+    private final Map<String, VolSurface> fittedSurfaces = new HashMap<>();
+    // Underlyings selected so far, the only ones loaded and kept current; added on the event thread, read by loads
+    private final Set<String> viewedUnderlyings = new CopyOnWriteArraySet<>();
+    // Symbols streamed since the last load, by viewed underlying, so stream driven loads only reprice those rows
+    private final ConcurrentHashMap<String, Set<String>> pendingMarks = new ConcurrentHashMap<>();
+    // One chart for the life of the window, its series refilled in place
+    private JFreeChart chart;
+    private final XYSeries smileSeries = new XYSeries("Implied Volatility", true, false);
+    private final XYSeries fittedSeries = new XYSeries("SVI Fit");
+    // The all expiries views, drawn from the surface data of the last load
+    private JFreeChart overlayChart;
+    private final XYSeriesCollection overlayDataset = new XYSeriesCollection();
+    private JFreeChart heatmapChart;
+    private final DefaultXYZDataset heatmapDataset = new DefaultXYZDataset();
+    private JComboBox<String> viewSelector;
+    private final Map<String, SurfaceViewData> surfaceViews = new HashMap<>();
+    private final Map<String, SmileIndex> surfaceViewIndexes = new HashMap<>();
+    private ChartData shownData;
+    private String shownCoin;
+    private LocalDate shownExpiry;
+    private SmileIndex shownIndex;
+    private volatile boolean persistSnapshots;
+    private final TickStore tickStore = openTickStore();
+    private final VolSurfaceEngine surfaceEngine = new VolSurfaceEngine();
     
     public VolatilitySmileUI() {
-        this.dataProvider = new CachedDataRequester(new MockDataProvider());
+        this.dataProvider = new CachedDataRequester(new MeteredDataRequester(
+                new MockDataProvider(MockDataProvider.Config.fromSystemProperties())));
+        streamRefreshTimer.setRepeats(false);
+        startMetricsExport();
         initializeUI();
     }
     
@@ -49,7 +128,7 @@ public class VolatilitySmileUI extends JFrame {
         
         // Data source selector
         topPanel.add(new JLabel("Data Source:"));
-        String[] dataSources = {"Mock Data", "Binance API"};
+        String[] dataSources = {"Mock Data", "Binance API", "Binance Stream", "Offline Snapshot"};
         dataSourceSelector = new JComboBox<>(dataSources);
         dataSourceSelector.addActionListener(e -> switchDataSource());
         topPanel.add(dataSourceSelector);
@@ -58,14 +137,11 @@ public class VolatilitySmileUI extends JFrame {
         
         // Coin selector
         topPanel.add(new JLabel("Select Crypto:"));
-        String[] coins = {"BTC", "ETH", "SOL", "ADA", "DOT"};
-        for (var i = 0; i < coins.length; ++i) coins[i] += "USDT";
-
-        coinSelector = new JComboBox<>(coins);
+        // Filled with the data source's underlyings once it's loaded
+        coinSelector = new JComboBox<>();
         coinSelector.addActionListener(e -> {
-            updateInterestRatesTable();
-            updateExpirySelector();
-            updateChart();
+            viewSelectedUnderlying();
+            refreshView(true);
         });
         topPanel.add(coinSelector);
         
@@ -74,11 +150,21 @@ public class VolatilitySmileUI extends JFrame {
         // Expiry selector
         topPanel.add(new JLabel("Expiry Date:"));
         expirySelector = new JComboBox<>();
-        expirySelector.addActionListener(e -> updateChart());
+        expirySelector.addActionListener(e -> {
+            if (!fillingExpiries) showSelectedExpiry();
+        });
         topPanel.add(expirySelector);
         
         topPanel.add(new JSeparator(SwingConstants.VERTICAL));
         
+        // Chart view, the all expiries ones drawn from the data already loaded
+        topPanel.add(new JLabel("View:"));
+        viewSelector = new JComboBox<>(new String[]{SMILE_VIEW, OVERLAY_VIEW, HEATMAP_VIEW});
+        viewSelector.addActionListener(e -> showView());
+        topPanel.add(viewSelector);
+        
+        topPanel.add(new JSeparator(SwingConstants.VERTICAL));
+        
         // Refresh button
         refreshButton = new JButton("Refresh Data");
         refreshButton.addActionListener(e -> refreshData());
@@ -92,14 +178,81 @@ public class VolatilitySmileUI extends JFrame {
         
         // Initialize tables
         initializeTables();
+        initializeChart();
         
-        // Create initial chart
-        updateExpirySelector();
-        updateChart();
+        // Load the underlyings and the chart of the first one
+        switchDataSource();
         
         setLocationRelativeTo(null);
     }
     
+    private void initializeChart() {
+        var dataset = new XYSeriesCollection(smileSeries);
+        dataset.addSeries(fittedSeries);
+        chart = ChartFactory.createXYLineChart(
+                "Volatility Smile",
+                "Strike Price",
+                "Implied Volatility (%)",
+                dataset,
+                PlotOrientation.VERTICAL,
+                true,
+                true,
+                false
+        );
+        
+        overlayChart = ChartFactory.createXYLineChart(
+                "Volatility Smiles",
+                "Strike Price",
+                "Implied Volatility (%)",
+                overlayDataset,
+                PlotOrientation.VERTICAL,
+                true,
+                true,
+                false
+        );
+        
+        var strikeAxis = new NumberAxis("Strike Price");
+        strikeAxis.setAutoRangeIncludesZero(false);
+        var heatmapRenderer = new XYBlockRenderer();
+        var heatmapPlot = new XYPlot(heatmapDataset, strikeAxis, new SymbolAxis("Expiry", new String[0]), heatmapRenderer);
+        heatmapChart = new JFreeChart("Volatility Surface", JFreeChart.DEFAULT_TITLE_FONT, heatmapPlot, false);
+        
+        chartPanel = new ChartPanel(chart);
+        add(chartPanel, BorderLayout.CENTER);
+    }
+    
+    /**
+     * Puts the selected view's chart in the panel, drawing the all expiries views from the last load.
+     */
+    private void showView() {
+        var view = viewSelector.getSelectedItem();
+        if (OVERLAY_VIEW.equals(view)) {
+            chartPanel.setChart(overlayChart);
+        } else if (HEATMAP_VIEW.equals(view)) {
+            chartPanel.setChart(heatmapChart);
+        } else {
+            chartPanel.setChart(chart);
+        }
+        if (shownData != null) renderSurfaceView(shownCoin, shownData);
+    }
+    
+    /**
+     * Switches the smile and table to another expiry of the shown index without reloading anything; the data is
+     * only loaded when it isn't there yet.
+     */
+    private void showSelectedExpiry() {
+        String selectedCoin = (String) coinSelector.getSelectedItem();
+        LocalDate selectedExpiry = (LocalDate) expirySelector.getSelectedItem();
+        if (selectedCoin == null || selectedExpiry == null) return;
+        
+        if (shownData != null && selectedCoin.equals(shownCoin) && shownData.index.slice(selectedCoin, selectedExpiry) != null) {
+            showSmile(selectedCoin, selectedExpiry, shownData);
+            updateOptionPricesTable(selectedCoin, selectedExpiry, shownData);
+        } else {
+            refreshView(true);
+        }
+    }
+    
     private void initializeTables() {
         // Create a panel to hold both tables on the left side
         JPanel leftPanel = new JPanel();
@@ -121,343 +274,915 @@ public class VolatilitySmileUI extends JFrame {
         rateScrollPane.setBorder(BorderFactory.createTitledBorder("Lending Rates"));
         leftPanel.add(rateScrollPane);
         
-        // Option prices table
-        String[] priceColumns = {"Strike", "Call Price", "Put Price", "Implied Vol (%)"};
-        DefaultTableModel priceModel = new DefaultTableModel(priceColumns, 0);
-        optionPricesTable = new JTable(priceModel);
+        // Option prices table, formatted as cells are painted and sorted through a view of the model's rows
+        JTable optionPricesTable = new JTable(optionPrices);
+        var sorter = new TableRowSorter<>(optionPrices);
+        optionPricesTable.setRowSorter(sorter);
+        var columns = optionPricesTable.getColumnModel();
+        columns.getColumn(OptionPricesTableModel.EXPIRY).setCellRenderer(rightRenderer);
+        columns.getColumn(OptionPricesTableModel.STRIKE).setCellRenderer(new OptionPricesTableModel.NumberRenderer("#,##0.00", "$", 1));
+        columns.getColumn(OptionPricesTableModel.CALL_PRICE).setCellRenderer(new OptionPricesTableModel.NumberRenderer("#,##0.00", "$", 1));
+        columns.getColumn(OptionPricesTableModel.PUT_PRICE).setCellRenderer(new OptionPricesTableModel.NumberRenderer("#,##0.00", "$", 1));
+        columns.getColumn(OptionPricesTableModel.IMPLIED_VOL).setCellRenderer(new OptionPricesTableModel.NumberRenderer("#,##0.00", "", 100));
+        columns.getColumn(OptionPricesTableModel.CALL_DELTA).setCellRenderer(new OptionPricesTableModel.NumberRenderer("0.000", "", 1));
+        // Vega is per 1.00 of vol, shown per vol point
+        columns.getColumn(OptionPricesTableModel.VEGA).setCellRenderer(new OptionPricesTableModel.NumberRenderer("#,##0.00", "$", 0.01));
+        
+        allExpiries = new JCheckBox("All expiries");
+        allExpiries.addActionListener(e -> {
+            if (shownData != null) updateOptionPricesTable(shownCoin, shownExpiry, shownData);
+        });
+        JTextField filterField = new JTextField(10);
+        filterField.setToolTipText("Show rows whose expiry or strike contains this text");
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filter();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filter();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filter();
+            }
+            
+            private void filter() {
+                var text = filterField.getText().trim();
+                sorter.setRowFilter(text.isEmpty() ? null : optionPrices.filter(text));
+            }
+        });
+        
+        JPanel priceControls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        priceControls.add(allExpiries);
+        priceControls.add(new JLabel("Filter:"));
+        priceControls.add(filterField);
+        
+        JPanel pricePanel = new JPanel(new BorderLayout());
+        pricePanel.setBorder(BorderFactory.createTitledBorder("Option Prices"));
+        pricePanel.add(priceControls, BorderLayout.NORTH);
+        pricePanel.add(new JScrollPane(optionPricesTable), BorderLayout.CENTER);
+        leftPanel.add(pricePanel);
         
-        // Right-align numeric columns
-        for (int i = 0; i < priceColumns.length; i++) {
-            optionPricesTable.getColumnModel().getColumn(i).setCellRenderer(rightRenderer);
+        // Metrics panel, refreshed once a second while collection is on
+        String[] metricColumns = {"Metric", "Count", "p50 (ms)", "p99 (ms)"};
+        metricsModel = new DefaultTableModel(metricColumns, 0);
+        JTable metricsTable = new JTable(metricsModel);
+        for (int i = 1; i < metricColumns.length; i++) {
+            metricsTable.getColumnModel().getColumn(i).setCellRenderer(rightRenderer);
         }
         
-        JScrollPane priceScrollPane = new JScrollPane(optionPricesTable);
-        priceScrollPane.setBorder(BorderFactory.createTitledBorder("Option Prices"));
-        leftPanel.add(priceScrollPane);
+        JCheckBox collectMetrics = new JCheckBox("Collect metrics", Metrics.enabled());
+        collectMetrics.addActionListener(e -> Metrics.setEnabled(collectMetrics.isSelected()));
+        
+        JPanel metricsPanel = new JPanel(new BorderLayout());
+        metricsPanel.setBorder(BorderFactory.createTitledBorder("Metrics"));
+        metricsPanel.setPreferredSize(new Dimension(375, 200));
+        metricsPanel.add(collectMetrics, BorderLayout.NORTH);
+        metricsPanel.add(new JScrollPane(metricsTable), BorderLayout.CENTER);
+        leftPanel.add(metricsPanel);
+        metricsRefreshTimer.start();
         
         add(leftPanel, BorderLayout.WEST);
+    }
+    
+    /**
+     * Shows the borrow rates of the selected underlying and USDT.
+     */
+    private void updateInterestRatesTable(String selectedCoin, Map<String, Double> rates) {
+        DefaultTableModel model = (DefaultTableModel) interestRatesTable.getModel();
+        model.setRowCount(0);
         
-        updateInterestRatesTable();
+        // Show rate for selected crypto
+        String baseCrypto = selectedCoin.replace("USDT", "");
+        if (rates.containsKey(baseCrypto)) {
+            double rate = rates.get(baseCrypto) * 100; // Convert to percentage
+            model.addRow(new Object[]{baseCrypto, percentFormat.format(rate)});
+        }
+        
+        // Always show USDT rate
+        if (rates.containsKey("USDT")) {
+            double usdtRate = rates.get("USDT") * 100;
+            model.addRow(new Object[]{"USDT", percentFormat.format(usdtRate)});
+        } else {
+            // If USDT rate not available, show 0% as placeholder
+            model.addRow(new Object[]{"USDT", percentFormat.format(0.0)});
+        }
     }
     
-    private void updateInterestRatesTable() {
-        SwingWorker<HashMap<String, Double>, Void> worker = new SwingWorker<HashMap<String, Double>, Void>() {
-            @Override
-            protected HashMap<String, Double> doInBackground() throws Exception {
-                return dataProvider.getBorrowRates();
+    /**
+     * Refills the expiry selector if the expiries changed, without it firing a selection of its own.
+     */
+    private void updateExpirySelector(List<LocalDate> expiries, LocalDate selectedExpiry) {
+        fillingExpiries = true;
+        try {
+            boolean same = expirySelector.getItemCount() == expiries.size();
+            for (int i = 0; same && i < expiries.size(); i++) {
+                same = expiries.get(i).equals(expirySelector.getItemAt(i));
             }
-            
-            @Override
-            protected void done() {
-                try {
-                    HashMap<String, Double> rates = get();
-                    DefaultTableModel model = (DefaultTableModel) interestRatesTable.getModel();
-                    model.setRowCount(0);
-                    
-                    String selectedCoin = (String) coinSelector.getSelectedItem();
-                    if (selectedCoin != null) {
-                        // Show rate for selected crypto
-                        String baseCrypto = selectedCoin.replace("USDT", "");
-                        if (rates.containsKey(baseCrypto)) {
-                            double rate = rates.get(baseCrypto) * 100; // Convert to percentage
-                            model.addRow(new Object[]{baseCrypto, percentFormat.format(rate)});
-                        }
-                        
-                        // Always show USDT rate
-                        if (rates.containsKey("USDT")) {
-                            double usdtRate = rates.get("USDT") * 100;
-                            model.addRow(new Object[]{"USDT", percentFormat.format(usdtRate)});
-                        } else {
-                            // If USDT rate not available, show 0% as placeholder
-                            model.addRow(new Object[]{"USDT", percentFormat.format(0.0)});
-                        }
-                    }
-                } catch (InterruptedException | ExecutionException e) {
-                    e.printStackTrace();
+            if (!same) {
+                expirySelector.removeAllItems();
+                for (LocalDate expiry : expiries) {
+                    expirySelector.addItem(expiry);
                 }
             }
-        };
-        worker.execute();
+            expirySelector.setSelectedItem(selectedExpiry);
+        } finally {
+            fillingExpiries = false;
+        }
     }
     
-    private void updateExpirySelector() {
+    /**
+     * Loads and shows the rates, expiries, smile and table of the selected underlying. Requests are coalesced, so
+     * a burst of them loads once.
+     *
+     * @param userAction whether the user asked for it, which supersedes any load of an earlier selection and shows
+     *                   the loading state; stream frames don't, so the controls stay usable and a busy stream still
+     *                   gets its loads through
+     */
+    private void refreshView(boolean userAction) {
         String selectedCoin = (String) coinSelector.getSelectedItem();
+        LocalDate selectedExpiry = (LocalDate) expirySelector.getSelectedItem();
         if (selectedCoin == null) return;
         
-        SwingWorker<Set<String>, Void> worker = new SwingWorker<Set<String>, Void>() {
-            @Override
-            protected Set<String> doInBackground() throws Exception {
-                var optionChains = dataProvider.getOptionChain();
-                Set<String> expiries = new HashSet<>();
-                
-                if (optionChains.containsKey(selectedCoin)) {
-                    OptionChain chain = optionChains.get(selectedCoin);
-                    
-                    // Group options by expiry date and count them
-                    Map<Date, Long> expiryCount = chain.optionSeries().stream()
-                            .filter(option -> option.callPut() == CallPut.CALL)
-                            .collect(Collectors.groupingBy(Option::expiry, Collectors.counting()));
-                    
-                    // Only include expiries with 3+ options
-                    expiries = expiryCount.entrySet().stream()
-                            .filter(entry -> entry.getValue() >= 3)
-                            .map(entry -> dateFormat.format(entry.getKey()))
-                            .collect(Collectors.toSet());
-                }
-                
-                return expiries;
-            }
+        if (userAction) setLoadingState(true, "Loading chart data...");
+        refreshScheduler.request(VIEW_LANE, userAction,
+                () -> loadView(selectedCoin, selectedExpiry, !userAction),
+                view -> {
+                    applyView(view);
+                    if (userAction) setLoadingState(false, "Ready");
+                },
+                e -> {
+                    setLoadingState(false, errorStatus("Error loading data", e));
+                    reportError(e);
+                });
+    }
+    
+    /**
+     * @param streamed whether stream updates asked for it, so only the marks they changed need loading
+     */
+    private ViewData loadView(String selectedCoin, LocalDate selectedExpiry, boolean streamed) {
+        long start = Metrics.start();
+        var rates = dataProvider.getBorrowRates();
+        var synced = syncMarket(selectedCoin, streamed);
+        var index = synced.index();
+        
+        // Only include expiries with 3+ calls, already in date order
+        List<LocalDate> expiries = new ArrayList<>();
+        for (var slice : index.expiries(selectedCoin).values()) {
+            if (slice.callCount() >= 3) expiries.add(slice.expiry());
+        }
+        var expiry = expiries.contains(selectedExpiry) ? selectedExpiry : expiries.isEmpty() ? null : expiries.get(0);
+        
+        var priced = synced.priced();
+        var changed = synced.changedRows();
+        Double spotPrice = dataProvider.getSpotMarketPrice(selectedCoin);
+        var surface = fittedSurface(selectedCoin, priced == null ? null : priced.chain(), spotPrice, rates, changed != null);
+        var surfaceData = surfaceViewData(selectedCoin, index, priced, changed != null);
+        Metrics.stop(CHART_DATA_TIMER, start);
+        
+        return new ViewData(selectedCoin, rates, expiries, expiry,
+                new ChartData(index, priced, spotPrice, surface, changed, surfaceData));
+    }
+    
+    private void applyView(ViewData view) {
+        updateInterestRatesTable(view.coin(), view.rates());
+        updateExpirySelector(view.expiries(), view.expiry());
+        if (view.expiry() == null) return;
+        
+        var data = view.chart();
+        long start = Metrics.start();
+        if (isShown(view.coin(), view.expiry(), data.index)) {
+            applyChanges(view.coin(), view.expiry(), data);
+            Metrics.stop(CHART_UPDATE_TIMER, start);
+        } else {
+            showSmile(view.coin(), view.expiry(), data);
+            updateOptionPricesTable(view.coin(), view.expiry(), data);
+            Metrics.stop(CHART_REBUILD_TIMER, start);
+        }
+        renderSurfaceView(view.coin(), data);
+        if (data.changedRows != null) changesShown(view.coin(), data.changedRows);
+    }
+    
+    /**
+     * Refills the chart with the selected smile, redrawing it once.
+     */
+    private void showSmile(String selectedCoin, LocalDate selectedExpiry, ChartData data) {
+        var slice = data.index.slice(selectedCoin, selectedExpiry);
+        chart.setNotify(false);
+        try {
+            chart.setTitle(chartTitle(selectedCoin, selectedExpiry, data.spotPrice));
+            fillSmileSeries(smileSeries, data.priced, slice);
+            fillFittedSeries(fittedSeries, data.surface, slice);
+        } finally {
+            chart.setNotify(true);
+        }
+        
+        shownCoin = selectedCoin;
+        shownExpiry = selectedExpiry;
+        shownIndex = data.index;
+        shownData = data;
+    }
+    
+    private boolean isShown(String selectedCoin, LocalDate selectedExpiry, SmileIndex index) {
+        return selectedCoin.equals(shownCoin) && selectedExpiry.equals(shownExpiry) && index == shownIndex;
+    }
+    
+    /**
+     * Updates the smile points and table rows of the options repriced since the chart was drawn, and the fit if
+     * any of them changed. The chart is redrawn once for all of them.
+     */
+    private void applyChanges(String selectedCoin, LocalDate selectedExpiry, ChartData data) {
+        shownData = data;
+        chart.setNotify(false);
+        try {
+            chart.setTitle(chartTitle(selectedCoin, selectedExpiry, data.spotPrice));
+            var slice = data.index.slice(selectedCoin, selectedExpiry);
+            if (data.changedRows != null && slice != null) applyChangedRows(selectedCoin, slice, data);
+        } finally {
+            chart.setNotify(true);
+        }
+        if (data.changedRows != null) optionPrices.marksChanged(data.priced, data.changedRows);
+    }
+    
+    private void applyChangedRows(String selectedCoin, SmileIndex.ExpirySlice slice, ChartData data) {
+        var chain = data.priced.chain();
+        int[] callRows = slice.callRows();
+        
+        smileSeries.setNotify(false);
+        for (int i = 0; i < callRows.length; i++) {
+            if (callRows[i] < 0 || !data.changedRows.get(callRows[i])) continue;
             
-            @Override
-            protected void done() {
-                try {
-                    Set<String> expiries = get();
-                    expirySelector.removeAllItems();
-                    
-                    List<String> sortedExpiries = expiries.stream()
-                            .sorted()
-                            .collect(Collectors.toList());
-                    
-                    for (String expiry : sortedExpiries) {
-                        expirySelector.addItem(expiry);
-                    }
-                } catch (InterruptedException | ExecutionException e) {
-                    e.printStackTrace();
-                }
+            double strike = slice.strikes()[i];
+            double vol = chain.impliedVol(callRows[i]);
+            if (!Double.isNaN(vol)) {
+                smileSeries.addOrUpdate(strike, vol * 100);
+            } else if (smileSeries.indexOf(strike) >= 0) {
+                smileSeries.remove(strike);
             }
-        };
+        }
+        smileSeries.setNotify(true);
         
-        worker.execute();
+        fillFittedSeries(fittedSeries, data.surface, slice);
     }
     
-    private void updateChart() {
-        String selectedCoin = (String) coinSelector.getSelectedItem();
-        String selectedExpiry = (String) expirySelector.getSelectedItem();
-        if (selectedCoin == null || selectedExpiry == null) return;
+    /**
+     * Draws the surface data into the all expiries view on screen, if that's the one shown. Views not on screen
+     * are drawn when switched to.
+     */
+    private void renderSurfaceView(String selectedCoin, ChartData data) {
+        var view = viewSelector.getSelectedItem();
+        if (SMILE_VIEW.equals(view)) return;
         
-        setLoadingState(true, "Loading chart data...");
+        long start = Metrics.start();
+        var title = selectedCoin + " - " + data.surfaceData.smiles().size() + " expiries (Spot: $"
+                + String.format("%.2f", data.spotPrice) + ")";
+        if (OVERLAY_VIEW.equals(view)) {
+            renderOverlay(title, data.surfaceData);
+        } else {
+            renderHeatmap(title, data.surfaceData);
+        }
+        Metrics.stop(SURFACE_RENDER_TIMER, start);
+    }
+    
+    private void renderOverlay(String title, SurfaceViewData surfaceData) {
+        var smiles = surfaceData.smiles();
+        overlayChart.setNotify(false);
+        try {
+            overlayChart.setTitle(title);
+            // Series are kept per expiry so a refresh of the same expiries only updates their points
+            boolean sameExpiries = overlayDataset.getSeriesCount() == smiles.size();
+            for (int i = 0; sameExpiries && i < smiles.size(); i++) {
+                sameExpiries = overlayDataset.getSeriesKey(i).equals(smiles.get(i).expiry().toString());
+            }
+            if (!sameExpiries) {
+                overlayDataset.removeAllSeries();
+                for (var smile : smiles) overlayDataset.addSeries(new XYSeries(smile.expiry().toString(), true, false));
+            }
+            for (int i = 0; i < smiles.size(); i++) {
+                var smile = smiles.get(i);
+                replacePoints(overlayDataset.getSeries(i), smile.strikes(), smile.vols(), smile.strikes().length);
+            }
+        } finally {
+            overlayChart.setNotify(true);
+        }
+    }
+    
+    private void renderHeatmap(String title, SurfaceViewData surfaceData) {
+        var smiles = surfaceData.smiles();
+        int columns = surfaceData.gridStrikes().length;
+        var x = new double[smiles.size() * columns];
+        var y = new double[x.length];
+        var z = new double[x.length];
+        int cells = 0;
+        double minVol = Double.POSITIVE_INFINITY;
+        double maxVol = Double.NEGATIVE_INFINITY;
+        for (int s = 0; s < smiles.size(); s++) {
+            for (int c = 0; c < columns; c++) {
+                double vol = surfaceData.gridVol(s, c);
+                if (Double.isNaN(vol)) continue;
+                x[cells] = surfaceData.gridStrikes()[c];
+                y[cells] = s;
+                z[cells++] = vol;
+                minVol = Math.min(minVol, vol);
+                maxVol = Math.max(maxVol, vol);
+            }
+        }
         
-        SwingWorker<ChartData, Void> worker = new SwingWorker<ChartData, Void>() {
-            @Override
-            protected ChartData doInBackground() throws Exception {
-                var optionChains = dataProvider.getOptionChain();
-                var marketData = dataProvider.getOptionMarketData();
-                Double spotPrice = dataProvider.getSpotMarketPrice(selectedCoin);
-                
-                return new ChartData(optionChains, marketData, spotPrice);
+        var labels = new String[smiles.size()];
+        for (int s = 0; s < labels.length; s++) labels[s] = smiles.get(s).expiry().toString();
+        var plot = (XYPlot) heatmapChart.getPlot();
+        var renderer = (XYBlockRenderer) plot.getRenderer();
+        
+        heatmapChart.setNotify(false);
+        try {
+            heatmapChart.setTitle(title);
+            heatmapChart.clearSubtitles();
+            plot.setRangeAxis(new SymbolAxis("Expiry", labels));
+            renderer.setBlockWidth(surfaceData.gridStep());
+            renderer.setBlockHeight(1);
+            if (cells > 0) {
+                var scale = heatScale(minVol, maxVol);
+                renderer.setPaintScale(scale);
+                var legend = new PaintScaleLegend(scale, new NumberAxis("Implied Volatility (%)"));
+                legend.setPosition(RectangleEdge.RIGHT);
+                heatmapChart.addSubtitle(legend);
             }
-            
-            @Override
-            protected void done() {
-                try {
-                    ChartData data = get();
-                    createChart(selectedCoin, selectedExpiry, data);
-                    updateOptionPricesTable(selectedCoin, selectedExpiry, data);
-                    setLoadingState(false, "Ready");
-                } catch (InterruptedException | ExecutionException e) {
-                    setLoadingState(false, "Error loading data");
-                    e.printStackTrace();
+            heatmapDataset.addSeries("Implied Volatility", new double[][]{
+                    Arrays.copyOf(x, cells), Arrays.copyOf(y, cells), Arrays.copyOf(z, cells)});
+        } finally {
+            heatmapChart.setNotify(true);
+        }
+    }
+    
+    // Blue for the lowest vol through to red for the highest
+    private static LookupPaintScale heatScale(double minVol, double maxVol) {
+        double upper = maxVol > minVol ? maxVol : minVol + 1;
+        var scale = new LookupPaintScale(minVol, upper, Color.LIGHT_GRAY);
+        int steps = 32;
+        for (int i = 0; i < steps; i++) {
+            float level = (float) i / (steps - 1);
+            scale.add(minVol + i * (upper - minVol) / steps, Color.getHSBColor(0.66f * (1 - level), 0.85f, 0.9f));
+        }
+        return scale;
+    }
+    
+    private static String chartTitle(String selectedCoin, LocalDate selectedExpiry, Double spotPrice) {
+        return selectedCoin + " Volatility Smile - " + selectedExpiry + " (Spot: $" + String.format("%.2f", spotPrice) + ")";
+    }
+    
+    static XYSeries buildSmileSeries(RiskEngine.RepricedChain priced, SmileIndex.ExpirySlice slice) {
+        // One point per strike, so single points can be updated by strike
+        XYSeries series = new XYSeries("Implied Volatility", true, false);
+        fillSmileSeries(series, priced, slice);
+        return series;
+    }
+    
+    /**
+     * Replaces the points of the series with the call vols of the slice, or clears it if there's no slice.
+     */
+    static void fillSmileSeries(XYSeries series, RiskEngine.RepricedChain priced, SmileIndex.ExpirySlice slice) {
+        int[] callRows = slice == null || priced == null ? new int[0] : slice.callRows();
+        var chain = priced == null ? null : priced.chain();
+        var strikes = new double[callRows.length];
+        var vols = new double[callRows.length];
+        int count = 0;
+        
+        // Calls only, slices are already in strike order
+        for (int i = 0; i < callRows.length; i++) {
+            if (callRows[i] >= 0 && !Double.isNaN(chain.impliedVol(callRows[i]))) {
+                strikes[count] = slice.strikes()[i];
+                vols[count++] = chain.impliedVol(callRows[i]) * 100; // Convert to percentage
+            }
+        }
+        replacePoints(series, strikes, vols, count);
+    }
+    
+    /**
+     * Replaces the points of the series with the calibrated surface sampled across the listed strikes of the
+     * slice, or clears it if there's no surface.
+     */
+    static void fillFittedSeries(XYSeries series, VolSurface surface, SmileIndex.ExpirySlice slice) {
+        int points = 50;
+        var strikes = new double[points];
+        var vols = new double[points];
+        int count = 0;
+        
+        double[] listed = slice == null ? new double[0] : slice.strikes();
+        if (surface != null && listed.length >= 2) {
+            double step = (listed[listed.length - 1] - listed[0]) / (points - 1);
+            for (int i = 0; i < points; i++) {
+                double strike = listed[0] + i * step;
+                double vol = surface.impliedVol(strike, slice.expiryMillis());
+                if (!Double.isNaN(vol)) {
+                    strikes[count] = strike;
+                    vols[count++] = vol * 100;
                 }
             }
-        };
+        }
+        replacePoints(series, strikes, vols, count);
+    }
+    
+    /**
+     * Sets the series to the given points with a single change event. When the x values are the ones already
+     * there, as on every refresh of the same smile, the y values are updated in place.
+     */
+    static void replacePoints(XYSeries series, double[] x, double[] y, int count) {
+        boolean sameX = series.getItemCount() == count;
+        for (int i = 0; sameX && i < count; i++) {
+            sameX = series.getX(i).doubleValue() == x[i];
+        }
         
-        worker.execute();
+        series.setNotify(false);
+        try {
+            if (sameX) {
+                for (int i = 0; i < count; i++) series.updateByIndex(i, y[i]);
+            } else {
+                series.clear();
+                for (int i = 0; i < count; i++) series.add(x[i], y[i], false);
+            }
+        } finally {
+            series.setNotify(true);
+        }
+    }
+    
+    /**
+     * Points the table at the selected expiry of the chain, or at every expiry when they're all asked for.
+     */
+    private void updateOptionPricesTable(String selectedCoin, LocalDate selectedExpiry, ChartData data) {
+        var slice = data.index.slice(selectedCoin, selectedExpiry);
+        if (slice == null) {
+            optionPrices.clear();
+        } else if (allExpiries.isSelected()) {
+            optionPrices.show(data.priced, data.index.expiries(selectedCoin).values());
+        } else {
+            optionPrices.show(data.priced, List.of(slice));
+        }
     }
     
-    private void createChart(String selectedCoin, String selectedExpiry, ChartData data) {
-        XYSeries series = new XYSeries("Implied Volatility");
+    /**
+     * Feeds the provider's current datasets of the viewed underlyings to the repricer, which only recomputes what
+     * changed, and returns the smile index of its chains, rebuilt only when the listed contracts change, with a copy
+     * of the selected underlying's results for the event thread. Repriced rows accumulate per underlying until the
+     * chart takes them.
+     * <p>
+     * The datasets are fetched before taking the window's monitor, since a fetch can wait on Binance.
+     *
+     * @param streamed whether to load only the marks streamed since the last load, which is done once the repricer
+     *                 holds every viewed underlying; otherwise every viewed underlying's marks are loaded
+     * @throws CancellationException if the data source was switched while fetching
+     */
+    private SyncedMarket syncMarket(String spotTicker, boolean streamed) {
+        IncrementalRepricer repricer;
+        boolean incremental;
+        synchronized (this) {
+            repricer = market;
+            incremental = streamed && market.chains().keySet().containsAll(viewedUnderlyings);
+        }
+        var provider = dataProvider;
+        var streaming = streamingProvider;
+        var changedSymbols = new HashMap<String, Set<String>>();
+        var pushedMarks = new HashMap<String, HashMap<String, OptionMarketData>>();
+        if (incremental) {
+            for (var underlying : pendingMarks.keySet()) {
+                var symbols = pendingMarks.remove(underlying);
+                if (symbols == null) continue;
+                changedSymbols.put(underlying, symbols);
+                pushedMarks.put(underlying, provider.getMarks(underlying, symbols));
+            }
+        } else {
+            // Marks streamed from here on are either in the load below or pending for the next one
+            pendingMarks.clear();
+        }
+        var optionChains = new HashMap<String, OptionChain>();
+        var marketData = new HashMap<String, OptionMarketData>();
+        for (var underlying : viewedUnderlyings) {
+            // Seeds and subscribes the underlying's marks the first time it's viewed
+            if (streaming != null) streaming.watch(underlying);
+            var chain = provider.getOptionChain(underlying);
+            if (chain == null) continue;
+            optionChains.put(underlying, chain);
+            if (!incremental) marketData.putAll(provider.getOptionMarketData(underlying));
+        }
+        var borrowRates = provider.getBorrowRates();
+        var spotPrice = spotTicker == null ? null : provider.getSpotMarketPrice(spotTicker);
         
-        if (data.optionChains.containsKey(selectedCoin)) {
-            OptionChain chain = data.optionChains.get(selectedCoin);
-            
-            // Parse the selected expiry date
-            Date targetExpiry = null;
-            try {
-                targetExpiry = dateFormat.parse(selectedExpiry);
-            } catch (Exception e) {
-                e.printStackTrace();
-                return;
+        synchronized (this) {
+            // The fetched data came from the old source, so it mustn't reach the new source's repricer
+            if (market != repricer) throw new CancellationException("Data source switched while loading");
+            market.setOptionChains(optionChains);
+            market.setBorrowRates(borrowRates);
+            if (incremental) {
+                pushedMarks.forEach((underlying, marks) -> market.setMarks(underlying, changedSymbols.get(underlying), marks));
+            } else {
+                market.setMarketData(marketData);
             }
+            if (spotTicker != null) market.setSpotPrice(spotTicker, spotPrice);
             
-            final Date finalTargetExpiry = targetExpiry;
-            
-            // Filter for calls only, matching expiry, and sort by strike
-            chain.optionSeries().stream()
-                    .filter(option -> option.callPut() == CallPut.CALL)
-                    .filter(option -> dateFormat.format(option.expiry()).equals(selectedExpiry))
-                    .sorted((a, b) -> Double.compare(a.strike(), b.strike()))
-                    .forEach(option -> {
-                        OptionMarketData marketData = data.marketData.get(option.symbol());
-                        if (marketData != null) {
-                            series.add(option.strike(), marketData.impliedVol() * 100); // Convert to percentage
-                        }
-                    });
-        }
-        
-        XYSeriesCollection dataset = new XYSeriesCollection(series);
-        
-        JFreeChart chart = ChartFactory.createXYLineChart(
-                selectedCoin + " Volatility Smile - " + selectedExpiry + " (Spot: $" + String.format("%.2f", data.spotPrice) + ")",
-                "Strike Price",
-                "Implied Volatility (%)",
-                dataset,
-                PlotOrientation.VERTICAL,
-                true,
-                true,
-                false
-        );
-        
-        if (chartPanel != null) {
-            remove(chartPanel);
+            market.recompute(System.currentTimeMillis()).rows().forEach((underlying, rows) ->
+                    changedRows.merge(underlying, rows, (pending, added) -> {
+                        pending.or(added);
+                        return pending;
+                    }));
+            if (smileIndex == null || !smileIndex.isBuiltFrom(market.chains())) {
+                smileIndex = SmileIndex.build(market.chains());
+            }
+            // The repricer keeps updating its chains in place, so the view only ever reads this copy
+            return new SyncedMarket(smileIndex, market.snapshot(spotTicker), pendingChangedRows(spotTicker));
+        }
+    }
+    
+    /**
+     * @return the rows repriced since they were last shown, or null if none were
+     */
+    private synchronized BitSet pendingChangedRows(String underlying) {
+        var rows = changedRows.get(underlying);
+        return rows == null ? null : (BitSet) rows.clone();
+    }
+    
+    /**
+     * Clears the shown rows from those pending, leaving any repriced while they were loading, so changes loaded
+     * by a superseded load are picked up by the next one.
+     */
+    private synchronized void changesShown(String underlying, BitSet shown) {
+        var rows = changedRows.get(underlying);
+        if (rows == null) return;
+        rows.andNot(shown);
+        if (rows.isEmpty()) changedRows.remove(underlying);
+    }
+    
+    /**
+     * The all expiries data of the coin, built once per smile index and again only when marks changed. It's built
+     * outside the window's monitor, from the load's own copy of the chain.
+     */
+    private SurfaceViewData surfaceViewData(String coin, SmileIndex index, RiskEngine.RepricedChain priced,
+                                            boolean changed) {
+        synchronized (this) {
+            var cached = surfaceViews.get(coin);
+            if (cached != null && !changed && surfaceViewIndexes.get(coin) == index) return cached;
         }
         
-        chartPanel = new ChartPanel(chart);
-        add(chartPanel, BorderLayout.CENTER);
-        revalidate();
-        repaint();
+        long start = Metrics.start();
+        var surfaceData = SurfaceViewData.build(priced, index.expiries(coin).values(), OVERLAY_POINTS, HEATMAP_COLUMNS);
+        Metrics.stop(SURFACE_BUILD_TIMER, start);
+        synchronized (this) {
+            surfaceViews.put(coin, surfaceData);
+            surfaceViewIndexes.put(coin, index);
+        }
+        return surfaceData;
     }
     
-    private void updateOptionPricesTable(String selectedCoin, String selectedExpiry, ChartData data) {
-        DefaultTableModel model = (DefaultTableModel) optionPricesTable.getModel();
-        model.setRowCount(0);
+    /**
+     * Refits the surface only when the underlying's marks, spot or rates changed since the last fit. The fit runs
+     * outside the window's monitor, on the load's own copy of the chain.
+     */
+    private VolSurface fittedSurface(String coin, ColumnarOptionChain chain, Double spotPrice,
+                                     Map<String, Double> borrowRates, boolean changed) {
+        if (chain == null || spotPrice == null) return null;
         
-        if (!data.optionChains.containsKey(selectedCoin)) return;
+        synchronized (this) {
+            var surface = fittedSurfaces.get(coin);
+            if (surface != null && !changed) return surface;
+        }
+        var surface = surfaceEngine.calibrate(Map.of(coin, chain), Map.of(coin, spotPrice), borrowRates,
+                System.currentTimeMillis()).get(coin);
+        synchronized (this) {
+            fittedSurfaces.put(coin, surface);
+        }
+        return surface;
+    }
+    
+    private synchronized void resetMarket() {
+        market = new IncrementalRepricer();
+        viewedUnderlyings.clear();
+        pendingMarks.clear();
+        changedRows.clear();
+        fittedSurfaces.clear();
+        surfaceViews.clear();
+        surfaceViewIndexes.clear();
+        smileIndex = null;
+    }
+    
+    private List<String> viewedUnderlyings() {
+        return new ArrayList<>(viewedUnderlyings);
+    }
+    
+    /**
+     * Adds the selected underlying to those loaded and kept current, and warms the caches of its neighbours in the
+     * selector, the likeliest next picks.
+     */
+    private void viewSelectedUnderlying() {
+        int index = coinSelector.getSelectedIndex();
+        if (index < 0) return;
         
-        OptionChain chain = data.optionChains.get(selectedCoin);
+        viewedUnderlyings.add(coinSelector.getItemAt(index));
+        var provider = dataProvider;
+        for (int neighbour : new int[]{index - 1, index + 1}) {
+            if (neighbour >= 0 && neighbour < coinSelector.getItemCount()) {
+                // Best effort, a failed prefetch is retried when the underlying is selected
+                provider.prefetchUnderlying(coinSelector.getItemAt(neighbour)).exceptionally(error -> null);
+            }
+        }
+    }
+    
+    /**
+     * Underlyings named by {@code optiondash.underlyings} (comma separated, e.g. BTCUSDT,ETHUSDT) if set,
+     * otherwise those the data source lists.
+     */
+    private static List<String> underlyingUniverse(DataRequester provider) {
+        var configured = System.getProperty("optiondash.underlyings");
+        if (configured == null || configured.isBlank()) return provider.getUnderlyings();
         
-        // Parse the selected expiry date
-        Date targetExpiry = null;
-        try {
-            targetExpiry = dateFormat.parse(selectedExpiry);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return;
-        }
-        
-        // Group options by strike price for the selected expiry
-        Map<Double, List<Option>> optionsByStrike = chain.optionSeries().stream()
-                .filter(option -> dateFormat.format(option.expiry()).equals(selectedExpiry))
-                .collect(Collectors.groupingBy(Option::strike));
-        
-        // Sort by strike and populate table
-        optionsByStrike.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .forEach(entry -> {
-                    double strike = entry.getKey();
-                    List<Option> options = entry.getValue();
-                    
-                    Option callOption = options.stream()
-                            .filter(opt -> opt.callPut() == CallPut.CALL)
-                            .findFirst().orElse(null);
-                    
-                    Option putOption = options.stream()
-                            .filter(opt -> opt.callPut() == CallPut.PUT)
-                            .findFirst().orElse(null);
-                    
-                    String callPrice = "N/A";
-                    String putPrice = "N/A";
-                    String impliedVol = "N/A";
-                    
-                    if (callOption != null) {
-                        OptionMarketData callData = data.marketData.get(callOption.symbol());
-                        if (callData != null) {
-                            callPrice = "$" + priceFormat.format(callData.price());
-                            impliedVol = percentFormat.format(callData.impliedVol() * 100);
-                        }
-                    }
-                    
-                    if (putOption != null) {
-                        OptionMarketData putData = data.marketData.get(putOption.symbol());
-                        if (putData != null) {
-                            putPrice = "$" + priceFormat.format(putData.price());
-                        }
-                    }
-                    
-                    model.addRow(new Object[]{
-                        "$" + priceFormat.format(strike),
-                        callPrice,
-                        putPrice,
-                        impliedVol
-                    });
-                });
+        var underlyings = new ArrayList<String>();
+        for (var name : configured.split(",")) {
+            var underlying = name.trim().toUpperCase(Locale.ROOT);
+            if (!underlying.isEmpty()) underlyings.add(underlying.endsWith("USDT") ? underlying : underlying + "USDT");
+        }
+        return underlyings;
     }
     
+    private record SourceData(List<String> underlyings, boolean primed) {}
+    
+    private record ViewData(String coin, HashMap<String, Double> rates, List<LocalDate> expiries, LocalDate expiry,
+                            ChartData chart) {}
+    
+    private record SyncedMarket(SmileIndex index, RiskEngine.RepricedChain priced, BitSet changedRows) {}
+    
     private static class ChartData {
-        final HashMap<String, OptionChain> optionChains;
-        final HashMap<String, OptionMarketData> marketData;
+        final SmileIndex index;
+        // The shown underlying's chain and results as of this load, in the rows of the index
+        final RiskEngine.RepricedChain priced;
         final Double spotPrice;
+        final VolSurface surface;
+        final BitSet changedRows;
+        final SurfaceViewData surfaceData;
         
-        ChartData(HashMap<String, OptionChain> optionChains, 
-                 HashMap<String, OptionMarketData> marketData, 
-                 Double spotPrice) {
-            this.optionChains = optionChains;
-            this.marketData = marketData;
+        ChartData(SmileIndex index, RiskEngine.RepricedChain priced, Double spotPrice, VolSurface surface,
+                  BitSet changedRows, SurfaceViewData surfaceData) {
+            this.index = index;
+            this.priced = priced;
             this.spotPrice = spotPrice;
+            this.surface = surface;
+            this.changedRows = changedRows;
+            this.surfaceData = surfaceData;
         }
     }
     
     private void switchDataSource() {
         String selected = (String) dataSourceSelector.getSelectedItem();
+        String selectedCoin = (String) coinSelector.getSelectedItem();
         
         setLoadingState(true, "Switching data source...");
-        
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
-            @Override
-            protected Void doInBackground() throws Exception {
-                DataRequester newProvider;
-                
-                if ("Binance API".equals(selected)) {
-                    newProvider = new BinanceDataRequest();
-                } else {
-                    newProvider = new MockDataProvider();
-                }
-                
-                dataProvider = new CachedDataRequester(newProvider);
-                return null;
+        // Whatever was loading came from the old source
+        refreshScheduler.cancel(RELOAD_LANE);
+        refreshScheduler.cancel(VIEW_LANE);
+        refreshScheduler.request(SOURCE_LANE, true, () -> loadSource(selected, selectedCoin), source -> {
+            var model = new DefaultComboBoxModel<>(source.underlyings().toArray(String[]::new));
+            if (source.underlyings().contains(selectedCoin)) model.setSelectedItem(selectedCoin);
+            coinSelector.setModel(model);
+            viewSelectedUnderlying();
+            
+            setLoadingState(false, source.underlyings().isEmpty() ? "No underlyings listed" : "Ready");
+            refreshView(true);
+            if (source.primed()) loadData(false, "Loading live data...");
+        }, e -> {
+            setLoadingState(false, errorStatus("Error switching data source", e));
+            reportError(e);
+        });
+    }
+    
+    private SourceData loadSource(String selected, String selectedCoin) throws Exception {
+        synchronized (sourceLock) {
+            DataRequester newProvider;
+            List<String> coins = null;
+            var cacheConfig = CachedDataRequester.Config.defaults();
+            boolean live = false;
+            
+            if (streamingProvider != null) {
+                streamingProvider.close();
+                streamingProvider = null;
+            }
+            if (mockProvider != null) {
+                mockProvider.close();
+                mockProvider = null;
             }
             
-            @Override
-            protected void done() {
+            if ("Binance API".equals(selected)) {
+                newProvider = recording(new BinanceDataRequest());
+                live = true;
+            } else if ("Binance Stream".equals(selected)) {
+                var source = recording(new BinanceDataRequest());
+                coins = underlyingUniverse(source);
+                var streaming = new BinanceStreamingDataRequester(source);
+                streaming.addListener(new StreamListener());
+                if (tickStore != null) streaming.addListener(new TickRecorder(tickStore, streaming));
                 try {
-                    get();
-                    setLoadingState(false, "Ready");
-                    updateInterestRatesTable();
-                    updateExpirySelector();
-                    updateChart();
-                } catch (InterruptedException | ExecutionException e) {
-                    setLoadingState(false, "Error switching data source");
-                    e.printStackTrace();
+                    // Underlyings are watched as they're viewed, see syncMarket
+                    streaming.start(List.of()).join();
+                } catch (RuntimeException e) {
+                    // Nothing else holds it yet, and it would keep reconnecting
+                    streaming.close();
+                    throw e;
+                }
+                streamingProvider = streaming;
+                newProvider = streaming;
+                cacheConfig = CachedDataRequester.Config.liveMarketData();
+                live = true;
+            } else if ("Offline Snapshot".equals(selected)) {
+                newProvider = SnapshotDataRequester.load(SnapshotFile.defaultPath());
+            } else {
+                var mockConfig = MockDataProvider.Config.fromSystemProperties();
+                var mock = new MockDataProvider(mockConfig);
+                if (mockConfig.ticksPerSecond() > 0) {
+                    // Ticking mock market, refreshed like the stream
+                    mock.addListener(new StreamListener());
+                    mock.start();
+                    mockProvider = mock;
+                    cacheConfig = CachedDataRequester.Config.liveMarketData();
                 }
+                newProvider = mock;
             }
-        };
-        
-        worker.execute();
+            
+            var cachedProvider = new CachedDataRequester(new MeteredDataRequester(newProvider), cacheConfig);
+            persistSnapshots = live;
+            resetMarket();
+            
+            // Render the last snapshot straight away and fetch live data behind it
+            var primedFrom = live && streamingProvider == null ? primeFromSnapshot(cachedProvider) : null;
+            boolean primed = primedFrom != null;
+            // The snapshot only has the underlyings viewed last time, so the selector lists the live ones, unless
+            // they can't be loaded
+            if (coins == null) coins = underlyingUniverse(cachedProvider);
+            if (primed && coins.isEmpty()) coins = new ArrayList<>(new TreeSet<>(primedFrom.optionChains().keySet()));
+            if (!primed && !coins.isEmpty()) {
+                // Only the underlying about to be shown is loaded, the others when they're selected
+                var shown = coins.contains(selectedCoin) ? selectedCoin : coins.get(0);
+                persistSnapshot(cachedProvider.load(List.of(shown)));
+            }
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedException("Data source switch superseded");
+            dataProvider = cachedProvider;
+            return new SourceData(coins, primed);
+        }
     }
     
     private void refreshData() {
-        setLoadingState(true, "Refreshing data...");
+        loadData(true, "Refreshing data...");
+    }
+    
+    /**
+     * Reloads the viewed underlyings, then the view.
+     *
+     * @param marketDataOnly reload marks and spot prices only, keeping the cached chains and rates
+     */
+    private void loadData(boolean marketDataOnly, String message) {
+        setLoadingState(true, message);
+        List<String> coins = viewedUnderlyings();
+        var provider = dataProvider;
         
-        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
-            @Override
-            protected Void doInBackground() throws Exception {
-                dataProvider.clearCaches();
-                return null;
-            }
-            
-            @Override
-            protected void done() {
+        refreshScheduler.request(RELOAD_LANE, true, () -> {
+            persistSnapshot(provider.reload(coins, marketDataOnly));
+            return coins;
+        }, reloaded -> refreshView(true), e -> {
+            setLoadingState(false, errorStatus("Error refreshing data", e));
+            reportError(e);
+        });
+    }
+    
+    /**
+     * Opens the tick history store when {@code optiondash.ticks} names a directory for it.
+     */
+    private static TickStore openTickStore() {
+        var directory = System.getProperty("optiondash.ticks");
+        if (directory == null) return null;
+        
+        try {
+            var store = TickStore.open(Path.of(directory));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 try {
-                    get();
-                    updateInterestRatesTable();
-                    updateChart();
-                } catch (InterruptedException | ExecutionException e) {
-                    setLoadingState(false, "Error refreshing data");
-                    e.printStackTrace();
+                    store.close();
+                } catch (IOException e) {
+                    reportError(e);
                 }
+            }));
+            return store;
+        } catch (IOException e) {
+            reportError(e);
+            return null;
+        }
+    }
+    
+    private DataRequester recording(DataRequester provider) {
+        return tickStore == null ? provider : new RecordingDataRequester(provider, tickStore);
+    }
+    
+    /**
+     * @return the snapshot the provider's caches were primed from, or null if there's none to read
+     */
+    private static MarketSnapshot primeFromSnapshot(CachedDataRequester provider) {
+        var path = SnapshotFile.defaultPath();
+        if (!path.toFile().isFile()) return null;
+        
+        try {
+            // Persisted snapshots only hold the underlyings that were viewed
+            var snapshot = SnapshotFile.read(path);
+            provider.primeUnderlyings(snapshot);
+            return snapshot;
+        } catch (IOException e) {
+            reportError(e);
+            return null;
+        }
+    }
+    
+    /**
+     * Keeps the last live data of the viewed underlyings on disk for the next start and for offline use.
+     */
+    private void persistSnapshot(MarketSnapshot snapshot) {
+        if (!persistSnapshots) return;
+        
+        try {
+            SnapshotFile.writeIfLoaded(SnapshotFile.defaultPath(), snapshot);
+        } catch (IOException e) {
+            reportError(e);
+        }
+    }
+    
+    /**
+     * Coalesces stream updates for the selected coin into at most one chart refresh per timer period.
+     */
+    private class StreamListener implements MarketDataListener {
+        @Override
+        public void onMarksUpdated(String underlying, Set<String> symbols) {
+            // Other underlyings' marks are loaded in full when they're viewed
+            if (!viewedUnderlyings.contains(underlying)) return;
+            pendingMarks.merge(underlying, new HashSet<>(symbols), (pending, added) -> {
+                pending.addAll(added);
+                return pending;
+            });
+            SwingUtilities.invokeLater(() -> scheduleStreamRefresh(underlying));
+        }
+        
+        @Override
+        public void onSpotUpdated(String ticker, double price) {
+            SwingUtilities.invokeLater(() -> scheduleStreamRefresh(ticker));
+        }
+        
+        private void scheduleStreamRefresh(String underlying) {
+            if (underlying.equals(coinSelector.getSelectedItem()) && !streamRefreshTimer.isRunning()) {
+                streamRefreshTimer.start();
             }
-        };
+        }
+    }
+    
+    private void updateMetricsTable() {
+        if (!Metrics.enabled()) return;
         
-        worker.execute();
+        var report = Metrics.report();
+        metricsModel.setRowCount(0);
+        report.timers().forEach((name, snapshot) -> {
+            if (snapshot.count() == 0) return;
+            metricsModel.addRow(new Object[]{
+                name,
+                snapshot.count(),
+                latencyFormat.format(snapshot.percentileNanos(50) / 1e6),
+                latencyFormat.format(snapshot.percentileNanos(99) / 1e6)
+            });
+        });
+        report.counters().forEach((name, value) -> {
+            if (value > 0) metricsModel.addRow(new Object[]{name, value, "", ""});
+        });
+    }
+    
+    /**
+     * Publishes metrics over JMX, and to the file named by {@code optiondash.metrics.dump} if set.
+     */
+    private static void startMetricsExport() {
+        try {
+            Metrics.registerMBean();
+        } catch (JMException e) {
+            reportError(e);
+        }
+        
+        var dumpFile = System.getProperty("optiondash.metrics.dump");
+        if (dumpFile != null) Metrics.dumpPeriodically(Path.of(dumpFile), Duration.ofSeconds(10));
+    }
+    
+    // Says so when Binance is throttling requests, which otherwise looks like any other failed load
+    private static String errorStatus(String status, Exception e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BinanceRateLimitException limited) {
+                return (limited.status() == 418 ? "IP banned by Binance" : "Binance rate limit reached")
+                        + ", retry in " + Math.max(1, limited.retryAfter().toSeconds()) + "s";
+            }
+        }
+        return status;
+    }
+    
+    private static void reportError(Exception e) {
+        UI_ERRORS.increment();
+        e.printStackTrace();
     }
     
     private void setLoadingState(boolean loading, String message) {
@@ -1,33 +1,133 @@
 package org.dashutils;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.hc.client5.http.fluent.Request;
-import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.client5.http.HttpResponseException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.net.URIBuilder;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 
 class BinanceApiQuery {
     enum Endpoints {
-        BorrowRates("https://www.binance.com/bapi/margin/v1/friendly/margin/vip/spec/list-all"),
-        CoinInfo("https://eapi.binance.com/eapi/v1/exchangeInfo"),
-        OptionMarketPrices("https://eapi.binance.com/eapi/v1/mark"),
-        SpotMarketPrice("https://data-api.binance.vision/api/v3/avgPrice");
+        BorrowRates("https://www.binance.com/bapi/margin/v1/friendly/margin/vip/spec/list-all", BinanceRateLimiter.MARGIN, 1),
+        CoinInfo("https://eapi.binance.com/eapi/v1/exchangeInfo", BinanceRateLimiter.OPTIONS, 1),
+        OptionMarketPrices("https://eapi.binance.com/eapi/v1/mark", BinanceRateLimiter.OPTIONS, 5),
+        SpotMarketPrice("https://data-api.binance.vision/api/v3/avgPrice", BinanceRateLimiter.SPOT, 2);
 
         final String url;
+        // The API whose weight limit the endpoint counts against, and its request weight
+        final String api;
+        final int weight;
+        // The request timer covers the round trip including parsing; streamed responses are parsed as they're
+        // read, so their parse timer includes reading the body
+        final LatencyHistogram requestTimer;
+        final LatencyHistogram parseTimer;
+        final Metrics.Counter failures;
+        final Metrics.Counter weightUsed;
 
-        Endpoints(String url) {
+        Endpoints(String url, String api, int weight) {
             this.url = url;
+            this.api = api;
+            this.weight = weight;
+            this.requestTimer = Metrics.timer("binance.request." + name());
+            this.parseTimer = Metrics.timer("binance.parse." + name());
+            this.failures = Metrics.counter("binance.failures." + name());
+            this.weightUsed = Metrics.counter("binance.weight." + name());
         }
     }
 
-    static JsonNode queryEndpoint(Endpoints endpoint, Map<String, String> queryParams) throws IOException {
-        URI uri;
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    static final JsonFactory JSON_FACTORY = OBJECT_MAPPER.getFactory();
+
+    @FunctionalInterface
+    interface ResponseParser<T> {
+        T parse(JsonParser parser) throws IOException;
+    }
+
+    // Weight used by this IP in the current minute, across every client of the API
+    static final String USED_WEIGHT_HEADER = "X-MBX-USED-WEIGHT-1M";
+
+    private final BinanceHttpTransport transport;
+
+    BinanceApiQuery(BinanceHttpTransport transport) {
+        this.transport = transport;
+    }
+
+    JsonNode queryEndpoint(Endpoints endpoint, Map<String, String> queryParams) throws IOException {
+        return execute(endpoint, queryParams, response -> {
+            var rawJSONResponse = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            long start = Metrics.start();
+            var tree = OBJECT_MAPPER.readTree(rawJSONResponse);
+            Metrics.stop(endpoint.parseTimer, start);
+            return tree;
+        });
+    }
+
+    /**
+     * Parses the response body straight off the connection's input stream, without buffering it as a
+     * string or building a tree.
+     */
+    <T> T streamEndpoint(Endpoints endpoint, Map<String, String> queryParams, ResponseParser<T> responseParser) throws IOException {
+        return execute(endpoint, queryParams, response -> {
+            long start = Metrics.start();
+            try (var parser = JSON_FACTORY.createParser(response.getEntity().getContent())) {
+                return responseParser.parse(parser);
+            } finally {
+                Metrics.stop(endpoint.parseTimer, start);
+            }
+        });
+    }
+
+    /**
+     * Sends the request once the rate limiter has weight for it and hands a successful response to
+     * {@code handler}. A rate limited request is retried after the limiter's backoff, unless it's out of retries
+     * or the wait is longer than worth retrying after.
+     */
+    private <T> T execute(Endpoints endpoint, Map<String, String> queryParams,
+                          HttpClientResponseHandler<T> handler) throws IOException {
+        var uri = buildUri(endpoint, queryParams);
+        var rateLimiter = transport.rateLimiter();
+        for (int attempt = 0; ; attempt++) {
+            rateLimiter.acquire(endpoint.api, endpoint.weight);
+            endpoint.weightUsed.add(endpoint.weight);
+            try {
+                return transport.get(uri).handleResponse(response -> {
+                    var blockedFor = rateLimiter.completed(endpoint.api, response.getCode(),
+                            header(response, USED_WEIGHT_HEADER), header(response, HttpHeaders.RETRY_AFTER));
+                    if (blockedFor != null) {
+                        throw new BinanceRateLimitException(endpoint.name(), response.getCode(), blockedFor);
+                    }
+                    if (response.getCode() >= 300) {
+                        throw new HttpResponseException(response.getCode(), response.getReasonPhrase());
+                    }
+                    return handler.handleResponse(response);
+                });
+            } catch (BinanceRateLimitException e) {
+                var limits = rateLimiter.config();
+                if (attempt >= limits.maxRetries() || e.retryAfter().compareTo(limits.maxRetryWait()) > 0) throw e;
+            }
+        }
+    }
+
+    private static String header(HttpResponse response, String name) {
+        var header = response.getFirstHeader(name);
+        return header == null ? null : header.getValue();
+    }
+
+    private URI buildUri(Endpoints endpoint, Map<String, String> queryParams) {
         if (queryParams == null) queryParams = new HashMap<>();
 
         try {
@@ -35,36 +135,162 @@ class BinanceApiQuery {
             queryParams.forEach((k, v) -> {
                 uriBuilder[0] = uriBuilder[0].addParameter(k, v);
             } );
-            uri = uriBuilder[0].build();
+            return transport.resolve(uriBuilder[0].build());
         } catch (URISyntaxException e) {
             throw new RuntimeException(e);
         }
-
-        var rawJSONResponse = Request.get(uri).execute().returnContent().asString();
-        var objectMapper = new ObjectMapper();
-        return objectMapper.readTree(rawJSONResponse);
     }
 }
 
 public class BinanceDataRequest implements DataRequester {
+    // exchangeInfo lists the contracts of every underlying in one response that rarely changes, so it's downloaded
+    // once and sliced per underlying. Kept briefly, so a later full reload still sees new listings.
+    private static final CachedDataRequester.Policy EXCHANGE_INFO_POLICY =
+            new CachedDataRequester.Policy(Duration.ofMinutes(1), Duration.ZERO);
+    private static final String ALL = "";
+
+    private final BinanceHttpTransport transport;
+    private final BinanceApiQuery apiQuery;
+    private final boolean streamingParse;
+    private final SingleFlightCache<String, HashMap<String, OptionChain>> exchangeInfoCache =
+            new SingleFlightCache<>("exchangeInfo", EXCHANGE_INFO_POLICY, System::nanoTime, Runnable::run);
+
+    public BinanceDataRequest() {
+        this(true);
+    }
+
+    public BinanceDataRequest(boolean streamingParse) {
+        this(BinanceHttpTransport.shared(), streamingParse);
+    }
+
+    /**
+     * @param streamingParse parse the large exchangeInfo and mark responses straight from the response stream
+     *                       rather than through a JSON tree
+     */
+    public BinanceDataRequest(BinanceHttpTransport transport, boolean streamingParse) {
+        this.transport = transport;
+        this.apiQuery = new BinanceApiQuery(transport);
+        this.streamingParse = streamingParse;
+    }
+
     private JsonNode makeRequest(BinanceApiQuery.Endpoints endpoint){
         return makeRequest(endpoint, null);
     }
 
     private JsonNode makeRequest(BinanceApiQuery.Endpoints endpoint, Map<String, String> queryParams){
         JsonNode response;
+        long start = Metrics.start();
         try {
-            response = BinanceApiQuery.queryEndpoint(endpoint, queryParams);
+            response = apiQuery.queryEndpoint(endpoint, queryParams);
+        } catch (BinanceRateLimitException e) {
+            endpoint.failures.increment();
+            throw e;
         } catch (Exception e) {
+            endpoint.failures.increment();
             return null;
+        } finally {
+            Metrics.stop(endpoint.requestTimer, start);
         }
         return response;
     }
 
+    private <T> T makeStreamingRequest(BinanceApiQuery.Endpoints endpoint, BinanceApiQuery.ResponseParser<T> parser){
+        return makeStreamingRequest(endpoint, null, parser);
+    }
+
+    private <T> T makeStreamingRequest(BinanceApiQuery.Endpoints endpoint, Map<String, String> queryParams,
+                                       BinanceApiQuery.ResponseParser<T> parser){
+        long start = Metrics.start();
+        try {
+            return apiQuery.streamEndpoint(endpoint, queryParams, parser);
+        } catch (BinanceRateLimitException e) {
+            endpoint.failures.increment();
+            throw e;
+        } catch (Exception e) {
+            endpoint.failures.increment();
+            return null;
+        } finally {
+            Metrics.stop(endpoint.requestTimer, start);
+        }
+    }
+
     public HashMap<String, Double> getBorrowRates() {
         JsonNode ratesResponse = makeRequest(BinanceApiQuery.Endpoints.BorrowRates);
         if (ratesResponse == null) return new HashMap<>();
+        return parseBorrowRates(ratesResponse);
+    }
+
+    public HashMap<String, OptionChain> getOptionChain(){
+        return new HashMap<>(exchangeInfo());
+    }
 
+    private HashMap<String, OptionChain> exchangeInfo() {
+        return exchangeInfoCache.get(ALL, key -> fetchOptionChains());
+    }
+
+    private HashMap<String, OptionChain> fetchOptionChains() {
+        if (streamingParse) {
+            var parsedChains = makeStreamingRequest(BinanceApiQuery.Endpoints.CoinInfo, BinanceStreamParser::parseOptionChain);
+            return parsedChains == null ? new HashMap<>() : parsedChains;
+        }
+
+        JsonNode chainResponse = makeRequest(BinanceApiQuery.Endpoints.CoinInfo);
+        if (chainResponse == null) return new HashMap<>();
+        return parseOptionChain(chainResponse);
+    }
+
+    public HashMap<String, OptionMarketData> getOptionMarketData(){
+        if (streamingParse) {
+            var parsedPrices = makeStreamingRequest(BinanceApiQuery.Endpoints.OptionMarketPrices, BinanceStreamParser::parseOptionMarketData);
+            return parsedPrices == null ? new HashMap<>() : parsedPrices;
+        }
+
+        JsonNode pricesResponse = makeRequest(BinanceApiQuery.Endpoints.OptionMarketPrices);
+        if (pricesResponse == null) return new HashMap<>();
+        return parseOptionMarketData(pricesResponse);
+    }
+
+    /**
+     * Underlyings with listed options, from the same exchangeInfo download as their chains.
+     */
+    @Override
+    public List<String> getUnderlyings(){
+        return new ArrayList<>(new TreeSet<>(exchangeInfo().keySet()));
+    }
+
+    /**
+     * exchangeInfo can't be filtered server side, so one download is shared by the chains of every underlying.
+     */
+    @Override
+    public OptionChain getOptionChain(String underlying){
+        return exchangeInfo().get(underlying);
+    }
+
+    /**
+     * Asks the mark endpoint for one underlying's options only, and drops anything else it sends back.
+     */
+    @Override
+    public HashMap<String, OptionMarketData> getOptionMarketData(String underlying){
+        var queryParams = new HashMap<String, String>();
+        queryParams.put("underlying", underlying);
+
+        HashMap<String, OptionMarketData> parsedPrices;
+        if (streamingParse) {
+            parsedPrices = makeStreamingRequest(BinanceApiQuery.Endpoints.OptionMarketPrices, queryParams,
+                    BinanceStreamParser::parseOptionMarketData);
+        } else {
+            JsonNode pricesResponse = makeRequest(BinanceApiQuery.Endpoints.OptionMarketPrices, queryParams);
+            parsedPrices = pricesResponse == null ? null : parseOptionMarketData(pricesResponse);
+        }
+        if (parsedPrices == null) return new HashMap<>();
+
+        // Option symbols start with the base asset, e.g. BTC-261225-100000-C for BTCUSDT
+        var prefix = RiskEngine.baseAsset(underlying) + "-";
+        parsedPrices.keySet().removeIf(symbol -> !symbol.startsWith(prefix));
+        return parsedPrices;
+    }
+
+    static HashMap<String, Double> parseBorrowRates(JsonNode ratesResponse){
         var parsedRates = new HashMap<String, Double>();
         var data = ratesResponse.get("data").elements();
         data.forEachRemaining((node) -> {
@@ -75,10 +301,7 @@ public class BinanceDataRequest implements DataRequester {
         return parsedRates;
     }
 
-    public HashMap<String, OptionChain> getOptionChain(){
-        JsonNode chainResponse = makeRequest(BinanceApiQuery.Endpoints.CoinInfo);
-        if (chainResponse == null) return new HashMap<>();
-
+    static HashMap<String, OptionChain> parseOptionChain(JsonNode chainResponse){
         var parsedChains = new HashMap<String, OptionChain>();
         chainResponse.get("optionSymbols").forEach((node) -> {
             String underl = node.get("underlying").asText();
@@ -98,10 +321,7 @@ public class BinanceDataRequest implements DataRequester {
         return parsedChains;
     }
 
-    public HashMap<String, OptionMarketData> getOptionMarketData(){
-        JsonNode pricesResponse = makeRequest(BinanceApiQuery.Endpoints.OptionMarketPrices);
-        if (pricesResponse == null) return new HashMap<>();
-
+    static HashMap<String, OptionMarketData> parseOptionMarketData(JsonNode pricesResponse){
         var parsedPrices = new HashMap<String, OptionMarketData>();
         pricesResponse.forEach((node) -> {
             var price = node.get("markPrice").asDouble();
@@ -125,6 +345,36 @@ public class BinanceDataRequest implements DataRequester {
         return priceResponse.get("price").asDouble();
     }
 
+    /**
+     * Fetches every endpoint and all requested spot prices concurrently, so a refresh takes as long as the
+     * slowest single request.
+     */
+    @Override
+    public CompletableFuture<MarketSnapshot> fetchSnapshot(Collection<String> spotTickers) {
+        var async = transport.asyncExecutor();
+        var borrowRates = CompletableFuture.supplyAsync(this::getBorrowRates, async);
+        var optionChains = CompletableFuture.supplyAsync(this::getOptionChain, async);
+        var marketData = CompletableFuture.supplyAsync(this::getOptionMarketData, async);
+        var spotPrices = getSpotMarketPricesAsync(spotTickers);
+
+        return CompletableFuture.allOf(borrowRates, optionChains, marketData, spotPrices).thenApply(ignored ->
+                new MarketSnapshot(borrowRates.join(), optionChains.join(), marketData.join(), spotPrices.join()));
+    }
+
+    public CompletableFuture<HashMap<String, Double>> getSpotMarketPricesAsync(Collection<String> tickers) {
+        var async = transport.asyncExecutor();
+        var requests = new HashMap<String, CompletableFuture<Double>>();
+        tickers.forEach(ticker -> requests.put(ticker, CompletableFuture.supplyAsync(() -> getSpotMarketPrice(ticker), async)));
+
+        return CompletableFuture.allOf(requests.values().toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            var spotPrices = new HashMap<String, Double>();
+            requests.forEach((ticker, request) -> {
+                if (request.join() != null) spotPrices.put(ticker, request.join());
+            });
+            return spotPrices;
+        });
+    }
+
     public static void main(String[] args){
         var requester = new BinanceDataRequest();
 //        var borrowRates = requester.getBorrowRates();
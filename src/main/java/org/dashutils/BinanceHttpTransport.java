@@ -0,0 +1,121 @@
+package org.dashutils;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.fluent.Executor;
+import org.apache.hc.client5.http.fluent.Request;
+import org.apache.hc.client5.http.fluent.Response;
+import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shared HTTP transport for the Binance endpoints: a pooled keep-alive client with gzip and timeouts, a
+ * virtual thread executor for fetching endpoints concurrently, and the rate limiter pacing every request made
+ * through it.
+ */
+public final class BinanceHttpTransport implements Closeable {
+    /**
+     * @param hostOverride when set, every endpoint is sent to this scheme/host/port with its original path,
+     *                     e.g. to point the requester at a local stub server
+     */
+    public record Config(Duration connectTimeout, Duration responseTimeout, int maxConnections,
+                         Duration idleEviction, URI hostOverride, BinanceRateLimiter.Config rateLimits) {
+        public static Config defaults() {
+            return new Config(Duration.ofSeconds(5), Duration.ofSeconds(15), 32, Duration.ofSeconds(30), null,
+                    BinanceRateLimiter.Config.defaults());
+        }
+
+        public Config withHostOverride(URI hostOverride) {
+            return new Config(connectTimeout, responseTimeout, maxConnections, idleEviction, hostOverride, rateLimits);
+        }
+
+        public Config withRateLimits(BinanceRateLimiter.Config rateLimits) {
+            return new Config(connectTimeout, responseTimeout, maxConnections, idleEviction, hostOverride, rateLimits);
+        }
+    }
+
+    private static BinanceHttpTransport shared;
+
+    private final Config config;
+    private final CloseableHttpClient client;
+    private final Executor executor;
+    private final ExecutorService asyncExecutor;
+    private final BinanceRateLimiter rateLimiter;
+
+    public BinanceHttpTransport(Config config) {
+        this.config = config;
+
+        var connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(config.maxConnections())
+                .setMaxConnPerRoute(config.maxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(config.connectTimeout()))
+                        .setSocketTimeout(Timeout.of(config.responseTimeout()))
+                        .build())
+                .build();
+
+        // Content compression (Accept-Encoding: gzip, deflate) and keep-alive are on by default in the builder
+        this.client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.of(config.responseTimeout()))
+                        .build())
+                .evictIdleConnections(TimeValue.of(config.idleEviction()))
+                // 429s are retried by the rate limiter, which also holds back the API's other requests
+                .setRetryStrategy(new DefaultHttpRequestRetryStrategy() {
+                    @Override
+                    public boolean retryRequest(HttpResponse response, int execCount, HttpContext context) {
+                        return false;
+                    }
+                })
+                .build();
+        this.executor = Executor.newInstance(client);
+        this.asyncExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.rateLimiter = new BinanceRateLimiter(config.rateLimits());
+    }
+
+    public static synchronized BinanceHttpTransport shared() {
+        if (shared == null) {
+            shared = new BinanceHttpTransport(Config.defaults());
+        }
+        return shared;
+    }
+
+    Response get(URI uri) throws IOException {
+        return executor.execute(Request.get(uri));
+    }
+
+    URI resolve(URI uri) {
+        var override = config.hostOverride();
+        if (override == null) return uri;
+        return URI.create(override.getScheme() + "://" + override.getRawAuthority() + uri.getRawPath()
+                + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery()));
+    }
+
+    ExecutorService asyncExecutor() {
+        return asyncExecutor;
+    }
+
+    public BinanceRateLimiter rateLimiter() {
+        return rateLimiter;
+    }
+
+    @Override
+    public void close() throws IOException {
+        asyncExecutor.shutdownNow();
+        client.close();
+    }
+}
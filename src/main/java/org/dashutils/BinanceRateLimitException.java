@@ -0,0 +1,32 @@
+package org.dashutils;
+
+import java.time.Duration;
+
+/**
+ * A Binance request refused for going over the request weight limit (429) or because the IP is banned (418),
+ * and still refused after the retries {@link BinanceRateLimiter} allows, or not sent at all because its API is
+ * blocked for longer than worth waiting. Thrown rather than reported as missing data, so callers can tell being
+ * throttled apart from an empty response.
+ */
+public class BinanceRateLimitException extends RuntimeException {
+    private final int status;
+    private final Duration retryAfter;
+
+    public BinanceRateLimitException(String endpoint, int status, Duration retryAfter) {
+        super(endpoint + " " + (status == 418 ? "refused, IP banned" : "rate limited") + " for another "
+                + retryAfter.toSeconds() + "s");
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    /**
+     * @return how long the endpoint's API stays blocked after the last refusal
+     */
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+}
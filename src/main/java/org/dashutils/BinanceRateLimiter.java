@@ -0,0 +1,209 @@
+package org.dashutils;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Client side pacing for Binance's request weight limits. Each API (options, spot, the website's margin API) has
+ * its own budget of weight per minute per IP, kept here as a token bucket that refills evenly over the minute and
+ * that requests take their endpoint's weight from, waiting when it runs dry.
+ * <p>
+ * The bucket follows the exchange rather than only counting locally: every response's
+ * {@code X-MBX-USED-WEIGHT-1M} header caps what's left, so weight used by other instances behind the same IP is
+ * accounted for. A 429 (too many requests) or 418 (IP banned) blocks the API until its {@code Retry-After} has
+ * passed, or otherwise for an exponential backoff with jitter, so instances don't all come back at once.
+ */
+public final class BinanceRateLimiter {
+    /**
+     * @param weightPerMinute the exchange's request weight limit of each API
+     * @param headroom        share of each limit to use, below 1 to leave room for requests this process can't see
+     * @param initialBackoff  wait after the first rate limited response without a Retry-After, doubled for each
+     *                        one after it
+     * @param maxRetries      retries of a rate limited request before giving up
+     * @param maxRetryWait    longest wait worth retrying after; a longer ban fails the request straight away
+     */
+    public record Config(Map<String, Integer> weightPerMinute, double headroom, Duration initialBackoff,
+                         Duration maxBackoff, int maxRetries, Duration maxRetryWait) {
+        public static Config defaults() {
+            return new Config(Map.of(OPTIONS, 2400, SPOT, 6000, MARGIN, 600), 0.9,
+                    Duration.ofSeconds(1), Duration.ofMinutes(1), 3, Duration.ofSeconds(30));
+        }
+    }
+
+    public static final String OPTIONS = "eapi";
+    public static final String SPOT = "api";
+    public static final String MARGIN = "bapi";
+
+    private static final Metrics.Counter RATE_LIMITED = Metrics.counter("binance.rateLimited");
+    private static final LatencyHistogram THROTTLE_TIMER = Metrics.timer("binance.throttled");
+
+    private static final class Bucket {
+        final double capacity;
+        final double refillPerNano;
+        double tokens;
+        long refilledAt;
+        long blockedUntil;
+        // The status that blocked the API, 429 or 418
+        int blockedStatus;
+        int consecutiveLimited;
+        int usedWeight;
+
+        Bucket(double capacity, long now) {
+            this.capacity = capacity;
+            this.refillPerNano = capacity / TimeUnit.MINUTES.toNanos(1);
+            this.tokens = capacity;
+            this.refilledAt = now;
+            this.blockedUntil = now;
+        }
+
+        void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * refillPerNano);
+            refilledAt = now;
+        }
+    }
+
+    private final Config config;
+    private final LongSupplier nanoClock;
+    private final Map<String, Bucket> buckets = new HashMap<>();
+
+    public BinanceRateLimiter(Config config) {
+        this(config, System::nanoTime);
+    }
+
+    BinanceRateLimiter(Config config, LongSupplier nanoClock) {
+        this.config = config;
+        this.nanoClock = nanoClock;
+        long now = nanoClock.getAsLong();
+        config.weightPerMinute().forEach((api, limit) -> buckets.put(api, new Bucket(limit * config.headroom(), now)));
+    }
+
+    Config config() {
+        return config;
+    }
+
+    /**
+     * Waits until the API is neither blocked nor out of weight, then takes the request's weight.
+     *
+     * @throws BinanceRateLimitException straight away if the API is blocked for longer than
+     *                                   {@link Config#maxRetryWait()}, e.g. banned for hours
+     */
+    void acquire(String api, int weight) throws InterruptedIOException {
+        long waitNanos = reserve(api, weight);
+        if (waitNanos == 0) return;
+
+        long start = Metrics.start();
+        try {
+            while (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+                waitNanos = reserve(api, weight);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for Binance request weight");
+        } finally {
+            Metrics.stop(THROTTLE_TIMER, start);
+        }
+    }
+
+    /**
+     * Takes the weight if it's available now.
+     *
+     * @return 0 if the weight was taken, otherwise how long to wait before asking again in nanoseconds
+     * @throws BinanceRateLimitException if the API is blocked for longer than {@link Config#maxRetryWait()}
+     */
+    synchronized long reserve(String api, int weight) {
+        var bucket = bucket(api);
+        long now = nanoClock.getAsLong();
+        bucket.refill(now);
+        if (now < bucket.blockedUntil) {
+            long blockedNanos = bucket.blockedUntil - now;
+            if (blockedNanos > config.maxRetryWait().toNanos()) {
+                throw new BinanceRateLimitException(api + " API", bucket.blockedStatus, Duration.ofNanos(blockedNanos));
+            }
+            return blockedNanos;
+        }
+
+        // A request heavier than the whole budget waits for a full bucket rather than forever
+        double needed = Math.min(weight, bucket.capacity);
+        if (bucket.tokens >= needed) {
+            bucket.tokens -= needed;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((needed - bucket.tokens) / bucket.refillPerNano));
+    }
+
+    /**
+     * Updates the API's budget from a response.
+     *
+     * @param usedWeight the {@code X-MBX-USED-WEIGHT-1M} header, if any
+     * @param retryAfter the {@code Retry-After} header in seconds, if any
+     * @return how long the API is now blocked for if the response was rate limited, otherwise null
+     */
+    synchronized Duration completed(String api, int status, String usedWeight, String retryAfter) {
+        var bucket = bucket(api);
+        long now = nanoClock.getAsLong();
+        bucket.refill(now);
+
+        var used = parseInt(usedWeight);
+        if (used != null) {
+            bucket.usedWeight = used;
+            bucket.tokens = Math.min(bucket.tokens, bucket.capacity - used);
+        }
+
+        if (status != 429 && status != 418) {
+            if (status < 400) bucket.consecutiveLimited = 0;
+            return null;
+        }
+
+        RATE_LIMITED.increment();
+        bucket.consecutiveLimited++;
+        bucket.tokens = Math.min(bucket.tokens, 0);
+
+        // A ban outranks a 429 while both are in force
+        bucket.blockedStatus = now < bucket.blockedUntil ? Math.max(bucket.blockedStatus, status) : status;
+        long backoffNanos = backoffNanos(bucket.consecutiveLimited, parseInt(retryAfter));
+        bucket.blockedUntil = Math.max(bucket.blockedUntil, now + backoffNanos);
+        return Duration.ofNanos(bucket.blockedUntil - now);
+    }
+
+    private long backoffNanos(int consecutiveLimited, Integer retryAfterSeconds) {
+        long initial = config.initialBackoff().toNanos();
+        var random = ThreadLocalRandom.current();
+        // The exchange's wait is a minimum; spread the retries of instances told the same thing
+        if (retryAfterSeconds != null) {
+            return TimeUnit.SECONDS.toNanos(retryAfterSeconds) + random.nextLong(initial + 1);
+        }
+
+        long backoff = initial << Math.min(consecutiveLimited - 1, 30);
+        backoff = Math.min(config.maxBackoff().toNanos(), backoff < 0 ? Long.MAX_VALUE : backoff);
+        // Half the backoff plus up to as much again at random
+        return backoff / 2 + random.nextLong(backoff / 2 + 1);
+    }
+
+    /**
+     * @return the weight the exchange last reported as used this minute by this IP
+     */
+    public synchronized int usedWeight(String api) {
+        return bucket(api).usedWeight;
+    }
+
+    private Bucket bucket(String api) {
+        var bucket = buckets.get(api);
+        if (bucket == null) throw new IllegalArgumentException("No weight limit configured for " + api);
+        return bucket;
+    }
+
+    private static Integer parseInt(String header) {
+        if (header == null) return null;
+        try {
+            return Integer.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.dashutils;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+
+/**
+ * Token level parsers for the large Binance option responses. Unknown fields (filters, fees, limits...) are
+ * skipped without being materialised.
+ */
+final class BinanceStreamParser {
+    private BinanceStreamParser() {}
+
+    static HashMap<String, OptionChain> parseOptionChain(JsonParser parser) throws IOException {
+        return parseOptionChain(parser, null);
+    }
+
+    /**
+     * @param underlying only keep the options of this underlying, or null for all of them
+     */
+    static HashMap<String, OptionChain> parseOptionChain(JsonParser parser, String underlying) throws IOException {
+        var parsedChains = new HashMap<String, OptionChain>();
+        expect(parser.nextToken(), JsonToken.START_OBJECT, parser);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.currentName();
+            parser.nextToken();
+            if (!"optionSymbols".equals(field)) {
+                parser.skipChildren();
+                continue;
+            }
+
+            expect(parser.currentToken(), JsonToken.START_ARRAY, parser);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                var option = parseOption(parser);
+                if (underlying != null && !underlying.equals(option.underlying())) continue;
+                var chain = parsedChains.computeIfAbsent(option.underlying(),
+                        underl -> new OptionChain(underl, new ArrayList<>()));
+                chain.optionSeries().add(option);
+            }
+        }
+
+        return parsedChains;
+    }
+
+    static HashMap<String, OptionMarketData> parseOptionMarketData(JsonParser parser) throws IOException {
+        var parsedPrices = new HashMap<String, OptionMarketData>();
+        expect(parser.nextToken(), JsonToken.START_ARRAY, parser);
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String symbol = null;
+            double price = Double.NaN;
+            double delta = Double.NaN;
+            double impliedVol = Double.NaN;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "symbol" -> symbol = parser.getText();
+                    case "markPrice" -> price = parser.getValueAsDouble();
+                    case "delta" -> delta = parser.getValueAsDouble();
+                    case "markIV" -> impliedVol = parser.getValueAsDouble();
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (symbol != null) parsedPrices.put(symbol, new OptionMarketData(price, delta, impliedVol));
+        }
+
+        return parsedPrices;
+    }
+
+    interface StreamFrameHandler {
+        void onMark(String symbol, double price, double delta, double impliedVol);
+
+        void onIndex(String ticker, double price);
+    }
+
+    /**
+     * Parses one websocket frame from the options stream: a markPrice array, an index object, either of those
+     * wrapped in a combined stream envelope, or a subscription ack which is ignored.
+     */
+    static void parseStreamFrame(JsonParser parser, StreamFrameHandler handler) throws IOException {
+        var token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            while (parser.nextToken() == JsonToken.START_OBJECT) parseStreamEvent(parser, handler);
+            return;
+        }
+        expect(token, JsonToken.START_OBJECT, parser);
+        parseStreamEvent(parser, handler);
+    }
+
+    private static void parseStreamEvent(JsonParser parser, StreamFrameHandler handler) throws IOException {
+        String event = null;
+        String symbol = null;
+        double price = Double.NaN;
+        double delta = Double.NaN;
+        double impliedVol = Double.NaN;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.currentName();
+            var token = parser.nextToken();
+            switch (field) {
+                case "data" -> {
+                    if (token == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) parseStreamEvent(parser, handler);
+                    } else if (token == JsonToken.START_OBJECT) {
+                        parseStreamEvent(parser, handler);
+                    }
+                }
+                case "e" -> event = parser.getText();
+                case "s" -> symbol = parser.getText();
+                case "mp", "p" -> price = parser.getValueAsDouble();
+                case "d" -> delta = parser.getValueAsDouble();
+                case "vo" -> impliedVol = parser.getValueAsDouble();
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (symbol == null || event == null) return;
+        switch (event) {
+            case "markPrice" -> handler.onMark(symbol, price, delta, impliedVol);
+            case "index" -> handler.onIndex(symbol, price);
+            default -> {}
+        }
+    }
+
+    private static Option parseOption(JsonParser parser) throws IOException {
+        String symbol = null;
+        String underl = null;
+        double strike = Double.NaN;
+        long expiry = 0;
+        CallPut callPut = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "symbol" -> symbol = parser.getText();
+                case "underlying" -> underl = parser.getText();
+                case "strikePrice" -> strike = parser.getValueAsDouble();
+                case "expiryDate" -> expiry = parser.getValueAsLong();
+                case "side" -> callPut = CallPut.fromString(parser.getText());
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (symbol == null || underl == null || callPut == null) {
+            throw new JsonParseException(parser, "Incomplete option symbol " + symbol);
+        }
+        return new Option(symbol, underl, strike, new Date(expiry), callPut);
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected, JsonParser parser) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but got " + actual);
+        }
+    }
+}
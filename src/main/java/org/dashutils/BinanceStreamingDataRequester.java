@@ -0,0 +1,316 @@
+package org.dashutils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Push based requester for option marks and index prices. Each watched underlying's book is seeded from a
+ * snapshot source, then kept current from the Binance options websocket streams, and listeners are told which
+ * symbols changed. Chains, borrow rates and the marks of unwatched underlyings are still served by the snapshot
+ * source.
+ */
+public class BinanceStreamingDataRequester implements DataRequester, AutoCloseable {
+    static final URI DEFAULT_STREAM_URI = URI.create("wss://nbstream.binance.com/eoptions/ws");
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 30_000;
+    private static final LatencyHistogram FRAME_PARSE_TIMER = Metrics.timer("binance.stream.frame");
+    private static final Metrics.Counter MALFORMED_FRAMES = Metrics.counter("binance.stream.malformedFrames");
+
+    private final DataRequester snapshotSource;
+    private final URI streamUri;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ScheduledExecutorService reconnectScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofVirtual().name("binance-stream-reconnect").factory());
+    // Marks by underlying then symbol, one book per watched underlying
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, OptionMarketData>> books = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Double> indexPrices = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> symbolUnderlyings = new ConcurrentHashMap<>();
+    private final List<MarketDataListener> listeners = new CopyOnWriteArrayList<>();
+    private final Object watchLock = new Object();
+    private final AtomicInteger nextRequestId = new AtomicInteger(1);
+
+    private volatile WebSocket webSocket;
+    private volatile boolean closed;
+    private int reconnectAttempts;
+    private CompletableFuture<?> lastSend = CompletableFuture.completedFuture(null);
+
+    public BinanceStreamingDataRequester(DataRequester snapshotSource) {
+        this(snapshotSource, DEFAULT_STREAM_URI);
+    }
+
+    public BinanceStreamingDataRequester(DataRequester snapshotSource, URI streamUri) {
+        this.snapshotSource = snapshotSource;
+        this.streamUri = streamUri;
+    }
+
+    public void addListener(MarketDataListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(MarketDataListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Watches the given underlyings (e.g. BTCUSDT), which may be none, then connects to the streams. Others are
+     * added with {@link #watch} as they're needed.
+     */
+    public CompletableFuture<Void> start(Collection<String> underlyings) {
+        underlyings.forEach(this::watch);
+        return connect(false);
+    }
+
+    /**
+     * Seeds the underlying's book from the snapshot source and subscribes to its mark and index streams, unless
+     * it's already watched. Blocks on the snapshot source the first time.
+     */
+    public void watch(String underlying) {
+        synchronized (watchLock) {
+            if (closed || books.containsKey(underlying)) return;
+            books.put(underlying, seed(underlying));
+        }
+        // Before connecting this is left to connect, which subscribes every watched underlying
+        var socket = webSocket;
+        if (socket != null) send(socket, subscribeMessage(List.of(underlying)));
+    }
+
+    @Override
+    public HashMap<String, Double> getBorrowRates() {
+        return snapshotSource.getBorrowRates();
+    }
+
+    @Override
+    public HashMap<String, OptionChain> getOptionChain() {
+        return snapshotSource.getOptionChain();
+    }
+
+    /**
+     * Copies the books of the watched underlyings.
+     */
+    @Override
+    public HashMap<String, OptionMarketData> getOptionMarketData() {
+        var marketData = new HashMap<String, OptionMarketData>();
+        books.values().forEach(marketData::putAll);
+        return marketData;
+    }
+
+    @Override
+    public List<String> getUnderlyings() {
+        return snapshotSource.getUnderlyings();
+    }
+
+    @Override
+    public OptionChain getOptionChain(String underlying) {
+        return snapshotSource.getOptionChain(underlying);
+    }
+
+    /**
+     * Copies the underlying's book, or fetches its marks from the snapshot source if it isn't watched.
+     */
+    @Override
+    public HashMap<String, OptionMarketData> getOptionMarketData(String underlying) {
+        var book = books.get(underlying);
+        return book != null ? new HashMap<>(book) : snapshotSource.getOptionMarketData(underlying);
+    }
+
+    @Override
+    public HashMap<String, OptionMarketData> getMarks(String underlying, Collection<String> symbols) {
+        var book = books.get(underlying);
+        if (book == null) return snapshotSource.getMarks(underlying, symbols);
+
+        var changed = new HashMap<String, OptionMarketData>();
+        for (var symbol : symbols) {
+            var mark = book.get(symbol);
+            if (mark != null) changed.put(symbol, mark);
+        }
+        return changed;
+    }
+
+    /**
+     * @return the latest mark of one symbol of a watched underlying, without copying the book
+     */
+    public OptionMarketData getMark(String symbol) {
+        var book = books.get(underlyingOf(symbol));
+        return book != null ? book.get(symbol) : null;
+    }
+
+    @Override
+    public Double getSpotMarketPrice(String ticker) {
+        var indexPrice = indexPrices.get(ticker);
+        return indexPrice != null ? indexPrice : snapshotSource.getSpotMarketPrice(ticker);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        reconnectScheduler.shutdownNow();
+        var socket = webSocket;
+        if (socket != null) socket.sendClose(WebSocket.NORMAL_CLOSURE, "");
+    }
+
+    /**
+     * @param reseed whether to refetch the watched books once connected, before subscribing, since marks pushed
+     *               while disconnected were missed
+     */
+    private CompletableFuture<Void> connect(boolean reseed) {
+        return httpClient.newWebSocketBuilder()
+                .buildAsync(streamUri, new FrameListener())
+                .thenApplyAsync(socket -> {
+                    webSocket = socket;
+                    try {
+                        if (reseed) reseed();
+                    } catch (RuntimeException e) {
+                        // Retried on a fresh connection, which reseeds again
+                        socket.abort();
+                        throw e;
+                    }
+                    synchronized (this) {
+                        reconnectAttempts = 0;
+                    }
+                    return socket;
+                }, reconnectScheduler)
+                .thenCompose(socket -> {
+                    var watched = List.copyOf(books.keySet());
+                    return watched.isEmpty() ? CompletableFuture.completedFuture(socket)
+                            : send(socket, subscribeMessage(watched));
+                })
+                .<Void>thenApply(socket -> null)
+                .whenComplete((ignored, error) -> {
+                    if (error != null) scheduleReconnect();
+                });
+    }
+
+    private String subscribeMessage(Collection<String> underlyings) {
+        var message = BinanceApiQuery.OBJECT_MAPPER.createObjectNode();
+        message.put("method", "SUBSCRIBE");
+        var params = message.putArray("params");
+        for (var underlying : underlyings) {
+            params.add(RiskEngine.baseAsset(underlying) + "@markPrice");
+            params.add(underlying + "@index");
+        }
+        message.put("id", nextRequestId.getAndIncrement());
+        return message.toString();
+    }
+
+    /**
+     * Queues the message behind those already sent, since a websocket takes one send at a time.
+     */
+    private synchronized CompletableFuture<WebSocket> send(WebSocket socket, String message) {
+        var sent = lastSend.handle((ignored, error) -> null).thenCompose(ignored -> socket.sendText(message, true));
+        lastSend = sent;
+        return sent;
+    }
+
+    private synchronized void scheduleReconnect() {
+        if (closed) return;
+        long delay = Math.min(MAX_RECONNECT_DELAY_MILLIS, 500L << Math.min(reconnectAttempts++, 6));
+        reconnectScheduler.schedule(() -> connect(true), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Fetches the underlying's chain, to map its symbols, and marks from the snapshot source.
+     */
+    private ConcurrentHashMap<String, OptionMarketData> seed(String underlying) {
+        var chain = snapshotSource.getOptionChain(underlying);
+        if (chain != null) chain.optionSeries().forEach(option -> symbolUnderlyings.put(option.symbol(), underlying));
+        return new ConcurrentHashMap<>(snapshotSource.getOptionMarketData(underlying));
+    }
+
+    /**
+     * Replaces every watched book with a fresh seed, which also maps symbols listed while disconnected, and tells
+     * listeners which marks changed or went away.
+     */
+    private void reseed() {
+        var changed = new HashMap<String, Set<String>>();
+        synchronized (watchLock) {
+            for (var underlying : List.copyOf(books.keySet())) {
+                var book = seed(underlying);
+                var previous = books.put(underlying, book);
+                var symbols = new HashSet<String>();
+                book.forEach((symbol, mark) -> {
+                    if (!mark.equals(previous.get(symbol))) symbols.add(symbol);
+                });
+                previous.keySet().forEach(symbol -> {
+                    if (!book.containsKey(symbol)) symbols.add(symbol);
+                });
+                if (!symbols.isEmpty()) changed.put(underlying, symbols);
+            }
+        }
+
+        for (var listener : listeners) changed.forEach(listener::onMarksUpdated);
+    }
+
+    void handleFrame(String frame) throws IOException {
+        long start = Metrics.start();
+        var changed = new HashMap<String, Set<String>>();
+        var spotUpdates = new HashMap<String, Double>();
+
+        try (var parser = BinanceApiQuery.JSON_FACTORY.createParser(frame)) {
+            BinanceStreamParser.parseStreamFrame(parser, new BinanceStreamParser.StreamFrameHandler() {
+                @Override
+                public void onMark(String symbol, double price, double delta, double impliedVol) {
+                    var underlying = underlyingOf(symbol);
+                    var book = books.get(underlying);
+                    if (book == null) return;
+
+                    var update = new OptionMarketData(price, delta, impliedVol);
+                    if (!update.equals(book.put(symbol, update))) {
+                        changed.computeIfAbsent(underlying, key -> new HashSet<>()).add(symbol);
+                    }
+                }
+
+                @Override
+                public void onIndex(String ticker, double price) {
+                    if (!Objects.equals(indexPrices.put(ticker, price), price)) spotUpdates.put(ticker, price);
+                }
+            });
+        }
+        Metrics.stop(FRAME_PARSE_TIMER, start);
+
+        for (var listener : listeners) {
+            changed.forEach(listener::onMarksUpdated);
+            spotUpdates.forEach(listener::onSpotUpdated);
+        }
+    }
+
+    private String underlyingOf(String symbol) {
+        var underlying = symbolUnderlyings.get(symbol);
+        return underlying != null ? underlying : symbol.substring(0, symbol.indexOf('-')) + "USDT";
+    }
+
+    private class FrameListener implements WebSocket.Listener {
+        private final StringBuilder buffer = new StringBuilder();
+
+        @Override
+        public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+            buffer.append(data);
+            if (last) {
+                try {
+                    handleFrame(buffer.toString());
+                } catch (IOException e) {
+                    // Skipped, and counted rather than logged since a bad feed would log every frame
+                    MALFORMED_FRAMES.increment();
+                }
+                buffer.setLength(0);
+            }
+            socket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket socket, int statusCode, String reason) {
+            scheduleReconnect();
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket socket, Throwable error) {
+            scheduleReconnect();
+        }
+    }
+}
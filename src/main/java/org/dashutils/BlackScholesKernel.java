@@ -0,0 +1,120 @@
+package org.dashutils;
+
+/**
+ * Allocation free Black-Scholes-Merton kernel working purely on primitives. Greeks are per unit of the
+ * underlying: vega per 1.00 of vol, theta per year and rho per 1.00 of rate.
+ */
+public final class BlackScholesKernel {
+    public static final int PRICE = 0;
+    public static final int DELTA = 1;
+    public static final int GAMMA = 2;
+    public static final int VEGA = 3;
+    public static final int THETA = 4;
+    public static final int RHO = 5;
+    public static final int WIDTH = 6;
+
+    static final double MILLIS_PER_YEAR = 365.0 * 24 * 60 * 60 * 1000;
+    private static final double INV_SQRT_2PI = 1.0 / Math.sqrt(2 * Math.PI);
+
+    private BlackScholesKernel() {}
+
+    public static double yearFraction(long fromMillis, long toMillis){
+        return (toMillis - fromMillis) / MILLIS_PER_YEAR;
+    }
+
+    public static double normPdf(double x){
+        return INV_SQRT_2PI * Math.exp(-0.5 * x * x);
+    }
+
+    /**
+     * Standard normal CDF using West's rational approximation of Hart's algorithm, accurate to double
+     * precision without going through erf.
+     */
+    public static double normCdf(double x){
+        double z = Math.abs(x);
+        double tail;
+        if (z > 37){
+            tail = 0;
+        } else if (z < 7.07106781186547){
+            double num = 3.52624965998911e-02;
+            num = num * z + 0.700383064443688;
+            num = num * z + 6.37396220353165;
+            num = num * z + 33.912866078383;
+            num = num * z + 112.079291497871;
+            num = num * z + 221.213596169931;
+            num = num * z + 220.206867912376;
+            double den = 8.83883476483184e-02;
+            den = den * z + 1.75566716318264;
+            den = den * z + 16.064177579207;
+            den = den * z + 86.7807322029461;
+            den = den * z + 296.564248779674;
+            den = den * z + 637.333633378831;
+            den = den * z + 793.826512519948;
+            den = den * z + 440.413735824752;
+            tail = Math.exp(-0.5 * z * z) * num / den;
+        } else {
+            double den = z + 0.65;
+            den = z + 4 / den;
+            den = z + 3 / den;
+            den = z + 2 / den;
+            den = z + 1 / den;
+            tail = Math.exp(-0.5 * z * z) / den / 2.506628274631;
+        }
+        return x > 0 ? 1 - tail : tail;
+    }
+
+    public static double price(boolean isCall, double spot, double strike, double yearsToExpiry,
+                               double riskFreeRate, double dividendRate, double vol){
+        double discountedSpot = spot * Math.exp(-dividendRate * yearsToExpiry);
+        double discountedStrike = strike * Math.exp(-riskFreeRate * yearsToExpiry);
+        double sign = isCall ? 1 : -1;
+        if (!(yearsToExpiry > 0) || !(vol > 0)) return Math.max(sign * (discountedSpot - discountedStrike), 0);
+
+        double totalVol = vol * Math.sqrt(yearsToExpiry);
+        double d1 = Math.log(discountedSpot / discountedStrike) / totalVol + 0.5 * totalVol;
+        double d2 = d1 - totalVol;
+        return sign * (discountedSpot * normCdf(sign * d1) - discountedStrike * normCdf(sign * d2));
+    }
+
+    /**
+     * Prices one option and writes price and Greeks to {@code out[offset + PRICE .. offset + RHO]}. Expired
+     * options or a non-positive vol get their discounted intrinsic value with zero Greeks apart from delta.
+     */
+    public static void priceAndGreeks(boolean isCall, double spot, double strike, double yearsToExpiry,
+                                      double riskFreeRate, double dividendRate, double vol, double[] out, int offset){
+        double dividendDiscount = Math.exp(-dividendRate * yearsToExpiry);
+        double riskFreeDiscount = Math.exp(-riskFreeRate * yearsToExpiry);
+        double discountedSpot = spot * dividendDiscount;
+        double discountedStrike = strike * riskFreeDiscount;
+        double sign = isCall ? 1 : -1;
+
+        if (!(yearsToExpiry > 0) || !(vol > 0)){
+            double intrinsic = sign * (discountedSpot - discountedStrike);
+            out[offset + PRICE] = Math.max(intrinsic, 0);
+            out[offset + DELTA] = intrinsic > 0 ? sign * dividendDiscount : 0;
+            out[offset + GAMMA] = 0;
+            out[offset + VEGA] = 0;
+            out[offset + THETA] = 0;
+            out[offset + RHO] = 0;
+            return;
+        }
+
+        double sqrtT = Math.sqrt(yearsToExpiry);
+        double totalVol = vol * sqrtT;
+        double d1 = Math.log(discountedSpot / discountedStrike) / totalVol + 0.5 * totalVol;
+        double d2 = d1 - totalVol;
+        double nd1 = normCdf(sign * d1);
+        double nd2 = normCdf(sign * d2);
+        double pdf = normPdf(d1);
+        double spotLeg = discountedSpot * nd1;
+        double strikeLeg = discountedStrike * nd2;
+
+        out[offset + PRICE] = sign * (spotLeg - strikeLeg);
+        out[offset + DELTA] = sign * dividendDiscount * nd1;
+        out[offset + GAMMA] = dividendDiscount * pdf / (spot * totalVol);
+        out[offset + VEGA] = discountedSpot * pdf * sqrtT;
+        out[offset + THETA] = -discountedSpot * pdf * vol / (2 * sqrtT)
+                + sign * (dividendRate * spotLeg - riskFreeRate * strikeLeg);
+        out[offset + RHO] = sign * strikeLeg * yearsToExpiry;
+    }
+}
@@ -3,11 +3,16 @@ package org.dashutils;
 import org.apache.commons.math3.distribution.NormalDistribution;
 
 import java.util.Date;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 public class BlackScholesPricer implements OptionPricer {
     final static NormalDistribution normalDist = new NormalDistribution(0, 1);
+    private static final double IV_PRICE_TOLERANCE = 1e-10;
+    private static final double IV_VOL_TOLERANCE = 1e-10;
+    private static final int IV_MAX_ITERATIONS = 64;
+    private static final LatencyHistogram IV_BATCH_TIMER = Metrics.timer("pricing.impliedVolBatch");
 
     static double blackScholesPrice(Option option, Double spotPrice, Double riskFreeRate, Double dividendRate, Double volatility, Date currentDate){
         double yearsToExpiry = TimeUnit.DAYS.convert(option.expiry().getTime() - currentDate.getTime(), TimeUnit.MILLISECONDS) / 365.0;
@@ -60,6 +65,110 @@ public class BlackScholesPricer implements OptionPricer {
 
         return (upperVolBound + lowerVolBound) / 2;
     }
+
+    /**
+     * Solves implied vols for every option of a chain in one pass. Options without market data, already
+     * expired or priced outside the no-arbitrage bounds get {@code NaN}.
+     */
+    public double[] impliedVols(OptionChain chain, Map<String, OptionMarketData> marketData, double spotPrice,
+                                double riskFreeRate, double dividendRate, Date currentDate){
+        var options = chain.optionSeries();
+        int n = options.size();
+        var strikes = new double[n];
+        var prices = new double[n];
+        var yearsToExpiry = new double[n];
+        var isCall = new boolean[n];
+
+        for (int i = 0; i < n; i++){
+            var option = options.get(i);
+            var data = marketData.get(option.symbol());
+            strikes[i] = option.strike();
+            prices[i] = data == null || data.price() == null ? Double.NaN : data.price();
+            yearsToExpiry[i] = BlackScholesKernel.yearFraction(currentDate.getTime(), option.expiry().getTime());
+            isCall[i] = option.callPut() == CallPut.CALL;
+        }
+
+        var vols = new double[n];
+        impliedVols(strikes, prices, yearsToExpiry, isCall, spotPrice, riskFreeRate, dividendRate, vols);
+        return vols;
+    }
+
+    /**
+     * Batch implied vol solver over primitive columns, writing into {@code impliedVols}. Prices are standard
+     * Black-Scholes-Merton (spot discounted by the dividend rate, strike by the risk-free rate).
+     */
+    public void impliedVols(double[] strikes, double[] prices, double[] yearsToExpiry, boolean[] isCall,
+                            double spotPrice, double riskFreeRate, double dividendRate, double[] impliedVols){
+        long start = Metrics.start();
+        for (int i = 0; i < strikes.length; i++){
+            impliedVols[i] = solveImpliedVol(isCall[i], prices[i], spotPrice, strikes[i], yearsToExpiry[i],
+                    riskFreeRate, dividendRate);
+        }
+        Metrics.stop(IV_BATCH_TIMER, start);
+    }
+
+    static double solveImpliedVol(boolean isCall, double price, double spot, double strike, double yearsToExpiry,
+                                  double riskFreeRate, double dividendRate){
+        if (!(yearsToExpiry > 0) || !(price > 0)) return Double.NaN;
+
+        double discountedSpot = spot * Math.exp(-dividendRate * yearsToExpiry);
+        double discountedStrike = strike * Math.exp(-riskFreeRate * yearsToExpiry);
+        double sign = isCall ? 1 : -1;
+
+        double intrinsic = Math.max(sign * (discountedSpot - discountedStrike), 0);
+        if (price <= intrinsic || price >= (isCall ? discountedSpot : discountedStrike)) return Double.NaN;
+
+        double sqrtT = Math.sqrt(yearsToExpiry);
+        double logMoneyness = Math.log(discountedSpot / discountedStrike);
+        // The initial guess works on the call price, puts are mapped over with put-call parity
+        double callPrice = isCall ? price : price + discountedSpot - discountedStrike;
+        double vol = initialVolGuess(callPrice, discountedSpot, discountedStrike, logMoneyness, sqrtT);
+
+        // Halley iterations, falling back to bisection whenever a step leaves the bracket
+        double lowerVol = 0;
+        double upperVol = Double.POSITIVE_INFINITY;
+        for (int iter = 0; iter < IV_MAX_ITERATIONS; iter++){
+            double totalVol = vol * sqrtT;
+            double d1 = logMoneyness / totalVol + 0.5 * totalVol;
+            double d2 = d1 - totalVol;
+            double diff = sign * (discountedSpot * BlackScholesKernel.normCdf(sign * d1)
+                    - discountedStrike * BlackScholesKernel.normCdf(sign * d2)) - price;
+
+            if (Math.abs(diff) < IV_PRICE_TOLERANCE * price) return vol;
+            if (diff > 0){
+                upperVol = vol;
+            } else {
+                lowerVol = vol;
+            }
+
+            double vega = discountedSpot * BlackScholesKernel.normPdf(d1) * sqrtT;
+            double newtonStep = diff / vega;
+            double halleyCorrection = 1 - 0.5 * newtonStep * d1 * d2 / vol;
+            double nextVol = vol - (halleyCorrection > 0.5 ? newtonStep / halleyCorrection : newtonStep);
+
+            if (!(nextVol > lowerVol && nextVol < upperVol)){
+                nextVol = Double.isInfinite(upperVol) ? 2 * vol : 0.5 * (lowerVol + upperVol);
+            }
+            if (Math.abs(nextVol - vol) < IV_VOL_TOLERANCE) return nextVol;
+            vol = nextVol;
+        }
+        return vol;
+    }
+
+    // Corrado-Miller rational approximation, with a moneyness based guess where it breaks down far from the money
+    private static double initialVolGuess(double callPrice, double discountedSpot, double discountedStrike,
+                                          double logMoneyness, double sqrtT){
+        double halfIntrinsic = 0.5 * (discountedSpot - discountedStrike);
+        double adjustedPrice = callPrice - halfIntrinsic;
+        double radicand = adjustedPrice * adjustedPrice - 4 * halfIntrinsic * halfIntrinsic / Math.PI;
+
+        double totalVol = radicand >= 0
+                ? Math.sqrt(2 * Math.PI) / (discountedSpot + discountedStrike) * (adjustedPrice + Math.sqrt(radicand))
+                : Math.sqrt(2 * Math.abs(logMoneyness));
+
+        double vol = totalVol / sqrtT;
+        return vol > 1e-4 && Double.isFinite(vol) ? vol : 0.5;
+    }
 }
 
 interface OptionPricer {
@@ -0,0 +1,9 @@
+package org.dashutils;
+
+import java.time.Duration;
+
+public record CacheStats(long hits, long staleHits, long misses, long loads, long loadFailures, Duration totalLoadTime) {
+    public Duration averageLoadTime() {
+        return loads == 0 ? Duration.ZERO : totalLoadTime.dividedBy(loads);
+    }
+}
@@ -1,55 +1,279 @@
 package org.dashutils;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
 
+/**
+ * Thread safe caching decorator. Each dataset has its own TTL, concurrent misses share a single delegate
+ * call and expired data is served for a while longer while it's refreshed in the background. Empty results,
+ * which is how the network backed requesters report a failed fetch, aren't cached.
+ */
 public class CachedDataRequester implements DataRequester {
+    /**
+     * @param ttl      how long a loaded value is served without reloading
+     * @param maxStale how long past the TTL a value is still served while it's reloaded in the background
+     */
+    public record Policy(Duration ttl, Duration maxStale) {}
+
+    public record Config(Policy borrowRates, Policy optionChain, Policy marketData, Policy spotPrice) {
+        public static Config defaults() {
+            return new Config(
+                    new Policy(Duration.ofMinutes(10), Duration.ofHours(1)),
+                    new Policy(Duration.ofMinutes(5), Duration.ofHours(1)),
+                    new Policy(Duration.ofSeconds(15), Duration.ofMinutes(2)),
+                    new Policy(Duration.ofSeconds(5), Duration.ofMinutes(1)));
+        }
+
+        /**
+         * For push based delegates whose marks and spot prices are already live in memory.
+         */
+        public static Config liveMarketData() {
+            var passThrough = new Policy(Duration.ZERO, Duration.ZERO);
+            var defaults = defaults();
+            return new Config(defaults.borrowRates(), defaults.optionChain(), passThrough, passThrough);
+        }
+    }
+
+    private static final String ALL = "";
+    // Shared by every instance, so switching data source doesn't leave an executor behind
+    private static final Executor SHARED_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
     private final DataRequester delegate;
-    private HashMap<String, Double> borrowRatesCache;
-    private HashMap<String, OptionChain> optionChainCache;
-    private HashMap<String, OptionMarketData> marketDataCache;
-    final private HashMap<String, Double> spotPriceCache;
-    
+    private final SingleFlightCache<String, HashMap<String, Double>> borrowRatesCache;
+    private final SingleFlightCache<String, HashMap<String, OptionChain>> optionChainCache;
+    private final SingleFlightCache<String, HashMap<String, OptionMarketData>> marketDataCache;
+    private final SingleFlightCache<String, Double> spotPriceCache;
+    // Per underlying datasets, for loading only what's viewed; they follow the policies of the full datasets
+    private final SingleFlightCache<String, List<String>> underlyingsCache;
+    private final SingleFlightCache<String, OptionChain> underlyingChainCache;
+    private final SingleFlightCache<String, HashMap<String, OptionMarketData>> underlyingMarketDataCache;
+    private final Executor refreshExecutor;
+
     public CachedDataRequester(DataRequester delegate) {
+        this(delegate, Config.defaults());
+    }
+
+    public CachedDataRequester(DataRequester delegate, Config config) {
+        this(delegate, config, System::nanoTime, SHARED_EXECUTOR);
+    }
+
+    CachedDataRequester(DataRequester delegate, Config config, LongSupplier nanoClock, Executor refreshExecutor) {
         this.delegate = delegate;
-        this.spotPriceCache = new HashMap<>();
+        this.borrowRatesCache = new SingleFlightCache<>("borrowRates", config.borrowRates(), nanoClock, refreshExecutor);
+        this.optionChainCache = new SingleFlightCache<>("optionChain", config.optionChain(), nanoClock, refreshExecutor);
+        this.marketDataCache = new SingleFlightCache<>("marketData", config.marketData(), nanoClock, refreshExecutor);
+        this.spotPriceCache = new SingleFlightCache<>("spotPrice", config.spotPrice(), nanoClock, refreshExecutor);
+        this.underlyingsCache = new SingleFlightCache<>("underlyings", config.optionChain(), nanoClock, refreshExecutor);
+        this.underlyingChainCache = new SingleFlightCache<>("underlyingChain", config.optionChain(), nanoClock, refreshExecutor);
+        this.underlyingMarketDataCache = new SingleFlightCache<>("underlyingMarketData", config.marketData(), nanoClock,
+                refreshExecutor);
+        this.refreshExecutor = refreshExecutor;
     }
-    
+
     @Override
     public HashMap<String, Double> getBorrowRates() {
-        if (borrowRatesCache == null) {
-            borrowRatesCache = delegate.getBorrowRates();
-        }
-        return borrowRatesCache;
+        return borrowRatesCache.get(ALL, key -> delegate.getBorrowRates());
     }
-    
+
     @Override
     public HashMap<String, OptionChain> getOptionChain() {
-        if (optionChainCache == null) {
-            optionChainCache = delegate.getOptionChain();
-        }
-        return optionChainCache;
+        return optionChainCache.get(ALL, key -> delegate.getOptionChain());
     }
-    
+
     @Override
     public HashMap<String, OptionMarketData> getOptionMarketData() {
-        if (marketDataCache == null) {
-            marketDataCache = delegate.getOptionMarketData();
-        }
-        return marketDataCache;
+        return marketDataCache.get(ALL, key -> delegate.getOptionMarketData());
     }
-    
+
     @Override
     public Double getSpotMarketPrice(String ticker) {
-        if (!spotPriceCache.containsKey(ticker)) {
-            spotPriceCache.put(ticker, delegate.getSpotMarketPrice(ticker));
+        return spotPriceCache.get(ticker, delegate::getSpotMarketPrice);
+    }
+
+    @Override
+    public List<String> getUnderlyings() {
+        return underlyingsCache.get(ALL, key -> delegate.getUnderlyings());
+    }
+
+    @Override
+    public OptionChain getOptionChain(String underlying) {
+        return underlyingChainCache.get(underlying, delegate::getOptionChain);
+    }
+
+    @Override
+    public HashMap<String, OptionMarketData> getOptionMarketData(String underlying) {
+        return underlyingMarketDataCache.get(underlying, delegate::getOptionMarketData);
+    }
+
+    /**
+     * Not cached: this is how changed marks pushed to the delegate are read, so they're always the latest.
+     */
+    @Override
+    public HashMap<String, OptionMarketData> getMarks(String underlying, Collection<String> symbols) {
+        return delegate.getMarks(underlying, symbols);
+    }
+
+    /**
+     * Loads borrow rates and the chain, marks and spot price of each given underlying concurrently, serving
+     * whatever is cached.
+     *
+     * @return a snapshot of just those underlyings
+     */
+    public MarketSnapshot load(Collection<String> underlyings) {
+        var borrowRates = CompletableFuture.supplyAsync(this::getBorrowRates, refreshExecutor);
+        var chainRequests = new HashMap<String, CompletableFuture<OptionChain>>();
+        var marketDataRequests = new HashMap<String, CompletableFuture<HashMap<String, OptionMarketData>>>();
+        var spotRequests = new HashMap<String, CompletableFuture<Double>>();
+        for (var underlying : underlyings) {
+            chainRequests.put(underlying, CompletableFuture.supplyAsync(() -> getOptionChain(underlying), refreshExecutor));
+            marketDataRequests.put(underlying, CompletableFuture.supplyAsync(() -> getOptionMarketData(underlying), refreshExecutor));
+            spotRequests.put(underlying, CompletableFuture.supplyAsync(() -> getSpotMarketPrice(underlying), refreshExecutor));
+        }
+
+        var optionChains = new HashMap<String, OptionChain>();
+        chainRequests.forEach((underlying, request) -> {
+            if (request.join() != null) optionChains.put(underlying, request.join());
+        });
+        var marketData = new HashMap<String, OptionMarketData>();
+        marketDataRequests.values().forEach(request -> marketData.putAll(request.join()));
+        var spotPrices = new HashMap<String, Double>();
+        spotRequests.forEach((underlying, request) -> {
+            if (request.join() != null) spotPrices.put(underlying, request.join());
+        });
+        return new MarketSnapshot(borrowRates.join(), optionChains, marketData, spotPrices);
+    }
+
+    /**
+     * Reloads the given underlyings from the delegate. Marks and spot prices are always reloaded, borrow rates and
+     * chains only when {@code marketDataOnly} is false.
+     */
+    public MarketSnapshot reload(Collection<String> underlyings, boolean marketDataOnly) {
+        underlyingMarketDataCache.invalidateAll();
+        spotPriceCache.invalidateAll();
+        if (!marketDataOnly) {
+            borrowRatesCache.invalidateAll();
+            underlyingsCache.invalidateAll();
+            underlyingChainCache.invalidateAll();
+        }
+        return load(underlyings);
+    }
+
+    /**
+     * Warms the caches of one underlying in the background, e.g. for a likely next selection.
+     */
+    public CompletableFuture<MarketSnapshot> prefetchUnderlying(String underlying) {
+        return CompletableFuture.supplyAsync(() -> load(List.of(underlying)), refreshExecutor);
+    }
+
+    /**
+     * Warms every cache from a single concurrent fetch of all datasets.
+     *
+     * @return the fetched snapshot, e.g. for persisting with {@link SnapshotFile}
+     */
+    public MarketSnapshot prefetch(Collection<String> spotTickers) {
+        // Reads racing the fetch, e.g. revalidating primed entries, wait for it rather than loading again
+        var snapshot = delegate.fetchSnapshot(spotTickers);
+        var stored = new ArrayList<CompletableFuture<?>>();
+        stored.add(borrowRatesCache.track(ALL, snapshot.thenApply(MarketSnapshot::borrowRates)));
+        stored.add(optionChainCache.track(ALL, snapshot.thenApply(MarketSnapshot::optionChains)));
+        stored.add(marketDataCache.track(ALL, snapshot.thenApply(MarketSnapshot::optionMarketData)));
+        for (var ticker : spotTickers) {
+            stored.add(spotPriceCache.track(ticker, snapshot.thenApply(loaded -> loaded.spotPrices().get(ticker))));
+        }
+        CompletableFuture.allOf(stored.toArray(CompletableFuture[]::new)).join();
+        return snapshot.join();
+    }
+
+    /**
+     * Seeds every cache with previously persisted data marked as expired, so it's served immediately while the
+     * first reads refresh it from the delegate in the background.
+     */
+    public void prime(MarketSnapshot snapshot) {
+        optionChainCache.putStale(ALL, snapshot.optionChains());
+        marketDataCache.putStale(ALL, snapshot.optionMarketData());
+        if (snapshot.optionChains() != null) {
+            underlyingsCache.putStale(ALL, new ArrayList<>(new TreeSet<>(snapshot.optionChains().keySet())));
+        }
+        primeUnderlyings(snapshot);
+    }
+
+    /**
+     * Like {@link #prime}, for a snapshot of just some underlyings such as one from {@link #load}: only the borrow
+     * rates, spot prices and per underlying caches are seeded. The underlyings listed and the full datasets are
+     * left to load from the delegate, since the snapshot doesn't cover them.
+     */
+    public void primeUnderlyings(MarketSnapshot snapshot) {
+        borrowRatesCache.putStale(ALL, snapshot.borrowRates());
+        if (snapshot.spotPrices() != null) snapshot.spotPrices().forEach(spotPriceCache::putStale);
+        if (snapshot.optionChains() != null) {
+            snapshot.optionChains().forEach((underlying, chain) -> {
+                underlyingChainCache.putStale(underlying, chain);
+                underlyingMarketDataCache.putStale(underlying, DataRequester.marketDataOf(chain, snapshot.optionMarketData()));
+            });
+        }
+    }
+
+    /**
+     * Reloads marks and spot prices only. Borrow rates and the option chain, which is static contract metadata,
+     * are served from the cache and only reloaded once their own TTLs run out.
+     *
+     * @return the current snapshot of every dataset
+     */
+    public MarketSnapshot refreshMarketData(Collection<String> spotTickers) {
+        invalidateMarketData();
+        var marketData = CompletableFuture.supplyAsync(this::getOptionMarketData, refreshExecutor);
+        var spotRequests = new HashMap<String, CompletableFuture<Double>>();
+        for (var ticker : spotTickers) {
+            spotRequests.put(ticker, CompletableFuture.supplyAsync(() -> getSpotMarketPrice(ticker), refreshExecutor));
         }
-        return spotPriceCache.get(ticker);
+        var borrowRates = getBorrowRates();
+        var optionChains = getOptionChain();
+
+        var spotPrices = new HashMap<String, Double>();
+        spotRequests.forEach((ticker, request) -> {
+            if (request.join() != null) spotPrices.put(ticker, request.join());
+        });
+        return new MarketSnapshot(borrowRates, optionChains, marketData.join(), spotPrices);
+    }
+
+    /**
+     * Drops marks and spot prices, keeping borrow rates and option chains.
+     */
+    public void invalidateMarketData() {
+        marketDataCache.invalidateAll();
+        underlyingMarketDataCache.invalidateAll();
+        spotPriceCache.invalidateAll();
     }
-    
+
+    public Map<String, CacheStats> getStats() {
+        var stats = new LinkedHashMap<String, CacheStats>();
+        stats.put("borrowRates", borrowRatesCache.stats());
+        stats.put("optionChain", optionChainCache.stats());
+        stats.put("marketData", marketDataCache.stats());
+        stats.put("spotPrice", spotPriceCache.stats());
+        stats.put("underlyings", underlyingsCache.stats());
+        stats.put("underlyingChain", underlyingChainCache.stats());
+        stats.put("underlyingMarketData", underlyingMarketDataCache.stats());
+        return stats;
+    }
+
     public void clearCaches() {
-        borrowRatesCache = null;
-        optionChainCache = null;
-        marketDataCache = null;
-        spotPriceCache.clear();
+        borrowRatesCache.invalidateAll();
+        optionChainCache.invalidateAll();
+        marketDataCache.invalidateAll();
+        spotPriceCache.invalidateAll();
+        underlyingsCache.invalidateAll();
+        underlyingChainCache.invalidateAll();
+        underlyingMarketDataCache.invalidateAll();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,240 @@
+package org.dashutils;
+
+import java.util.*;
+
+/**
+ * Column oriented option chain for one underlying, sorted by (expiry, strike, call before put) so that each
+ * expiry is a contiguous row range. Symbols are held as {@link SymbolTable} ids and market data as primitive
+ * columns, with NaN where there is no mark.
+ */
+public final class ColumnarOptionChain {
+    private final String underlying;
+    private final SymbolTable symbols;
+    private final int[] symbolIds;
+    private final double[] strikes;
+    private final long[] expiries;
+    private final boolean[] isCall;
+    private final double[] marks;
+    private final double[] impliedVols;
+    private final double[] deltas;
+
+    // Distinct expiries with the first row of each, expiryStarts[e + 1] being the end of expiry e
+    private long[] distinctExpiries;
+    private int[] expiryStarts;
+    private int expiryCount;
+
+    // Symbol id -> row lookup by binary search
+    private final int[] sortedSymbolIds;
+    private final int[] sortedSymbolRows;
+
+    private ColumnarOptionChain(String underlying, SymbolTable symbols, int size) {
+        this.underlying = underlying.intern();
+        this.symbols = symbols;
+        this.symbolIds = new int[size];
+        this.strikes = new double[size];
+        this.expiries = new long[size];
+        this.isCall = new boolean[size];
+        this.marks = new double[size];
+        this.impliedVols = new double[size];
+        this.deltas = new double[size];
+        this.sortedSymbolIds = new int[size];
+        this.sortedSymbolRows = new int[size];
+    }
+
+    // Shares the contract columns and indexes, which never change once built, with its own market data columns
+    private ColumnarOptionChain(ColumnarOptionChain source) {
+        this.underlying = source.underlying;
+        this.symbols = source.symbols;
+        this.symbolIds = source.symbolIds;
+        this.strikes = source.strikes;
+        this.expiries = source.expiries;
+        this.isCall = source.isCall;
+        this.marks = source.marks.clone();
+        this.impliedVols = source.impliedVols.clone();
+        this.deltas = source.deltas.clone();
+        this.distinctExpiries = source.distinctExpiries;
+        this.expiryStarts = source.expiryStarts;
+        this.expiryCount = source.expiryCount;
+        this.sortedSymbolIds = source.sortedSymbolIds;
+        this.sortedSymbolRows = source.sortedSymbolRows;
+    }
+
+    public static ColumnarOptionChain of(OptionChain chain, Map<String, OptionMarketData> marketData, SymbolTable symbols) {
+        var options = new ArrayList<>(chain.optionSeries());
+        options.sort(Comparator.comparingLong((Option option) -> option.expiry().getTime())
+                .thenComparingDouble(Option::strike)
+                .thenComparing(Option::callPut));
+
+        int size = options.size();
+        var columnar = new ColumnarOptionChain(chain.underlying(), symbols, size);
+        for (int row = 0; row < size; row++) {
+            var option = options.get(row);
+            columnar.symbolIds[row] = symbols.idOf(option.symbol());
+            columnar.strikes[row] = option.strike();
+            columnar.expiries[row] = option.expiry().getTime();
+            columnar.isCall[row] = option.callPut() == CallPut.CALL;
+            columnar.setMarketData(row, marketData.get(option.symbol()));
+        }
+        columnar.buildIndexes();
+        return columnar;
+    }
+
+    public static HashMap<String, ColumnarOptionChain> ofAll(Map<String, OptionChain> chains,
+                                                             Map<String, OptionMarketData> marketData, SymbolTable symbols) {
+        var columnarChains = new HashMap<String, ColumnarOptionChain>();
+        chains.forEach((underlying, chain) -> columnarChains.put(underlying, of(chain, marketData, symbols)));
+        return columnarChains;
+    }
+
+    private void buildIndexes() {
+        // Counted first so the expiry index is sized by expiries rather than rows
+        expiryCount = 0;
+        for (int row = 0; row < expiries.length; row++) {
+            if (row == 0 || expiries[row] != expiries[row - 1]) expiryCount++;
+        }
+        distinctExpiries = new long[expiryCount];
+        expiryStarts = new int[expiryCount + 1];
+
+        int distinct = 0;
+        for (int row = 0; row < expiries.length; row++) {
+            if (row == 0 || expiries[row] != expiries[row - 1]) {
+                distinctExpiries[distinct] = expiries[row];
+                expiryStarts[distinct++] = row;
+            }
+        }
+        expiryStarts[distinct] = expiries.length;
+
+        var order = new long[symbolIds.length];
+        for (int row = 0; row < symbolIds.length; row++) {
+            order[row] = ((long) symbolIds[row] << 32) | row;
+        }
+        Arrays.sort(order);
+        for (int i = 0; i < order.length; i++) {
+            sortedSymbolIds[i] = (int) (order[i] >>> 32);
+            sortedSymbolRows[i] = (int) order[i];
+        }
+    }
+
+    private void setMarketData(int row, OptionMarketData data) {
+        marks[row] = data == null || data.price() == null ? Double.NaN : data.price();
+        impliedVols[row] = data == null || data.impliedVol() == null ? Double.NaN : data.impliedVol();
+        deltas[row] = data == null || data.delta() == null ? Double.NaN : data.delta();
+    }
+
+    /**
+     * Overwrites the market data columns in place. Not synchronised: callers publishing to other threads
+     * must hand over the chain safely.
+     */
+    public void updateMarketData(Map<String, OptionMarketData> marketData) {
+        for (int row = 0; row < symbolIds.length; row++) {
+            setMarketData(row, marketData.get(symbols.symbol(symbolIds[row])));
+        }
+    }
+
+    /**
+     * A copy with the same rows whose market data columns aren't affected by later updates of this chain.
+     */
+    public ColumnarOptionChain copy() {
+        return new ColumnarOptionChain(this);
+    }
+
+    public void updateMark(int row, double mark, double impliedVol, double delta) {
+        marks[row] = mark;
+        impliedVols[row] = impliedVol;
+        deltas[row] = delta;
+    }
+
+    /**
+     * @return the row of the given symbol id, or -1 if it's not part of this chain
+     */
+    public int rowOf(int symbolId) {
+        int i = Arrays.binarySearch(sortedSymbolIds, symbolId);
+        return i < 0 ? -1 : sortedSymbolRows[i];
+    }
+
+    /**
+     * @return the index of the expiry (as epoch millis) in {@link #expiry(int)} order, or -1
+     */
+    public int findExpiry(long expiryMillis) {
+        int i = Arrays.binarySearch(distinctExpiries, 0, expiryCount, expiryMillis);
+        return i < 0 ? -1 : i;
+    }
+
+    /**
+     * Copies the strikes and implied vols of one side of an expiry into the given arrays, skipping options
+     * without an implied vol.
+     *
+     * @return the number of points written, in increasing strike order
+     */
+    public int smile(int expiryIndex, CallPut side, double[] strikesOut, double[] volsOut) {
+        boolean wantCall = side == CallPut.CALL;
+        int count = 0;
+        for (int row = expiryStarts[expiryIndex]; row < expiryStarts[expiryIndex + 1]; row++) {
+            if (isCall[row] == wantCall && !Double.isNaN(impliedVols[row])) {
+                strikesOut[count] = strikes[row];
+                volsOut[count++] = impliedVols[row];
+            }
+        }
+        return count;
+    }
+
+    public String underlying() {
+        return underlying;
+    }
+
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
+    public int size() {
+        return symbolIds.length;
+    }
+
+    public int expiryCount() {
+        return expiryCount;
+    }
+
+    public long expiry(int expiryIndex) {
+        return distinctExpiries[expiryIndex];
+    }
+
+    public int expiryStart(int expiryIndex) {
+        return expiryStarts[expiryIndex];
+    }
+
+    public int expiryEnd(int expiryIndex) {
+        return expiryStarts[expiryIndex + 1];
+    }
+
+    public int symbolId(int row) {
+        return symbolIds[row];
+    }
+
+    public String symbol(int row) {
+        return symbols.symbol(symbolIds[row]);
+    }
+
+    public double strike(int row) {
+        return strikes[row];
+    }
+
+    public long expiryAt(int row) {
+        return expiries[row];
+    }
+
+    public boolean isCall(int row) {
+        return isCall[row];
+    }
+
+    public double mark(int row) {
+        return marks[row];
+    }
+
+    public double impliedVol(int row) {
+        return impliedVols[row];
+    }
+
+    public double delta(int row) {
+        return deltas[row];
+    }
+}
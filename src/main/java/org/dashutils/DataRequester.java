@@ -1,6 +1,12 @@
 package org.dashutils;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 
 public interface DataRequester {
     public HashMap<String, Double> getBorrowRates();
@@ -10,4 +16,68 @@ public interface DataRequester {
     public HashMap<String, OptionMarketData> getOptionMarketData();
 
     public Double getSpotMarketPrice(String ticker);
-}
\ No newline at end of file
+
+    /**
+     * Underlyings with listed options (e.g. BTCUSDT), sorted. Defaults to the keys of the full option chain;
+     * requesters that can list them more cheaply override this.
+     */
+    public default List<String> getUnderlyings() {
+        return new ArrayList<>(new TreeSet<>(getOptionChain().keySet()));
+    }
+
+    /**
+     * The chain of one underlying, or null if it has no listed options. Defaults to picking it out of the full
+     * chain; network backed requesters override this to load only what's asked for.
+     */
+    public default OptionChain getOptionChain(String underlying) {
+        return getOptionChain().get(underlying);
+    }
+
+    /**
+     * Marks of one underlying's options. Defaults to filtering the full market data by the underlying's chain.
+     */
+    public default HashMap<String, OptionMarketData> getOptionMarketData(String underlying) {
+        return marketDataOf(getOptionChain(underlying), getOptionMarketData());
+    }
+
+    /**
+     * Marks of the given symbols of one underlying, e.g. those a {@link MarketDataListener} was told changed.
+     * Symbols without a mark are absent. Defaults to picking them out of the underlying's market data; push based
+     * requesters override this to look them up without copying the book.
+     */
+    public default HashMap<String, OptionMarketData> getMarks(String underlying, Collection<String> symbols) {
+        var marketData = getOptionMarketData(underlying);
+        var marks = new HashMap<String, OptionMarketData>();
+        for (var symbol : symbols) {
+            var mark = marketData.get(symbol);
+            if (mark != null) marks.put(symbol, mark);
+        }
+        return marks;
+    }
+
+    /**
+     * Loads every dataset in one go. Network backed requesters override this to fetch concurrently.
+     */
+    public default CompletableFuture<MarketSnapshot> fetchSnapshot(Collection<String> spotTickers) {
+        var spotPrices = new HashMap<String, Double>();
+        spotTickers.forEach(ticker -> {
+            var price = getSpotMarketPrice(ticker);
+            if (price != null) spotPrices.put(ticker, price);
+        });
+        return CompletableFuture.completedFuture(
+                new MarketSnapshot(getBorrowRates(), getOptionChain(), getOptionMarketData(), spotPrices));
+    }
+
+    /**
+     * @return the entries of {@code marketData} for the chain's symbols, empty if there's no chain
+     */
+    public static HashMap<String, OptionMarketData> marketDataOf(OptionChain chain, Map<String, OptionMarketData> marketData) {
+        var filtered = new HashMap<String, OptionMarketData>();
+        if (chain == null || marketData == null) return filtered;
+        for (var option : chain.optionSeries()) {
+            var data = marketData.get(option.symbol());
+            if (data != null) filtered.put(option.symbol(), data);
+        }
+        return filtered;
+    }
+}
@@ -0,0 +1,202 @@
+package org.dashutils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Gorilla style column compression (Pelkonen et al., VLDB 2015): timestamps as bucketed delta-of-deltas and
+ * doubles as XORs against the previous value, storing only the meaningful bits. Slowly moving marks and regular
+ * tick intervals mostly encode to a few bits per value.
+ */
+final class GorillaCodec {
+    private GorillaCodec() {}
+
+    static void encodeTimestamps(long[] timestamps, int count, BitWriter out) {
+        if (count == 0) return;
+        out.writeBits(timestamps[0], 64);
+        long previous = timestamps[0];
+        long previousDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = timestamps[i] - previous;
+            long deltaOfDelta = delta - previousDelta;
+            if (deltaOfDelta == 0) {
+                out.writeBits(0b0, 1);
+            } else if (fits(deltaOfDelta, 7)) {
+                out.writeBits(0b10, 2);
+                out.writeBits(deltaOfDelta, 7);
+            } else if (fits(deltaOfDelta, 9)) {
+                out.writeBits(0b110, 3);
+                out.writeBits(deltaOfDelta, 9);
+            } else if (fits(deltaOfDelta, 12)) {
+                out.writeBits(0b1110, 4);
+                out.writeBits(deltaOfDelta, 12);
+            } else if (fits(deltaOfDelta, 32)) {
+                out.writeBits(0b11110, 5);
+                out.writeBits(deltaOfDelta, 32);
+            } else {
+                out.writeBits(0b11111, 5);
+                out.writeBits(deltaOfDelta, 64);
+            }
+            previous = timestamps[i];
+            previousDelta = delta;
+        }
+    }
+
+    static void decodeTimestamps(BitReader in, int count, long[] out) {
+        if (count == 0) return;
+        out[0] = in.readBits(64);
+        long previousDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long deltaOfDelta;
+            if (in.readBits(1) == 0) {
+                deltaOfDelta = 0;
+            } else if (in.readBits(1) == 0) {
+                deltaOfDelta = signExtend(in.readBits(7), 7);
+            } else if (in.readBits(1) == 0) {
+                deltaOfDelta = signExtend(in.readBits(9), 9);
+            } else if (in.readBits(1) == 0) {
+                deltaOfDelta = signExtend(in.readBits(12), 12);
+            } else if (in.readBits(1) == 0) {
+                deltaOfDelta = signExtend(in.readBits(32), 32);
+            } else {
+                deltaOfDelta = in.readBits(64);
+            }
+            previousDelta += deltaOfDelta;
+            out[i] = out[i - 1] + previousDelta;
+        }
+    }
+
+    static void encodeValues(double[] values, int count, BitWriter out) {
+        if (count == 0) return;
+        long previous = Double.doubleToRawLongBits(values[0]);
+        out.writeBits(previous, 64);
+        int leading = -1;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previous;
+            if (xor == 0) {
+                out.writeBits(0b0, 1);
+            } else {
+                int newLeading = Long.numberOfLeadingZeros(xor);
+                int newTrailing = Long.numberOfTrailingZeros(xor);
+                if (leading >= 0 && newLeading >= leading && newTrailing >= trailing) {
+                    // Fits the previous window of meaningful bits
+                    out.writeBits(0b10, 2);
+                    out.writeBits(xor >>> trailing, 64 - leading - trailing);
+                } else {
+                    leading = newLeading;
+                    trailing = newTrailing;
+                    int meaningful = 64 - leading - trailing;
+                    out.writeBits(0b11, 2);
+                    out.writeBits(leading, 6);
+                    out.writeBits(meaningful - 1, 6);
+                    out.writeBits(xor >>> trailing, meaningful);
+                }
+            }
+            previous = bits;
+        }
+    }
+
+    static void decodeValues(BitReader in, int count, double[] out) {
+        if (count == 0) return;
+        long previous = in.readBits(64);
+        out[0] = Double.longBitsToDouble(previous);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (in.readBits(1) != 0) {
+                if (in.readBits(1) != 0) {
+                    leading = (int) in.readBits(6);
+                    trailing = 64 - leading - ((int) in.readBits(6) + 1);
+                }
+                previous ^= in.readBits(64 - leading - trailing) << trailing;
+            }
+            out[i] = Double.longBitsToDouble(previous);
+        }
+    }
+
+    private static boolean fits(long value, int bits) {
+        return value >= -(1L << (bits - 1)) && value < (1L << (bits - 1));
+    }
+
+    private static long signExtend(long value, int bits) {
+        return (value << (64 - bits)) >> (64 - bits);
+    }
+
+    /**
+     * Big endian bit sink into a growable byte array.
+     */
+    static final class BitWriter {
+        private byte[] bytes = new byte[4096];
+        private int length;
+        private long pending;
+        private int pendingBits;
+
+        /**
+         * Writes the low {@code bits} bits of the value, most significant first.
+         */
+        void writeBits(long value, int bits) {
+            if (bits > 32) {
+                writeBits(value >>> 32, bits - 32);
+                bits = 32;
+            }
+            pending = (pending << bits) | (value & (-1L >>> (64 - bits)));
+            pendingBits += bits;
+            while (pendingBits >= 8) {
+                pendingBits -= 8;
+                if (length == bytes.length) bytes = Arrays.copyOf(bytes, length * 2);
+                bytes[length++] = (byte) (pending >>> pendingBits);
+            }
+        }
+
+        /**
+         * Pads the current byte with zero bits, so the next write starts on a byte boundary.
+         */
+        void alignToByte() {
+            if (pendingBits > 0) writeBits(0, 8 - pendingBits);
+        }
+
+        int length() {
+            return length;
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        void reset() {
+            length = 0;
+            pending = 0;
+            pendingBits = 0;
+        }
+    }
+
+    /**
+     * Big endian bit source reading a buffer from an absolute byte offset, leaving the buffer's position alone.
+     */
+    static final class BitReader {
+        private final ByteBuffer buffer;
+        private int position;
+        private long pending;
+        private int pendingBits;
+
+        BitReader(ByteBuffer buffer, int offset) {
+            this.buffer = buffer;
+            this.position = offset;
+        }
+
+        long readBits(int bits) {
+            if (bits > 32) {
+                long high = readBits(bits - 32);
+                return (high << 32) | readBits(32);
+            }
+            while (pendingBits < bits) {
+                pending = (pending << 8) | (buffer.get(position++) & 0xFF);
+                pendingBits += 8;
+            }
+            pendingBits -= bits;
+            return (pending >>> pendingBits) & (-1L >>> (64 - bits));
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package org.dashutils;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps repriced chains current from separately supplied inputs (chain metadata, marks, spot prices, borrow
+ * rates), recomputing only what depends on an input that changed. A new spot price or rate dirties every row of
+ * its underlying, a changed mark only its own row, and chain metadata equal to what's already held keeps the
+ * columnar chain and everything derived from it. Streamed marks go through {@link #setMarks}, which only touches
+ * the rows of the symbols that changed.
+ * <p>
+ * Rows are repriced as of the {@link #recompute(long)} that found them dirty, so clean rows keep the time to
+ * expiry they were last priced at until {@link #invalidateAll()}. Market data columns of the chains and the
+ * results are updated in place, so readers on other threads take a {@link #snapshot(String)} rather than reading
+ * {@link #chains()} or {@link #repriced(String)} while it's being updated.
+ */
+public class IncrementalRepricer {
+    /**
+     * Rows repriced by one {@link #recompute(long)}, by underlying. Underlyings without changes are absent.
+     */
+    public record Changes(HashMap<String, BitSet> rows) {
+        public boolean isEmpty() {
+            return rows.isEmpty();
+        }
+
+        public boolean touches(String underlying) {
+            return rows.containsKey(underlying);
+        }
+
+        public BitSet rows(String underlying) {
+            return rows.getOrDefault(underlying, new BitSet());
+        }
+    }
+
+    private static class Node {
+        final OptionChain source;
+        final BitSet dirty = new BitSet();
+        RiskEngine.RepricedChain repriced;
+
+        Node(OptionChain source, RiskEngine.RepricedChain repriced) {
+            this.source = source;
+            this.repriced = repriced;
+            dirty.set(0, repriced.chain().size());
+        }
+    }
+
+    private static final LatencyHistogram RECOMPUTE_TIMER = Metrics.timer("pricing.incrementalRecompute");
+    private static final Metrics.Counter REPRICED_ROWS = Metrics.counter("pricing.incrementalRows");
+
+    private final SymbolTable symbols = new SymbolTable();
+    private final HashMap<String, Node> nodes = new HashMap<>();
+    private final HashMap<String, Double> spotPrices = new HashMap<>();
+    private Map<String, Double> borrowRates = Map.of();
+    // Marks new chains are built with, kept current by setMarks
+    private HashMap<String, OptionMarketData> marketData = new HashMap<>();
+    // Replaced rather than modified when underlyings are added, rebuilt or dropped
+    private HashMap<String, ColumnarOptionChain> chains = new HashMap<>();
+
+    public synchronized void update(MarketSnapshot snapshot) {
+        if (snapshot.optionChains() != null) setOptionChains(snapshot.optionChains());
+        if (snapshot.borrowRates() != null) setBorrowRates(snapshot.borrowRates());
+        if (snapshot.optionMarketData() != null) setMarketData(snapshot.optionMarketData());
+        if (snapshot.spotPrices() != null) snapshot.spotPrices().forEach(this::setSpotPrice);
+    }
+
+    /**
+     * Rebuilds the columnar chain of each underlying whose contracts differ from those already held.
+     */
+    public synchronized void setOptionChains(Map<String, OptionChain> optionChains) {
+        boolean changed = nodes.keySet().retainAll(optionChains.keySet());
+        for (var entry : optionChains.entrySet()) {
+            var node = nodes.get(entry.getKey());
+            var source = entry.getValue();
+            if (node != null && (node.source == source || node.source.equals(source))) continue;
+
+            var chain = ColumnarOptionChain.of(source, marketData, symbols);
+            nodes.put(entry.getKey(), new Node(source, new RiskEngine.RepricedChain(chain,
+                    spotPrice(chain.underlying()), RiskEngine.rate(borrowRates, "USDT"),
+                    RiskEngine.rate(borrowRates, RiskEngine.baseAsset(chain.underlying())),
+                    new double[chain.size()], new double[chain.size() * BlackScholesKernel.WIDTH])));
+            changed = true;
+        }
+
+        if (changed) {
+            var rebuilt = new HashMap<String, ColumnarOptionChain>();
+            nodes.forEach((underlying, node) -> rebuilt.put(underlying, node.repriced.chain()));
+            chains = rebuilt;
+        }
+    }
+
+    /**
+     * Updates the market data columns, dirtying only rows whose mark, implied vol or delta changed.
+     */
+    public synchronized void setMarketData(Map<String, OptionMarketData> marketData) {
+        this.marketData = new HashMap<>(marketData);
+        for (var node : nodes.values()) {
+            var chain = node.repriced.chain();
+            for (int row = 0; row < chain.size(); row++) updateRow(node, row, marketData.get(chain.symbol(row)));
+        }
+    }
+
+    /**
+     * Updates the rows of just the given symbols of one underlying, e.g. those a stream frame changed, resolving
+     * them through the symbol table rather than walking the chain. Symbols absent from {@code marks} are unmarked,
+     * and symbols not in the underlying's chain are kept for when it's next rebuilt.
+     */
+    public synchronized void setMarks(String underlying, Collection<String> changedSymbols,
+                                      Map<String, OptionMarketData> marks) {
+        var node = nodes.get(underlying);
+        for (var symbol : changedSymbols) {
+            var data = marks.get(symbol);
+            if (data == null) {
+                marketData.remove(symbol);
+            } else {
+                marketData.put(symbol, data);
+            }
+            if (node == null) continue;
+
+            int symbolId = symbols.find(symbol);
+            int row = symbolId < 0 ? -1 : node.repriced.chain().rowOf(symbolId);
+            if (row >= 0) updateRow(node, row, data);
+        }
+    }
+
+    private static void updateRow(Node node, int row, OptionMarketData data) {
+        var chain = node.repriced.chain();
+        double mark = data == null || data.price() == null ? Double.NaN : data.price();
+        double impliedVol = data == null || data.impliedVol() == null ? Double.NaN : data.impliedVol();
+        double delta = data == null || data.delta() == null ? Double.NaN : data.delta();
+        if (Double.compare(mark, chain.mark(row)) != 0 || Double.compare(impliedVol, chain.impliedVol(row)) != 0
+                || Double.compare(delta, chain.delta(row)) != 0) {
+            chain.updateMark(row, mark, impliedVol, delta);
+            node.dirty.set(row);
+        }
+    }
+
+    public synchronized void setSpotPrice(String underlying, Double spotPrice) {
+        if (spotPrice == null) return;
+        spotPrices.put(underlying, spotPrice);
+        for (var node : nodes.values()) {
+            var repriced = node.repriced;
+            if (!repriced.chain().underlying().equals(underlying) || Double.compare(repriced.spot(), spotPrice) == 0) continue;
+            node.repriced = new RiskEngine.RepricedChain(repriced.chain(), spotPrice, repriced.riskFreeRate(),
+                    repriced.dividendRate(), repriced.impliedVols(), repriced.greeks());
+            node.dirty.set(0, repriced.chain().size());
+        }
+    }
+
+    /**
+     * Dirties the underlyings whose risk free rate (USDT) or yield (base asset) changed.
+     */
+    public synchronized void setBorrowRates(Map<String, Double> borrowRates) {
+        this.borrowRates = borrowRates;
+        double riskFreeRate = RiskEngine.rate(borrowRates, "USDT");
+        for (var node : nodes.values()) {
+            var repriced = node.repriced;
+            double dividendRate = RiskEngine.rate(borrowRates, RiskEngine.baseAsset(repriced.chain().underlying()));
+            if (Double.compare(riskFreeRate, repriced.riskFreeRate()) == 0
+                    && Double.compare(dividendRate, repriced.dividendRate()) == 0) continue;
+            node.repriced = new RiskEngine.RepricedChain(repriced.chain(), repriced.spot(), riskFreeRate, dividendRate,
+                    repriced.impliedVols(), repriced.greeks());
+            node.dirty.set(0, repriced.chain().size());
+        }
+    }
+
+    /**
+     * Marks every row dirty, e.g. to bring time to expiry up to date.
+     */
+    public synchronized void invalidateAll() {
+        for (var node : nodes.values()) node.dirty.set(0, node.repriced.chain().size());
+    }
+
+    /**
+     * Reprices the dirty rows. Rows of an underlying without a spot price get NaN implied vols and Greeks.
+     */
+    public synchronized Changes recompute(long asOfMillis) {
+        long start = Metrics.start();
+        var changes = new HashMap<String, BitSet>();
+        for (var entry : nodes.entrySet()) {
+            var node = entry.getValue();
+            if (node.dirty.isEmpty()) continue;
+
+            var repriced = node.repriced;
+            var chain = repriced.chain();
+            boolean priceable = !Double.isNaN(repriced.spot());
+            for (int row = node.dirty.nextSetBit(0); row >= 0; row = node.dirty.nextSetBit(row + 1)) {
+                if (priceable) {
+                    RiskEngine.repriceRow(repriced, row, BlackScholesKernel.yearFraction(asOfMillis, chain.expiryAt(row)));
+                } else {
+                    repriced.impliedVols()[row] = Double.NaN;
+                    int offset = row * BlackScholesKernel.WIDTH;
+                    Arrays.fill(repriced.greeks(), offset, offset + BlackScholesKernel.WIDTH, Double.NaN);
+                }
+            }
+            REPRICED_ROWS.add(node.dirty.cardinality());
+            changes.put(entry.getKey(), (BitSet) node.dirty.clone());
+            node.dirty.clear();
+        }
+        Metrics.stop(RECOMPUTE_TIMER, start);
+        return new Changes(changes);
+    }
+
+    /**
+     * The columnar chains by underlying. The same map instance is returned until an underlying is added,
+     * rebuilt or dropped, so callers can key their own indexes on it.
+     */
+    public synchronized HashMap<String, ColumnarOptionChain> chains() {
+        return chains;
+    }
+
+    public synchronized RiskEngine.RepricedChain repriced(String underlying) {
+        var node = nodes.get(underlying);
+        return node == null ? null : node.repriced;
+    }
+
+    /**
+     * @return a copy of the underlying's chain market data and results as of the last {@link #recompute(long)}, in
+     * the same rows as its chain, or null if the underlying isn't held
+     */
+    public synchronized RiskEngine.RepricedChain snapshot(String underlying) {
+        var node = nodes.get(underlying);
+        return node == null ? null : node.repriced.copy();
+    }
+
+    private double spotPrice(String underlying) {
+        var spot = spotPrices.get(underlying);
+        return spot == null ? Double.NaN : spot;
+    }
+}
@@ -0,0 +1,103 @@
+package org.dashutils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free latency histogram in nanoseconds with HDR style log-linear buckets: values below 32 are counted
+ * exactly, above that each power of two is split into 32 sub-buckets, keeping every recorded value within about
+ * 3% of its bucket. Recording is one array increment and two adder updates; values past about 4.9 hours are
+ * counted in the last bucket.
+ */
+public final class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int MAX_EXPONENT = 44;
+    static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    /**
+     * Point in time copy of a histogram. Percentiles and the max are the highest value of their bucket.
+     */
+    public record Snapshot(long count, long totalNanos, long[] counts) {
+        public double meanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        /**
+         * @param percentile in [0, 100]
+         */
+        public long percentileNanos(double percentile) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return highestEquivalentValue(i);
+            }
+            return highestEquivalentValue(counts.length - 1);
+        }
+
+        public long maxNanos() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0) return highestEquivalentValue(i);
+            }
+            return 0;
+        }
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        totalNanos.add(value);
+    }
+
+    public Snapshot snapshot() {
+        var copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        // Bucket counts rather than the adders, so percentiles stay consistent with the count under concurrent
+        // recording
+        return new Snapshot(total, totalNanos.sum(), copy);
+    }
+
+    /**
+     * Clears the histogram. Values recorded concurrently may be partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.reset();
+        totalNanos.reset();
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowestEquivalentValue(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    static long highestEquivalentValue(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        return lowestEquivalentValue(bucket) + (1L << (bucket / SUB_BUCKETS - 1)) - 1;
+    }
+}
@@ -0,0 +1,9 @@
+package org.dashutils;
+
+import java.util.Set;
+
+public interface MarketDataListener {
+    void onMarksUpdated(String underlying, Set<String> symbols);
+
+    void onSpotUpdated(String ticker, double price);
+}
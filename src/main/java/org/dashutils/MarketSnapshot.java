@@ -0,0 +1,15 @@
+package org.dashutils;
+
+import java.util.HashMap;
+
+public record MarketSnapshot(HashMap<String, Double> borrowRates,
+                             HashMap<String, OptionChain> optionChains,
+                             HashMap<String, OptionMarketData> optionMarketData,
+                             HashMap<String, Double> spotPrices) {
+    /**
+     * Whether it holds any chain and any mark. Requesters report a failed fetch with empty datasets.
+     */
+    public boolean hasMarketData() {
+        return optionChains != null && !optionChains.isEmpty() && optionMarketData != null && !optionMarketData.isEmpty();
+    }
+}
@@ -0,0 +1,142 @@
+package org.dashutils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Decorator timing every call to the delegate into {@link Metrics} under {@code requester.<call>}, with failed
+ * calls counted under {@code requester.failures}. Place it below any cache to time real loads only.
+ */
+public class MeteredDataRequester implements DataRequester {
+    private static final LatencyHistogram BORROW_RATES = Metrics.timer("requester.borrowRates");
+    private static final LatencyHistogram OPTION_CHAIN = Metrics.timer("requester.optionChain");
+    private static final LatencyHistogram MARKET_DATA = Metrics.timer("requester.marketData");
+    private static final LatencyHistogram SPOT_PRICE = Metrics.timer("requester.spotPrice");
+    private static final LatencyHistogram SNAPSHOT = Metrics.timer("requester.snapshot");
+    private static final LatencyHistogram UNDERLYINGS = Metrics.timer("requester.underlyings");
+    private static final LatencyHistogram UNDERLYING_CHAIN = Metrics.timer("requester.underlyingChain");
+    private static final LatencyHistogram UNDERLYING_MARKET_DATA = Metrics.timer("requester.underlyingMarketData");
+    private static final LatencyHistogram MARKS = Metrics.timer("requester.marks");
+    private static final Metrics.Counter FAILURES = Metrics.counter("requester.failures");
+
+    private final DataRequester delegate;
+
+    public MeteredDataRequester(DataRequester delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public HashMap<String, Double> getBorrowRates() {
+        long start = Metrics.start();
+        try {
+            return delegate.getBorrowRates();
+        } catch (RuntimeException e) {
+            FAILURES.increment();
+            throw e;
+        } finally {
+            Metrics.stop(BORROW_RATES, start);
+        }
+    }
+
+    @Override
+    public HashMap<String, OptionChain> getOptionChain() {
+        long start = Metrics.start();
+        try {
+            return delegate.getOptionChain();
+        } catch (RuntimeException e) {
+            FAILURES.increment();
+            throw e;
+        } finally {
+            Metrics.stop(OPTION_CHAIN, start);
+        }
+    }
+
+    @Override
+    public HashMap<String, OptionMarketData> getOptionMarketData() {
+        long start = Metrics.start();
+        try {
+            return delegate.getOptionMarketData();
+        } catch (RuntimeException e) {
+            FAILURES.increment();
+            throw e;
+        } finally {
+            Metrics.stop(MARKET_DATA, start);
+        }
+    }
+
+    @Override
+    public Double getSpotMarketPrice(String ticker) {
+        long start = Metrics.start();
+        try {
+            return delegate.getSpotMarketPrice(ticker);
+        } catch (RuntimeException e) {
+            FAILURES.increment();
+            throw e;
+        } finally {
+            Metrics.stop(SPOT_PRICE, start);
+        }
+    }
+
+    @Override
+    public List<String> getUnderlyings() {
+        long start = Metrics.start();
+        try {
+            return delegate.getUnderlyings();
+        } catch (RuntimeException e) {
+            FAILURES.increment();
+            throw e;
+        } finally {
+            Metrics.stop(UNDERLYINGS, start);
+        }
+    }
+
+    @Override
+    public OptionChain getOptionChain(String underlying) {
+        long start = Metrics.start();
+        try {
+            return delegate.getOptionChain(underlying);
+        } catch (RuntimeException e) {
+            FAILURES.increment();
+            throw e;
+        } finally {
+            Metrics.stop(UNDERLYING_CHAIN, start);
+        }
+    }
+
+    @Override
+    public HashMap<String, OptionMarketData> getOptionMarketData(String underlying) {
+        long start = Metrics.start();
+        try {
+            return delegate.getOptionMarketData(underlying);
+        } catch (RuntimeException e) {
+            FAILURES.increment();
+            throw e;
+        } finally {
+            Metrics.stop(UNDERLYING_MARKET_DATA, start);
+        }
+    }
+
+    @Override
+    public HashMap<String, OptionMarketData> getMarks(String underlying, Collection<String> symbols) {
+        long start = Metrics.start();
+        try {
+            return delegate.getMarks(underlying, symbols);
+        } catch (RuntimeException e) {
+            FAILURES.increment();
+            throw e;
+        } finally {
+            Metrics.stop(MARKS, start);
+        }
+    }
+
+    @Override
+    public CompletableFuture<MarketSnapshot> fetchSnapshot(Collection<String> spotTickers) {
+        long start = Metrics.start();
+        return delegate.fetchSnapshot(spotTickers).whenComplete((snapshot, error) -> {
+            if (error != null) FAILURES.increment();
+            Metrics.stop(SNAPSHOT, start);
+        });
+    }
+}
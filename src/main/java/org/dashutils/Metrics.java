@@ -0,0 +1,222 @@
+package org.dashutils;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process wide registry of named latency histograms and counters for the fetch, parse, price and render
+ * stages. Collection is off unless {@code optiondash.metrics} is set or {@link #setEnabled(boolean)} turns it
+ * on; while off, timing a stage costs one volatile read and nothing is recorded.
+ * <pre>
+ * long start = Metrics.start();
+ * ...
+ * Metrics.stop(TIMER, start);
+ * </pre>
+ */
+public final class Metrics {
+    /**
+     * What {@link #start()} returns while disabled. Not 0, which {@link System#nanoTime()} can return like any
+     * other value.
+     */
+    public static final long NOT_STARTED = Long.MIN_VALUE;
+
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        public void increment() {
+            if (enabled) value.increment();
+        }
+
+        public void add(long amount) {
+            if (enabled) value.add(amount);
+        }
+
+        public long sum() {
+            return value.sum();
+        }
+    }
+
+    public record Report(Instant takenAt, TreeMap<String, LatencyHistogram.Snapshot> timers, TreeMap<String, Long> counters) {
+        /**
+         * One line per metric, latencies in milliseconds.
+         */
+        public String format() {
+            var text = new StringBuilder();
+            text.append("# ").append(takenAt).append('\n');
+            text.append(String.format("%-40s %10s %10s %10s %10s %10s%n", "timer", "count", "mean", "p50", "p99", "max"));
+            timers.forEach((name, snapshot) -> text.append(String.format("%-40s %10d %10.3f %10.3f %10.3f %10.3f%n",
+                    name, snapshot.count(), snapshot.meanNanos() / 1e6, snapshot.percentileNanos(50) / 1e6,
+                    snapshot.percentileNanos(99) / 1e6, snapshot.maxNanos() / 1e6)));
+            text.append(String.format("%-40s %10s%n", "counter", "value"));
+            counters.forEach((name, value) -> text.append(String.format("%-40s %10d%n", name, value)));
+            return text.toString();
+        }
+    }
+
+    /**
+     * JMX view of the registry, registered by {@link #registerMBean()}.
+     */
+    public interface MetricsMXBean {
+        boolean isEnabled();
+
+        void setEnabled(boolean enabled);
+
+        Map<String, Long> getCounters();
+
+        Map<String, Long> getTimerCounts();
+
+        double getPercentileMillis(String timer, double percentile);
+
+        String getReport();
+
+        void reset();
+    }
+
+    public static final String OBJECT_NAME = "org.dashutils:type=Metrics";
+
+    private static volatile boolean enabled = Boolean.getBoolean("optiondash.metrics");
+    private static final ConcurrentHashMap<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Counter dumpFailures = counter("metrics.dumpFailures");
+
+    private Metrics() {}
+
+    public static boolean enabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * @return the histogram registered under the name, created on first use. Callers on hot paths keep it in a
+     * field rather than looking it up per call.
+     */
+    public static LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /**
+     * @return the start time to pass to {@link #stop(LatencyHistogram, long)}, or {@link #NOT_STARTED} while
+     * disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : NOT_STARTED;
+    }
+
+    public static void stop(LatencyHistogram timer, long start) {
+        if (start != NOT_STARTED) timer.record(System.nanoTime() - start);
+    }
+
+    public static Report report() {
+        var timerSnapshots = new TreeMap<String, LatencyHistogram.Snapshot>();
+        timers.forEach((name, timer) -> timerSnapshots.put(name, timer.snapshot()));
+        var counterValues = new TreeMap<String, Long>();
+        counters.forEach((name, counter) -> counterValues.put(name, counter.sum()));
+        return new Report(Instant.now(), timerSnapshots, counterValues);
+    }
+
+    public static void reset() {
+        timers.values().forEach(LatencyHistogram::reset);
+        counters.values().forEach(counter -> counter.value.reset());
+    }
+
+    /**
+     * Registers the registry with the platform MBean server under {@link #OBJECT_NAME}, once per process.
+     */
+    public static synchronized void registerMBean() throws JMException {
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name)) server.registerMBean(new MBean(), name);
+    }
+
+    /**
+     * Rewrites the file with the current {@link Report#format() report} every period, until closed. Failed
+     * writes are counted under {@code metrics.dumpFailures} and retried on the next period.
+     */
+    public static Closeable dumpPeriodically(Path file, Duration period) {
+        var scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("metrics-dump").daemon().factory());
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                dump(file);
+            } catch (IOException e) {
+                dumpFailures.increment();
+            }
+        }, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+        return scheduler::shutdown;
+    }
+
+    /**
+     * Writes the current report, replacing the file atomically so readers never see a partial dump.
+     */
+    public static void dump(Path file) throws IOException {
+        var absolute = file.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        var temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(temp, report().format());
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static class MBean implements MetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            Metrics.setEnabled(enabled);
+        }
+
+        @Override
+        public Map<String, Long> getCounters() {
+            return report().counters();
+        }
+
+        @Override
+        public Map<String, Long> getTimerCounts() {
+            var counts = new TreeMap<String, Long>();
+            timers.forEach((name, timer) -> counts.put(name, timer.count()));
+            return counts;
+        }
+
+        @Override
+        public double getPercentileMillis(String timer, double percentile) {
+            var histogram = timers.get(timer);
+            return histogram == null ? Double.NaN : histogram.snapshot().percentileNanos(percentile) / 1e6;
+        }
+
+        @Override
+        public String getReport() {
+            return report().format();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
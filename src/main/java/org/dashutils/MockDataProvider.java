@@ -1,90 +1,369 @@
 package org.dashutils;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seeded synthetic market for development and load testing. Every underlying gets a ladder of expiries at
+ * 08:00 UTC, strikes spread over a few standard deviations of the forward, an SVI smile per expiry and marks
+ * priced from it with Black-Scholes, so implied vols solved from the marks give the smile back. The same config
+ * always generates the same market; each underlying is generated on first use and then kept.
+ * <p>
+ * Once {@link #start() started}, ticks move the spot and vol level of a random generated underlying and reprice
+ * all of its unexpired options, telling listeners which symbols changed, at the configured rate. Ticks price as of
+ * the configured time plus the time since the provider was created, so with the default of now marks keep solving
+ * back to the smile at the time consumers price them.
+ */
+public class MockDataProvider implements DataRequester, AutoCloseable {
+    /**
+     * @param underlyings    number of underlyings; the first five are BTC, ETH, SOL, ADA and DOT, the rest synthetic
+     * @param expiries       expiries per underlying, spaced geometrically from 1 day to a year out (see
+     *                       {@link #expiryDays(int)}), so the default 3 are 1, 19 and 365 days rather than the 7, 30
+     *                       and 90 the fixed mock chain used to list
+     * @param strikes        strikes per expiry, each listed as a call and a put
+     * @param asOfMillis     the time expiries and first marks are generated for
+     * @param ticksPerSecond tick rate once started, 0 for a static market
+     */
+    public record Config(long seed, int underlyings, int expiries, int strikes, long asOfMillis,
+                         double ticksPerSecond) {
+        /**
+         * Five underlyings of 3 expiries and 5 strikes as of now, not ticking.
+         */
+        public static Config defaults() {
+            return new Config(42, 5, 3, 5, System.currentTimeMillis(), 0);
+        }
+
+        /**
+         * The defaults, overridden by {@code optiondash.mock.seed}, {@code .underlyings}, {@code .expiries},
+         * {@code .strikes} and {@code .ticksPerSecond}.
+         */
+        public static Config fromSystemProperties() {
+            var defaults = defaults();
+            return new Config(
+                    Long.getLong("optiondash.mock.seed", defaults.seed()),
+                    Integer.getInteger("optiondash.mock.underlyings", defaults.underlyings()),
+                    Integer.getInteger("optiondash.mock.expiries", defaults.expiries()),
+                    Integer.getInteger("optiondash.mock.strikes", defaults.strikes()),
+                    defaults.asOfMillis(),
+                    Double.parseDouble(System.getProperty("optiondash.mock.ticksPerSecond", "0")));
+        }
+    }
+
+    private static final double RISK_FREE_RATE = 0.05;
+    private static final long EXPIRY_HOUR_MILLIS = 8 * 3_600_000L;
+    private static final DateTimeFormatter EXPIRY_FORMAT = DateTimeFormatter.ofPattern("yyMMdd");
+    // One second of market time per tick
+    private static final double TICK_YEARS = 1.0 / (365 * 86_400);
+    private static final Metrics.Counter TICK_FAILURES = Metrics.counter("mock.tickFailures");
+
+    // Spot price, borrow rate and ATM vol of the named underlyings
+    private record Spec(String underlying, double spotPrice, double borrowRate, double atmVol) {}
+
+    private static final List<Spec> NAMED = List.of(
+            new Spec("BTCUSDT", 50000.0, 0.05, 0.55),
+            new Spec("ETHUSDT", 3500.0, 0.04, 0.70),
+            new Spec("SOLUSDT", 100.0, 0.06, 0.90),
+            new Spec("ADAUSDT", 0.5, 0.07, 0.85),
+            new Spec("DOTUSDT", 8.0, 0.05, 0.80));
+
+    private final Config config;
+    private final Map<String, Integer> indexes = new LinkedHashMap<>();
+    private final Spec[] specs;
+    private final ConcurrentHashMap<String, GeneratedUnderlying> generated = new ConcurrentHashMap<>();
+    private final List<GeneratedUnderlying> tickable = new CopyOnWriteArrayList<>();
+    private final List<MarketDataListener> listeners = new CopyOnWriteArrayList<>();
+    private final SplittableRandom tickRandom;
+    private final long createdNanos = System.nanoTime();
+    private ScheduledExecutorService ticker;
+    private double pendingTicks;
+
+    public MockDataProvider() {
+        this(Config.defaults());
+    }
+
+    public MockDataProvider(Config config) {
+        this.config = config;
+        this.specs = new Spec[config.underlyings()];
+        for (int i = 0; i < specs.length; i++) {
+            specs[i] = i < NAMED.size() ? NAMED.get(i) : syntheticSpec(i);
+            indexes.put(specs[i].underlying(), i);
+        }
+        this.tickRandom = new SplittableRandom(config.seed() ^ 0x5DEECE66DL);
+    }
+
+    private SplittableRandom random(int index) {
+        return new SplittableRandom(config.seed() * 0x9E3779B97F4A7C15L + index);
+    }
+
+    private Spec syntheticSpec(int index) {
+        var random = random(index);
+        // Log uniform spot between 0.01 and 10000
+        double spot = Math.exp(random.nextDouble(Math.log(0.01), Math.log(10_000)));
+        return new Spec("SYN" + index + "USDT", roundToSignificant(spot, 6), random.nextDouble(0, 0.08),
+                random.nextDouble(0.4, 1.2));
+    }
+
+    public void addListener(MarketDataListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(MarketDataListener listener) {
+        listeners.remove(listener);
+    }
 
-public class MockDataProvider implements DataRequester {
-    private static final String[] CRYPTO_COINS = {"BTC", "ETH", "SOL", "ADA", "DOT"};
-    private static final String[] CRYPTO_COINS_USDT = {"BTCUSDT", "ETHUSDT", "SOLUSDT", "ADAUSDT", "DOTUSDT"};
-    private static final double[] SPOT_PRICES = {50000.0, 3500.0, 100.0, 0.5, 8.0};
-    
     @Override
     public HashMap<String, Double> getBorrowRates() {
         var rates = new HashMap<String, Double>();
-        rates.put("BTC", 0.05);
-        rates.put("ETH", 0.04);
-        rates.put("SOL", 0.06);
-        rates.put("ADA", 0.07);
-        rates.put("DOT", 0.05);
+        rates.put("USDT", RISK_FREE_RATE);
+        for (var spec : specs) rates.put(RiskEngine.baseAsset(spec.underlying()), spec.borrowRate());
         return rates;
     }
 
+    @Override
+    public List<String> getUnderlyings() {
+        return new ArrayList<>(new TreeSet<>(indexes.keySet()));
+    }
+
     @Override
     public HashMap<String, OptionChain> getOptionChain() {
         var chains = new HashMap<String, OptionChain>();
-        
-        for (String coinUsdt : CRYPTO_COINS_USDT) {
-            var options = new ArrayList<Option>();
-            double spotPrice = getSpotPrice(coinUsdt);
-            
-            // Create options with different strikes and expirations
-            double[] strikeMultipliers = {0.8, 0.9, 1.0, 1.1, 1.2};
-            long[] expiryDays = {7, 30, 90}; // 1 week, 1 month, 3 months
-            
-            for (double mult : strikeMultipliers) {
-                for (long days : expiryDays) {
-                    double strike = spotPrice * mult;
-                    Date expiry = new Date(System.currentTimeMillis() + days * 24 * 60 * 60 * 1000L);
-                    
-                    options.add(new Option(coinUsdt + "-C-" + (int)strike + "-" + days + "d", coinUsdt, strike, expiry, CallPut.CALL));
-                    options.add(new Option(coinUsdt + "-P-" + (int)strike + "-" + days + "d", coinUsdt, strike, expiry, CallPut.PUT));
-                }
-            }
-            
-            chains.put(coinUsdt, new OptionChain(coinUsdt, options));
-        }
-        
+        for (var underlying : indexes.keySet()) chains.put(underlying, getOptionChain(underlying));
         return chains;
     }
 
+    @Override
+    public OptionChain getOptionChain(String underlying) {
+        var market = market(underlying);
+        return market == null ? null : market.chain;
+    }
+
     @Override
     public HashMap<String, OptionMarketData> getOptionMarketData() {
         var marketData = new HashMap<String, OptionMarketData>();
-        var chains = getOptionChain();
-        
-        chains.forEach((underlying, chain) -> {
-            double spotPrice = getSpotPrice(underlying);
-            
-            chain.optionSeries().forEach(option -> {
-                // Create mock volatility smile (higher vol for OTM options)
-                double moneyness = option.strike() / spotPrice;
-                double baseVol = 0.15 + Math.abs(moneyness - 1.0) * 0.5; // V-shape smile
-                double vol = baseVol + (Math.random() - 0.5) * 0.05;
-                
-                // Mock price and delta
-                double price = spotPrice * vol * 0.1; // Simple mock price
-                double delta = option.callPut() == CallPut.CALL ? 0.5 : -0.5;
-                
-                marketData.put(option.symbol(), new OptionMarketData(price, delta, vol));
-            });
-        });
-        
+        for (var underlying : indexes.keySet()) marketData.putAll(getOptionMarketData(underlying));
         return marketData;
     }
 
     @Override
-    public Double getSpotMarketPrice(String ticker) {
-        return getSpotPrice(ticker);
+    public HashMap<String, OptionMarketData> getOptionMarketData(String underlying) {
+        var market = market(underlying);
+        return market == null ? new HashMap<>() : new HashMap<>(market.marks);
+    }
+
+    @Override
+    public HashMap<String, OptionMarketData> getMarks(String underlying, Collection<String> symbols) {
+        var market = market(underlying);
+        var marks = new HashMap<String, OptionMarketData>();
+        if (market == null) return marks;
+        for (var symbol : symbols) {
+            var mark = market.marks.get(symbol);
+            if (mark != null) marks.put(symbol, mark);
+        }
+        return marks;
     }
-    
-    private double getSpotPrice(String coin) {
+
+    @Override
+    public Double getSpotMarketPrice(String ticker) {
         // Handle both BTC and BTCUSDT formats
-        String baseCoin = coin.replace("USDT", "");
-        
-        for (int i = 0; i < CRYPTO_COINS.length; i++) {
-            if (CRYPTO_COINS[i].equals(baseCoin) || CRYPTO_COINS_USDT[i].equals(coin)) {
-                return SPOT_PRICES[i];
+        var underlying = ticker.endsWith("USDT") ? ticker : ticker + "USDT";
+        var market = generated.get(underlying);
+        if (market != null) return market.spot;
+        var index = indexes.get(underlying);
+        return index == null ? null : specs[index].spotPrice();
+    }
+
+    private GeneratedUnderlying market(String underlying) {
+        var index = indexes.get(underlying);
+        if (index == null) return null;
+        return generated.computeIfAbsent(underlying, key -> {
+            var market = new GeneratedUnderlying(specs[index], random(index), config);
+            tickable.add(market);
+            return market;
+        });
+    }
+
+    /**
+     * Starts ticking at the configured rate, if there is one. Ticks only touch underlyings already generated.
+     */
+    public synchronized void start() {
+        if (ticker != null || !(config.ticksPerSecond() > 0)) return;
+
+        long periodNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), (long) (1e9 / config.ticksPerSecond()));
+        double ticksPerPeriod = config.ticksPerSecond() * periodNanos / 1e9;
+        ticker = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("mock-ticks").factory());
+        ticker.scheduleAtFixedRate(() -> {
+            pendingTicks += ticksPerPeriod;
+            for (; pendingTicks >= 1; pendingTicks--) {
+                try {
+                    tick();
+                } catch (RuntimeException e) {
+                    // Counted rather than rethrown, which would cancel the schedule
+                    TICK_FAILURES.increment();
+                }
             }
+        }, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (ticker != null) ticker.shutdownNow();
+        ticker = null;
+    }
+
+    /**
+     * Moves the spot of one generated underlying by a second's worth of its ATM vol, drifts its vol level and
+     * reprices every unexpired option of it as of now, so no mark is left priced off an older spot or smile.
+     * Expired options keep their last mark.
+     */
+    void tick() {
+        if (tickable.isEmpty()) return;
+        var market = tickable.get(tickRandom.nextInt(tickable.size()));
+        var changed = new HashSet<String>();
+        long asOfMillis = nowMillis();
+        double spot;
+
+        synchronized (market) {
+            market.spot *= Math.exp(market.spec.atmVol() * Math.sqrt(TICK_YEARS) * tickRandom.nextGaussian());
+            market.volScale *= Math.exp(0.002 * tickRandom.nextGaussian());
+            spot = market.spot;
+            var options = market.chain.optionSeries();
+            for (int row = 0; row < options.size(); row++) {
+                if (options.get(row).expiry().getTime() <= asOfMillis) continue;
+                var symbol = options.get(row).symbol();
+                var mark = market.price(row, asOfMillis);
+                if (!mark.equals(market.marks.put(symbol, mark))) changed.add(symbol);
+            }
+        }
+
+        var underlying = market.spec.underlying();
+        for (var listener : listeners) {
+            listener.onSpotUpdated(underlying, spot);
+            if (!changed.isEmpty()) listener.onMarksUpdated(underlying, changed);
+        }
+    }
+
+    // The configured time moved on by the wall clock since the provider was created
+    private long nowMillis() {
+        return config.asOfMillis() + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - createdNanos);
+    }
+
+    /**
+     * Expiry day offsets growing geometrically from 1 to 365, strictly increasing, or 30 for a single expiry.
+     */
+    static int[] expiryDays(int count) {
+        var days = new int[count];
+        for (int i = 0; i < count; i++) {
+            int geometric = count == 1 ? 30 : (int) Math.round(Math.pow(365, (double) i / (count - 1)));
+            days[i] = i == 0 ? geometric : Math.max(geometric, days[i - 1] + 1);
+        }
+        return days;
+    }
+
+    private static double roundToSignificant(double value, int digits) {
+        double scale = Math.pow(10, digits - 1 - Math.floor(Math.log10(value)));
+        return Math.round(value * scale) / scale;
+    }
+
+    private static final class GeneratedUnderlying {
+        final Spec spec;
+        final double dividendRate;
+        final OptionChain chain;
+        final SviParameters[] smiles;
+        final long[] expiryMillis;
+        final int[] expiryIndexes;
+        final ConcurrentHashMap<String, OptionMarketData> marks = new ConcurrentHashMap<>();
+        final double[] greeks = new double[BlackScholesKernel.WIDTH];
+        double spot;
+        double volScale = 1;
+
+        GeneratedUnderlying(Spec spec, SplittableRandom random, Config config) {
+            this.spec = spec;
+            this.spot = spec.spotPrice();
+            this.dividendRate = spec.borrowRate();
+
+            var base = RiskEngine.baseAsset(spec.underlying());
+            var expiryDate = Instant.ofEpochMilli(config.asOfMillis()).atZone(ZoneOffset.UTC).toLocalDate();
+            var days = expiryDays(config.expiries());
+            int strikeCount = config.strikes();
+            double tick = Math.pow(10, Math.floor(Math.log10(spot)) - 4);
+
+            this.smiles = new SviParameters[days.length];
+            this.expiryMillis = new long[days.length];
+            this.expiryIndexes = new int[days.length * strikeCount * 2];
+            var options = new ArrayList<Option>(expiryIndexes.length);
+
+            for (int e = 0; e < days.length; e++) {
+                var date = expiryDate.plusDays(days[e]);
+                expiryMillis[e] = date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() + EXPIRY_HOUR_MILLIS;
+                double years = BlackScholesKernel.yearFraction(config.asOfMillis(), expiryMillis[e]);
+                smiles[e] = smile(random, spec.atmVol(), years);
+
+                // Strikes cover about three standard deviations either side of the forward
+                double forward = spot * Math.exp((RISK_FREE_RATE - dividendRate) * years);
+                double halfWidth = Math.max(0.05, 3 * spec.atmVol() * Math.sqrt(years));
+                var expiry = new Date(expiryMillis[e]);
+                var expiryCode = EXPIRY_FORMAT.format(date);
+                double previous = 0;
+                for (int s = 0; s < strikeCount; s++) {
+                    double k = strikeCount == 1 ? 0 : -halfWidth + 2 * halfWidth * s / (strikeCount - 1);
+                    double strike = Math.max(Math.round(forward * Math.exp(k) / tick) * tick, previous + tick);
+                    strike = roundToSignificant(strike, 12);
+                    previous = strike;
+
+                    var strikeCode = BigDecimal.valueOf(strike).stripTrailingZeros().toPlainString();
+                    for (var side : CallPut.values()) {
+                        var symbol = base + "-" + expiryCode + "-" + strikeCode + "-" + (side == CallPut.CALL ? "C" : "P");
+                        expiryIndexes[options.size()] = e;
+                        options.add(new Option(symbol, spec.underlying(), strike, expiry, side));
+                    }
+                }
+            }
+
+            this.chain = new OptionChain(spec.underlying(), options);
+            for (int row = 0; row < options.size(); row++) {
+                marks.put(options.get(row).symbol(), price(row, config.asOfMillis()));
+            }
+        }
+
+        /**
+         * SVI smile with the given ATM vol (a little higher at the short end) and a downside skew, scaled with
+         * the standard deviation of the expiry so short and long dated smiles have similar shapes in vol.
+         */
+        private static SviParameters smile(SplittableRandom random, double atmVol, double years) {
+            double vol = atmVol * (1 + 0.2 * Math.exp(-4 * years));
+            double deviation = vol * Math.sqrt(years);
+            double atmVariance = deviation * deviation;
+
+            double rho = random.nextDouble(-0.5, 0.05);
+            double b = random.nextDouble(0.3, 0.6) * deviation;
+            double sigma = random.nextDouble(0.5, 1.0) * deviation;
+            double m = random.nextDouble(-0.1, 0.1) * deviation;
+            // Level so the ATM total variance comes out exactly
+            double a = atmVariance - b * (-rho * m + Math.sqrt(m * m + sigma * sigma));
+            var smile = new SviParameters(a, b, rho, m, sigma);
+            if (smile.minTotalVariance() <= 0) {
+                smile = new SviParameters(a - smile.minTotalVariance() + 0.1 * atmVariance, b, rho, m, sigma);
+            }
+            return smile;
+        }
+
+        OptionMarketData price(int row, long asOfMillis) {
+            var option = chain.optionSeries().get(row);
+            int e = expiryIndexes[row];
+            double years = BlackScholesKernel.yearFraction(asOfMillis, expiryMillis[e]);
+            double forward = spot * Math.exp((RISK_FREE_RATE - dividendRate) * years);
+            double vol = smiles[e].impliedVol(Math.log(option.strike() / forward), years) * volScale;
+            BlackScholesKernel.priceAndGreeks(option.callPut() == CallPut.CALL, spot, option.strike(), years,
+                    RISK_FREE_RATE, dividendRate, vol, greeks, 0);
+            return new OptionMarketData(greeks[BlackScholesKernel.PRICE], greeks[BlackScholesKernel.DELTA], vol);
         }
-        return 100.0;
     }
-}
\ No newline at end of file
+}
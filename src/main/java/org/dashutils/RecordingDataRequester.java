@@ -0,0 +1,93 @@
+package org.dashutils;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+/**
+ * Decorator appending every mark snapshot loaded from the delegate to a {@link TickStore}. Place it below any
+ * cache, so only real loads are recorded.
+ */
+public class RecordingDataRequester implements DataRequester {
+    private final DataRequester delegate;
+    private final TickStore store;
+    private final LongSupplier clock;
+
+    public RecordingDataRequester(DataRequester delegate, TickStore store) {
+        this(delegate, store, System::currentTimeMillis);
+    }
+
+    RecordingDataRequester(DataRequester delegate, TickStore store, LongSupplier clock) {
+        this.delegate = delegate;
+        this.store = store;
+        this.clock = clock;
+    }
+
+    @Override
+    public HashMap<String, Double> getBorrowRates() {
+        return delegate.getBorrowRates();
+    }
+
+    @Override
+    public HashMap<String, OptionChain> getOptionChain() {
+        return delegate.getOptionChain();
+    }
+
+    @Override
+    public HashMap<String, OptionMarketData> getOptionMarketData() {
+        var marketData = delegate.getOptionMarketData();
+        record(marketData);
+        return marketData;
+    }
+
+    @Override
+    public List<String> getUnderlyings() {
+        return delegate.getUnderlyings();
+    }
+
+    @Override
+    public OptionChain getOptionChain(String underlying) {
+        return delegate.getOptionChain(underlying);
+    }
+
+    @Override
+    public HashMap<String, OptionMarketData> getOptionMarketData(String underlying) {
+        var marketData = delegate.getOptionMarketData(underlying);
+        record(marketData);
+        return marketData;
+    }
+
+    @Override
+    public HashMap<String, OptionMarketData> getMarks(String underlying, Collection<String> symbols) {
+        var marks = delegate.getMarks(underlying, symbols);
+        record(marks);
+        return marks;
+    }
+
+    @Override
+    public Double getSpotMarketPrice(String ticker) {
+        return delegate.getSpotMarketPrice(ticker);
+    }
+
+    @Override
+    public CompletableFuture<MarketSnapshot> fetchSnapshot(Collection<String> spotTickers) {
+        return delegate.fetchSnapshot(spotTickers).thenApply(snapshot -> {
+            record(snapshot.optionMarketData());
+            return snapshot;
+        });
+    }
+
+    private void record(Map<String, OptionMarketData> marketData) {
+        if (marketData == null) return;
+        try {
+            store.appendAll(marketData, clock.getAsLong());
+        } catch (IOException e) {
+            // Recording is best effort, the data is still served
+            TickStore.RECORD_FAILURES.increment();
+        }
+    }
+}
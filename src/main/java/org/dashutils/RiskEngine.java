@@ -0,0 +1,213 @@
+package org.dashutils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reprices every option of every chain and aggregates risk per expiry and per underlying. Work is split into
+ * chunks of one (underlying, expiry) row range each, large expiries into several, and run on a fork-join pool.
+ * <p>
+ * For each option the implied vol is solved from its mark price, and price and Greeks are computed with
+ * {@link BlackScholesKernel} at the exchange's mark IV (the solved IV where there isn't one). Rates follow
+ * {@link VolSurfaceEngine}: USDT borrow rate as the risk free rate, the base asset's as its yield. Risk is of a
+ * book holding one of each option unless positions are given.
+ */
+public class RiskEngine {
+    /**
+     * Position weighted totals, Greeks in the units of {@link BlackScholesKernel}.
+     */
+    public record Risk(int options, double value, double delta, double gamma, double vega, double theta, double rho) {
+        static final Risk ZERO = new Risk(0, 0, 0, 0, 0, 0, 0);
+
+        Risk plus(Risk other) {
+            return new Risk(options + other.options, value + other.value, delta + other.delta, gamma + other.gamma,
+                    vega + other.vega, theta + other.theta, rho + other.rho);
+        }
+    }
+
+    /**
+     * Per option results in row order of the chain, Greeks at {@code greeks[row * BlackScholesKernel.WIDTH + greek]}.
+     */
+    public record RepricedChain(ColumnarOptionChain chain, double spot, double riskFreeRate, double dividendRate,
+                                double[] impliedVols, double[] greeks) {
+        public double greek(int row, int greek) {
+            return greeks[row * BlackScholesKernel.WIDTH + greek];
+        }
+
+        /**
+         * A copy of the chain's market data and the results, for readers on other threads than the one repricing.
+         */
+        public RepricedChain copy() {
+            return new RepricedChain(chain.copy(), spot, riskFreeRate, dividendRate, impliedVols.clone(), greeks.clone());
+        }
+    }
+
+    public record Report(HashMap<String, RepricedChain> chains, HashMap<String, TreeMap<Long, Risk>> expiryRisk,
+                         HashMap<String, Risk> underlyingRisk, int optionCount, Duration elapsed) {
+        public double optionsPerSecond() {
+            return optionCount / Math.max(elapsed.toNanos() / 1e9, 1e-9);
+        }
+    }
+
+    static final int MAX_CHUNK_ROWS = 2048;
+    private static final LatencyHistogram REPRICE_TIMER = Metrics.timer("risk.reprice");
+
+    private final ForkJoinPool pool;
+
+    public RiskEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public RiskEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Reprices everything the requester has, with spot prices keyed by the chains' underlyings.
+     */
+    public Report reprice(DataRequester requester) {
+        long start = System.nanoTime();
+        var chains = ColumnarOptionChain.ofAll(requester.getOptionChain(), requester.getOptionMarketData(), new SymbolTable());
+        var spotPrices = new HashMap<String, Double>();
+        for (var underlying : chains.keySet()) {
+            var spot = requester.getSpotMarketPrice(underlying);
+            if (spot != null) spotPrices.put(underlying, spot);
+        }
+        var report = reprice(chains, spotPrices, requester.getBorrowRates(), null, System.currentTimeMillis());
+        return new Report(report.chains(), report.expiryRisk(), report.underlyingRisk(), report.optionCount(),
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * @param positions quantity by option symbol, or null for one of each
+     */
+    public Report reprice(Map<String, ColumnarOptionChain> chains, Map<String, Double> spotPrices,
+                          Map<String, Double> borrowRates, Map<String, Double> positions, long asOfMillis) {
+        long start = System.nanoTime();
+        var repriced = new HashMap<String, RepricedChain>();
+        var chunks = new ArrayList<Chunk>();
+        int optionCount = 0;
+
+        for (var entry : chains.entrySet()) {
+            var chain = entry.getValue();
+            var spot = spotPrices.get(chain.underlying());
+            if (spot == null) continue;
+
+            var result = new RepricedChain(chain, spot, rate(borrowRates, "USDT"),
+                    rate(borrowRates, baseAsset(chain.underlying())), new double[chain.size()],
+                    new double[chain.size() * BlackScholesKernel.WIDTH]);
+            repriced.put(entry.getKey(), result);
+            optionCount += chain.size();
+
+            for (int expiry = 0; expiry < chain.expiryCount(); expiry++) {
+                for (int from = chain.expiryStart(expiry); from < chain.expiryEnd(expiry); from += MAX_CHUNK_ROWS) {
+                    int to = Math.min(from + MAX_CHUNK_ROWS, chain.expiryEnd(expiry));
+                    chunks.add(new Chunk(result, expiry, from, to, positions, asOfMillis));
+                }
+            }
+        }
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(chunks);
+            }
+        });
+
+        var expiryRisk = new HashMap<String, TreeMap<Long, Risk>>();
+        var underlyingRisk = new HashMap<String, Risk>();
+        for (var chunk : chunks) {
+            String underlying = chunk.result.chain().underlying();
+            long expiry = chunk.result.chain().expiry(chunk.expiryIndex);
+            expiryRisk.computeIfAbsent(underlying, key -> new TreeMap<>()).merge(expiry, chunk.risk, Risk::plus);
+            underlyingRisk.merge(underlying, chunk.risk, Risk::plus);
+        }
+
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+        if (Metrics.enabled()) REPRICE_TIMER.record(elapsed.toNanos());
+        return new Report(repriced, expiryRisk, underlyingRisk, optionCount, elapsed);
+    }
+
+    static double rate(Map<String, Double> borrowRates, String asset) {
+        var rate = borrowRates == null ? null : borrowRates.get(asset);
+        return rate == null ? 0 : rate;
+    }
+
+    static String baseAsset(String underlying) {
+        return underlying.endsWith("USDT") ? underlying.substring(0, underlying.length() - 4) : underlying;
+    }
+
+    /**
+     * Solves the implied vol of one row from its mark and prices it, writing into the result's columns.
+     *
+     * @return the vol the Greeks were computed at, NaN or non-positive if the row couldn't be priced
+     */
+    static double repriceRow(RepricedChain result, int row, double yearsToExpiry) {
+        var chain = result.chain();
+        boolean isCall = chain.isCall(row);
+        double strike = chain.strike(row);
+        double impliedVol = BlackScholesPricer.solveImpliedVol(isCall, chain.mark(row), result.spot(), strike,
+                yearsToExpiry, result.riskFreeRate(), result.dividendRate());
+        result.impliedVols()[row] = impliedVol;
+
+        double vol = chain.impliedVol(row) > 0 ? chain.impliedVol(row) : impliedVol;
+        BlackScholesKernel.priceAndGreeks(isCall, result.spot(), strike, yearsToExpiry, result.riskFreeRate(),
+                result.dividendRate(), vol, result.greeks(), row * BlackScholesKernel.WIDTH);
+        return vol;
+    }
+
+    private static class Chunk extends RecursiveAction {
+        final RepricedChain result;
+        final int expiryIndex;
+        final int from;
+        final int to;
+        final Map<String, Double> positions;
+        final long asOfMillis;
+        Risk risk = Risk.ZERO;
+
+        Chunk(RepricedChain result, int expiryIndex, int from, int to, Map<String, Double> positions, long asOfMillis) {
+            this.result = result;
+            this.expiryIndex = expiryIndex;
+            this.from = from;
+            this.to = to;
+            this.positions = positions;
+            this.asOfMillis = asOfMillis;
+        }
+
+        @Override
+        protected void compute() {
+            var chain = result.chain();
+            double yearsToExpiry = BlackScholesKernel.yearFraction(asOfMillis, chain.expiry(expiryIndex));
+            var greeks = result.greeks();
+            var sums = new double[BlackScholesKernel.WIDTH];
+            int options = 0;
+
+            for (int row = from; row < to; row++) {
+                double vol = repriceRow(result, row, yearsToExpiry);
+                int offset = row * BlackScholesKernel.WIDTH;
+
+                if (!(vol > 0)) continue;
+                double quantity = 1;
+                if (positions != null) {
+                    var position = positions.get(chain.symbol(row));
+                    if (position == null) continue;
+                    quantity = position;
+                }
+                options++;
+                for (int greek = 0; greek < BlackScholesKernel.WIDTH; greek++) {
+                    sums[greek] += quantity * greeks[offset + greek];
+                }
+            }
+
+            risk = new Risk(options, sums[BlackScholesKernel.PRICE], sums[BlackScholesKernel.DELTA],
+                    sums[BlackScholesKernel.GAMMA], sums[BlackScholesKernel.VEGA], sums[BlackScholesKernel.THETA],
+                    sums[BlackScholesKernel.RHO]);
+        }
+    }
+}
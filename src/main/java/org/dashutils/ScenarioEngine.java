@@ -0,0 +1,210 @@
+package org.dashutils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Spot x vol shock grids over a chain. Everything that doesn't depend on the scenario (discounted strike and its
+ * log, sqrt(T), discount factors) is computed once per option, shocked log spots once per grid and total vols once
+ * per (option, vol shock), leaving two normal CDFs per grid cell in a primitive loop. Options are processed in
+ * fork-join chunks, each keeping only its own book P&L grid, so the options x scenarios cube is never held in
+ * memory; per option results can be streamed to a sink instead.
+ */
+public class ScenarioEngine {
+    /**
+     * @param spotShocks relative spot moves, e.g. -0.3 for spot down 30%
+     * @param volShocks  absolute vol moves, e.g. 0.2 for +20 vol points
+     */
+    public record Grid(double[] spotShocks, double[] volShocks) {
+        /**
+         * Evenly spaced shocks from {@code -maxSpotShock} to {@code maxSpotShock} and likewise for vol.
+         */
+        public static Grid ladder(double maxSpotShock, int spotSteps, double maxVolShock, int volSteps) {
+            return new Grid(ladder(maxSpotShock, spotSteps), ladder(maxVolShock, volSteps));
+        }
+
+        private static double[] ladder(double max, int steps) {
+            var shocks = new double[steps];
+            for (int i = 0; i < steps; i++) shocks[i] = steps == 1 ? 0 : -max + 2 * max * i / (steps - 1);
+            return shocks;
+        }
+
+        public int size() {
+            return spotShocks.length * volShocks.length;
+        }
+
+        public int index(int spotIndex, int volIndex) {
+            return spotIndex * volShocks.length + volIndex;
+        }
+    }
+
+    /**
+     * Receives each option's scenario prices, indexed by {@link Grid#index(int, int)}. Called concurrently from
+     * the pool's workers, and the array is reused once the call returns.
+     */
+    public interface OptionScenarioSink {
+        void accept(ColumnarOptionChain chain, int row, double[] prices);
+    }
+
+    /**
+     * @param pnl position weighted change in book value per scenario, indexed by {@link Grid#index(int, int)}
+     */
+    public record Result(Grid grid, double baseValue, double[] pnl, int optionCount, Duration elapsed) {
+        public double pnl(int spotIndex, int volIndex) {
+            return pnl[grid.index(spotIndex, volIndex)];
+        }
+
+        public double scenariosPerSecond() {
+            return (double) optionCount * grid.size() / Math.max(elapsed.toNanos() / 1e9, 1e-9);
+        }
+    }
+
+    static final int CHUNK_ROWS = 256;
+    private static final LatencyHistogram RUN_TIMER = Metrics.timer("scenario.run");
+
+    private final ForkJoinPool pool;
+
+    public ScenarioEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ScenarioEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Shocks every option with a mark IV around that IV.
+     *
+     * @param positions quantity by option symbol, or null for one of each
+     * @param sink      per option scenario prices, or null
+     */
+    public Result run(ColumnarOptionChain chain, double spot, double riskFreeRate, double dividendRate, long asOfMillis,
+                      Grid grid, Map<String, Double> positions, OptionScenarioSink sink) {
+        long start = System.nanoTime();
+        var shockedSpots = new double[grid.spotShocks().length];
+        var logShockedSpots = new double[shockedSpots.length];
+        for (int i = 0; i < shockedSpots.length; i++) {
+            shockedSpots[i] = spot * (1 + grid.spotShocks()[i]);
+            logShockedSpots[i] = Math.log(shockedSpots[i]);
+        }
+
+        var chunks = new ArrayList<Chunk>();
+        for (int from = 0; from < chain.size(); from += CHUNK_ROWS) {
+            chunks.add(new Chunk(chain, from, Math.min(from + CHUNK_ROWS, chain.size()), spot, riskFreeRate,
+                    dividendRate, asOfMillis, grid, shockedSpots, logShockedSpots, positions, sink));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(chunks);
+            }
+        });
+
+        var pnl = new double[grid.size()];
+        double baseValue = 0;
+        int optionCount = 0;
+        for (var chunk : chunks) {
+            for (int i = 0; i < pnl.length; i++) pnl[i] += chunk.pnl[i];
+            baseValue += chunk.baseValue;
+            optionCount += chunk.optionCount;
+        }
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+        if (Metrics.enabled()) RUN_TIMER.record(elapsed.toNanos());
+        return new Result(grid, baseValue, pnl, optionCount, elapsed);
+    }
+
+    private static class Chunk extends RecursiveAction {
+        final ColumnarOptionChain chain;
+        final int from;
+        final int to;
+        final double spot;
+        final double riskFreeRate;
+        final double dividendRate;
+        final long asOfMillis;
+        final Grid grid;
+        final double[] shockedSpots;
+        final double[] logShockedSpots;
+        final Map<String, Double> positions;
+        final OptionScenarioSink sink;
+        double[] pnl;
+        double baseValue;
+        int optionCount;
+
+        Chunk(ColumnarOptionChain chain, int from, int to, double spot, double riskFreeRate, double dividendRate,
+              long asOfMillis, Grid grid, double[] shockedSpots, double[] logShockedSpots, Map<String, Double> positions,
+              OptionScenarioSink sink) {
+            this.chain = chain;
+            this.from = from;
+            this.to = to;
+            this.spot = spot;
+            this.riskFreeRate = riskFreeRate;
+            this.dividendRate = dividendRate;
+            this.asOfMillis = asOfMillis;
+            this.grid = grid;
+            this.shockedSpots = shockedSpots;
+            this.logShockedSpots = logShockedSpots;
+            this.positions = positions;
+            this.sink = sink;
+        }
+
+        @Override
+        protected void compute() {
+            double[] volShocks = grid.volShocks();
+            int spotCount = shockedSpots.length;
+            int volCount = volShocks.length;
+            pnl = new double[grid.size()];
+            var prices = new double[grid.size()];
+
+            for (int row = from; row < to; row++) {
+                double vol = chain.impliedVol(row);
+                if (!(vol > 0)) continue;
+                double quantity = 1;
+                if (positions != null) {
+                    var position = positions.get(chain.symbol(row));
+                    if (position == null) continue;
+                    quantity = position;
+                }
+
+                // Scenario independent terms
+                boolean isCall = chain.isCall(row);
+                double sign = isCall ? 1 : -1;
+                double yearsToExpiry = BlackScholesKernel.yearFraction(asOfMillis, chain.expiryAt(row));
+                double sqrtT = Math.sqrt(Math.max(yearsToExpiry, 0));
+                double dividendDiscount = Math.exp(-dividendRate * yearsToExpiry);
+                double discountedStrike = chain.strike(row) * Math.exp(-riskFreeRate * yearsToExpiry);
+                // ln(S e^-qT / K e^-rT) = ln S - (qT + ln K e^-rT)
+                double logDiscountOffset = dividendRate * yearsToExpiry + Math.log(discountedStrike);
+
+                for (int j = 0; j < volCount; j++) {
+                    double shockedVol = vol + volShocks[j];
+                    if (!(yearsToExpiry > 0) || !(shockedVol > 0)) {
+                        for (int i = 0; i < spotCount; i++) {
+                            prices[i * volCount + j] = Math.max(sign * (shockedSpots[i] * dividendDiscount - discountedStrike), 0);
+                        }
+                        continue;
+                    }
+                    double totalVol = shockedVol * sqrtT;
+                    double inverseTotalVol = 1 / totalVol;
+                    double halfTotalVol = 0.5 * totalVol;
+                    for (int i = 0; i < spotCount; i++) {
+                        double d1 = (logShockedSpots[i] - logDiscountOffset) * inverseTotalVol + halfTotalVol;
+                        double d2 = d1 - totalVol;
+                        prices[i * volCount + j] = sign * (shockedSpots[i] * dividendDiscount * BlackScholesKernel.normCdf(sign * d1)
+                                - discountedStrike * BlackScholesKernel.normCdf(sign * d2));
+                    }
+                }
+
+                double base = BlackScholesKernel.price(isCall, spot, chain.strike(row), yearsToExpiry, riskFreeRate,
+                        dividendRate, vol);
+                for (int k = 0; k < prices.length; k++) pnl[k] += quantity * (prices[k] - base);
+                baseValue += quantity * base;
+                optionCount++;
+                if (sink != null) sink.accept(chain, row, prices);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.dashutils;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrent TTL cache where concurrent misses for a key share one in-flight load. Entries past their TTL but
+ * within the stale window are still served while a single background load refreshes them. Empty loads aren't
+ * stored, so a failed fetch neither replaces the entry nor is served in place of a reload.
+ */
+final class SingleFlightCache<K, V> {
+    private record Entry<V>(V value, long loadedAt) {}
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final long ttlNanos;
+    private final long maxStaleNanos;
+    private final LongSupplier nanoClock;
+    private final Executor refreshExecutor;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    // Process wide totals across caches of the same name, while metrics are enabled
+    private final Metrics.Counter hitCounter;
+    private final Metrics.Counter staleHitCounter;
+    private final Metrics.Counter missCounter;
+    private final Metrics.Counter loadFailureCounter;
+    private final LatencyHistogram loadTimer;
+
+    SingleFlightCache(String name, CachedDataRequester.Policy policy, LongSupplier nanoClock, Executor refreshExecutor) {
+        this.hitCounter = Metrics.counter("cache." + name + ".hits");
+        this.staleHitCounter = Metrics.counter("cache." + name + ".staleHits");
+        this.missCounter = Metrics.counter("cache." + name + ".misses");
+        this.loadFailureCounter = Metrics.counter("cache." + name + ".loadFailures");
+        this.loadTimer = Metrics.timer("cache." + name + ".load");
+        this.ttlNanos = policy.ttl().toNanos();
+        this.maxStaleNanos = policy.maxStale().toNanos();
+        this.nanoClock = nanoClock;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    V get(K key, Function<K, V> loader) {
+        var entry = entries.get(key);
+        if (entry != null) {
+            long age = nanoClock.getAsLong() - entry.loadedAt();
+            if (age < ttlNanos) {
+                hits.increment();
+                hitCounter.increment();
+                return entry.value();
+            }
+            if (age < ttlNanos + maxStaleNanos) {
+                staleHits.increment();
+                staleHitCounter.increment();
+                load(key, loader, true);
+                return entry.value();
+            }
+        }
+
+        misses.increment();
+        missCounter.increment();
+        try {
+            return load(key, loader, false).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    void put(K key, V value) {
+        if (!isEmpty(value)) entries.put(key, new Entry<>(value, nanoClock.getAsLong()));
+    }
+
+    // Requesters report a failed fetch as null or an empty result rather than throwing, which mustn't be served
+    // for a TTL in place of data a retry could load
+    private static boolean isEmpty(Object value) {
+        return value == null || value instanceof Map<?, ?> map && map.isEmpty()
+                || value instanceof Collection<?> collection && collection.isEmpty();
+    }
+
+    /**
+     * Stores the result of a load started elsewhere, e.g. a bulk prefetch. Until it completes, reads of the key
+     * that would load wait for it instead, unless a load of their own was already in flight.
+     *
+     * @return completes once the value has been stored
+     */
+    CompletableFuture<V> track(K key, CompletableFuture<V> load) {
+        var future = new CompletableFuture<V>();
+        boolean registered = inFlight.putIfAbsent(key, future) == null;
+        long loadGeneration = generation.get();
+
+        return load.whenComplete((value, error) -> {
+            if (error == null && generation.get() == loadGeneration) put(key, value);
+            if (!registered) return;
+            inFlight.remove(key, future);
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(value);
+            }
+        });
+    }
+
+    /**
+     * Stores a value that is already past its TTL, e.g. restored from disk, so it's served straight away while
+     * the first read refreshes it in the background. With no stale window the first read loads as on a miss.
+     */
+    void putStale(K key, V value) {
+        if (value != null) entries.put(key, new Entry<>(value, nanoClock.getAsLong() - ttlNanos));
+    }
+
+    /**
+     * Drops every entry. Loads already in flight still complete for their callers but are not stored.
+     */
+    void invalidateAll() {
+        generation.incrementAndGet();
+        inFlight.clear();
+        entries.clear();
+    }
+
+    CacheStats stats() {
+        return new CacheStats(hits.sum(), staleHits.sum(), misses.sum(), loads.sum(), loadFailures.sum(),
+                Duration.ofNanos(loadNanos.sum()));
+    }
+
+    private CompletableFuture<V> load(K key, Function<K, V> loader, boolean background) {
+        var future = new CompletableFuture<V>();
+        var existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) return existing;
+
+        long loadGeneration = generation.get();
+        Runnable task = () -> {
+            long start = nanoClock.getAsLong();
+            try {
+                var value = loader.apply(key);
+                if (generation.get() == loadGeneration) put(key, value);
+                inFlight.remove(key, future);
+                future.complete(value);
+            } catch (Throwable t) {
+                loadFailures.increment();
+                loadFailureCounter.increment();
+                inFlight.remove(key, future);
+                future.completeExceptionally(t);
+            } finally {
+                long elapsed = nanoClock.getAsLong() - start;
+                loads.increment();
+                loadNanos.add(elapsed);
+                if (Metrics.enabled()) loadTimer.record(elapsed);
+            }
+        };
+
+        if (background) {
+            refreshExecutor.execute(task);
+        } else {
+            task.run();
+        }
+        return future;
+    }
+}
@@ -0,0 +1,48 @@
+package org.dashutils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Offline requester serving a previously persisted {@link SnapshotFile}. Every call returns the same maps.
+ */
+public class SnapshotDataRequester implements DataRequester {
+    private final MarketSnapshot snapshot;
+
+    public SnapshotDataRequester(MarketSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public static SnapshotDataRequester load(Path path) throws IOException {
+        return new SnapshotDataRequester(SnapshotFile.read(path));
+    }
+
+    @Override
+    public HashMap<String, Double> getBorrowRates() {
+        return snapshot.borrowRates();
+    }
+
+    @Override
+    public HashMap<String, OptionChain> getOptionChain() {
+        return snapshot.optionChains();
+    }
+
+    @Override
+    public HashMap<String, OptionMarketData> getOptionMarketData() {
+        return snapshot.optionMarketData();
+    }
+
+    @Override
+    public Double getSpotMarketPrice(String ticker) {
+        var spotPrices = snapshot.spotPrices();
+        return spotPrices == null ? null : spotPrices.get(ticker);
+    }
+
+    @Override
+    public CompletableFuture<MarketSnapshot> fetchSnapshot(Collection<String> spotTickers) {
+        return CompletableFuture.completedFuture(snapshot);
+    }
+}
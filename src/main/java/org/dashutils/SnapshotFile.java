@@ -0,0 +1,203 @@
+package org.dashutils;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary persistence of a {@link MarketSnapshot}, so the UI can render the last known data before the
+ * network answers and can run fully offline.
+ * <p>
+ * Layout: magic, format version, payload length and CRC32 of the payload, then the payload sections for borrow
+ * rates, option chains, marks and spot prices. Each section is a count (-1 for a missing dataset) followed by its
+ * entries. Missing mark fields are stored as NaN and read back as null.
+ */
+public final class SnapshotFile {
+    static final int MAGIC = 0x4F44534E; // "ODSN"
+    static final short VERSION = 1;
+    // Magic, version, payload length and CRC
+    private static final int HEADER_BYTES = 4 + 2 + 4 + 8;
+
+    private SnapshotFile() {}
+
+    /**
+     * The snapshot location, {@code ~/.optiondash/snapshot.bin} unless the {@code optiondash.snapshot} system
+     * property says otherwise.
+     */
+    public static Path defaultPath() {
+        var configured = System.getProperty("optiondash.snapshot");
+        return configured != null
+                ? Path.of(configured)
+                : Path.of(System.getProperty("user.home"), ".optiondash", "snapshot.bin");
+    }
+
+    /**
+     * Writes the snapshot next to the target and moves it into place, so readers never see a partial file.
+     */
+    public static void write(Path path, MarketSnapshot snapshot) throws IOException {
+        var payload = new ByteArrayOutputStream(1 << 16);
+        try (var out = new DataOutputStream(payload)) {
+            writePayload(out, snapshot);
+        }
+        var bytes = payload.toByteArray();
+        var crc = new CRC32();
+        crc.update(bytes);
+
+        var parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        var temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeInt(bytes.length);
+                out.writeLong(crc.getValue());
+                out.write(bytes);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes the snapshot unless it has no chains or marks, as after a failed fetch, so the last good snapshot
+     * isn't replaced with an empty one.
+     *
+     * @return whether the snapshot was written
+     */
+    public static boolean writeIfLoaded(Path path, MarketSnapshot snapshot) throws IOException {
+        if (!snapshot.hasMarketData()) return false;
+        write(path, snapshot);
+        return true;
+    }
+
+    public static MarketSnapshot read(Path path) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a snapshot file: " + path);
+            short version = in.readShort();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version + ": " + path);
+
+            // Checked before allocating, so a damaged header can't ask for a negative or huge array
+            int length = in.readInt();
+            if (length < 0 || length > Files.size(path) - HEADER_BYTES) throw new IOException("Corrupt snapshot file: " + path);
+            var bytes = new byte[length];
+            long expectedCrc = in.readLong();
+            in.readFully(bytes);
+            var crc = new CRC32();
+            crc.update(bytes);
+            if (crc.getValue() != expectedCrc) throw new IOException("Corrupt snapshot file: " + path);
+
+            return readPayload(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (EOFException e) {
+            throw new IOException("Truncated snapshot file: " + path, e);
+        }
+    }
+
+    private static void writePayload(DataOutputStream out, MarketSnapshot snapshot) throws IOException {
+        writeDoubles(out, snapshot.borrowRates());
+
+        var chains = snapshot.optionChains();
+        out.writeInt(chains == null ? -1 : chains.size());
+        if (chains != null) {
+            for (var chain : chains.entrySet()) {
+                out.writeUTF(chain.getKey());
+                out.writeUTF(chain.getValue().underlying());
+                var options = chain.getValue().optionSeries();
+                out.writeInt(options.size());
+                for (var option : options) {
+                    out.writeUTF(option.symbol());
+                    // The option's underlying is nearly always the chain's, so only store it when it differs
+                    boolean sameUnderlying = option.underlying().equals(chain.getValue().underlying());
+                    out.writeBoolean(sameUnderlying);
+                    if (!sameUnderlying) out.writeUTF(option.underlying());
+                    out.writeDouble(option.strike());
+                    out.writeLong(option.expiry().getTime());
+                    out.writeBoolean(option.callPut() == CallPut.CALL);
+                }
+            }
+        }
+
+        var marketData = snapshot.optionMarketData();
+        out.writeInt(marketData == null ? -1 : marketData.size());
+        if (marketData != null) {
+            for (var entry : marketData.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeDouble(orNaN(entry.getValue().price()));
+                out.writeDouble(orNaN(entry.getValue().delta()));
+                out.writeDouble(orNaN(entry.getValue().impliedVol()));
+            }
+        }
+
+        writeDoubles(out, snapshot.spotPrices());
+    }
+
+    private static MarketSnapshot readPayload(DataInputStream in) throws IOException {
+        var borrowRates = readDoubles(in);
+
+        HashMap<String, OptionChain> chains = null;
+        int chainCount = in.readInt();
+        if (chainCount >= 0) {
+            chains = HashMap.newHashMap(chainCount);
+            for (int c = 0; c < chainCount; c++) {
+                var key = in.readUTF();
+                var underlying = in.readUTF();
+                int optionCount = in.readInt();
+                var options = new ArrayList<Option>(optionCount);
+                for (int i = 0; i < optionCount; i++) {
+                    var symbol = in.readUTF();
+                    var optionUnderlying = in.readBoolean() ? underlying : in.readUTF();
+                    double strike = in.readDouble();
+                    var expiry = new Date(in.readLong());
+                    var callPut = in.readBoolean() ? CallPut.CALL : CallPut.PUT;
+                    options.add(new Option(symbol, optionUnderlying, strike, expiry, callPut));
+                }
+                chains.put(key, new OptionChain(underlying, options));
+            }
+        }
+
+        HashMap<String, OptionMarketData> marketData = null;
+        int markCount = in.readInt();
+        if (markCount >= 0) {
+            marketData = HashMap.newHashMap(markCount);
+            for (int i = 0; i < markCount; i++) {
+                var symbol = in.readUTF();
+                marketData.put(symbol, new OptionMarketData(orNull(in.readDouble()), orNull(in.readDouble()),
+                        orNull(in.readDouble())));
+            }
+        }
+
+        return new MarketSnapshot(borrowRates, chains, marketData, readDoubles(in));
+    }
+
+    private static void writeDoubles(DataOutputStream out, HashMap<String, Double> values) throws IOException {
+        out.writeInt(values == null ? -1 : values.size());
+        if (values == null) return;
+        for (var entry : values.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeDouble(orNaN(entry.getValue()));
+        }
+    }
+
+    private static HashMap<String, Double> readDoubles(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) return null;
+        var values = HashMap.<String, Double>newHashMap(count);
+        for (int i = 0; i < count; i++) {
+            var key = in.readUTF();
+            values.put(key, orNull(in.readDouble()));
+        }
+        return values;
+    }
+
+    private static double orNaN(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+
+    private static Double orNull(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
@@ -0,0 +1,278 @@
+package org.dashutils;
+
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.basics.currency.CurrencyPair;
+import com.opengamma.strata.basics.currency.FxMatrix;
+import com.opengamma.strata.basics.date.DayCounts;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.market.curve.ConstantCurve;
+import com.opengamma.strata.market.curve.Curves;
+import com.opengamma.strata.market.curve.interpolator.CurveExtrapolators;
+import com.opengamma.strata.market.curve.interpolator.CurveInterpolators;
+import com.opengamma.strata.market.surface.ConstantSurface;
+import com.opengamma.strata.market.surface.InterpolatedNodalSurface;
+import com.opengamma.strata.market.surface.Surfaces;
+import com.opengamma.strata.market.surface.interpolator.GridSurfaceInterpolator;
+import com.opengamma.strata.pricer.fxopt.BlackFxOptionSurfaceVolatilities;
+import com.opengamma.strata.pricer.fxopt.BlackFxVanillaOptionProductPricer;
+import com.opengamma.strata.pricer.fxopt.FxOptionVolatilitiesName;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.product.common.LongShort;
+import com.opengamma.strata.product.fx.ResolvedFxSingle;
+import com.opengamma.strata.product.fxopt.ResolvedFxVanillaOption;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Prices options with Strata's Black FX vanilla option pricer, treating each underlying as the FX pair
+ * base asset / USD (USDT is taken as USD). The rates provider (constant borrow rate curves and the spot as
+ * FX rate) and the Black vol surface (linear in expiry and strike over the marks' implied vols) are built once
+ * per snapshot and underlying and reused for every option until a different snapshot or valuation date comes in.
+ * Underlyings whose base asset has no Strata currency code (see {@link #currency(String)}) get no market.
+ * <p>
+ * Strata measures time to expiry in whole days (ACT/365F between dates), so prices differ slightly from
+ * {@link BlackScholesKernel}, which counts to the millisecond, and a market holds for the whole UTC day.
+ */
+public final class StrataFxOptionPricer implements OptionPricer {
+    private static final BlackFxVanillaOptionProductPricer PRICER = BlackFxVanillaOptionProductPricer.DEFAULT;
+    private static final LatencyHistogram MARKET_TIMER = Metrics.timer("pricing.strata.market");
+    private static final LatencyHistogram PRICES_TIMER = Metrics.timer("pricing.strata.prices");
+    private static final double IV_MIN_VOL = 1e-4;
+    private static final double IV_MAX_VOL = 10;
+    private static final double IV_VOL_TOLERANCE = 1e-10;
+    private static final int IV_MAX_ITERATIONS = 64;
+    // Binance assets whose codes aren't three letters, by the code Strata knows them as
+    private static final Map<String, String> ASSET_CODES = Map.of("DOGE", "XDG");
+
+    /**
+     * Strata market data of one underlying as of one valuation time.
+     */
+    public record Market(String underlying, CurrencyPair currencyPair, ZonedDateTime valuationTime,
+                         ImmutableRatesProvider ratesProvider, BlackFxOptionSurfaceVolatilities volatilities) {}
+
+    private MarketSnapshot cachedSnapshot;
+    private LocalDate cachedValuationDate;
+    private final HashMap<String, Market> markets = new HashMap<>();
+
+    /**
+     * @return the cached market of the chain's underlying, building it on first use for this snapshot and
+     *         valuation date, or null when there's no spot price, no currency for the base asset or no mark to
+     *         build a vol surface from
+     */
+    public synchronized Market market(MarketSnapshot snapshot, ColumnarOptionChain chain, long asOfMillis) {
+        // Strata only looks at the date, so every time of the day shares one market
+        var valuationDate = valuationTime(asOfMillis).toLocalDate();
+        if (snapshot != cachedSnapshot || !valuationDate.equals(cachedValuationDate)) {
+            markets.clear();
+            cachedSnapshot = snapshot;
+            cachedValuationDate = valuationDate;
+        }
+        var underlying = chain.underlying();
+        if (!markets.containsKey(underlying)) {
+            long start = Metrics.start();
+            markets.put(underlying, buildMarket(snapshot, chain, asOfMillis));
+            Metrics.stop(MARKET_TIMER, start);
+        }
+        return markets.get(underlying);
+    }
+
+    /**
+     * Prices every option of the chain per unit of underlying, in USD.
+     *
+     * @return prices in row order, NaN for expired options or when the underlying has no market
+     */
+    public double[] prices(MarketSnapshot snapshot, ColumnarOptionChain chain, long asOfMillis) {
+        var prices = new double[chain.size()];
+        var market = market(snapshot, chain, asOfMillis);
+        long start = Metrics.start();
+        for (int row = 0; row < prices.length; row++) {
+            prices[row] = market == null ? Double.NaN : price(market, chain.isCall(row), chain.strike(row), chain.expiryAt(row));
+        }
+        Metrics.stop(PRICES_TIMER, start);
+        return prices;
+    }
+
+    /**
+     * @return the price of one option per unit of underlying, in USD, or NaN if it has expired
+     */
+    public static double price(Market market, boolean isCall, double strike, long expiryMillis) {
+        var expiry = Instant.ofEpochMilli(expiryMillis).atZone(ZoneOffset.UTC);
+        if (!expiry.toLocalDate().isAfter(market.valuationTime().toLocalDate())) return Double.NaN;
+
+        var pair = market.currencyPair();
+        // A call receives one unit of the base asset against the strike in USD, a put the other way round
+        double sign = isCall ? 1 : -1;
+        var underlying = ResolvedFxSingle.of(CurrencyAmount.of(pair.getBase(), sign),
+                CurrencyAmount.of(pair.getCounter(), -sign * strike), expiry.toLocalDate());
+        var option = ResolvedFxVanillaOption.builder()
+                .longShort(LongShort.LONG)
+                .expiry(expiry)
+                .underlying(underlying)
+                .build();
+
+        var presentValue = PRICER.presentValue(option, market.ratesProvider(), market.volatilities());
+        return presentValue.getAmount() * market.ratesProvider().fxRate(presentValue.getCurrency(), pair.getCounter());
+    }
+
+    /**
+     * Solves the implied vol by bisection on the present value of Strata's Black FX pricer at a flat vol, so it's
+     * the vol {@link #price(Market, boolean, double, long)} would need to return the option price, with time to
+     * expiry in whole days.
+     *
+     * @return NaN for expired options, a base asset without a currency, or a price outside the no-arbitrage bounds
+     */
+    @Override
+    public Double impliedVol(Option option, Double optionPrice, Double spotPrice, Double riskFreeRate,
+                             Double dividendRate, Date currentDate) {
+        var pair = currencyPair(option.underlying());
+        if (pair == null || !(optionPrice > 0)) return Double.NaN;
+
+        var valuationTime = valuationTime(currentDate.getTime());
+        var ratesProvider = ratesProvider(pair, valuationTime.toLocalDate(), spotPrice, riskFreeRate, dividendRate);
+        var name = FxOptionVolatilitiesName.of(option.underlying() + "-Flat");
+        var metadata = Surfaces.blackVolatilityByExpiryStrike(name.getName(), DayCounts.ACT_365F);
+        boolean isCall = option.callPut() == CallPut.CALL;
+        DoubleUnaryOperator priceAt = vol -> price(new Market(option.underlying(), pair, valuationTime, ratesProvider,
+                        BlackFxOptionSurfaceVolatilities.of(name, pair, valuationTime, ConstantSurface.of(metadata, vol))),
+                isCall, option.strike(), option.expiry().getTime());
+
+        double low = IV_MIN_VOL;
+        double high = IV_MAX_VOL;
+        double lowPrice = priceAt.applyAsDouble(low);
+        if (Double.isNaN(lowPrice) || optionPrice <= lowPrice || optionPrice >= priceAt.applyAsDouble(high)) {
+            return Double.NaN;
+        }
+        for (int i = 0; i < IV_MAX_ITERATIONS && high - low > IV_VOL_TOLERANCE; i++) {
+            double mid = 0.5 * (low + high);
+            if (priceAt.applyAsDouble(mid) < optionPrice) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return 0.5 * (low + high);
+    }
+
+    static Market buildMarket(MarketSnapshot snapshot, ColumnarOptionChain chain, long asOfMillis) {
+        var underlying = chain.underlying();
+        var spot = snapshot.spotPrices() == null ? null : snapshot.spotPrices().get(underlying);
+        var pair = currencyPair(underlying);
+        if (spot == null || pair == null) return null;
+
+        var valuationTime = valuationTime(asOfMillis);
+        var valuationDate = valuationTime.toLocalDate();
+        double riskFreeRate = RiskEngine.rate(snapshot.borrowRates(), "USDT");
+        double dividendRate = RiskEngine.rate(snapshot.borrowRates(), RiskEngine.baseAsset(underlying));
+        var ratesProvider = ratesProvider(pair, valuationDate, spot, riskFreeRate, dividendRate);
+
+        var surface = volatilitySurface(underlying, chain, valuationDate);
+        if (surface == null) return null;
+        var volatilities = BlackFxOptionSurfaceVolatilities.of(FxOptionVolatilitiesName.of(underlying + "-Marks"),
+                pair, valuationTime, surface);
+        return new Market(underlying, pair, valuationTime, ratesProvider, volatilities);
+    }
+
+    // Constant curves for the risk free rate (USD) and the base asset's yield, with the spot as FX rate
+    private static ImmutableRatesProvider ratesProvider(CurrencyPair pair, LocalDate valuationDate, double spot,
+                                                        double riskFreeRate, double dividendRate) {
+        return ImmutableRatesProvider.builder(valuationDate)
+                .fxRateProvider(FxMatrix.of(pair.getBase(), pair.getCounter(), spot))
+                .discountCurve(pair.getCounter(), ConstantCurve.of(
+                        Curves.zeroRates(pair.getCounter() + "-Discount", DayCounts.ACT_365F), riskFreeRate))
+                .discountCurve(pair.getBase(), ConstantCurve.of(
+                        Curves.zeroRates(pair.getBase() + "-Discount", DayCounts.ACT_365F), dividendRate))
+                .build();
+    }
+
+    // Start of the UTC day, all Strata's day counts look at
+    private static ZonedDateTime valuationTime(long asOfMillis) {
+        return Instant.ofEpochMilli(asOfMillis).atZone(ZoneOffset.UTC).toLocalDate().atStartOfDay(ZoneOffset.UTC);
+    }
+
+    /**
+     * @return base asset / USD of the underlying, or null if the base asset has no currency or is itself USD
+     */
+    private static CurrencyPair currencyPair(String underlying) {
+        var base = currency(RiskEngine.baseAsset(underlying));
+        return base == null || base.equals(Currency.USD) ? null : CurrencyPair.of(base, Currency.USD);
+    }
+
+    /**
+     * Nodes at each unexpired expiry and strike with the marks' implied vol, averaging call and put where both
+     * are marked. Expiries need two marked strikes to interpolate along; a single usable expiry is extended flat
+     * in time.
+     */
+    private static InterpolatedNodalSurface volatilitySurface(String underlying, ColumnarOptionChain chain,
+                                                             LocalDate valuationDate) {
+        // Room for every row twice, in case the only usable slice has to be repeated
+        var times = new double[2 * chain.size()];
+        var strikes = new double[2 * chain.size()];
+        var vols = new double[2 * chain.size()];
+        int nodes = 0;
+        int slices = 0;
+
+        for (int expiry = 0; expiry < chain.expiryCount(); expiry++) {
+            var expiryDate = Instant.ofEpochMilli(chain.expiry(expiry)).atZone(ZoneOffset.UTC).toLocalDate();
+            double time = DayCounts.ACT_365F.relativeYearFraction(valuationDate, expiryDate);
+            if (!(time > 0)) continue;
+
+            int sliceStart = nodes;
+            for (int row = chain.expiryStart(expiry); row < chain.expiryEnd(expiry); row++) {
+                double vol = chain.impliedVol(row);
+                if (!(vol > 0)) continue;
+                // Rows are sorted by strike with the call first, so a put at the same strike follows its call
+                if (nodes > sliceStart && strikes[nodes - 1] == chain.strike(row)) {
+                    vols[nodes - 1] = 0.5 * (vols[nodes - 1] + vol);
+                } else {
+                    times[nodes] = time;
+                    strikes[nodes] = chain.strike(row);
+                    vols[nodes++] = vol;
+                }
+            }
+            if (nodes - sliceStart < 2) {
+                nodes = sliceStart;
+            } else {
+                slices++;
+            }
+        }
+        if (slices == 0) return null;
+
+        if (slices == 1) {
+            for (int i = 0, count = nodes; i < count; i++) {
+                times[nodes] = 2 * times[i];
+                strikes[nodes] = strikes[i];
+                vols[nodes++] = vols[i];
+            }
+        }
+        var interpolator = GridSurfaceInterpolator.of(
+                CurveInterpolators.LINEAR, CurveExtrapolators.FLAT, CurveExtrapolators.FLAT,
+                CurveInterpolators.LINEAR, CurveExtrapolators.FLAT, CurveExtrapolators.FLAT);
+        return InterpolatedNodalSurface.of(
+                Surfaces.blackVolatilityByExpiryStrike(underlying + "-Marks", DayCounts.ACT_365F),
+                DoubleArray.copyOf(times, 0, nodes), DoubleArray.copyOf(strikes, 0, nodes),
+                DoubleArray.copyOf(vols, 0, nodes), interpolator);
+    }
+
+    /**
+     * Strata currency of a Binance asset: stablecoins map to USD, three letter assets to themselves and others to
+     * their code in {@link #ASSET_CODES}. Strata codes are three letters, so other assets (e.g. OP or 1000PEPE)
+     * have none and null is returned.
+     */
+    static Currency currency(String asset) {
+        return switch (asset) {
+            case "USDT", "USDC", "FDUSD" -> Currency.USD;
+            default -> {
+                var code = ASSET_CODES.getOrDefault(asset, asset);
+                yield code.matches("[A-Z]{3}") ? Currency.of(code) : null;
+            }
+        };
+    }
+}
@@ -0,0 +1,204 @@
+package org.dashutils;
+
+/**
+ * Fits one expiry's SVI smile with the quasi-explicit method of De Marco and Martini (Zeliade 2009): for fixed
+ * (m, sigma) the smile is linear in its other parameters, so those are a small constrained least squares solve
+ * and only (m, sigma) is searched, with Nelder-Mead.
+ * <p>
+ * Fits are kept free of static arbitrage in the wings: {@code b >= 0}, {@code |rho| <= 1}, non-negative total
+ * variance and Roger Lee's moment bound {@code b (1 + |rho|) <= 2}.
+ */
+final class SviCalibrator {
+    static final int MAX_ITERATIONS = 300;
+    private static final double LEE_SLOPE_BOUND = 2;
+    private static final double MIN_SIGMA = 1e-4;
+    private static final double MAX_SIGMA = 10;
+
+    private SviCalibrator() {}
+
+    /**
+     * @param logMoneyness  ln(K / F) of each point
+     * @param totalVariance implied vol squared times years to expiry of each point
+     * @param warmStart     a previous fit of the same expiry to search from, or null
+     * @return the fitted smile, or null without any points
+     */
+    static SviParameters calibrate(double[] logMoneyness, double[] totalVariance, int count, SviParameters warmStart) {
+        if (count == 0) return null;
+        if (count < 3) {
+            // Too few points for a smile: flat in total variance
+            double mean = 0;
+            for (int i = 0; i < count; i++) mean += totalVariance[i] / count;
+            return new SviParameters(mean, 0, 0, 0, 0.1);
+        }
+
+        double minK = Double.POSITIVE_INFINITY;
+        double maxK = Double.NEGATIVE_INFINITY;
+        int atmIndex = 0;
+        for (int i = 0; i < count; i++) {
+            minK = Math.min(minK, logMoneyness[i]);
+            maxK = Math.max(maxK, logMoneyness[i]);
+            if (Math.abs(logMoneyness[i]) < Math.abs(logMoneyness[atmIndex])) atmIndex = i;
+        }
+
+        double[] linear = new double[3];
+        double m0;
+        double logSigma0;
+        double mStep;
+        double logSigmaStep;
+        if (warmStart != null) {
+            m0 = warmStart.m();
+            logSigma0 = Math.log(Math.max(warmStart.sigma(), MIN_SIGMA));
+            mStep = 0.01;
+            logSigmaStep = 0.05;
+        } else {
+            m0 = logMoneyness[atmIndex];
+            logSigma0 = Math.log(Math.max(0.25 * (maxK - minK), 0.01));
+            mStep = Math.max(0.1 * (maxK - minK), 0.01);
+            logSigmaStep = 0.5;
+        }
+
+        // Nelder-Mead over (m, ln sigma)
+        double[][] simplex = {{m0, logSigma0}, {m0 + mStep, logSigma0}, {m0, logSigma0 + logSigmaStep}};
+        double[] values = new double[3];
+        for (int i = 0; i < 3; i++) values[i] = objective(logMoneyness, totalVariance, count, simplex[i], linear);
+
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            sort(simplex, values);
+            double spread = Math.max(Math.abs(simplex[2][0] - simplex[0][0]), Math.abs(simplex[2][1] - simplex[0][1]));
+            if (values[2] - values[0] <= 1e-10 * values[0] + 1e-20 || spread < 1e-8) break;
+
+            double centroidM = 0.5 * (simplex[0][0] + simplex[1][0]);
+            double centroidS = 0.5 * (simplex[0][1] + simplex[1][1]);
+            double[] reflected = {2 * centroidM - simplex[2][0], 2 * centroidS - simplex[2][1]};
+            double reflectedValue = objective(logMoneyness, totalVariance, count, reflected, linear);
+
+            if (reflectedValue < values[0]) {
+                double[] expanded = {3 * centroidM - 2 * simplex[2][0], 3 * centroidS - 2 * simplex[2][1]};
+                double expandedValue = objective(logMoneyness, totalVariance, count, expanded, linear);
+                if (expandedValue < reflectedValue) {
+                    simplex[2] = expanded;
+                    values[2] = expandedValue;
+                } else {
+                    simplex[2] = reflected;
+                    values[2] = reflectedValue;
+                }
+            } else if (reflectedValue < values[1]) {
+                simplex[2] = reflected;
+                values[2] = reflectedValue;
+            } else {
+                boolean outside = reflectedValue < values[2];
+                double[] from = outside ? reflected : simplex[2];
+                double[] contracted = {centroidM + 0.5 * (from[0] - centroidM), centroidS + 0.5 * (from[1] - centroidS)};
+                double contractedValue = objective(logMoneyness, totalVariance, count, contracted, linear);
+                if (contractedValue < Math.min(reflectedValue, values[2])) {
+                    simplex[2] = contracted;
+                    values[2] = contractedValue;
+                } else {
+                    for (int i = 1; i < 3; i++) {
+                        simplex[i][0] = simplex[0][0] + 0.5 * (simplex[i][0] - simplex[0][0]);
+                        simplex[i][1] = simplex[0][1] + 0.5 * (simplex[i][1] - simplex[0][1]);
+                        values[i] = objective(logMoneyness, totalVariance, count, simplex[i], linear);
+                    }
+                }
+            }
+        }
+
+        sort(simplex, values);
+        double m = simplex[0][0];
+        double sigma = clampSigma(simplex[0][1]);
+        fitLinear(logMoneyness, totalVariance, count, m, sigma, linear);
+        double a = linear[0];
+        double c = linear[1];
+        double d = linear[2];
+        return new SviParameters(a, c / sigma, c > 0 ? d / c : 0, m, sigma);
+    }
+
+    private static double objective(double[] k, double[] w, int count, double[] point, double[] linear) {
+        return fitLinear(k, w, count, point[0], clampSigma(point[1]), linear);
+    }
+
+    private static double clampSigma(double logSigma) {
+        return Math.min(Math.max(Math.exp(logSigma), MIN_SIGMA), MAX_SIGMA);
+    }
+
+    /**
+     * With y = (k - m) / sigma the smile is {@code w = a + d y + c sqrt(y^2 + 1)}, where c = b sigma and
+     * d = rho b sigma. Solves for (a, c, d) by least squares, then projects onto the no-arbitrage domain
+     * {@code 0 <= |d| <= c}, {@code c + |d| <= 2 sigma} and {@code a + sqrt(c^2 - d^2) >= 0}, refitting the
+     * remaining parameters after each clamp.
+     *
+     * @param out receives (a, c, d)
+     * @return the sum of squared residuals
+     */
+    static double fitLinear(double[] k, double[] w, int count, double m, double sigma, double[] out) {
+        double sy = 0, sz = 0, syy = 0, syz = 0, szz = 0, sw = 0, swy = 0, swz = 0;
+        for (int i = 0; i < count; i++) {
+            double y = (k[i] - m) / sigma;
+            double z = Math.sqrt(y * y + 1);
+            sy += y;
+            sz += z;
+            syy += y * y;
+            syz += y * z;
+            szz += z * z;
+            sw += w[i];
+            swy += w[i] * y;
+            swz += w[i] * z;
+        }
+        double n = count;
+
+        // Unconstrained solve of the 3x3 normal equations by Cramer's rule
+        double det = n * (syy * szz - syz * syz) - sy * (sy * szz - syz * sz) + sz * (sy * syz - syy * sz);
+        double a, c, d;
+        if (Math.abs(det) > 1e-12 * n * syy * szz) {
+            a = (sw * (syy * szz - syz * syz) - sy * (swy * szz - syz * swz) + sz * (swy * syz - syy * swz)) / det;
+            d = (n * (swy * szz - syz * swz) - sw * (sy * szz - syz * sz) + sz * (sy * swz - swy * sz)) / det;
+            c = (n * (syy * swz - swy * syz) - sy * (sy * swz - swy * sz) + sw * (sy * syz - syy * sz)) / det;
+        } else {
+            a = sw / n;
+            c = 0;
+            d = 0;
+        }
+
+        double maxSlope = LEE_SLOPE_BOUND * sigma;
+        if (c < 0 || c > maxSlope || Math.abs(d) > Math.min(c, maxSlope - c)) {
+            c = Math.min(Math.max(c, 0), maxSlope);
+            // Refit (a, d) with c fixed
+            double det2 = n * syy - sy * sy;
+            if (det2 > 1e-12 * n * syy) {
+                a = (syy * (sw - c * sz) - sy * (swy - c * syz)) / det2;
+                d = (n * (swy - c * syz) - sy * (sw - c * sz)) / det2;
+            }
+            double dBound = Math.min(c, maxSlope - c);
+            if (Math.abs(d) > dBound) {
+                d = Math.copySign(dBound, d);
+                a = (sw - d * sy - c * sz) / n;
+            }
+        }
+        a = Math.max(a, -Math.sqrt(Math.max(c * c - d * d, 0)));
+
+        out[0] = a;
+        out[1] = c;
+        out[2] = d;
+
+        double residuals = 0;
+        for (int i = 0; i < count; i++) {
+            double y = (k[i] - m) / sigma;
+            double error = a + d * y + c * Math.sqrt(y * y + 1) - w[i];
+            residuals += error * error;
+        }
+        return residuals;
+    }
+
+    private static void sort(double[][] simplex, double[] values) {
+        for (int i = 1; i < 3; i++) {
+            for (int j = i; j > 0 && values[j] < values[j - 1]; j--) {
+                double value = values[j];
+                values[j] = values[j - 1];
+                values[j - 1] = value;
+                double[] point = simplex[j];
+                simplex[j] = simplex[j - 1];
+                simplex[j - 1] = point;
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.dashutils;
+
+/**
+ * Raw SVI smile (Gatheral 2004) in total implied variance against log forward moneyness k = ln(K / F):
+ * {@code w(k) = a + b (rho (k - m) + sqrt((k - m)^2 + sigma^2))}.
+ */
+public record SviParameters(double a, double b, double rho, double m, double sigma) {
+    public double totalVariance(double logMoneyness) {
+        double x = logMoneyness - m;
+        return a + b * (rho * x + Math.sqrt(x * x + sigma * sigma));
+    }
+
+    public double impliedVol(double logMoneyness, double yearsToExpiry) {
+        return Math.sqrt(Math.max(totalVariance(logMoneyness), 0) / yearsToExpiry);
+    }
+
+    /**
+     * @return the lowest total variance of the smile, at {@code k = m - rho sigma / sqrt(1 - rho^2)}
+     */
+    public double minTotalVariance() {
+        return a + b * sigma * Math.sqrt(1 - rho * rho);
+    }
+}
@@ -0,0 +1,47 @@
+package org.dashutils;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe interning of option symbols to dense integer ids, so hot paths can key on ints instead of
+ * hashing strings. Lookups by id don't lock, so parallel workers can resolve symbols freely.
+ */
+public final class SymbolTable {
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] symbols = new String[64];
+
+    public int idOf(String symbol) {
+        var id = ids.get(symbol);
+        if (id != null) return id;
+
+        synchronized (this) {
+            return ids.computeIfAbsent(symbol, key -> {
+                int next = ids.size();
+                var current = symbols;
+                if (next == current.length) current = Arrays.copyOf(current, next * 2);
+                current[next] = key;
+                // Published before the id is visible through the map
+                symbols = current;
+                return next;
+            });
+        }
+    }
+
+    /**
+     * @return the id of an already interned symbol, or -1
+     */
+    public int find(String symbol) {
+        var id = ids.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    public String symbol(int id) {
+        if (id >= ids.size()) throw new IndexOutOfBoundsException("Unknown symbol id " + id);
+        return symbols[id];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,41 @@
+package org.dashutils;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Records each streamed mark update into a {@link TickStore} as it arrives.
+ */
+public class TickRecorder implements MarketDataListener {
+    private final TickStore store;
+    private final BinanceStreamingDataRequester source;
+    private final LongSupplier clock;
+
+    public TickRecorder(TickStore store, BinanceStreamingDataRequester source) {
+        this(store, source, System::currentTimeMillis);
+    }
+
+    TickRecorder(TickStore store, BinanceStreamingDataRequester source, LongSupplier clock) {
+        this.store = store;
+        this.source = source;
+        this.clock = clock;
+    }
+
+    @Override
+    public void onMarksUpdated(String underlying, Set<String> symbols) {
+        long timestamp = clock.getAsLong();
+        try {
+            for (var symbol : symbols) {
+                var mark = source.getMark(symbol);
+                if (mark != null) store.append(symbol, timestamp, mark);
+            }
+        } catch (IOException e) {
+            TickStore.RECORD_FAILURES.increment();
+        }
+    }
+
+    @Override
+    public void onSpotUpdated(String ticker, double price) {
+    }
+}
@@ -0,0 +1,541 @@
+package org.dashutils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only store of timestamped marks (price, implied vol and delta) per option symbol, for studying how
+ * smiles move intraday.
+ * <p>
+ * Ticks are buffered per symbol and written as blocks of up to {@link #BLOCK_SIZE} ticks to a memory-mapped
+ * {@code ticks.dat}, each column compressed with {@link GorillaCodec}. Block headers carry the symbol id, time
+ * range and column lengths, so range scans skip blocks outside the range and decode only the columns asked for.
+ * Symbol ids are the order symbols were first seen, logged to {@code symbols.dat}. The data file is limited to
+ * 2 GB; {@link #compact(long)} rewrites it into full, per symbol contiguous blocks and drops old ticks.
+ * <p>
+ * At REST refresh rates a block takes hours to fill, so a background flush also writes any symbol's partial block
+ * once its oldest tick has been buffered for the store's max buffer age. A crash loses at most about that much.
+ */
+public final class TickStore implements Closeable {
+    public enum Column {PRICE, IMPLIED_VOL, DELTA}
+
+    public interface TickConsumer {
+        void accept(int symbolId, long timestamp, double price, double impliedVol, double delta);
+    }
+
+    public interface ValueConsumer {
+        void accept(int symbolId, long timestamp, double value);
+    }
+
+    static final int BLOCK_SIZE = 1024;
+    // Failed appends of the recorders, which record best effort and keep serving the data
+    static final Metrics.Counter RECORD_FAILURES = Metrics.counter("ticks.recordFailures");
+    // Failed background flushes, retried on the next period
+    static final Metrics.Counter FLUSH_FAILURES = Metrics.counter("ticks.flushFailures");
+    static final Duration DEFAULT_MAX_BUFFER_AGE = Duration.ofSeconds(Long.getLong("optiondash.ticks.flushSeconds", 30));
+    private static final int FILE_MAGIC = 0x4F445453; // "ODTS"
+    private static final int FILE_VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 8;
+    private static final int BLOCK_HEADER_BYTES = 40;
+    private static final long MAP_CHUNK_BYTES = 16L << 20;
+
+    /**
+     * @param lengths compressed byte lengths of the timestamp, price, implied vol and delta columns
+     */
+    private record Block(int offset, int count, long minTime, long maxTime, int[] lengths) {
+        int columnOffset(int column) {
+            int columnOffset = offset + BLOCK_HEADER_BYTES;
+            for (int i = 0; i < column; i++) columnOffset += lengths[i];
+            return columnOffset;
+        }
+    }
+
+    private static final class TickBuffer {
+        final long[] timestamps = new long[BLOCK_SIZE];
+        final double[][] columns = new double[3][BLOCK_SIZE];
+        int count;
+        // When the first buffered tick was appended, by the store's clock rather than the tick's timestamp
+        long firstBufferedNanos;
+    }
+
+    private final Path dataPath;
+    private final Path symbolsPath;
+    private final SymbolTable symbols = new SymbolTable();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ArrayList<ArrayList<Block>> blocks = new ArrayList<>();
+    private final ArrayList<TickBuffer> openBuffers = new ArrayList<>();
+    private final GorillaCodec.BitWriter writer = new GorillaCodec.BitWriter();
+    private final long maxBufferAgeNanos;
+    private ScheduledExecutorService flusher;
+
+    private DataOutputStream symbolLog;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int writePosition;
+    private long tickCount;
+
+    private TickStore(Path directory, Duration maxBufferAge) {
+        this.dataPath = directory.resolve("ticks.dat");
+        this.symbolsPath = directory.resolve("symbols.dat");
+        this.maxBufferAgeNanos = maxBufferAge.toNanos();
+    }
+
+    /**
+     * Opens the store with partial blocks flushed after {@code optiondash.ticks.flushSeconds}, 30 by default.
+     */
+    public static TickStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_MAX_BUFFER_AGE);
+    }
+
+    /**
+     * @param maxBufferAge how long ticks are buffered before their partial block is written, or zero to only write
+     *                     full blocks and on {@link #flush()} and {@link #close()}
+     */
+    public static TickStore open(Path directory, Duration maxBufferAge) throws IOException {
+        Files.createDirectories(directory);
+        var store = new TickStore(directory, maxBufferAge);
+        store.openFiles();
+        if (maxBufferAge.isPositive()) store.startFlusher();
+        return store;
+    }
+
+    private void startFlusher() {
+        // Checked twice per max age, so no tick is buffered for much more than 1.5 times it
+        long period = Math.max(1, maxBufferAgeNanos / 2);
+        flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("tick-flush").daemon().factory());
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flushOlderThan(System.nanoTime() - maxBufferAgeNanos);
+            } catch (IOException e) {
+                FLUSH_FAILURES.increment();
+            }
+        }, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    private void openFiles() throws IOException {
+        // A compaction that didn't finish leaves the previous file behind, which is still complete
+        var interrupted = compactionBackup();
+        if (Files.exists(interrupted)) Files.move(interrupted, dataPath, StandardCopyOption.REPLACE_EXISTING);
+
+        if (Files.exists(symbolsPath)) {
+            try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(symbolsPath)))) {
+                while (true) symbols.idOf(in.readUTF());
+            } catch (EOFException e) {
+                // End of the log
+            }
+        }
+        symbolLog = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(symbolsPath,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+
+        mapDataFile();
+    }
+
+    private void mapDataFile() throws IOException {
+        channel = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size == 0) {
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, MAP_CHUNK_BYTES);
+            map.putInt(0, FILE_MAGIC);
+            map.putInt(4, FILE_VERSION);
+        } else {
+            if (size < FILE_HEADER_BYTES) throw new IOException("Truncated tick store: " + dataPath);
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (map.getInt(0) != FILE_MAGIC) throw new IOException("Not a tick store: " + dataPath);
+            if (map.getInt(4) != FILE_VERSION) throw new IOException("Unsupported tick store version: " + dataPath);
+        }
+        loadIndex();
+    }
+
+    private void loadIndex() {
+        blocks.clear();
+        tickCount = 0;
+        writePosition = FILE_HEADER_BYTES;
+        // The mapped file is zero filled past the last block, so a zero count marks the end
+        while (writePosition + BLOCK_HEADER_BYTES <= map.capacity()) {
+            int symbolId = map.getInt(writePosition);
+            int count = map.getInt(writePosition + 4);
+            if (count <= 0 || symbolId < 0 || symbolId >= symbols.size()) break;
+
+            var lengths = new int[4];
+            int length = BLOCK_HEADER_BYTES;
+            for (int i = 0; i < 4; i++) {
+                lengths[i] = map.getInt(writePosition + 24 + 4 * i);
+                length += lengths[i];
+            }
+            if (writePosition + length > map.capacity()) break;
+
+            blocksOf(symbolId).add(new Block(writePosition, count, map.getLong(writePosition + 8),
+                    map.getLong(writePosition + 16), lengths));
+            tickCount += count;
+            writePosition += length;
+        }
+    }
+
+    /**
+     * For looking up ids and symbols. New ids must be assigned through {@link #symbolId(String)} so they're logged.
+     */
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
+    /**
+     * @return the id of the symbol, assigning and logging a new one for symbols not seen before
+     */
+    public int symbolId(String symbol) throws IOException {
+        int id = symbols.find(symbol);
+        if (id >= 0) return id;
+
+        lock.writeLock().lock();
+        try {
+            return symbolIdLocked(symbol);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long tickCount() {
+        lock.readLock().lock();
+        try {
+            long buffered = 0;
+            for (var buffer : openBuffers) buffered += buffer == null ? 0 : buffer.count;
+            return tickCount + buffered;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void append(String symbol, long timestamp, OptionMarketData data) throws IOException {
+        lock.writeLock().lock();
+        try {
+            appendLocked(symbol, timestamp, data);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends every mark of a snapshot at the same timestamp.
+     */
+    public void appendAll(Map<String, OptionMarketData> marketData, long timestamp) throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (var entry : marketData.entrySet()) appendLocked(entry.getKey(), timestamp, entry.getValue());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a tick for a symbol id assigned by {@link #symbolId(String)}.
+     */
+    public void append(int symbolId, long timestamp, double price, double impliedVol, double delta) throws IOException {
+        if (symbolId < 0 || symbolId >= symbols.size()) throw new IllegalArgumentException("Unknown symbol id " + symbolId);
+        lock.writeLock().lock();
+        try {
+            appendLocked(symbolId, timestamp, price, impliedVol, delta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void appendLocked(String symbol, long timestamp, OptionMarketData data) throws IOException {
+        appendLocked(symbolIdLocked(symbol), timestamp, orNaN(data.price()), orNaN(data.impliedVol()), orNaN(data.delta()));
+    }
+
+    private void appendLocked(int symbolId, long timestamp, double price, double impliedVol, double delta) throws IOException {
+        while (openBuffers.size() <= symbolId) openBuffers.add(null);
+        var buffer = openBuffers.get(symbolId);
+        if (buffer == null) openBuffers.set(symbolId, buffer = new TickBuffer());
+
+        if (buffer.count == 0) buffer.firstBufferedNanos = System.nanoTime();
+        buffer.timestamps[buffer.count] = timestamp;
+        buffer.columns[0][buffer.count] = price;
+        buffer.columns[1][buffer.count] = impliedVol;
+        buffer.columns[2][buffer.count] = delta;
+        if (++buffer.count == BLOCK_SIZE) {
+            writeBlock(symbolId, buffer.timestamps, buffer.columns, buffer.count);
+            buffer.count = 0;
+        }
+    }
+
+    private int symbolIdLocked(String symbol) throws IOException {
+        int id = symbols.find(symbol);
+        if (id >= 0) return id;
+
+        id = symbols.idOf(symbol);
+        // Logged before any block can refer to it
+        symbolLog.writeUTF(symbol);
+        symbolLog.flush();
+        return id;
+    }
+
+    /**
+     * Writes all buffered ticks as (possibly partial) blocks and forces the data to disk.
+     */
+    public void flush() throws IOException {
+        lock.writeLock().lock();
+        try {
+            flushLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void flushLocked() throws IOException {
+        writeBuffers(true, 0);
+        map.force();
+    }
+
+    /**
+     * Writes the partial blocks of symbols whose oldest buffered tick was appended at or before the given
+     * {@link System#nanoTime()}, forcing the data to disk if any were.
+     */
+    void flushOlderThan(long bufferedBeforeNanos) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (writeBuffers(false, bufferedBeforeNanos)) map.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return whether any block was written
+     */
+    private boolean writeBuffers(boolean all, long bufferedBeforeNanos) throws IOException {
+        boolean written = false;
+        for (int symbolId = 0; symbolId < openBuffers.size(); symbolId++) {
+            var buffer = openBuffers.get(symbolId);
+            if (buffer == null || buffer.count == 0) continue;
+            if (all || buffer.firstBufferedNanos - bufferedBeforeNanos <= 0) {
+                writeBlock(symbolId, buffer.timestamps, buffer.columns, buffer.count);
+                buffer.count = 0;
+                written = true;
+            }
+        }
+        return written;
+    }
+
+    private void writeBlock(int symbolId, long[] timestamps, double[][] columns, int count) throws IOException {
+        writer.reset();
+        var lengths = new int[4];
+        GorillaCodec.encodeTimestamps(timestamps, count, writer);
+        writer.alignToByte();
+        lengths[0] = writer.length();
+        for (int column = 0; column < 3; column++) {
+            int start = writer.length();
+            GorillaCodec.encodeValues(columns[column], count, writer);
+            writer.alignToByte();
+            lengths[column + 1] = writer.length() - start;
+        }
+
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            minTime = Math.min(minTime, timestamps[i]);
+            maxTime = Math.max(maxTime, timestamps[i]);
+        }
+
+        ensureCapacity(BLOCK_HEADER_BYTES + writer.length());
+        int offset = writePosition;
+        map.put(offset + BLOCK_HEADER_BYTES, writer.bytes(), 0, writer.length());
+        // The header goes in last, so a block is only picked up on reopen once its columns are written
+        map.putLong(offset + 8, minTime);
+        map.putLong(offset + 16, maxTime);
+        for (int i = 0; i < 4; i++) map.putInt(offset + 24 + 4 * i, lengths[i]);
+        map.putInt(offset, symbolId);
+        map.putInt(offset + 4, count);
+
+        blocksOf(symbolId).add(new Block(offset, count, minTime, maxTime, lengths));
+        tickCount += count;
+        writePosition += BLOCK_HEADER_BYTES + writer.length();
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        long required = (long) writePosition + bytes;
+        if (required <= map.capacity()) return;
+
+        long size = (required + MAP_CHUNK_BYTES - 1) / MAP_CHUNK_BYTES * MAP_CHUNK_BYTES;
+        if (size > Integer.MAX_VALUE) throw new IOException("Tick store is full, compact it or start a new one: " + dataPath);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private ArrayList<Block> blocksOf(int symbolId) {
+        while (blocks.size() <= symbolId) blocks.add(new ArrayList<>());
+        return blocks.get(symbolId);
+    }
+
+    /**
+     * Visits the ticks of a symbol with {@code from <= timestamp < to}, in the order they were appended.
+     */
+    public void scan(int symbolId, long from, long to, TickConsumer consumer) {
+        var timestamps = new long[BLOCK_SIZE];
+        var columns = new double[3][BLOCK_SIZE];
+
+        lock.readLock().lock();
+        try {
+            if (symbolId < blocks.size()) {
+                for (var block : blocks.get(symbolId)) {
+                    if (block.maxTime() < from || block.minTime() >= to) continue;
+                    decodeBlock(map, block, timestamps, columns);
+                    emit(symbolId, from, to, timestamps, columns, block.count(), consumer);
+                }
+            }
+
+            var buffer = symbolId < openBuffers.size() ? openBuffers.get(symbolId) : null;
+            if (buffer != null) emit(symbolId, from, to, buffer.timestamps, buffer.columns, buffer.count, consumer);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visits one column of a symbol's ticks with {@code from <= timestamp < to}, decoding only that column.
+     */
+    public void scan(int symbolId, Column column, long from, long to, ValueConsumer consumer) {
+        var timestamps = new long[BLOCK_SIZE];
+        var values = new double[BLOCK_SIZE];
+        int index = column.ordinal();
+
+        lock.readLock().lock();
+        try {
+            if (symbolId < blocks.size()) {
+                for (var block : blocks.get(symbolId)) {
+                    if (block.maxTime() < from || block.minTime() >= to) continue;
+                    GorillaCodec.decodeTimestamps(new GorillaCodec.BitReader(map, block.columnOffset(0)), block.count(), timestamps);
+                    GorillaCodec.decodeValues(new GorillaCodec.BitReader(map, block.columnOffset(index + 1)), block.count(), values);
+                    for (int i = 0; i < block.count(); i++) {
+                        if (timestamps[i] >= from && timestamps[i] < to) consumer.accept(symbolId, timestamps[i], values[i]);
+                    }
+                }
+            }
+
+            var buffer = symbolId < openBuffers.size() ? openBuffers.get(symbolId) : null;
+            if (buffer != null) {
+                for (int i = 0; i < buffer.count; i++) {
+                    long timestamp = buffer.timestamps[i];
+                    if (timestamp >= from && timestamp < to) consumer.accept(symbolId, timestamp, buffer.columns[index][i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scans one column across several symbols, e.g. every strike of an expiry. Unknown symbols are skipped.
+     */
+    public void scan(Collection<String> symbolNames, Column column, long from, long to, ValueConsumer consumer) {
+        for (var symbol : symbolNames) {
+            int symbolId = symbols.find(symbol);
+            if (symbolId >= 0) scan(symbolId, column, from, to, consumer);
+        }
+    }
+
+    private static void emit(int symbolId, long from, long to, long[] timestamps, double[][] columns, int count,
+                             TickConsumer consumer) {
+        for (int i = 0; i < count; i++) {
+            if (timestamps[i] >= from && timestamps[i] < to) {
+                consumer.accept(symbolId, timestamps[i], columns[0][i], columns[1][i], columns[2][i]);
+            }
+        }
+    }
+
+    /**
+     * Rewrites the store with each symbol's ticks in full, contiguous blocks, dropping ticks before
+     * {@code retainFrom}. Appends and scans wait until it's done.
+     */
+    public void compact(long retainFrom) throws IOException {
+        lock.writeLock().lock();
+        try {
+            flushLocked();
+            var oldMap = map;
+            var oldBlocks = new ArrayList<List<Block>>(blocks);
+
+            channel.close();
+            Files.move(dataPath, compactionBackup(), StandardCopyOption.REPLACE_EXISTING);
+            mapDataFile();
+
+            // The old mapping stays readable after the file is renamed
+            var buffer = new TickBuffer();
+            var timestamps = new long[BLOCK_SIZE];
+            var columns = new double[3][BLOCK_SIZE];
+            for (int symbolId = 0; symbolId < oldBlocks.size(); symbolId++) {
+                for (var block : oldBlocks.get(symbolId)) {
+                    if (block.maxTime() < retainFrom) continue;
+                    decodeBlock(oldMap, block, timestamps, columns);
+                    for (int i = 0; i < block.count(); i++) {
+                        if (timestamps[i] < retainFrom) continue;
+                        buffer.timestamps[buffer.count] = timestamps[i];
+                        for (int column = 0; column < 3; column++) buffer.columns[column][buffer.count] = columns[column][i];
+                        if (++buffer.count == BLOCK_SIZE) {
+                            writeBlock(symbolId, buffer.timestamps, buffer.columns, buffer.count);
+                            buffer.count = 0;
+                        }
+                    }
+                }
+                if (buffer.count > 0) {
+                    writeBlock(symbolId, buffer.timestamps, buffer.columns, buffer.count);
+                    buffer.count = 0;
+                }
+            }
+            map.force();
+            Files.delete(compactionBackup());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void decodeBlock(ByteBuffer source, Block block, long[] timestamps, double[][] columns) {
+        GorillaCodec.decodeTimestamps(new GorillaCodec.BitReader(source, block.columnOffset(0)), block.count(), timestamps);
+        for (int column = 0; column < 3; column++) {
+            GorillaCodec.decodeValues(new GorillaCodec.BitReader(source, block.columnOffset(column + 1)), block.count(),
+                    columns[column]);
+        }
+    }
+
+    /**
+     * @return bytes of the data file holding blocks
+     */
+    public long dataBytes() {
+        lock.readLock().lock();
+        try {
+            return writePosition;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Path compactionBackup() {
+        return dataPath.resolveSibling("ticks.dat.compacting");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) flusher.shutdown();
+        lock.writeLock().lock();
+        try {
+            flushLocked();
+            symbolLog.close();
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static double orNaN(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+}
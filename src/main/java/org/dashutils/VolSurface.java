@@ -0,0 +1,95 @@
+package org.dashutils;
+
+/**
+ * Implied volatility surface of one underlying from per-expiry SVI smiles. Between expiries total variance is
+ * interpolated linearly in time at fixed log forward moneyness, which keeps the surface free of calendar
+ * arbitrage as long as total variance doesn't decrease with expiry; slices are floored at the earlier ones to
+ * make sure it doesn't. Before the first and after the last expiry the nearest smile is extended at constant
+ * implied vol.
+ */
+public final class VolSurface {
+    private final String underlying;
+    private final double spot;
+    private final double riskFreeRate;
+    private final double dividendRate;
+    private final long asOfMillis;
+    private final long[] expiries;
+    private final double[] yearsToExpiry;
+    private final SviParameters[] slices;
+
+    /**
+     * @param expiries epoch millis of each slice, increasing
+     */
+    public VolSurface(String underlying, double spot, double riskFreeRate, double dividendRate, long asOfMillis,
+                      long[] expiries, SviParameters[] slices) {
+        this.underlying = underlying;
+        this.spot = spot;
+        this.riskFreeRate = riskFreeRate;
+        this.dividendRate = dividendRate;
+        this.asOfMillis = asOfMillis;
+        this.expiries = expiries.clone();
+        this.slices = slices.clone();
+        this.yearsToExpiry = new double[expiries.length];
+        for (int i = 0; i < expiries.length; i++) {
+            yearsToExpiry[i] = BlackScholesKernel.yearFraction(asOfMillis, expiries[i]);
+        }
+    }
+
+    public double forward(double yearsToExpiry) {
+        return spot * Math.exp((riskFreeRate - dividendRate) * yearsToExpiry);
+    }
+
+    public double totalVariance(double logMoneyness, double yearsToExpiry) {
+        int count = slices.length;
+        if (count == 0 || !(yearsToExpiry > 0)) return 0;
+        if (yearsToExpiry <= this.yearsToExpiry[0]) {
+            return slices[0].totalVariance(logMoneyness) * yearsToExpiry / this.yearsToExpiry[0];
+        }
+
+        // Running floor so total variance never decreases with expiry
+        double previous = Math.max(slices[0].totalVariance(logMoneyness), 0);
+        for (int i = 1; i < count; i++) {
+            double current = Math.max(slices[i].totalVariance(logMoneyness), previous);
+            if (yearsToExpiry <= this.yearsToExpiry[i]) {
+                double weight = (yearsToExpiry - this.yearsToExpiry[i - 1]) / (this.yearsToExpiry[i] - this.yearsToExpiry[i - 1]);
+                return previous + weight * (current - previous);
+            }
+            previous = current;
+        }
+        return previous * yearsToExpiry / this.yearsToExpiry[count - 1];
+    }
+
+    public double impliedVol(double strike, double yearsToExpiry) {
+        if (!(yearsToExpiry > 0)) return Double.NaN;
+        double logMoneyness = Math.log(strike / forward(yearsToExpiry));
+        return Math.sqrt(totalVariance(logMoneyness, yearsToExpiry) / yearsToExpiry);
+    }
+
+    public double impliedVol(double strike, long expiryMillis) {
+        return impliedVol(strike, BlackScholesKernel.yearFraction(asOfMillis, expiryMillis));
+    }
+
+    public String underlying() {
+        return underlying;
+    }
+
+    public double spot() {
+        return spot;
+    }
+
+    public long asOfMillis() {
+        return asOfMillis;
+    }
+
+    public int expiryCount() {
+        return slices.length;
+    }
+
+    public long expiry(int index) {
+        return expiries[index];
+    }
+
+    public SviParameters slice(int index) {
+        return slices[index];
+    }
+}
@@ -0,0 +1,148 @@
+package org.dashutils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Calibrates {@link VolSurface}s from columnar chains, one SVI fit per (underlying, expiry) run in parallel on
+ * a fork-join pool. Each fit is warm started from the previous fit of the same expiry, so re-fitting on every
+ * market data update mostly takes a handful of iterations.
+ * <p>
+ * Smiles are fitted to the out of the money side of each strike (calls above the forward, puts below) from the
+ * chain's implied vols. The forward uses the USDT borrow rate as the risk free rate and the base asset's
+ * borrow rate as its yield, defaulting to zero.
+ */
+public class VolSurfaceEngine {
+    private record SliceKey(String underlying, long expiry) {}
+
+    private static final LatencyHistogram CALIBRATE_TIMER = Metrics.timer("surface.calibrate");
+
+    private final ForkJoinPool pool;
+    private final ConcurrentHashMap<SliceKey, SviParameters> previousFits = new ConcurrentHashMap<>();
+
+    public VolSurfaceEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public VolSurfaceEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @param spotPrices  spot by underlying, e.g. BTCUSDT; underlyings without one are skipped
+     * @param borrowRates annualised borrow rates by asset, as from {@link DataRequester#getBorrowRates()}
+     */
+    public HashMap<String, VolSurface> calibrate(Map<String, ColumnarOptionChain> chains, Map<String, Double> spotPrices,
+                                                 Map<String, Double> borrowRates, long asOfMillis) {
+        long start = Metrics.start();
+        var slices = new ArrayList<SliceTask>();
+        for (var chain : chains.values()) {
+            var spot = spotPrices.get(chain.underlying());
+            if (spot == null) continue;
+            double riskFreeRate = RiskEngine.rate(borrowRates, "USDT");
+            double dividendRate = RiskEngine.rate(borrowRates, RiskEngine.baseAsset(chain.underlying()));
+            for (int expiry = 0; expiry < chain.expiryCount(); expiry++) {
+                if (chain.expiry(expiry) > asOfMillis) {
+                    slices.add(new SliceTask(chain, expiry, spot, riskFreeRate, dividendRate, asOfMillis));
+                }
+            }
+        }
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(slices);
+            }
+        });
+
+        // Expired or delisted expiries of the calibrated underlyings won't be fitted again. Other underlyings'
+        // fits are kept, e.g. for the next time the window shows them, unless they've expired.
+        var calibrated = new HashSet<String>();
+        for (var chain : chains.values()) calibrated.add(chain.underlying());
+        var listed = new HashSet<SliceKey>();
+        for (var slice : slices) listed.add(slice.key);
+        previousFits.keySet().removeIf(key -> key.expiry() <= asOfMillis
+                || calibrated.contains(key.underlying()) && !listed.contains(key));
+
+        var surfaces = new HashMap<String, VolSurface>();
+        var byUnderlying = new HashMap<ColumnarOptionChain, List<SliceTask>>();
+        for (var slice : slices) {
+            if (slice.fit != null) byUnderlying.computeIfAbsent(slice.chain, key -> new ArrayList<>()).add(slice);
+        }
+        byUnderlying.forEach((chain, fitted) -> {
+            var expiries = new long[fitted.size()];
+            var parameters = new SviParameters[fitted.size()];
+            for (int i = 0; i < fitted.size(); i++) {
+                expiries[i] = chain.expiry(fitted.get(i).expiryIndex);
+                parameters[i] = fitted.get(i).fit;
+            }
+            var first = fitted.get(0);
+            surfaces.put(chain.underlying(), new VolSurface(chain.underlying(), first.spot, first.riskFreeRate,
+                    first.dividendRate, asOfMillis, expiries, parameters));
+        });
+        Metrics.stop(CALIBRATE_TIMER, start);
+        return surfaces;
+    }
+
+    int previousFitCount() {
+        return previousFits.size();
+    }
+
+    /**
+     * Forgets the previous fits, so the next calibration starts cold.
+     */
+    public void reset() {
+        previousFits.clear();
+    }
+
+    private class SliceTask extends RecursiveAction {
+        final ColumnarOptionChain chain;
+        final int expiryIndex;
+        final double spot;
+        final double riskFreeRate;
+        final double dividendRate;
+        final long asOfMillis;
+        final SliceKey key;
+        SviParameters fit;
+
+        SliceTask(ColumnarOptionChain chain, int expiryIndex, double spot, double riskFreeRate, double dividendRate,
+                  long asOfMillis) {
+            this.chain = chain;
+            this.expiryIndex = expiryIndex;
+            this.spot = spot;
+            this.riskFreeRate = riskFreeRate;
+            this.dividendRate = dividendRate;
+            this.asOfMillis = asOfMillis;
+            this.key = new SliceKey(chain.underlying(), chain.expiry(expiryIndex));
+        }
+
+        @Override
+        protected void compute() {
+            int start = chain.expiryStart(expiryIndex);
+            int end = chain.expiryEnd(expiryIndex);
+            double yearsToExpiry = BlackScholesKernel.yearFraction(asOfMillis, chain.expiry(expiryIndex));
+            double forward = spot * Math.exp((riskFreeRate - dividendRate) * yearsToExpiry);
+
+            var logMoneyness = new double[end - start];
+            var totalVariance = new double[end - start];
+            int count = 0;
+            for (int row = start; row < end; row++) {
+                double strike = chain.strike(row);
+                double vol = chain.impliedVol(row);
+                if (!(vol > 0) || chain.isCall(row) != strike >= forward) continue;
+                logMoneyness[count] = Math.log(strike / forward);
+                totalVariance[count++] = vol * vol * yearsToExpiry;
+            }
+
+            fit = SviCalibrator.calibrate(logMoneyness, totalVariance, count, previousFits.get(key));
+            if (fit != null) previousFits.put(key, fit);
+        }
+    }
+}
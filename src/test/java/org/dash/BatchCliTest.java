@@ -0,0 +1,153 @@
+package org.dash;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.dashutils.DataRequester;
+import org.dashutils.MockDataProvider;
+import org.dashutils.OptionChain;
+import org.dashutils.OptionMarketData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchCliTest {
+    private final MockDataProvider requester = new MockDataProvider();
+
+    private BatchCli.Options options(String... args) {
+        return BatchCli.parse(args);
+    }
+
+    @Test
+    public void testCsvHasOneLinePerOption() throws Exception {
+        var out = new ByteArrayOutputStream();
+        var summary = BatchCli.run(requester, options("--format", "csv", "--threads", "2"), out);
+
+        var lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(String.join(",", ResultWriter.COLUMNS), lines[0]);
+        assertEquals(summary.options() + 1, lines.length);
+        assertEquals(5, summary.underlyings());
+        assertEquals(150, summary.options());
+        assertTrue(summary.skipped().isEmpty());
+        for (int i = 1; i < lines.length; i++) {
+            var fields = lines[i].split(",", -1);
+            assertEquals(ResultWriter.COLUMNS.size(), fields.length);
+            assertTrue(Double.parseDouble(fields[11]) > 0, "Gamma should be positive in " + lines[i]);
+        }
+    }
+
+    @Test
+    public void testJsonLinesForSelectedUnderlyings() throws Exception {
+        var out = new ByteArrayOutputStream();
+        var summary = BatchCli.run(requester, options("--format", "jsonl", "--underlyings", "BTCUSDT,ETHUSDT"), out);
+
+        var mapper = new ObjectMapper();
+        var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(summary.options(), lines.length);
+        assertEquals(60, summary.options());
+        for (var line : lines) {
+            var node = mapper.readTree(line);
+            assertTrue(node.get("underlying").asText().matches("BTCUSDT|ETHUSDT"));
+            assertTrue(node.get("fitted_vol").isNumber() || node.get("fitted_vol").isNull());
+            assertTrue(node.get("delta").isNumber());
+        }
+    }
+
+    @Test
+    public void testColumnarFileLayout(@TempDir Path directory) throws Exception {
+        var csv = new ByteArrayOutputStream();
+        BatchCli.run(requester, options("--format", "csv", "--as-of", "1792310400000"), csv);
+        var file = directory.resolve("out/results.bin");
+        var summary = BatchCli.run(requester, options("--format", "columnar", "--output", file.toString(),
+                "--as-of", "2026-10-18T08:00:00Z"), new ByteArrayOutputStream());
+
+        var bytes = Files.readAllBytes(file);
+        var tail = new DataInputStream(new ByteArrayInputStream(bytes, bytes.length - 8, 8));
+        int footerLength = tail.readInt();
+        assertEquals(ColumnarResultWriter.MAGIC, tail.readInt());
+
+        var footer = new DataInputStream(new ByteArrayInputStream(bytes, bytes.length - 8 - footerLength, footerLength));
+        assertEquals(ResultWriter.COLUMNS.size(), footer.readInt());
+        for (int column = 0; column < ResultWriter.COLUMNS.size(); column++) {
+            assertEquals(ResultWriter.COLUMNS.get(column), footer.readUTF());
+            assertEquals(ColumnarResultWriter.TYPES.charAt(column), (char) footer.readByte());
+        }
+        assertEquals(1, footer.readInt());
+        long offset = footer.readLong();
+        int rows = footer.readInt();
+        assertEquals(summary.options(), rows);
+
+        // Skip the underlying column by its length, then read the symbols
+        var rowGroup = new DataInputStream(new ByteArrayInputStream(bytes, (int) offset, bytes.length));
+        assertEquals(rows, rowGroup.readInt());
+        rowGroup.skipNBytes(rowGroup.readInt());
+        rowGroup.readInt();
+        var symbols = new ArrayList<String>();
+        for (int i = 0; i < rows; i++) symbols.add(rowGroup.readUTF());
+
+        var csvSymbols = Arrays.stream(csv.toString(StandardCharsets.UTF_8).split("\r\n")).skip(1)
+                .map(line -> line.split(",")[1]).toList();
+        assertEquals(csvSymbols, symbols);
+        try (var listing = Files.list(file.getParent())) {
+            assertEquals(1, listing.count(), "No temp file should be left behind");
+        }
+    }
+
+    @Test
+    public void testNothingLoadedKeepsPreviousOutput(@TempDir Path directory) throws Exception {
+        var file = directory.resolve("results.csv");
+        Files.writeString(file, "previous");
+        var failed = new DataRequester() {
+            public HashMap<String, Double> getBorrowRates() {
+                return new HashMap<>();
+            }
+
+            public HashMap<String, OptionChain> getOptionChain() {
+                return new HashMap<>();
+            }
+
+            public HashMap<String, OptionMarketData> getOptionMarketData() {
+                return new HashMap<>();
+            }
+
+            public Double getSpotMarketPrice(String ticker) {
+                return null;
+            }
+        };
+        var options = options("--source", "binance", "--output", file.toString());
+
+        assertThrows(BatchCli.NoResultsException.class, () -> BatchCli.run(failed, options, new ByteArrayOutputStream()));
+        assertEquals("previous", Files.readString(file));
+
+        // Loaded, but no spot price to price anything with
+        var noSpotPrices = new MockDataProvider() {
+            @Override
+            public Double getSpotMarketPrice(String ticker) {
+                return null;
+            }
+        };
+        var error = assertThrows(BatchCli.NoResultsException.class, () -> BatchCli.run(noSpotPrices, options, new ByteArrayOutputStream()));
+        assertTrue(error.getMessage().contains("BTCUSDT"), error.getMessage());
+        assertEquals("previous", Files.readString(file));
+        try (var listing = Files.list(directory)) {
+            assertEquals(1, listing.count(), "No temp file should be left behind");
+        }
+    }
+
+    @Test
+    public void testRejectsBadArguments() {
+        assertThrows(IllegalArgumentException.class, () -> BatchCli.parse(new String[] {"--colour", "red"}));
+        assertThrows(IllegalArgumentException.class, () -> BatchCli.parse(new String[] {"--format", "xml"}));
+        assertThrows(IllegalArgumentException.class, () -> BatchCli.parse(new String[] {"--threads"}));
+        assertThrows(IllegalArgumentException.class, () -> BatchCli.parse(new String[] {"--as-of", "2026-10-18"}));
+    }
+}
@@ -0,0 +1,47 @@
+package org.dashui;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LttbTest {
+    @Test
+    public void testKeepsEveryPointUnderThreshold() {
+        var x = new double[]{1, 2, 3, 4};
+        assertArrayEquals(new int[]{0, 1, 2, 3}, Lttb.downsample(x, x, 4, 10));
+        assertArrayEquals(new int[]{0, 1}, Lttb.downsample(x, x, 2, 3));
+    }
+
+    @Test
+    public void testKeepsEndsAndSpikes() {
+        int count = 1000;
+        var x = new double[count];
+        var y = new double[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = i;
+            y[i] = 0.001 * i;
+        }
+        y[317] = 50;
+        y[702] = -50;
+
+        var kept = Lttb.downsample(x, y, count, 40);
+        assertEquals(40, kept.length);
+        assertEquals(0, kept[0]);
+        assertEquals(count - 1, kept[kept.length - 1]);
+        for (int i = 1; i < kept.length; i++) assertTrue(kept[i] > kept[i - 1]);
+
+        boolean keptHigh = false;
+        boolean keptLow = false;
+        for (int index : kept) {
+            keptHigh |= index == 317;
+            keptLow |= index == 702;
+        }
+        assertTrue(keptHigh && keptLow, "Spikes survive downsampling");
+    }
+
+    @Test
+    public void testRejectsThresholdBelowThree() {
+        var x = new double[]{1, 2, 3, 4};
+        assertThrows(IllegalArgumentException.class, () -> Lttb.downsample(x, x, 4, 2));
+    }
+}
@@ -0,0 +1,129 @@
+package org.dashui;
+
+import org.dashutils.BlackScholesKernel;
+import org.dashutils.MockDataProvider;
+import org.dashutils.RiskEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.TableModelEvent;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OptionPricesTableModelTest {
+    // 2026-10-18 08:00 UTC
+    private static final long AS_OF = 1792310400000L;
+
+    private SmileIndex index;
+    private RiskEngine.RepricedChain priced;
+    private final OptionPricesTableModel model = new OptionPricesTableModel();
+    private final List<TableModelEvent> events = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        var mock = new MockDataProvider(new MockDataProvider.Config(1, 1, 4, 25, AS_OF, 0));
+        index = SmileIndex.build(mock.getOptionChain(), mock.getOptionMarketData());
+        priced = new RiskEngine().reprice(Map.of("BTCUSDT", index.chain("BTCUSDT")),
+                Map.of("BTCUSDT", mock.getSpotMarketPrice("BTCUSDT")), mock.getBorrowRates(), null, AS_OF)
+                .chains().get("BTCUSDT");
+        model.addTableModelListener(events::add);
+    }
+
+    @Test
+    public void testRowsReadTheChainColumns() {
+        var chain = priced.chain();
+        var slice = index.expiries("BTCUSDT").firstEntry().getValue();
+        model.show(priced, List.of(slice));
+
+        assertEquals(25, model.getRowCount());
+        for (int row = 0; row < model.getRowCount(); row++) {
+            assertEquals(slice.expiry(), model.getValueAt(row, OptionPricesTableModel.EXPIRY));
+            assertEquals(slice.strikes()[row], model.getValueAt(row, OptionPricesTableModel.STRIKE));
+            assertEquals(chain.mark(slice.callRows()[row]), model.getValueAt(row, OptionPricesTableModel.CALL_PRICE));
+            assertEquals(chain.mark(slice.putRows()[row]), model.getValueAt(row, OptionPricesTableModel.PUT_PRICE));
+            int callRow = slice.callRows()[row];
+            assertEquals(chain.impliedVol(callRow), model.getValueAt(row, OptionPricesTableModel.IMPLIED_VOL));
+            assertEquals(priced.greek(callRow, BlackScholesKernel.DELTA), model.getValueAt(row, OptionPricesTableModel.CALL_DELTA));
+            assertEquals(priced.greek(callRow, BlackScholesKernel.VEGA), model.getValueAt(row, OptionPricesTableModel.VEGA));
+        }
+
+        // Cells read the copy handed over with the changes, not the chain being updated
+        var later = priced.copy();
+        int callRow = slice.callRows()[3];
+        later.chain().updateMark(callRow, 1234.5, 0.61, 0.4);
+        assertEquals(chain.mark(callRow), model.getValueAt(3, OptionPricesTableModel.CALL_PRICE));
+
+        var changed = new BitSet();
+        changed.set(callRow);
+        model.marksChanged(later, changed);
+        assertEquals(1234.5, model.getValueAt(3, OptionPricesTableModel.CALL_PRICE));
+        assertEquals(0.61, model.getValueAt(3, OptionPricesTableModel.IMPLIED_VOL));
+    }
+
+    @Test
+    public void testAllExpiriesAndFilter() {
+        model.show(priced, index.expiries("BTCUSDT").values());
+        assertEquals(4 * 25, model.getRowCount());
+
+        LocalDate last = index.expiries("BTCUSDT").lastKey();
+        int matched = 0;
+        for (int row = 0; row < model.getRowCount(); row++) {
+            if (model.matches(row, last.toString())) matched++;
+        }
+        assertEquals(25, matched);
+        assertTrue(model.matches(0, ""));
+    }
+
+    @Test
+    public void testChangedMarksFireCellUpdates() {
+        var slice = index.expiries("BTCUSDT").firstEntry().getValue();
+        model.show(priced, List.of(slice));
+        events.clear();
+
+        var changed = new BitSet();
+        changed.set(slice.callRows()[2]);
+        changed.set(slice.putRows()[7]);
+        // Not shown
+        changed.set(index.expiries("BTCUSDT").lastEntry().getValue().callRows()[0]);
+        model.marksChanged(priced, changed);
+
+        assertEquals(5, events.size());
+        assertCellUpdated(events.get(0), 2, OptionPricesTableModel.CALL_PRICE);
+        assertCellUpdated(events.get(1), 2, OptionPricesTableModel.IMPLIED_VOL);
+        assertCellUpdated(events.get(2), 2, OptionPricesTableModel.CALL_DELTA);
+        assertCellUpdated(events.get(3), 2, OptionPricesTableModel.VEGA);
+        assertCellUpdated(events.get(4), 7, OptionPricesTableModel.PUT_PRICE);
+
+        // Other expiries repriced, which doesn't make this one's cells a full table update
+        events.clear();
+        var others = new BitSet();
+        for (var other : index.expiries("BTCUSDT").tailMap(slice.expiry(), false).values()) {
+            for (int row : other.callRows()) others.set(row);
+        }
+        others.set(slice.putRows()[7]);
+        model.marksChanged(priced, others);
+        assertEquals(1, events.size());
+        assertCellUpdated(events.get(0), 7, OptionPricesTableModel.PUT_PRICE);
+
+        // Most of the chain repriced, one event for every row
+        events.clear();
+        var all = new BitSet();
+        all.set(0, priced.chain().size());
+        model.marksChanged(priced, all);
+        assertEquals(1, events.size());
+        assertEquals(TableModelEvent.ALL_COLUMNS, events.get(0).getColumn());
+        assertEquals(24, events.get(0).getLastRow());
+    }
+
+    private static void assertCellUpdated(TableModelEvent event, int row, int column) {
+        assertEquals(TableModelEvent.UPDATE, event.getType());
+        assertEquals(row, event.getFirstRow());
+        assertEquals(row, event.getLastRow());
+        assertEquals(column, event.getColumn());
+    }
+}
@@ -0,0 +1,186 @@
+package org.dashui;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RefreshSchedulerTest {
+    private final RefreshScheduler scheduler = new RefreshScheduler(Duration.ofMillis(20), Runnable::run);
+    private final List<String> applied = new CopyOnWriteArrayList<>();
+    private final List<Exception> failures = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.close();
+    }
+
+    private void request(String lane, boolean supersede, String value, CountDownLatch done) {
+        scheduler.request(lane, supersede, () -> value, result -> {
+            applied.add(result);
+            done.countDown();
+        }, failures::add);
+    }
+
+    @Test
+    public void testBurstLoadsOnceWithTheLatestRequest() throws InterruptedException {
+        var loads = new AtomicInteger();
+        var done = new CountDownLatch(1);
+        for (int i = 0; i < 10; i++) {
+            var value = "request " + i;
+            scheduler.request("view", true, () -> {
+                loads.incrementAndGet();
+                return value;
+            }, result -> {
+                applied.add(result);
+                done.countDown();
+            }, failures::add);
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(1, loads.get());
+        assertEquals(List.of("request 9"), applied);
+    }
+
+    @Test
+    public void testSupersedingRequestCancelsRunningLoad() throws InterruptedException {
+        var started = new CountDownLatch(1);
+        var interrupted = new CountDownLatch(1);
+        scheduler.request("view", true, () -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return "stale";
+        }, applied::add, failures::add);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        var done = new CountDownLatch(1);
+        request("view", true, "latest", done);
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(List.of("latest"), applied);
+        assertTrue(failures.isEmpty(), "A superseded load's failure isn't reported");
+    }
+
+    @Test
+    public void testStaleResultIsDropped() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var started = new CountDownLatch(1);
+        // Ignores interrupts, so it finishes after being superseded
+        scheduler.request("view", true, () -> {
+            started.countDown();
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // Keep going
+                }
+            }
+            return "stale";
+        }, applied::add, failures::add);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        var done = new CountDownLatch(1);
+        request("view", true, "latest", done);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        Thread.sleep(100);
+
+        assertEquals(List.of("latest"), applied);
+    }
+
+    @Test
+    public void testFramesQueueBehindRunningLoadAndCoalesce() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var started = new CountDownLatch(1);
+        var first = new CountDownLatch(1);
+        scheduler.request("view", false, () -> {
+            started.countDown();
+            release.await();
+            return "frame 0";
+        }, result -> {
+            applied.add(result);
+            first.countDown();
+        }, failures::add);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        var done = new CountDownLatch(1);
+        for (int i = 1; i <= 3; i++) request("view", false, "frame " + i, done);
+        Thread.sleep(100);
+        assertTrue(applied.isEmpty(), "Waits for the running load");
+
+        release.countDown();
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(List.of("frame 0", "frame 3"), applied);
+    }
+
+    @Test
+    public void testFrameDoesNotReplaceWaitingUserRequest() throws InterruptedException {
+        var done = new CountDownLatch(1);
+        request("view", true, "user", done);
+        // Frames arriving during its debounce
+        for (int i = 0; i < 3; i++) request("view", false, "frame " + i, new CountDownLatch(1));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(List.of("user"), applied);
+    }
+
+    @Test
+    public void testSteadyFramesAreNotStarvedByTheDebounce() throws InterruptedException {
+        try (var slowDebounce = new RefreshScheduler(Duration.ofMillis(200), Runnable::run)) {
+            var first = new CountDownLatch(1);
+            // A frame every 20ms, well inside the debounce delay
+            for (int i = 0; i < 10; i++) {
+                slowDebounce.request("view", false, () -> "frame", result -> {
+                    applied.add(result);
+                    first.countDown();
+                }, failures::add);
+                Thread.sleep(20);
+            }
+            assertEquals(0, first.getCount(), "Frames should load while they keep coming");
+        }
+    }
+
+    @Test
+    public void testLanesAreIndependentAndCancellable() throws InterruptedException {
+        var done = new CountDownLatch(1);
+        request("source", true, "dropped", new CountDownLatch(1));
+        scheduler.cancel("source");
+        request("view", true, "view", done);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(List.of("view"), applied);
+    }
+
+    @Test
+    public void testFailureIsReported() throws InterruptedException {
+        var failed = new CountDownLatch(1);
+        scheduler.<String>request("view", true, () -> {
+            throw new IllegalStateException("No data");
+        }, applied::add, e -> {
+            failures.add(e);
+            failed.countDown();
+        });
+
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failures.get(0));
+    }
+}
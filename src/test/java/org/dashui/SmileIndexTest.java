@@ -0,0 +1,68 @@
+package org.dashui;
+
+import org.dashutils.CallPut;
+import org.dashutils.Metrics;
+import org.dashutils.Option;
+import org.dashutils.OptionChain;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SmileIndexTest {
+    // 2026-12-25 08:00 UTC
+    private static final long EXPIRY = 1798185600000L;
+
+    @Test
+    public void testSlicesByExpiryDate() {
+        var index = SmileIndex.build(chains(EXPIRY, EXPIRY + 7 * 86_400_000L), new HashMap<>());
+
+        var expiries = index.expiries("BTCUSDT");
+        assertEquals(List.of(LocalDate.of(2026, 12, 25), LocalDate.of(2027, 1, 1)), List.copyOf(expiries.keySet()));
+        var slice = expiries.firstEntry().getValue();
+        assertEquals(EXPIRY, slice.expiryMillis());
+        assertArrayEquals(new double[] {100000}, slice.strikes());
+        assertTrue(slice.callRows()[0] >= 0 && slice.putRows()[0] >= 0);
+    }
+
+    @Test
+    public void testSecondExpiryOnOneDateDropped() {
+        var chains = chains(EXPIRY, EXPIRY + 3_600_000L, EXPIRY + 7 * 86_400_000L);
+        chains.put("ETHUSDT", new OptionChain("ETHUSDT", List.of(
+                new Option("ETH-1", "ETHUSDT", 4000, new Date(EXPIRY), CallPut.CALL))));
+        long dropped = SmileIndex.DUPLICATE_EXPIRIES.sum();
+
+        boolean metricsEnabled = Metrics.enabled();
+        Metrics.setEnabled(true);
+        SmileIndex index;
+        try {
+            index = SmileIndex.build(chains, new HashMap<>());
+        } finally {
+            Metrics.setEnabled(metricsEnabled);
+        }
+
+        // The underlying's other expiries and the other underlyings are still indexed
+        var expiries = index.expiries("BTCUSDT");
+        assertEquals(List.of(LocalDate.of(2026, 12, 25), LocalDate.of(2027, 1, 1)), List.copyOf(expiries.keySet()));
+        assertEquals(EXPIRY, expiries.firstEntry().getValue().expiryMillis());
+        assertEquals(1, index.expiries("ETHUSDT").size());
+        assertEquals(dropped + 1, SmileIndex.DUPLICATE_EXPIRIES.sum());
+    }
+
+    private static Map<String, OptionChain> chains(long... expiries) {
+        var options = new ArrayList<Option>();
+        for (long expiry : expiries) {
+            options.add(new Option("BTC-" + expiry + "-100000-C", "BTCUSDT", 100000, new Date(expiry), CallPut.CALL));
+            options.add(new Option("BTC-" + expiry + "-100000-P", "BTCUSDT", 100000, new Date(expiry), CallPut.PUT));
+        }
+        var chains = new HashMap<String, OptionChain>();
+        chains.put("BTCUSDT", new OptionChain("BTCUSDT", options));
+        return chains;
+    }
+}
@@ -0,0 +1,65 @@
+package org.dashui;
+
+import org.dashutils.MockDataProvider;
+import org.dashutils.RiskEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SurfaceViewDataTest {
+    // 2026-10-18 08:00 UTC
+    private static final long AS_OF = 1792310400000L;
+
+    @Test
+    public void testDenseChainIsDownsampledPerExpiry() {
+        var mock = new MockDataProvider(new MockDataProvider.Config(2, 1, 24, 200, AS_OF, 0));
+        var index = SmileIndex.build(mock.getOptionChain(), mock.getOptionMarketData());
+        var priced = new RiskEngine().reprice(Map.of("BTCUSDT", index.chain("BTCUSDT")),
+                Map.of("BTCUSDT", mock.getSpotMarketPrice("BTCUSDT")), mock.getBorrowRates(), null, AS_OF)
+                .chains().get("BTCUSDT");
+        var chain = priced.chain();
+        var slices = index.expiries("BTCUSDT");
+
+        var data = SurfaceViewData.build(priced, slices.values(), 64, 80);
+
+        assertEquals(24, data.smiles().size());
+        assertEquals(80, data.gridStrikes().length);
+        int smile = 0;
+        for (var slice : slices.values()) {
+            var shown = data.smiles().get(smile);
+            assertEquals(slice.expiry(), shown.expiry());
+            assertEquals(64, shown.strikes().length);
+            // The wings are kept and the points are listed strikes with their vols
+            assertEquals(slice.strikes()[0], shown.strikes()[0]);
+            assertEquals(slice.strikes()[199], shown.strikes()[63]);
+            assertEquals(chain.impliedVol(slice.callRows()[0]) * 100, shown.vols()[0], 1e-12);
+
+            // Grid cells inside the listed strikes lie between the full smile's lowest and highest vol
+            double min = Double.MAX_VALUE;
+            double max = 0;
+            for (int row : slice.callRows()) {
+                min = Math.min(min, chain.impliedVol(row) * 100);
+                max = Math.max(max, chain.impliedVol(row) * 100);
+            }
+            for (int column = 0; column < 80; column++) {
+                double strike = data.gridStrikes()[column];
+                double vol = data.gridVol(smile, column);
+                if (strike < slice.strikes()[0] || strike > slice.strikes()[199]) {
+                    assertTrue(Double.isNaN(vol));
+                } else {
+                    assertTrue(vol >= min - 1e-9 && vol <= max + 1e-9, "Vol " + vol + " at " + strike);
+                }
+            }
+            smile++;
+        }
+    }
+
+    @Test
+    public void testEmptyWithoutChain() {
+        assertSame(SurfaceViewData.EMPTY, SurfaceViewData.build(null, List.of(), 64, 80));
+        assertTrue(SurfaceViewData.EMPTY.smiles().isEmpty());
+    }
+}
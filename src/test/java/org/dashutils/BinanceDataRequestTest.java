@@ -0,0 +1,149 @@
+package org.dashutils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinanceDataRequestTest {
+    private StubBinanceServer server;
+    private BinanceHttpTransport transport;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new StubBinanceServer();
+        transport = server.transport();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        transport.close();
+        server.close();
+    }
+
+    @Test
+    public void testEndpointsAgainstStub() {
+        var requester = new BinanceDataRequest(transport, true);
+
+        assertEquals(0.0000060 * 365, requester.getBorrowRates().get("BTC"), 1e-12);
+        assertEquals(2, requester.getOptionChain().size());
+        assertEquals(52, requester.getOptionMarketData().size());
+        assertEquals(108012.34, requester.getSpotMarketPrice("BTCUSDT"), 1e-9);
+        assertTrue(server.requests.stream().allMatch(exchange ->
+                exchange.getRequestHeaders().getFirst("Accept-Encoding").contains("gzip")), "Requests should ask for gzip");
+    }
+
+    @Test
+    public void testTreeAndStreamingModesAgree() {
+        var streaming = new BinanceDataRequest(transport, true);
+        var tree = new BinanceDataRequest(transport, false);
+
+        assertEquals(tree.getOptionChain(), streaming.getOptionChain());
+        assertEquals(tree.getOptionMarketData(), streaming.getOptionMarketData());
+    }
+
+    @Test
+    public void testSnapshotFetchesConcurrently() {
+        var requester = new BinanceDataRequest(transport, true);
+        server.responseDelayMillis = 500;
+
+        long start = System.nanoTime();
+        var snapshot = requester.fetchSnapshot(List.of("BTCUSDT", "ETHUSDT")).join();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(2, snapshot.optionChains().size());
+        assertEquals(52, snapshot.optionMarketData().size());
+        assertEquals(4, snapshot.borrowRates().size());
+        assertEquals(3901.27, snapshot.spotPrices().get("ETHUSDT"), 1e-9);
+        assertTrue(elapsedMillis < 1500, "Six 500ms requests should overlap, took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    public void testPerUnderlyingRequests() {
+        for (var streamingParse : new boolean[]{true, false}) {
+            var requester = new BinanceDataRequest(transport, streamingParse);
+            var fullChains = requester.getOptionChain();
+            var fullMarketData = requester.getOptionMarketData();
+
+            assertEquals(List.of("BTCUSDT", "ETHUSDT"), requester.getUnderlyings());
+            assertEquals(fullChains.get("ETHUSDT"), requester.getOptionChain("ETHUSDT"));
+            assertNull(requester.getOptionChain("SOLUSDT"));
+
+            var marketData = requester.getOptionMarketData("BTCUSDT");
+            assertEquals(28, marketData.size());
+            marketData.forEach((symbol, data) -> assertEquals(fullMarketData.get(symbol), data));
+        }
+        assertTrue(server.requests.stream().anyMatch(exchange -> "underlying=BTCUSDT".equals(exchange.getRequestURI().getQuery())),
+                "Marks should be requested for the underlying only");
+        assertEquals(2, server.requests.stream().filter(exchange -> exchange.getRequestURI().getPath().endsWith("/exchangeInfo")).count(),
+                "Each requester should download exchangeInfo once for the chains and underlyings");
+    }
+
+    @Test
+    public void testFailedRequestGivesEmptyData() {
+        var requester = new BinanceDataRequest(transport, true);
+
+        assertNull(requester.getSpotMarketPrice("NOTASYMBOL"));
+    }
+
+    @Test
+    public void testRateLimitedRequestsAreRetried() throws IOException {
+        var rateLimits = new BinanceRateLimiter.Config(BinanceRateLimiter.Config.defaults().weightPerMinute(), 0.9,
+                Duration.ofMillis(20), Duration.ofSeconds(1), 3, Duration.ofSeconds(30));
+        try (var limitedTransport = server.transport(rateLimits)) {
+            var requester = new BinanceDataRequest(limitedTransport, true);
+            server.rateLimitedResponses.set(2);
+            server.usedWeight = "123";
+
+            assertEquals(108012.34, requester.getSpotMarketPrice("BTCUSDT"), 1e-9);
+            assertEquals(3, server.requests.size());
+            assertEquals(123, limitedTransport.rateLimiter().usedWeight(BinanceRateLimiter.SPOT));
+
+            // Out of retries
+            server.rateLimitedResponses.set(10);
+            var limited = assertThrows(BinanceRateLimitException.class, () -> requester.getOptionMarketData("BTCUSDT"));
+            assertEquals(429, limited.status());
+            assertEquals(3 + 4, server.requests.size());
+        }
+    }
+
+    @Test
+    public void testRetryAfterIsWaitedFor() {
+        var requester = new BinanceDataRequest(transport, false);
+        server.rateLimitedResponses.set(1);
+        server.retryAfter = "1";
+
+        long start = System.nanoTime();
+        assertEquals(2, requester.getOptionChain().size());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(2, server.requests.size());
+        assertTrue(elapsedMillis >= 1000, "Retried before Retry-After passed, after " + elapsedMillis + "ms");
+    }
+
+    @Test
+    public void testBanFailsWithoutRetrying() {
+        var requester = new BinanceDataRequest(transport, true);
+        server.rateLimitedResponses.set(10);
+        server.rateLimitStatus = 418;
+        server.retryAfter = "120";
+
+        var banned = assertThrows(BinanceRateLimitException.class, requester::getBorrowRates);
+        assertEquals(418, banned.status());
+        assertTrue(banned.retryAfter().toSeconds() >= 120);
+        assertEquals(1, server.requests.size());
+
+        // Later requests to the banned API fail without waiting out the ban or reaching the server
+        server.rateLimitedResponses.set(0);
+        assertThrows(BinanceRateLimitException.class, requester::getBorrowRates);
+        assertEquals(1, server.requests.size());
+
+        // Other APIs have their own limits
+        assertEquals(2, requester.getOptionChain().size());
+    }
+}
@@ -0,0 +1,78 @@
+package org.dashutils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinanceRateLimiterTest {
+    private long now = 1_000_000_000L;
+    private final BinanceRateLimiter limiter = new BinanceRateLimiter(new BinanceRateLimiter.Config(
+            Map.of(BinanceRateLimiter.OPTIONS, 600, BinanceRateLimiter.SPOT, 6000), 1.0,
+            Duration.ofSeconds(1), Duration.ofSeconds(8), 3, Duration.ofSeconds(30)), () -> now);
+
+    @Test
+    public void testBucketPacesRequestsToTheLimit() {
+        // 600 a minute is 10 a second
+        for (int i = 0; i < 120; i++) assertEquals(0, limiter.reserve(BinanceRateLimiter.OPTIONS, 5));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), limiter.reserve(BinanceRateLimiter.OPTIONS, 5));
+
+        now += TimeUnit.MILLISECONDS.toNanos(500);
+        assertEquals(0, limiter.reserve(BinanceRateLimiter.OPTIONS, 5));
+        assertTrue(limiter.reserve(BinanceRateLimiter.OPTIONS, 5) > 0);
+        assertEquals(0, limiter.reserve(BinanceRateLimiter.SPOT, 5));
+    }
+
+    @Test
+    public void testUsedWeightHeaderCapsTheBudget() {
+        // Weight used by another instance on the same IP
+        assertNull(limiter.completed(BinanceRateLimiter.OPTIONS, 200, "590", null));
+        assertEquals(590, limiter.usedWeight(BinanceRateLimiter.OPTIONS));
+
+        assertEquals(0, limiter.reserve(BinanceRateLimiter.OPTIONS, 5));
+        assertEquals(0, limiter.reserve(BinanceRateLimiter.OPTIONS, 5));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), limiter.reserve(BinanceRateLimiter.OPTIONS, 5));
+    }
+
+    @Test
+    public void testRetryAfterBlocksTheApi() {
+        var blockedFor = limiter.completed(BinanceRateLimiter.OPTIONS, 429, null, "2");
+        assertTrue(blockedFor.compareTo(Duration.ofSeconds(2)) >= 0 && blockedFor.compareTo(Duration.ofSeconds(3)) <= 0,
+                "Blocked for " + blockedFor);
+        assertEquals(blockedFor.toNanos(), limiter.reserve(BinanceRateLimiter.OPTIONS, 1));
+        assertEquals(0, limiter.reserve(BinanceRateLimiter.SPOT, 1));
+
+        now += blockedFor.toNanos();
+        assertEquals(0, limiter.reserve(BinanceRateLimiter.OPTIONS, 1));
+    }
+
+    @Test
+    public void testLongBanFailsInsteadOfWaiting() {
+        limiter.completed(BinanceRateLimiter.OPTIONS, 418, null, "7200");
+
+        var banned = assertThrows(BinanceRateLimitException.class, () -> limiter.reserve(BinanceRateLimiter.OPTIONS, 1));
+        assertEquals(418, banned.status());
+        assertTrue(banned.retryAfter().toSeconds() >= 7200);
+        assertEquals(0, limiter.reserve(BinanceRateLimiter.SPOT, 1));
+
+        // Waited for once the ban is within the retry wait
+        now += TimeUnit.SECONDS.toNanos(7200) - TimeUnit.SECONDS.toNanos(20);
+        assertTrue(limiter.reserve(BinanceRateLimiter.OPTIONS, 1) > 0);
+    }
+
+    @Test
+    public void testBackoffDoublesWithJitterAndResetsOnSuccess() {
+        for (long backoffMillis : new long[]{1000, 2000, 4000, 8000, 8000}) {
+            var blockedFor = limiter.completed(BinanceRateLimiter.OPTIONS, 429, null, null).toMillis();
+            assertTrue(blockedFor >= backoffMillis / 2 && blockedFor <= backoffMillis,
+                    "Backoff of " + backoffMillis + "ms was " + blockedFor + "ms");
+            now += TimeUnit.MILLISECONDS.toNanos(blockedFor);
+        }
+
+        limiter.completed(BinanceRateLimiter.OPTIONS, 200, null, null);
+        assertTrue(limiter.completed(BinanceRateLimiter.OPTIONS, 429, null, null).toMillis() <= 1000);
+    }
+}
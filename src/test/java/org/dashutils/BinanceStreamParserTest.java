@@ -0,0 +1,43 @@
+package org.dashutils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinanceStreamParserTest {
+    private static InputStream fixture(String name) {
+        return BinanceStreamParserTest.class.getResourceAsStream("/fixtures/binance/" + name);
+    }
+
+    @Test
+    public void testOptionChainMatchesTreeParse() throws IOException {
+        var expected = BinanceDataRequest.parseOptionChain(BinanceApiQuery.OBJECT_MAPPER.readTree(fixture("exchangeInfo.json")));
+
+        try (var parser = BinanceApiQuery.JSON_FACTORY.createParser(fixture("exchangeInfo.json"))) {
+            var parsed = BinanceStreamParser.parseOptionChain(parser);
+            assertEquals(expected, parsed, "Streaming and tree parse should give the same chains");
+            assertEquals(28, parsed.get("BTCUSDT").optionSeries().size());
+        }
+    }
+
+    @Test
+    public void testMarketDataMatchesTreeParse() throws IOException {
+        var expected = BinanceDataRequest.parseOptionMarketData(BinanceApiQuery.OBJECT_MAPPER.readTree(fixture("mark.json")));
+
+        try (var parser = BinanceApiQuery.JSON_FACTORY.createParser(fixture("mark.json"))) {
+            var parsed = BinanceStreamParser.parseOptionMarketData(parser);
+            assertEquals(expected, parsed, "Streaming and tree parse should give the same marks");
+            assertEquals(52, parsed.size());
+        }
+    }
+
+    @Test
+    public void testRejectsUnexpectedShape() throws IOException {
+        try (var parser = BinanceApiQuery.JSON_FACTORY.createParser("{\"code\": -1121, \"msg\": \"Invalid symbol.\"}")) {
+            assertThrows(IOException.class, () -> BinanceStreamParser.parseOptionMarketData(parser));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.dashutils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinanceStreamingDataRequesterTest {
+    @Test
+    public void testAppliesReplayedFramesToBook() throws Exception {
+        var updatedSymbols = ConcurrentHashMap.<String>newKeySet();
+        var events = new CountDownLatch(3);
+
+        try (var stub = new StubBinanceServer();
+             var transport = stub.transport();
+             var replay = new WebSocketReplayServer("stream-frames.jsonl");
+             var requester = new BinanceStreamingDataRequester(new BinanceDataRequest(transport, true), replay.uri())) {
+
+            requester.addListener(new MarketDataListener() {
+                @Override
+                public void onMarksUpdated(String underlying, Set<String> symbols) {
+                    updatedSymbols.addAll(symbols);
+                    events.countDown();
+                }
+
+                @Override
+                public void onSpotUpdated(String ticker, double price) {
+                    events.countDown();
+                }
+            });
+
+            assertTrue(requester.getOptionMarketData().isEmpty(), "Book should be empty before start");
+            requester.start(List.of("BTCUSDT", "ETHUSDT")).get(5, TimeUnit.SECONDS);
+            assertTrue(events.await(5, TimeUnit.SECONDS), "Replayed frames should reach the listener");
+
+            var subscribe = replay.received.poll(5, TimeUnit.SECONDS);
+            assertTrue(subscribe.contains("BTC@markPrice") && subscribe.contains("ETHUSDT@index"), subscribe);
+
+            assertEquals(Set.of("BTC-261225-100000-C", "BTC-261225-110000-C", "ETH-270326-4000-P"), updatedSymbols);
+            var marks = requester.getOptionMarketData();
+            assertEquals(52, marks.size(), "Stream updates should apply on top of the seeded snapshot");
+            assertEquals(14012.5, marks.get("BTC-261225-100000-C").price(), 1e-9);
+            assertEquals(0.6120, marks.get("ETH-270326-4000-P").impliedVol(), 1e-9);
+            assertEquals(108120.11, requester.getSpotMarketPrice("BTCUSDT"), 1e-9);
+            assertEquals(3901.27, requester.getSpotMarketPrice("ETHUSDT"), 1e-9, "Without an index tick spot comes from the snapshot");
+        }
+    }
+
+    @Test
+    public void testWatchSubscribesOnlyNewUnderlying() throws Exception {
+        try (var stub = new StubBinanceServer();
+             var transport = stub.transport();
+             var replay = new WebSocketReplayServer("stream-frames.jsonl");
+             var requester = new BinanceStreamingDataRequester(new BinanceDataRequest(transport, true), replay.uri())) {
+
+            requester.start(List.of("BTCUSDT")).get(5, TimeUnit.SECONDS);
+            var first = replay.received.poll(5, TimeUnit.SECONDS);
+            assertTrue(first.contains("BTC@markPrice") && !first.contains("ETH"), first);
+
+            requester.watch("ETHUSDT");
+            var second = replay.received.poll(5, TimeUnit.SECONDS);
+            assertTrue(second.contains("ETH@markPrice") && second.contains("ETHUSDT@index") && !second.contains("BTC"), second);
+            assertFalse(requester.getOptionMarketData("ETHUSDT").isEmpty(), "Watching should seed the underlying's book");
+
+            requester.watch("ETHUSDT");
+            assertNull(replay.received.poll(200, TimeUnit.MILLISECONDS), "A watched underlying should not be subscribed again");
+        }
+    }
+
+    @Test
+    public void testUnchangedMarksAreNotReported() throws Exception {
+        var reported = ConcurrentHashMap.<String>newKeySet();
+        var requester = new BinanceStreamingDataRequester(new MockDataProvider());
+        requester.addListener(new MarketDataListener() {
+            @Override
+            public void onMarksUpdated(String underlying, Set<String> symbols) {
+                reported.addAll(symbols);
+            }
+
+            @Override
+            public void onSpotUpdated(String ticker, double price) {
+            }
+        });
+
+        requester.watch("BTCUSDT");
+
+        var frame = "[{\"e\":\"markPrice\",\"s\":\"BTC-261225-100000-C\",\"mp\":\"10\",\"d\":\"0.5\",\"vo\":\"0.4\"}]";
+        requester.handleFrame(frame);
+        reported.clear();
+        requester.handleFrame(frame);
+
+        assertTrue(reported.isEmpty(), "Repeated marks should not be reported as changes");
+        requester.close();
+    }
+}
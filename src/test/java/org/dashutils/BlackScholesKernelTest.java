@@ -0,0 +1,75 @@
+package org.dashutils;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlackScholesKernelTest {
+    private static final double SPOT = 50000.0;
+    private static final double RATE = 0.05;
+    private static final double DIVIDEND = 0.02;
+
+    @Test
+    public void testNormCdfMatchesReference() {
+        for (double x = -10.0; x <= 10.0; x += 0.01) {
+            assertEquals(BlackScholesPricer.normalDist.cumulativeProbability(x), BlackScholesKernel.normCdf(x), 1e-14,
+                    "Normal CDF should match commons-math at " + x);
+        }
+    }
+
+    @Test
+    public void testPutCallParity() {
+        double strike = 55000.0;
+        double yearsToExpiry = 0.5;
+        double call = BlackScholesKernel.price(true, SPOT, strike, yearsToExpiry, RATE, DIVIDEND, 0.6);
+        double put = BlackScholesKernel.price(false, SPOT, strike, yearsToExpiry, RATE, DIVIDEND, 0.6);
+
+        double forwardDiff = SPOT * Math.exp(-DIVIDEND * yearsToExpiry) - strike * Math.exp(-RATE * yearsToExpiry);
+        assertEquals(forwardDiff, call - put, 1e-8, "Call minus put should equal the discounted forward difference");
+    }
+
+    @Test
+    public void testGreeksMatchFiniteDifferences() {
+        double strike = 48000.0;
+        double yearsToExpiry = 0.3;
+        double vol = 0.55;
+        var greeks = new double[BlackScholesKernel.WIDTH];
+
+        for (boolean isCall : new boolean[]{true, false}) {
+            BlackScholesKernel.priceAndGreeks(isCall, SPOT, strike, yearsToExpiry, RATE, DIVIDEND, vol, greeks, 0);
+            assertEquals(BlackScholesKernel.price(isCall, SPOT, strike, yearsToExpiry, RATE, DIVIDEND, vol),
+                    greeks[BlackScholesKernel.PRICE], 1e-9);
+
+            double dS = 1.0;
+            double up = BlackScholesKernel.price(isCall, SPOT + dS, strike, yearsToExpiry, RATE, DIVIDEND, vol);
+            double down = BlackScholesKernel.price(isCall, SPOT - dS, strike, yearsToExpiry, RATE, DIVIDEND, vol);
+            double mid = greeks[BlackScholesKernel.PRICE];
+            assertEquals((up - down) / (2 * dS), greeks[BlackScholesKernel.DELTA], 1e-6, "Delta");
+            assertEquals((up - 2 * mid + down) / (dS * dS), greeks[BlackScholesKernel.GAMMA], 1e-6, "Gamma");
+
+            double dV = 1e-5;
+            double vegaFd = (BlackScholesKernel.price(isCall, SPOT, strike, yearsToExpiry, RATE, DIVIDEND, vol + dV)
+                    - BlackScholesKernel.price(isCall, SPOT, strike, yearsToExpiry, RATE, DIVIDEND, vol - dV)) / (2 * dV);
+            assertEquals(vegaFd, greeks[BlackScholesKernel.VEGA], 1e-3, "Vega");
+
+            double dT = 1e-6;
+            double thetaFd = (BlackScholesKernel.price(isCall, SPOT, strike, yearsToExpiry - dT, RATE, DIVIDEND, vol)
+                    - BlackScholesKernel.price(isCall, SPOT, strike, yearsToExpiry + dT, RATE, DIVIDEND, vol)) / (2 * dT);
+            assertEquals(thetaFd, greeks[BlackScholesKernel.THETA], 1e-2, "Theta");
+
+            double dR = 1e-6;
+            double rhoFd = (BlackScholesKernel.price(isCall, SPOT, strike, yearsToExpiry, RATE + dR, DIVIDEND, vol)
+                    - BlackScholesKernel.price(isCall, SPOT, strike, yearsToExpiry, RATE - dR, DIVIDEND, vol)) / (2 * dR);
+            assertEquals(rhoFd, greeks[BlackScholesKernel.RHO], 1e-2, "Rho");
+        }
+    }
+
+    @Test
+    public void testExpiredOptionIsIntrinsic() {
+        var greeks = new double[BlackScholesKernel.WIDTH];
+        BlackScholesKernel.priceAndGreeks(true, SPOT, 45000.0, 0.0, RATE, DIVIDEND, 0.5, greeks, 0);
+
+        assertEquals(5000.0, greeks[BlackScholesKernel.PRICE], 1e-9);
+        assertEquals(1.0, greeks[BlackScholesKernel.DELTA], 1e-12);
+        assertEquals(0.0, greeks[BlackScholesKernel.GAMMA]);
+    }
+}
@@ -52,4 +52,55 @@ public class BlackScholesPricerTest {
         
         assertTrue(highVol > lowVol, "Higher option price should result in higher implied volatility");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBatchImpliedVolsRoundTrip() {
+        double spotPrice = 50000.0;
+        double riskFreeRate = 0.05;
+        double dividendRate = 0.01;
+        double[] strikes = {20000.0, 40000.0, 50000.0, 60000.0, 90000.0, 45000.0, 55000.0};
+        double[] yearsToExpiry = {0.02, 0.25, 1.0, 0.5, 2.0, 0.1, 0.75};
+        double[] vols = {0.9, 0.6, 0.5, 0.45, 0.7, 0.35, 1.5};
+        boolean[] isCall = {false, true, true, false, true, true, false};
+
+        double[] prices = new double[strikes.length];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = bsmPrice(isCall[i], spotPrice, strikes[i], yearsToExpiry[i], riskFreeRate, dividendRate, vols[i]);
+        }
+
+        double[] impliedVols = new double[strikes.length];
+        pricer.impliedVols(strikes, prices, yearsToExpiry, isCall, spotPrice, riskFreeRate, dividendRate, impliedVols);
+
+        for (int i = 0; i < vols.length; i++) {
+            assertEquals(vols[i], impliedVols[i], 1e-7, "Batch implied vol should recover input vol " + i);
+        }
+    }
+
+    @Test
+    public void testBatchImpliedVolsOutsideBounds() {
+        double[] strikes = {50000.0, 50000.0, 50000.0};
+        double[] prices = {60000.0, 0.0, 100.0};
+        double[] yearsToExpiry = {1.0, 1.0, -0.1};
+        boolean[] isCall = {true, true, true};
+
+        double[] impliedVols = new double[strikes.length];
+        pricer.impliedVols(strikes, prices, yearsToExpiry, isCall, 50000.0, 0.05, 0.0, impliedVols);
+
+        for (double impliedVol : impliedVols) {
+            assertTrue(Double.isNaN(impliedVol), "Unsolvable options should give NaN");
+        }
+    }
+
+    private static double bsmPrice(boolean isCall, double spot, double strike, double yearsToExpiry,
+                                   double riskFreeRate, double dividendRate, double vol) {
+        double totalVol = vol * Math.sqrt(yearsToExpiry);
+        double d1 = (Math.log(spot / strike) + (riskFreeRate - dividendRate) * yearsToExpiry) / totalVol + 0.5 * totalVol;
+        double d2 = d1 - totalVol;
+        double discountedSpot = spot * Math.exp(-dividendRate * yearsToExpiry);
+        double discountedStrike = strike * Math.exp(-riskFreeRate * yearsToExpiry);
+        var normal = BlackScholesPricer.normalDist;
+        return isCall
+                ? discountedSpot * normal.cumulativeProbability(d1) - discountedStrike * normal.cumulativeProbability(d2)
+                : discountedStrike * normal.cumulativeProbability(-d2) - discountedSpot * normal.cumulativeProbability(-d1);
+    }
+}
@@ -0,0 +1,274 @@
+package org.dashutils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedDataRequesterTest {
+    private final AtomicLong clock = new AtomicLong();
+    private final CountingDataRequester delegate = new CountingDataRequester();
+    private final CachedDataRequester.Config config = new CachedDataRequester.Config(
+            new CachedDataRequester.Policy(Duration.ofMinutes(10), Duration.ofMinutes(10)),
+            new CachedDataRequester.Policy(Duration.ofMinutes(5), Duration.ofMinutes(10)),
+            new CachedDataRequester.Policy(Duration.ofSeconds(15), Duration.ofSeconds(30)),
+            new CachedDataRequester.Policy(Duration.ofSeconds(5), Duration.ZERO));
+
+    @Test
+    public void testConcurrentMissesShareOneLoad() throws Exception {
+        var cache = new CachedDataRequester(delegate, config, clock::get, Runnable::run);
+        delegate.chainDelayMillis = 200;
+
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            var results = new ArrayList<Future<HashMap<String, OptionChain>>>();
+            for (int i = 0; i < 8; i++) results.add(executor.submit(() -> cache.getOptionChain()));
+            for (var result : results) assertSame(results.get(0).get(), result.get());
+        }
+
+        assertEquals(1, delegate.chainLoads.get(), "Concurrent misses should trigger a single load");
+        var stats = cache.getStats().get("optionChain");
+        assertEquals(1, stats.loads());
+        assertEquals(8, stats.hits() + stats.misses());
+    }
+
+    @Test
+    public void testEntriesExpireAfterTtl() {
+        var cache = new CachedDataRequester(delegate, config, clock::get, Runnable::run);
+
+        assertEquals(1.0, cache.getSpotMarketPrice("BTCUSDT"));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(4));
+        assertEquals(1.0, cache.getSpotMarketPrice("BTCUSDT"));
+        assertEquals(1, delegate.spotLoads.get());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(2.0, cache.getSpotMarketPrice("BTCUSDT"), "Spot price should reload after its TTL");
+        assertEquals(2, delegate.spotLoads.get());
+    }
+
+    @Test
+    public void testStaleValueServedWhileRevalidating() throws Exception {
+        var refreshed = new CountDownLatch(1);
+        var cache = new CachedDataRequester(delegate, config, clock::get, task -> {
+            Thread.ofVirtual().start(() -> {
+                task.run();
+                refreshed.countDown();
+            });
+        });
+
+        var first = cache.getOptionMarketData();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(20));
+
+        assertSame(first, cache.getOptionMarketData(), "Stale data should be returned immediately");
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        assertNotSame(first, cache.getOptionMarketData(), "Background refresh should replace the stale entry");
+        assertEquals(2, delegate.marketDataLoads.get());
+        assertEquals(1, cache.getStats().get("marketData").staleHits());
+    }
+
+    @Test
+    public void testClearCachesForcesReload() {
+        var cache = new CachedDataRequester(delegate, config, clock::get, Runnable::run);
+
+        cache.getBorrowRates();
+        cache.getBorrowRates();
+        cache.clearCaches();
+        cache.getBorrowRates();
+
+        assertEquals(2, delegate.borrowRateLoads.get());
+    }
+
+    @Test
+    public void testEmptyResultsAreNotCached() {
+        var cache = new CachedDataRequester(delegate, config, clock::get, Runnable::run);
+        delegate.failing = true;
+
+        assertTrue(cache.getBorrowRates().isEmpty());
+        assertTrue(cache.getBorrowRates().isEmpty());
+        assertEquals(2, delegate.borrowRateLoads.get(), "A failed load should be retried on the next read");
+
+        delegate.failing = false;
+        var loaded = cache.getBorrowRates();
+        assertFalse(loaded.isEmpty());
+
+        // A failed refresh keeps the entry that's there
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(11));
+        delegate.failing = true;
+        assertSame(loaded, cache.getBorrowRates());
+        assertSame(loaded, cache.getBorrowRates());
+        assertEquals(5, delegate.borrowRateLoads.get());
+    }
+
+    @Test
+    public void testRefreshMarketDataKeepsChains() {
+        var cache = new CachedDataRequester(delegate, config, clock::get, Runnable::run);
+
+        cache.prefetch(List.of("BTCUSDT"));
+        var snapshot = cache.refreshMarketData(List.of("BTCUSDT"));
+
+        assertEquals(1, delegate.chainLoads.get(), "The option chain should not be reloaded");
+        assertEquals(1, delegate.borrowRateLoads.get());
+        assertEquals(2, delegate.marketDataLoads.get());
+        assertEquals(2.0, snapshot.spotPrices().get("BTCUSDT"));
+        assertSame(cache.getOptionChain(), snapshot.optionChains());
+    }
+
+    @Test
+    public void testPrefetchFillsCaches() {
+        var cache = new CachedDataRequester(delegate, config, clock::get, Runnable::run);
+
+        cache.prefetch(List.of("BTCUSDT", "ETHUSDT"));
+        cache.getBorrowRates();
+        cache.getOptionChain();
+        cache.getOptionMarketData();
+        cache.getSpotMarketPrice("ETHUSDT");
+
+        assertEquals(1, delegate.chainLoads.get());
+        assertEquals(2, delegate.spotLoads.get());
+        assertEquals(0, cache.getStats().get("spotPrice").misses());
+    }
+
+    @Test
+    public void testPrimedSnapshotServedThenRefreshed() {
+        var cache = new CachedDataRequester(delegate, config, clock::get, Runnable::run);
+        var chains = new HashMap<String, OptionChain>();
+        var spotPrices = new HashMap<String, Double>();
+        spotPrices.put("BTCUSDT", 100.0);
+
+        cache.prime(new MarketSnapshot(new HashMap<>(), chains, new HashMap<>(), spotPrices));
+
+        assertSame(chains, cache.getOptionChain(), "Primed data should be served without waiting for a load");
+        assertEquals(1, delegate.chainLoads.get(), "Primed data should be revalidated on first read");
+        assertNotSame(chains, cache.getOptionChain());
+        assertEquals(1, cache.getStats().get("optionChain").staleHits());
+
+        // Spot prices have no stale window, so primed values are reloaded before being served
+        assertEquals(1.0, cache.getSpotMarketPrice("BTCUSDT"));
+    }
+
+    @Test
+    public void testLoadFetchesOnlyRequestedUnderlyings() {
+        var cache = new CachedDataRequester(delegate, config, clock::get, Runnable::run);
+
+        var snapshot = cache.load(List.of("BTCUSDT"));
+        cache.load(List.of("BTCUSDT"));
+
+        assertEquals(Set.of("BTCUSDT"), snapshot.optionChains().keySet());
+        assertEquals(Set.of("BTC-1"), snapshot.optionMarketData().keySet());
+        assertEquals(List.of("BTCUSDT"), delegate.underlyingLoads);
+        assertEquals(0, delegate.chainLoads.get(), "The full chain should not be loaded");
+        assertEquals(0, delegate.marketDataLoads.get());
+
+        cache.prefetchUnderlying("ETHUSDT").join();
+        assertEquals(List.of("BTCUSDT", "ETHUSDT"), delegate.underlyingLoads);
+        var reloaded = cache.reload(List.of("BTCUSDT", "ETHUSDT"), true);
+        assertEquals(2, reloaded.optionChains().size());
+        assertEquals(2, delegate.underlyingMarketDataLoads.get("BTCUSDT").get());
+        assertEquals(List.of("BTCUSDT", "ETHUSDT"), delegate.underlyingLoads, "Chains should be kept on a market data reload");
+    }
+
+    @Test
+    public void testPrimeSeedsPerUnderlyingCaches() {
+        var cache = new CachedDataRequester(delegate, config, clock::get, Runnable::run);
+        var chain = new OptionChain("BTCUSDT", List.of(new Option("BTC-1", "BTCUSDT", 100.0, new Date(0), CallPut.CALL)));
+        var marketData = new HashMap<String, OptionMarketData>();
+        marketData.put("BTC-1", new OptionMarketData(1.0, 0.5, 0.6));
+        marketData.put("ETH-1", new OptionMarketData(2.0, 0.5, 0.7));
+
+        cache.prime(new MarketSnapshot(new HashMap<>(), new HashMap<>(Map.of("BTCUSDT", chain)), marketData, new HashMap<>()));
+
+        assertEquals(List.of("BTCUSDT"), cache.getUnderlyings());
+        assertSame(chain, cache.getOptionChain("BTCUSDT"));
+        assertEquals(Set.of("BTC-1"), cache.getOptionMarketData("BTCUSDT").keySet());
+    }
+
+    @Test
+    public void testPrimeUnderlyingsLeavesUniverseToDelegate() {
+        var cache = new CachedDataRequester(delegate, config, clock::get, Runnable::run);
+        var chain = new OptionChain("BTCUSDT", List.of(new Option("BTC-1", "BTCUSDT", 100.0, new Date(0), CallPut.CALL)));
+        var marketData = new HashMap<String, OptionMarketData>();
+        marketData.put("BTC-1", new OptionMarketData(1.0, 0.5, 0.6));
+
+        cache.primeUnderlyings(new MarketSnapshot(new HashMap<>(), new HashMap<>(Map.of("BTCUSDT", chain)), marketData,
+                new HashMap<>()));
+
+        assertSame(chain, cache.getOptionChain("BTCUSDT"));
+        assertEquals(Set.of("BTC-1"), cache.getOptionMarketData("BTCUSDT").keySet());
+        // A snapshot of the viewed underlyings doesn't say what else is listed, so that's loaded
+        assertEquals(List.of("BTCUSDT"), cache.getUnderlyings());
+        assertEquals(1, delegate.chainLoads.get(), "The underlyings should be loaded from the delegate");
+        assertEquals(0, cache.getStats().get("underlyings").staleHits());
+    }
+
+    private static class CountingDataRequester implements DataRequester {
+        final AtomicInteger borrowRateLoads = new AtomicInteger();
+        final AtomicInteger chainLoads = new AtomicInteger();
+        final AtomicInteger marketDataLoads = new AtomicInteger();
+        final AtomicInteger spotLoads = new AtomicInteger();
+        final List<String> underlyingLoads = new ArrayList<>();
+        final Map<String, AtomicInteger> underlyingMarketDataLoads = new ConcurrentHashMap<>();
+        volatile long chainDelayMillis;
+        // Fails the way the network backed requesters do, with empty results
+        volatile boolean failing;
+
+        public HashMap<String, Double> getBorrowRates() {
+            borrowRateLoads.incrementAndGet();
+            var borrowRates = new HashMap<String, Double>();
+            if (!failing) borrowRates.put("BTC", 0.01);
+            return borrowRates;
+        }
+
+        public HashMap<String, OptionChain> getOptionChain() {
+            chainLoads.incrementAndGet();
+            try {
+                Thread.sleep(chainDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            var chains = new HashMap<String, OptionChain>();
+            chains.put("BTCUSDT", new OptionChain("BTCUSDT", List.of()));
+            return chains;
+        }
+
+        public HashMap<String, OptionMarketData> getOptionMarketData() {
+            marketDataLoads.incrementAndGet();
+            var marketData = new HashMap<String, OptionMarketData>();
+            marketData.put("BTC-1", new OptionMarketData(1.0, 0.5, 0.6));
+            return marketData;
+        }
+
+        public Double getSpotMarketPrice(String ticker) {
+            return (double) spotLoads.incrementAndGet();
+        }
+
+        @Override
+        public OptionChain getOptionChain(String underlying) {
+            synchronized (underlyingLoads) {
+                underlyingLoads.add(underlying);
+            }
+            var base = underlying.replace("USDT", "");
+            return new OptionChain(underlying, List.of(new Option(base + "-1", underlying, 100.0, new Date(0), CallPut.CALL)));
+        }
+
+        @Override
+        public HashMap<String, OptionMarketData> getOptionMarketData(String underlying) {
+            underlyingMarketDataLoads.computeIfAbsent(underlying, key -> new AtomicInteger()).incrementAndGet();
+            var marketData = new HashMap<String, OptionMarketData>();
+            marketData.put(underlying.replace("USDT", "") + "-1", new OptionMarketData(1.0, 0.5, 0.6));
+            return marketData;
+        }
+    }
+}
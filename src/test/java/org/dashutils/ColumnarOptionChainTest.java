@@ -0,0 +1,117 @@
+package org.dashutils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarOptionChainTest {
+    private static final long FIRST_EXPIRY = 1798185600000L;
+    private static final long SECOND_EXPIRY = 1806048000000L;
+
+    private static OptionChain chain() {
+        var options = new ArrayList<Option>();
+        for (long expiry : new long[]{SECOND_EXPIRY, FIRST_EXPIRY}) {
+            for (double strike : new double[]{120000.0, 100000.0, 110000.0}) {
+                for (var callPut : CallPut.values()) {
+                    var symbol = "BTC-" + expiry + "-" + (int) strike + "-" + callPut.name().charAt(0);
+                    options.add(new Option(symbol, "BTCUSDT", strike, new Date(expiry), callPut));
+                }
+            }
+        }
+        Collections.shuffle(options);
+        return new OptionChain("BTCUSDT", options);
+    }
+
+    private static HashMap<String, OptionMarketData> marks(OptionChain chain) {
+        var marks = new HashMap<String, OptionMarketData>();
+        for (var option : chain.optionSeries()) {
+            if (option.strike() == 120000.0 && option.expiry().getTime() == SECOND_EXPIRY) continue;
+            marks.put(option.symbol(), new OptionMarketData(option.strike() / 100, 0.5, option.strike() / 200000));
+        }
+        return marks;
+    }
+
+    @Test
+    public void testRowsSortedByExpiryThenStrike() {
+        var chain = chain();
+        var columnar = ColumnarOptionChain.of(chain, marks(chain), new SymbolTable());
+
+        assertEquals(12, columnar.size());
+        assertEquals(2, columnar.expiryCount());
+        for (int row = 1; row < columnar.size(); row++) {
+            long prevExpiry = columnar.expiryAt(row - 1);
+            assertTrue(prevExpiry < columnar.expiryAt(row)
+                    || (prevExpiry == columnar.expiryAt(row) && columnar.strike(row - 1) <= columnar.strike(row)));
+        }
+        assertTrue(columnar.isCall(0) && !columnar.isCall(1), "Calls should sort before puts at the same strike");
+    }
+
+    @Test
+    public void testExpirySliceIsContiguous() {
+        var chain = chain();
+        var columnar = ColumnarOptionChain.of(chain, marks(chain), new SymbolTable());
+
+        int expiry = columnar.findExpiry(SECOND_EXPIRY);
+        assertEquals(1, expiry);
+        assertEquals(6, columnar.expiryStart(expiry));
+        assertEquals(12, columnar.expiryEnd(expiry));
+        assertEquals(-1, columnar.findExpiry(FIRST_EXPIRY + 1));
+    }
+
+    @Test
+    public void testSmileSkipsMissingMarks() {
+        var chain = chain();
+        var columnar = ColumnarOptionChain.of(chain, marks(chain), new SymbolTable());
+
+        var strikes = new double[columnar.size()];
+        var vols = new double[columnar.size()];
+        int count = columnar.smile(columnar.findExpiry(SECOND_EXPIRY), CallPut.CALL, strikes, vols);
+
+        assertEquals(2, count);
+        assertArrayEquals(new double[]{100000.0, 110000.0}, Arrays.copyOf(strikes, count));
+        assertEquals(0.55, vols[1], 1e-12);
+    }
+
+    @Test
+    public void testSymbolLookupAndUpdate() {
+        var chain = chain();
+        var symbols = new SymbolTable();
+        var columnar = ColumnarOptionChain.of(chain, marks(chain), symbols);
+
+        var symbol = "BTC-" + FIRST_EXPIRY + "-110000-P";
+        int row = columnar.rowOf(symbols.find(symbol));
+        assertEquals(symbol, columnar.symbol(row));
+        assertFalse(columnar.isCall(row));
+
+        var updated = new HashMap<String, OptionMarketData>();
+        updated.put(symbol, new OptionMarketData(1.0, -0.4, 0.9));
+        columnar.updateMarketData(updated);
+        assertEquals(0.9, columnar.impliedVol(row));
+        assertTrue(Double.isNaN(columnar.impliedVol(columnar.rowOf(symbols.find("BTC-" + FIRST_EXPIRY + "-110000-C")))));
+        assertEquals(-1, columnar.rowOf(symbols.idOf("ETH-OTHER")));
+    }
+
+    @Test
+    public void testBuildsFromFixture() throws IOException {
+        try (var in = getClass().getResourceAsStream("/fixtures/binance/exchangeInfo.json");
+             var parser = BinanceApiQuery.JSON_FACTORY.createParser(in);
+             var marksIn = getClass().getResourceAsStream("/fixtures/binance/mark.json");
+             var marksParser = BinanceApiQuery.JSON_FACTORY.createParser(marksIn)) {
+            var chains = BinanceStreamParser.parseOptionChain(parser);
+            var marks = BinanceStreamParser.parseOptionMarketData(marksParser);
+            var columnar = ColumnarOptionChain.ofAll(chains, marks, new SymbolTable());
+
+            assertEquals(List.of("BTCUSDT", "ETHUSDT"), columnar.keySet().stream().sorted().toList());
+            assertEquals(2, columnar.get("ETHUSDT").expiryCount());
+            assertEquals(28, columnar.get("BTCUSDT").size());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.dashutils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalRepricerTest {
+    // 2026-10-18 08:00 UTC
+    private static final long AS_OF = 1792310400000L;
+
+    private HashMap<String, OptionChain> chains;
+    private HashMap<String, OptionMarketData> marks;
+    private HashMap<String, Double> borrowRates;
+    private final HashMap<String, Double> spots = new HashMap<>(Map.of("BTCUSDT", 108012.34, "ETHUSDT", 3901.27));
+    private IncrementalRepricer repricer;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        try (var server = new StubBinanceServer(); var transport = server.transport()) {
+            var requester = new BinanceDataRequest(transport, true);
+            chains = requester.getOptionChain();
+            marks = requester.getOptionMarketData();
+            borrowRates = requester.getBorrowRates();
+        }
+        repricer = new IncrementalRepricer();
+        repricer.update(new MarketSnapshot(borrowRates, chains, marks, spots));
+    }
+
+    @Test
+    public void testFirstRecomputeMatchesFullRepricing() {
+        var changes = repricer.recompute(AS_OF);
+        var report = new RiskEngine().reprice(ColumnarOptionChain.ofAll(chains, marks, new SymbolTable()), spots,
+                borrowRates, null, AS_OF);
+
+        for (var underlying : spots.keySet()) {
+            var expected = report.chains().get(underlying);
+            var actual = repricer.repriced(underlying);
+            assertEquals(expected.chain().size(), changes.rows(underlying).cardinality());
+            assertArrayEquals(expected.impliedVols(), actual.impliedVols());
+            assertArrayEquals(expected.greeks(), actual.greeks());
+        }
+        assertTrue(repricer.recompute(AS_OF).isEmpty(), "Nothing should be recomputed without new inputs");
+    }
+
+    @Test
+    public void testChangedMarkRepricesOnlyItsRow() {
+        repricer.recompute(AS_OF);
+        var chainsBefore = repricer.chains();
+        var symbol = "BTC-261225-100000-C";
+        var old = marks.get(symbol);
+        var updated = new HashMap<>(marks);
+        updated.put(symbol, new OptionMarketData(old.price() * 1.05, old.delta(), old.impliedVol() + 0.01));
+
+        repricer.setOptionChains(new HashMap<>(chains));
+        repricer.setMarketData(updated);
+        var changes = repricer.recompute(AS_OF);
+
+        assertSame(chainsBefore, repricer.chains(), "Equal chain metadata should not rebuild the chains");
+        assertFalse(changes.touches("ETHUSDT"));
+        var rows = changes.rows("BTCUSDT");
+        assertEquals(1, rows.cardinality());
+        var repriced = repricer.repriced("BTCUSDT");
+        int row = rows.nextSetBit(0);
+        assertEquals(symbol, repriced.chain().symbol(row));
+        assertEquals(old.impliedVol() + 0.01, repriced.chain().impliedVol(row));
+        double years = BlackScholesKernel.yearFraction(AS_OF, repriced.chain().expiryAt(row));
+        assertEquals(old.price() * 1.05, BlackScholesKernel.price(true, repriced.spot(), repriced.chain().strike(row),
+                years, repriced.riskFreeRate(), repriced.dividendRate(), repriced.impliedVols()[row]), 1e-6);
+    }
+
+    @Test
+    public void testStreamedMarksTouchOnlyTheirRows() {
+        repricer.recompute(AS_OF);
+        var symbol = "BTC-261225-100000-C";
+        var old = marks.get(symbol);
+        var pushed = new HashMap<String, OptionMarketData>();
+        pushed.put(symbol, new OptionMarketData(old.price() * 1.05, old.delta(), old.impliedVol() + 0.01));
+
+        // An unknown symbol, e.g. listed since the chain was loaded, is skipped
+        repricer.setMarks("BTCUSDT", List.of(symbol, "BTC-261225-999999-C"), pushed);
+        var changes = repricer.recompute(AS_OF);
+
+        assertFalse(changes.touches("ETHUSDT"));
+        var rows = changes.rows("BTCUSDT");
+        assertEquals(1, rows.cardinality());
+        var repriced = repricer.repriced("BTCUSDT");
+        assertEquals(symbol, repriced.chain().symbol(rows.nextSetBit(0)));
+        assertEquals(old.impliedVol() + 0.01, repriced.chain().impliedVol(rows.nextSetBit(0)));
+
+        // The same mark again changes nothing
+        repricer.setMarks("BTCUSDT", List.of(symbol), pushed);
+        assertTrue(repricer.recompute(AS_OF).isEmpty());
+    }
+
+    @Test
+    public void testSpotTickRepricesOnlyItsUnderlying() {
+        repricer.recompute(AS_OF);
+        var btcGreeks = repricer.repriced("BTCUSDT").greeks().clone();
+
+        repricer.setSpotPrice("ETHUSDT", 3950.0);
+        repricer.setSpotPrice("BTCUSDT", 108012.34);
+        var changes = repricer.recompute(AS_OF);
+
+        assertFalse(changes.touches("BTCUSDT"), "An unchanged spot price should not dirty anything");
+        assertEquals(repricer.repriced("ETHUSDT").chain().size(), changes.rows("ETHUSDT").cardinality());
+        assertEquals(3950.0, repricer.repriced("ETHUSDT").spot());
+        assertArrayEquals(btcGreeks, repricer.repriced("BTCUSDT").greeks());
+    }
+
+    @Test
+    public void testNewContractsRebuildTheirChain() {
+        repricer.recompute(AS_OF);
+        var chainsBefore = repricer.chains();
+        var btc = chains.get("BTCUSDT");
+        var fewer = new HashMap<>(chains);
+        fewer.put("BTCUSDT", new OptionChain("BTCUSDT", btc.optionSeries().subList(0, 10)));
+
+        repricer.setOptionChains(fewer);
+        var changes = repricer.recompute(AS_OF);
+
+        assertNotSame(chainsBefore, repricer.chains());
+        assertSame(chainsBefore.get("ETHUSDT"), repricer.chains().get("ETHUSDT"));
+        assertEquals(10, repricer.chains().get("BTCUSDT").size());
+        assertEquals(10, changes.rows("BTCUSDT").cardinality());
+        assertFalse(changes.touches("ETHUSDT"));
+    }
+
+    @Test
+    public void testSnapshotIsNotUpdatedInPlace() {
+        repricer.recompute(AS_OF);
+        var snapshot = repricer.snapshot("BTCUSDT");
+        var vols = snapshot.impliedVols().clone();
+        var symbol = "BTC-261225-100000-C";
+        int row = snapshot.chain().rowOf(snapshot.chain().symbols().idOf(symbol));
+        double mark = snapshot.chain().mark(row);
+
+        var updated = new HashMap<>(marks);
+        updated.put(symbol, new OptionMarketData(mark * 1.05, marks.get(symbol).delta(), marks.get(symbol).impliedVol()));
+        repricer.setMarketData(updated);
+        repricer.setSpotPrice("BTCUSDT", 110000.0);
+        repricer.recompute(AS_OF);
+
+        assertEquals(mark, snapshot.chain().mark(row));
+        assertArrayEquals(vols, snapshot.impliedVols());
+        assertEquals(108012.34, snapshot.spot());
+        assertEquals(mark * 1.05, repricer.repriced("BTCUSDT").chain().mark(row), 1e-9);
+        assertEquals(repricer.repriced("BTCUSDT").chain().size(), snapshot.chain().size());
+        assertNull(repricer.snapshot("SOLUSDT"));
+    }
+}
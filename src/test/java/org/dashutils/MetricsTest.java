@@ -0,0 +1,93 @@
+package org.dashutils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+    @AfterEach
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void testHistogramPercentilesWithinBucketPrecision() {
+        var histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) histogram.record(value * 1000);
+
+        var snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.count());
+        assertEquals(50_000_500.0, snapshot.meanNanos(), 1e-6);
+        assertEquals(50_000_000, snapshot.percentileNanos(50), 50_000_000 / 32.0);
+        assertEquals(99_000_000, snapshot.percentileNanos(99), 99_000_000 / 32.0);
+        assertTrue(snapshot.maxNanos() >= 100_000_000 && snapshot.maxNanos() <= 100_000_000 * (1 + 1 / 32.0));
+
+        for (long value : new long[] {0, 1, 31, 32, 33, 1000, 123_456_789, LatencyHistogram.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.lowestEquivalentValue(bucket) <= value, "Bucket of " + value);
+            assertTrue(LatencyHistogram.highestEquivalentValue(bucket) >= value, "Bucket of " + value);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(LatencyHistogram.MAX_VALUE));
+    }
+
+    @Test
+    public void testNothingRecordedWhileDisabled() {
+        var timer = Metrics.timer("test.disabled");
+        var counter = Metrics.counter("test.disabled");
+
+        assertEquals(Metrics.NOT_STARTED, Metrics.start());
+        Metrics.stop(timer, Metrics.start());
+        counter.increment();
+        assertEquals(0, timer.count());
+        assertEquals(0, counter.sum());
+
+        Metrics.setEnabled(true);
+        Metrics.stop(timer, Metrics.start());
+        // A start time of 0 is as valid as any other
+        Metrics.stop(timer, 0);
+        counter.add(3);
+        assertEquals(2, timer.count());
+        assertEquals(3, counter.sum());
+    }
+
+    @Test
+    public void testCacheAndRequesterCallsAreRecorded() throws Exception {
+        Metrics.setEnabled(true);
+        try (var server = new StubBinanceServer(); var transport = server.transport()) {
+            var requester = new CachedDataRequester(new MeteredDataRequester(new BinanceDataRequest(transport, true)));
+            requester.getOptionChain();
+            requester.getOptionChain();
+        }
+
+        var report = Metrics.report();
+        assertEquals(1, report.timers().get("requester.optionChain").count());
+        assertEquals(1, report.timers().get("binance.parse.CoinInfo").count());
+        assertEquals(1, report.counters().get("cache.optionChain.misses"));
+        assertEquals(1, report.counters().get("cache.optionChain.hits"));
+    }
+
+    @Test
+    public void testExposedOverJmxAndDumped(@TempDir Path directory) throws Exception {
+        Metrics.setEnabled(true);
+        Metrics.counter("test.exported").increment();
+        Metrics.registerMBean();
+        Metrics.registerMBean();
+
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var name = new ObjectName(Metrics.OBJECT_NAME);
+        assertEquals(true, server.getAttribute(name, "Enabled"));
+        assertTrue(((String) server.getAttribute(name, "Report")).contains("test.exported"));
+
+        var file = directory.resolve("metrics/dump.txt");
+        Metrics.dump(file);
+        assertTrue(Files.readString(file).contains("test.exported"));
+    }
+}
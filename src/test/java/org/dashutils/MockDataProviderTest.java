@@ -0,0 +1,163 @@
+package org.dashutils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MockDataProviderTest {
+    // 2026-10-18 08:00 UTC
+    private static final long AS_OF = 1792310400000L;
+
+    private static MockDataProvider.Config config(long seed, int underlyings, int expiries, int strikes) {
+        return new MockDataProvider.Config(seed, underlyings, expiries, strikes, AS_OF, 0);
+    }
+
+    @Test
+    public void testSameSeedGeneratesSameMarket() {
+        var first = new MockDataProvider(config(7, 20, 4, 9));
+        var second = new MockDataProvider(config(7, 20, 4, 9));
+        var other = new MockDataProvider(config(8, 20, 4, 9));
+
+        assertEquals(first.getUnderlyings(), second.getUnderlyings());
+        assertEquals(first.getOptionChain(), second.getOptionChain());
+        assertEquals(first.getOptionMarketData(), second.getOptionMarketData());
+        assertEquals(first.getBorrowRates(), second.getBorrowRates());
+        assertNotEquals(first.getOptionMarketData(), other.getOptionMarketData());
+    }
+
+    @Test
+    public void testScalesToLargeMarkets() {
+        var mock = new MockDataProvider(config(1, 300, 24, 100));
+
+        var underlyings = mock.getUnderlyings();
+        assertEquals(300, underlyings.size());
+        assertTrue(underlyings.containsAll(Set.of("BTCUSDT", "ETHUSDT", "SOLUSDT", "ADAUSDT", "DOTUSDT")));
+
+        var chain = mock.getOptionChain("SYN250USDT");
+        assertEquals(24 * 100 * 2, chain.optionSeries().size());
+        var symbols = new HashSet<String>();
+        chain.optionSeries().forEach(option -> assertTrue(symbols.add(option.symbol()), option.symbol()));
+        assertEquals(symbols, mock.getOptionMarketData("SYN250USDT").keySet());
+        assertTrue(mock.getSpotMarketPrice("SYN250USDT") > 0);
+        assertNull(mock.getOptionChain("XRPUSDT"));
+    }
+
+    @Test
+    public void testMarksArePricedAtTheirImpliedVol() {
+        var mock = new MockDataProvider(config(3, 5, 6, 21));
+        var rates = mock.getBorrowRates();
+
+        for (var underlying : mock.getUnderlyings()) {
+            double spot = mock.getSpotMarketPrice(underlying);
+            double riskFreeRate = RiskEngine.rate(rates, "USDT");
+            double dividendRate = RiskEngine.rate(rates, RiskEngine.baseAsset(underlying));
+            var marks = mock.getOptionMarketData(underlying);
+            for (var option : mock.getOptionChain(underlying).optionSeries()) {
+                var mark = marks.get(option.symbol());
+                assertTrue(option.symbol().startsWith(RiskEngine.baseAsset(underlying) + "-"), option.symbol());
+                assertTrue(mark.price() > 0 && mark.impliedVol() > 0, option.symbol());
+
+                double years = BlackScholesKernel.yearFraction(AS_OF, option.expiry().getTime());
+                double expected = BlackScholesKernel.price(option.callPut() == CallPut.CALL, spot, option.strike(),
+                        years, riskFreeRate, dividendRate, mark.impliedVol());
+                assertEquals(expected, mark.price(), 1e-12 * spot, option.symbol());
+                // Options with meaningful time value give the vol back
+                if (mark.price() > 1e-4 * spot && Math.abs(mark.delta()) < 0.95) {
+                    double solved = BlackScholesPricer.solveImpliedVol(option.callPut() == CallPut.CALL, mark.price(),
+                            spot, option.strike(), years, riskFreeRate, dividendRate);
+                    assertEquals(mark.impliedVol(), solved, 1e-6, option.symbol());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSmilesAreSkewedAndConvex() {
+        var mock = new MockDataProvider(config(5, 1, 1, 41));
+        var marks = mock.getOptionMarketData("BTCUSDT");
+        var calls = mock.getOptionChain("BTCUSDT").optionSeries().stream()
+                .filter(option -> option.callPut() == CallPut.CALL)
+                .toList();
+
+        double low = marks.get(calls.get(0).symbol()).impliedVol();
+        double atm = Double.MAX_VALUE;
+        for (var option : calls) atm = Math.min(atm, marks.get(option.symbol()).impliedVol());
+        double high = marks.get(calls.get(calls.size() - 1).symbol()).impliedVol();
+
+        assertTrue(low > atm && high > atm, "Wings above the minimum");
+        assertTrue(low > high, "Downside skew");
+        for (int i = 1; i < calls.size(); i++) assertTrue(calls.get(i).strike() > calls.get(i - 1).strike());
+    }
+
+    @Test
+    public void testTicksKeepEveryMarkOnTheSmileAtTheNewSpot() {
+        var mock = new MockDataProvider(config(13, 1, 5, 15));
+        var rates = mock.getBorrowRates();
+        var chain = mock.getOptionChain("BTCUSDT");
+        var changed = new HashSet<String>();
+        mock.addListener(new MarketDataListener() {
+            @Override
+            public void onMarksUpdated(String underlying, Set<String> symbols) {
+                changed.addAll(symbols);
+            }
+
+            @Override
+            public void onSpotUpdated(String ticker, double price) {}
+        });
+        for (int i = 0; i < 10; i++) mock.tick();
+
+        assertEquals(chain.optionSeries().size(), changed.size());
+        double spot = mock.getSpotMarketPrice("BTCUSDT");
+        assertNotEquals(50000.0, spot);
+        var marks = mock.getOptionMarketData("BTCUSDT");
+        for (var option : chain.optionSeries()) {
+            var mark = marks.get(option.symbol());
+            // Priced a few milliseconds of wall clock after AS_OF
+            double years = BlackScholesKernel.yearFraction(AS_OF, option.expiry().getTime());
+            double expected = BlackScholesKernel.price(option.callPut() == CallPut.CALL, spot, option.strike(), years,
+                    RiskEngine.rate(rates, "USDT"), RiskEngine.rate(rates, "BTC"), mark.impliedVol());
+            assertEquals(expected, mark.price(), 1e-6 * spot, option.symbol());
+        }
+    }
+
+    @Test
+    public void testTicksMoveGeneratedUnderlyings() throws InterruptedException {
+        var config = new MockDataProvider.Config(11, 50, 3, 10, AS_OF, 2000);
+        try (var mock = new MockDataProvider(config)) {
+            var before = mock.getOptionMarketData("ETHUSDT");
+            double spotBefore = mock.getSpotMarketPrice("ETHUSDT");
+            var marks = new CountDownLatch(20);
+            var underlyings = new HashSet<String>();
+            mock.addListener(new MarketDataListener() {
+                @Override
+                public void onMarksUpdated(String underlying, Set<String> symbols) {
+                    assertFalse(symbols.isEmpty());
+                    marks.countDown();
+                }
+
+                @Override
+                public void onSpotUpdated(String ticker, double price) {
+                    synchronized (underlyings) {
+                        underlyings.add(ticker);
+                    }
+                }
+            });
+
+            mock.start();
+            assertTrue(marks.await(5, TimeUnit.SECONDS));
+            mock.close();
+
+            // Only the underlying generated so far ticks
+            synchronized (underlyings) {
+                assertEquals(Set.of("ETHUSDT"), underlyings);
+            }
+            assertNotEquals(spotBefore, mock.getSpotMarketPrice("ETHUSDT"));
+            assertNotEquals(before, mock.getOptionMarketData("ETHUSDT"));
+        }
+    }
+}
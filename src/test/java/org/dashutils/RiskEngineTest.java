@@ -0,0 +1,95 @@
+package org.dashutils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RiskEngineTest {
+    // 2026-10-18 08:00 UTC
+    private static final long AS_OF = 1792310400000L;
+
+    private HashMap<String, ColumnarOptionChain> chains;
+    private HashMap<String, Double> borrowRates;
+    private final Map<String, Double> spots = Map.of("BTCUSDT", 108012.34, "ETHUSDT", 3901.27);
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        try (var server = new StubBinanceServer(); var transport = server.transport()) {
+            var requester = new BinanceDataRequest(transport, true);
+            chains = ColumnarOptionChain.ofAll(requester.getOptionChain(), requester.getOptionMarketData(), new SymbolTable());
+            borrowRates = requester.getBorrowRates();
+        }
+    }
+
+    @Test
+    public void testRepricesEveryOption() {
+        var report = new RiskEngine().reprice(chains, spots, borrowRates, null, AS_OF);
+
+        assertEquals(52, report.optionCount());
+        assertTrue(report.optionsPerSecond() > 0);
+        for (var repriced : report.chains().values()) {
+            var chain = repriced.chain();
+            for (int row = 0; row < chain.size(); row++) {
+                double vol = repriced.impliedVols()[row];
+                assertTrue(vol > 0, chain.symbol(row) + " should have a solved implied vol");
+                double years = BlackScholesKernel.yearFraction(AS_OF, chain.expiryAt(row));
+                double price = BlackScholesKernel.price(chain.isCall(row), repriced.spot(), chain.strike(row), years,
+                        repriced.riskFreeRate(), repriced.dividendRate(), vol);
+                assertEquals(chain.mark(row), price, 1e-6 * chain.mark(row), "Solved vol should reprice the mark");
+                assertTrue(repriced.greek(row, BlackScholesKernel.VEGA) > 0);
+            }
+        }
+    }
+
+    @Test
+    public void testAggregatesPerExpiryAndUnderlying() {
+        var report = new RiskEngine().reprice(chains, spots, borrowRates, null, AS_OF);
+
+        for (var underlying : spots.keySet()) {
+            var repriced = report.chains().get(underlying);
+            double delta = 0;
+            for (int row = 0; row < repriced.chain().size(); row++) delta += repriced.greek(row, BlackScholesKernel.DELTA);
+
+            var total = report.underlyingRisk().get(underlying);
+            var byExpiry = report.expiryRisk().get(underlying);
+            assertEquals(2, byExpiry.size());
+            assertEquals(repriced.chain().size(), total.options());
+            assertEquals(delta, total.delta(), 1e-9);
+            assertEquals(total.vega(), byExpiry.values().stream().mapToDouble(RiskEngine.Risk::vega).sum(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testPositionsWeightRisk() {
+        var positions = Map.of("BTC-261225-100000-C", 2.0, "BTC-261225-100000-P", -1.0);
+        var report = new RiskEngine().reprice(chains, spots, borrowRates, positions, AS_OF);
+
+        var repriced = report.chains().get("BTCUSDT");
+        var symbols = repriced.chain().symbols();
+        int call = repriced.chain().rowOf(symbols.find("BTC-261225-100000-C"));
+        int put = repriced.chain().rowOf(symbols.find("BTC-261225-100000-P"));
+        var risk = report.underlyingRisk().get("BTCUSDT");
+
+        assertEquals(2, risk.options());
+        assertEquals(2 * repriced.greek(call, BlackScholesKernel.GAMMA) - repriced.greek(put, BlackScholesKernel.GAMMA),
+                risk.gamma(), 1e-12);
+        assertEquals(0, report.underlyingRisk().get("ETHUSDT").options());
+    }
+
+    @Test
+    public void testParallelMatchesSingleThreaded() {
+        try (var single = new ForkJoinPool(1); var parallel = new ForkJoinPool(4)) {
+            var expected = new RiskEngine(single).reprice(chains, spots, borrowRates, null, AS_OF);
+            var actual = new RiskEngine(parallel).reprice(chains, spots, borrowRates, null, AS_OF);
+
+            assertEquals(expected.expiryRisk(), actual.expiryRisk());
+            assertArrayEquals(expected.chains().get("ETHUSDT").greeks(), actual.chains().get("ETHUSDT").greeks());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.dashutils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScenarioEngineTest {
+    // 2026-10-18 08:00 UTC
+    private static final long AS_OF = 1792310400000L;
+    private static final double SPOT = 108012.34;
+
+    private ColumnarOptionChain chain;
+    private final ScenarioEngine.Grid grid = ScenarioEngine.Grid.ladder(0.3, 7, 0.2, 5);
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        try (var server = new StubBinanceServer(); var transport = server.transport()) {
+            var requester = new BinanceDataRequest(transport, true);
+            chain = ColumnarOptionChain.ofAll(requester.getOptionChain(), requester.getOptionMarketData(),
+                    new SymbolTable()).get("BTCUSDT");
+        }
+    }
+
+    @Test
+    public void testGridMatchesFullRepricing() {
+        var prices = new ConcurrentHashMap<Integer, double[]>();
+        var result = new ScenarioEngine().run(chain, SPOT, 0.05, 0.002, AS_OF, grid, null,
+                (chain, row, values) -> prices.put(row, values.clone()));
+
+        assertEquals(chain.size(), result.optionCount());
+        assertEquals(chain.size(), prices.size());
+        for (int row = 0; row < chain.size(); row++) {
+            double years = BlackScholesKernel.yearFraction(AS_OF, chain.expiryAt(row));
+            for (int i = 0; i < grid.spotShocks().length; i++) {
+                for (int j = 0; j < grid.volShocks().length; j++) {
+                    double expected = BlackScholesKernel.price(chain.isCall(row), SPOT * (1 + grid.spotShocks()[i]),
+                            chain.strike(row), years, 0.05, 0.002, chain.impliedVol(row) + grid.volShocks()[j]);
+                    assertEquals(expected, prices.get(row)[grid.index(i, j)], 1e-8 * SPOT, chain.symbol(row));
+                }
+            }
+        }
+        assertEquals(0, result.pnl(3, 2), 1e-8 * SPOT, "No shock should leave the book unchanged");
+        assertTrue(result.pnl(6, 4) > result.pnl(6, 0), "Long options gain from higher vol");
+    }
+
+    @Test
+    public void testPositionsWeightPnl() {
+        var positions = Map.of("BTC-261225-100000-C", 2.0, "BTC-261225-100000-P", -1.0);
+        var prices = new ConcurrentHashMap<String, double[]>();
+        var result = new ScenarioEngine().run(chain, SPOT, 0.05, 0.002, AS_OF, grid, positions,
+                (chain, row, values) -> prices.put(chain.symbol(row), values.clone()));
+
+        assertEquals(2, result.optionCount());
+        var call = prices.get("BTC-261225-100000-C");
+        var put = prices.get("BTC-261225-100000-P");
+        int base = grid.index(3, 2);
+        for (int k = 0; k < grid.size(); k++) {
+            assertEquals(2 * (call[k] - call[base]) - (put[k] - put[base]), result.pnl()[k], 1e-8 * SPOT);
+        }
+        assertEquals(2 * call[base] - put[base], result.baseValue(), 1e-8 * SPOT);
+    }
+
+    @Test
+    public void testParallelMatchesSingleThreaded() {
+        try (var single = new ForkJoinPool(1); var parallel = new ForkJoinPool(4)) {
+            var expected = new ScenarioEngine(single).run(chain, SPOT, 0.05, 0.002, AS_OF, grid, null, null);
+            var actual = new ScenarioEngine(parallel).run(chain, SPOT, 0.05, 0.002, AS_OF, grid, null, null);
+
+            assertArrayEquals(expected.pnl(), actual.pnl(), 1e-9);
+            assertEquals(expected.baseValue(), actual.baseValue(), 1e-9);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.dashutils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotFileTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRoundTripOfFetchedSnapshot() throws IOException {
+        MarketSnapshot snapshot;
+        try (var server = new StubBinanceServer(); var transport = server.transport()) {
+            snapshot = new BinanceDataRequest(transport, true).fetchSnapshot(List.of("BTCUSDT", "ETHUSDT")).join();
+        }
+        var path = tempDir.resolve("snapshot.bin");
+
+        SnapshotFile.write(path, snapshot);
+        var restored = SnapshotFile.read(path);
+
+        assertEquals(snapshot, restored);
+        assertEquals(52, restored.optionMarketData().size());
+        assertEquals(108012.34, new SnapshotDataRequester(restored).getSpotMarketPrice("BTCUSDT"), 1e-9);
+    }
+
+    @Test
+    public void testFailedReloadKeepsSnapshot() throws IOException {
+        var path = tempDir.resolve("snapshot.bin");
+        var server = new StubBinanceServer();
+        try (var transport = server.transport()) {
+            var requester = new CachedDataRequester(new BinanceDataRequest(transport, true));
+            assertTrue(SnapshotFile.writeIfLoaded(path, requester.load(List.of("BTCUSDT"))));
+            var written = Files.readAllBytes(path);
+
+            // Offline: every request fails and comes back empty
+            server.close();
+            var failed = requester.reload(List.of("BTCUSDT"), false);
+
+            assertFalse(failed.hasMarketData());
+            assertFalse(SnapshotFile.writeIfLoaded(path, failed));
+            assertArrayEquals(written, Files.readAllBytes(path));
+            assertEquals(28, SnapshotFile.read(path).optionMarketData().size());
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testMissingDatasetsAndFields() throws IOException {
+        var marks = new HashMap<String, OptionMarketData>();
+        marks.put("BTC-261225-100000-C", new OptionMarketData(1250.0, null, 0.55));
+        var option = new Option("BTC-261225-100000-C", "BTC", 100000, new Date(1798185600000L), CallPut.CALL);
+        var chains = new HashMap<String, OptionChain>();
+        chains.put("BTCUSDT", new OptionChain("BTCUSDT", List.of(option)));
+        var path = tempDir.resolve("partial.bin");
+
+        SnapshotFile.write(path, new MarketSnapshot(null, chains, marks, new HashMap<>()));
+        var restored = SnapshotFile.read(path);
+
+        assertNull(restored.borrowRates());
+        assertEquals(chains, restored.optionChains());
+        assertEquals(marks, restored.optionMarketData());
+        assertTrue(restored.spotPrices().isEmpty());
+    }
+
+    @Test
+    public void testCorruptFileRejected() throws IOException {
+        var path = tempDir.resolve("corrupt.bin");
+        SnapshotFile.write(path, new MarketSnapshot(new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>()));
+        try (var file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            file.write(0x7F);
+        }
+
+        assertThrows(IOException.class, () -> SnapshotFile.read(path));
+
+        Files.write(path, new byte[] {1, 2, 3});
+        assertThrows(IOException.class, () -> SnapshotFile.read(path));
+
+        // Damaged payload length, negative and past the end of the file
+        for (int length : new int[] {-1, Integer.MAX_VALUE}) {
+            SnapshotFile.write(path, new MarketSnapshot(new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>()));
+            try (var file = new RandomAccessFile(path.toFile(), "rw")) {
+                file.seek(6);
+                file.writeInt(length);
+            }
+            var error = assertThrows(IOException.class, () -> SnapshotFile.read(path));
+            assertTrue(error.getMessage().startsWith("Corrupt snapshot file"), error.getMessage());
+        }
+    }
+}
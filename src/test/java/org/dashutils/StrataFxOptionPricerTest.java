@@ -0,0 +1,106 @@
+package org.dashutils;
+
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.date.DayCounts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StrataFxOptionPricerTest {
+    // 2026-10-18 08:00 UTC
+    private static final long AS_OF = 1792310400000L;
+
+    private MarketSnapshot snapshot;
+    private ColumnarOptionChain chain;
+    private final StrataFxOptionPricer pricer = new StrataFxOptionPricer();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        try (var server = new StubBinanceServer(); var transport = server.transport()) {
+            var requester = new BinanceDataRequest(transport, true);
+            snapshot = new MarketSnapshot(requester.getBorrowRates(), requester.getOptionChain(),
+                    requester.getOptionMarketData(), new HashMap<>(Map.of("BTCUSDT", 108012.34, "ETHUSDT", 3901.27)));
+        }
+        chain = ColumnarOptionChain.of(snapshot.optionChains().get("BTCUSDT"), snapshot.optionMarketData(), new SymbolTable());
+    }
+
+    @Test
+    public void testPricesMatchBlackScholesAtSurfaceVols() {
+        var market = pricer.market(snapshot, chain, AS_OF);
+        var prices = pricer.prices(snapshot, chain, AS_OF);
+        double spot = snapshot.spotPrices().get("BTCUSDT");
+        double riskFreeRate = RiskEngine.rate(snapshot.borrowRates(), "USDT");
+        double dividendRate = RiskEngine.rate(snapshot.borrowRates(), "BTC");
+        var valuationDate = Instant.ofEpochMilli(AS_OF).atZone(ZoneOffset.UTC).toLocalDate();
+
+        int priced = 0;
+        for (int row = 0; row < chain.size(); row++) {
+            var expiryDate = Instant.ofEpochMilli(chain.expiryAt(row)).atZone(ZoneOffset.UTC).toLocalDate();
+            double yearsToExpiry = DayCounts.ACT_365F.relativeYearFraction(valuationDate, expiryDate);
+            if (!(yearsToExpiry > 0)) {
+                assertTrue(Double.isNaN(prices[row]));
+                continue;
+            }
+            double vol = market.volatilities().volatility(market.currencyPair(), yearsToExpiry, chain.strike(row), spot);
+            double expected = BlackScholesKernel.price(chain.isCall(row), spot, chain.strike(row), yearsToExpiry,
+                    riskFreeRate, dividendRate, vol);
+            assertEquals(expected, prices[row], 1e-8 * spot, chain.symbol(row));
+            priced++;
+        }
+        assertTrue(priced > 0);
+    }
+
+    @Test
+    public void testMarketIsCachedPerSnapshot() {
+        var market = pricer.market(snapshot, chain, AS_OF);
+        assertNotNull(market);
+        assertSame(market, pricer.market(snapshot, chain, AS_OF));
+        pricer.prices(snapshot, chain, AS_OF);
+        assertSame(market, pricer.market(snapshot, chain, AS_OF));
+        // Later the same day, which Strata's day counts don't tell apart
+        assertSame(market, pricer.market(snapshot, chain, AS_OF + 3_600_000));
+        assertNotSame(market, pricer.market(snapshot, chain, AS_OF + 86_400_000));
+        market = pricer.market(snapshot, chain, AS_OF);
+
+        var next = new MarketSnapshot(snapshot.borrowRates(), snapshot.optionChains(), snapshot.optionMarketData(),
+                new HashMap<>(Map.of("BTCUSDT", 110000.0)));
+        var rebuilt = pricer.market(next, chain, AS_OF);
+        assertNotSame(market, rebuilt);
+        assertEquals(110000.0, rebuilt.ratesProvider().fxRate(rebuilt.currencyPair()), 1e-9);
+        assertNull(pricer.market(new MarketSnapshot(snapshot.borrowRates(), snapshot.optionChains(),
+                snapshot.optionMarketData(), new HashMap<>()), chain, AS_OF), "No market without a spot price");
+    }
+
+    @Test
+    public void testImpliedVolSolvesThePricersPrice() {
+        var option = new Option("BTC-261225-110000-C", "BTCUSDT", 110000.0, new Date(1798185600000L), CallPut.CALL);
+        var currentDate = new Date(AS_OF);
+        // Whole days, as the Black FX pricer counts them
+        double yearsToExpiry = DayCounts.ACT_365F.relativeYearFraction(
+                Instant.ofEpochMilli(AS_OF).atZone(ZoneOffset.UTC).toLocalDate(),
+                Instant.ofEpochMilli(option.expiry().getTime()).atZone(ZoneOffset.UTC).toLocalDate());
+        double price = BlackScholesKernel.price(true, 108000.0, 110000.0, yearsToExpiry, 0.05, 0.002, 0.55);
+
+        assertEquals(0.55, pricer.impliedVol(option, price, 108000.0, 0.05, 0.002, currentDate), 1e-8);
+        assertTrue(Double.isNaN(pricer.impliedVol(option, 200000.0, 108000.0, 0.05, 0.002, currentDate)));
+        var unsupported = new Option("OP-261225-2-C", "OPUSDT", 2.0, option.expiry(), CallPut.CALL);
+        assertTrue(Double.isNaN(pricer.impliedVol(unsupported, 0.1, 1.9, 0.05, 0.0, currentDate)));
+    }
+
+    @Test
+    public void testCurrencyMapping() {
+        assertEquals(Currency.USD, StrataFxOptionPricer.currency("USDT"));
+        assertEquals(Currency.of("BTC"), StrataFxOptionPricer.currency("BTC"));
+        assertEquals(Currency.of("XDG"), StrataFxOptionPricer.currency("DOGE"));
+        assertNull(StrataFxOptionPricer.currency("OP"));
+        assertNull(StrataFxOptionPricer.currency("1000PEPE"));
+    }
+}
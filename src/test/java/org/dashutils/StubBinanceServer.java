@@ -0,0 +1,93 @@
+package org.dashutils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local HTTP server replaying the recorded Binance payloads under {@code fixtures/binance}, keyed by the
+ * endpoint path. Responses are gzipped when the client asks for it. It can also refuse requests the way Binance
+ * does when its rate limits are hit.
+ */
+class StubBinanceServer implements AutoCloseable {
+    private final HttpServer server;
+    final ConcurrentLinkedQueue<HttpExchange> requests = new ConcurrentLinkedQueue<>();
+    volatile long responseDelayMillis;
+    // The next this many requests are refused with rateLimitStatus, and a Retry-After header when it's set
+    final AtomicInteger rateLimitedResponses = new AtomicInteger();
+    volatile int rateLimitStatus = 429;
+    volatile String retryAfter;
+    // Sent as X-MBX-USED-WEIGHT-1M when set
+    volatile String usedWeight;
+
+    StubBinanceServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/bapi/margin/v1/friendly/margin/vip/spec/list-all", exchange -> serve(exchange, "borrowRates.json"));
+        server.createContext("/eapi/v1/exchangeInfo", exchange -> serve(exchange, "exchangeInfo.json"));
+        server.createContext("/eapi/v1/mark", exchange -> serve(exchange, "mark.json"));
+        server.createContext("/api/v3/avgPrice", exchange -> {
+            var query = exchange.getRequestURI().getQuery();
+            serve(exchange, "avgPrice-" + query.substring(query.indexOf("symbol=") + 7) + ".json");
+        });
+        server.start();
+    }
+
+    URI uri() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    BinanceHttpTransport transport() {
+        return transport(BinanceRateLimiter.Config.defaults());
+    }
+
+    BinanceHttpTransport transport(BinanceRateLimiter.Config rateLimits) {
+        return new BinanceHttpTransport(BinanceHttpTransport.Config.defaults().withHostOverride(uri()).withRateLimits(rateLimits));
+    }
+
+    private void serve(HttpExchange exchange, String fixture) throws IOException {
+        requests.add(exchange);
+        try (exchange; InputStream in = getClass().getResourceAsStream("/fixtures/binance/" + fixture)) {
+            if (responseDelayMillis > 0) Thread.sleep(responseDelayMillis);
+            if (usedWeight != null) exchange.getResponseHeaders().add("X-MBX-USED-WEIGHT-1M", usedWeight);
+            if (rateLimitedResponses.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                if (retryAfter != null) exchange.getResponseHeaders().add("Retry-After", retryAfter);
+                exchange.sendResponseHeaders(rateLimitStatus, -1);
+                return;
+            }
+            if (in == null) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+
+            var body = in.readAllBytes();
+            var acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, 0);
+                try (var out = new GZIPOutputStream(exchange.getResponseBody())) {
+                    out.write(body);
+                }
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
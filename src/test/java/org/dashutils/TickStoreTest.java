@@ -0,0 +1,174 @@
+package org.dashutils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TickStoreTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCodecRoundTrip() {
+        var random = new SplittableRandom(7);
+        int count = 5000;
+        var timestamps = new long[count];
+        var values = new double[count];
+        timestamps[0] = 1798185600000L;
+        values[0] = 0.55;
+        for (int i = 1; i < count; i++) {
+            // Mostly regular intervals with jitter, occasional long gaps and a clock step backwards
+            timestamps[i] = timestamps[i - 1] + (i % 500 == 0 ? -86_400_000L * 40 : 1000 + random.nextInt(-300, 300));
+            values[i] = i % 7 == 0 ? values[i - 1] : values[i - 1] + random.nextGaussian() * 1e-3;
+        }
+        values[10] = Double.NaN;
+        values[11] = Double.MAX_VALUE;
+        values[12] = -0.0;
+
+        var writer = new GorillaCodec.BitWriter();
+        GorillaCodec.encodeTimestamps(timestamps, count, writer);
+        writer.alignToByte();
+        int valuesOffset = writer.length();
+        GorillaCodec.encodeValues(values, count, writer);
+        writer.alignToByte();
+        var buffer = ByteBuffer.wrap(writer.bytes(), 0, writer.length());
+
+        var decodedTimestamps = new long[count];
+        var decodedValues = new double[count];
+        GorillaCodec.decodeTimestamps(new GorillaCodec.BitReader(buffer, 0), count, decodedTimestamps);
+        GorillaCodec.decodeValues(new GorillaCodec.BitReader(buffer, valuesOffset), count, decodedValues);
+
+        assertArrayEquals(timestamps, decodedTimestamps);
+        for (int i = 0; i < count; i++) {
+            assertEquals(Double.doubleToRawLongBits(values[i]), Double.doubleToRawLongBits(decodedValues[i]), "Value " + i);
+        }
+        assertTrue(valuesOffset < count * 3, "Regular timestamps should take a few bits each");
+    }
+
+    @Test
+    public void testRangeScansAcrossBlocksAndReopen() throws IOException {
+        int ticks = TickStore.BLOCK_SIZE * 3 + 100;
+        try (var store = TickStore.open(tempDir)) {
+            for (int i = 0; i < ticks; i++) {
+                store.append("BTC-261225-100000-C", 1000L * i, new OptionMarketData(100.0 + i, 0.5, 0.6 + i * 1e-4));
+                if (i % 2 == 0) store.append("BTC-261225-100000-P", 1000L * i, new OptionMarketData(50.0, null, 0.7));
+            }
+            assertEquals(ticks + ticks / 2, store.tickCount());
+            assertRange(store, ticks);
+        }
+
+        try (var store = TickStore.open(tempDir)) {
+            assertEquals(ticks + ticks / 2, store.tickCount(), "Buffered ticks should be flushed on close");
+            assertRange(store, ticks);
+
+            var deltas = new ArrayList<Double>();
+            store.scan(store.symbols().find("BTC-261225-100000-P"), 0, Long.MAX_VALUE,
+                    (symbolId, timestamp, price, impliedVol, delta) -> deltas.add(delta));
+            assertEquals(ticks / 2, deltas.size());
+            assertTrue(Double.isNaN(deltas.get(0)), "Missing fields should be stored as NaN");
+        }
+    }
+
+    private static void assertRange(TickStore store, int ticks) {
+        // [t0, t1) spanning a block boundary and the unflushed tail
+        long from = 1000L * (TickStore.BLOCK_SIZE - 10);
+        long to = 1000L * (ticks - 50);
+        var timestamps = new ArrayList<Long>();
+        var vols = new ArrayList<Double>();
+        store.scan(List.of("BTC-261225-100000-C", "BTC-261225-999999-C"), TickStore.Column.IMPLIED_VOL, from, to,
+                (symbolId, timestamp, value) -> {
+                    timestamps.add(timestamp);
+                    vols.add(value);
+                });
+
+        assertEquals((to - from) / 1000, timestamps.size());
+        assertEquals(from, timestamps.get(0));
+        assertEquals(to - 1000, timestamps.get(timestamps.size() - 1));
+        assertEquals(0.6 + (TickStore.BLOCK_SIZE - 10) * 1e-4, vols.get(0), 1e-15);
+    }
+
+    @Test
+    public void testCompactionMergesBlocksAndDropsOldTicks() throws IOException {
+        var marks = new HashMap<String, OptionMarketData>();
+        for (int strike = 0; strike < 20; strike++) {
+            marks.put("ETH-270326-" + (3000 + strike * 100) + "-C", new OptionMarketData(10.0 + strike, 0.4, 0.65));
+        }
+
+        try (var store = TickStore.open(tempDir)) {
+            for (int snapshot = 0; snapshot < 200; snapshot++) {
+                store.appendAll(marks, 60_000L * snapshot);
+                // Frequent flushes leave many small blocks behind
+                if (snapshot % 5 == 0) store.flush();
+            }
+            long fragmentedBytes = store.dataBytes();
+
+            store.compact(60_000L * 50);
+
+            assertEquals(20 * 150, store.tickCount());
+            assertTrue(store.dataBytes() < fragmentedBytes);
+            var prices = new ArrayList<Double>();
+            store.scan(store.symbols().find("ETH-270326-3500-C"), TickStore.Column.PRICE, 0, Long.MAX_VALUE,
+                    (symbolId, timestamp, value) -> prices.add(value));
+            assertEquals(150, prices.size());
+            assertTrue(prices.stream().allMatch(price -> price == 15.0));
+        }
+
+        try (var store = TickStore.open(tempDir)) {
+            assertEquals(20 * 150, store.tickCount());
+        }
+    }
+
+    @Test
+    public void testPartialBlocksWrittenOnceBufferedForMaxAge() throws Exception {
+        try (var store = TickStore.open(tempDir, Duration.ZERO)) {
+            store.append("BTC-261225-100000-C", 1000L, new OptionMarketData(100.0, 0.5, 0.6));
+            long emptyBytes = store.dataBytes();
+
+            store.flushOlderThan(System.nanoTime() - Duration.ofHours(1).toNanos());
+            assertEquals(emptyBytes, store.dataBytes(), "Ticks buffered for less than the max age should stay buffered");
+            store.flushOlderThan(System.nanoTime());
+            assertTrue(store.dataBytes() > emptyBytes);
+
+            // Readable without a flush on close, as after a crash
+            try (var reopened = TickStore.open(tempDir, Duration.ZERO)) {
+                assertEquals(1, reopened.tickCount());
+            }
+        }
+
+        try (var store = TickStore.open(tempDir.resolve("scheduled"), Duration.ofMillis(20))) {
+            long emptyBytes = store.dataBytes();
+            store.append("BTC-261225-100000-C", 2000L, new OptionMarketData(101.0, 0.5, 0.6));
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (store.dataBytes() == emptyBytes && System.nanoTime() < deadline) Thread.sleep(10);
+            assertTrue(store.dataBytes() > emptyBytes, "The background flush should write the partial block");
+        }
+    }
+
+    @Test
+    public void testRecordingDataRequester() throws IOException {
+        try (var server = new StubBinanceServer(); var transport = server.transport();
+             var store = TickStore.open(tempDir)) {
+            var requester = new RecordingDataRequester(new BinanceDataRequest(transport, true), store, () -> 42L);
+
+            requester.getOptionMarketData();
+            requester.fetchSnapshot(List.of("BTCUSDT")).join();
+
+            assertEquals(104, store.tickCount());
+            var timestamps = new ArrayList<Long>();
+            store.scan(store.symbols().find("BTC-261225-100000-C"), 0, Long.MAX_VALUE,
+                    (symbolId, timestamp, price, impliedVol, delta) -> timestamps.add(timestamp));
+            assertEquals(List.of(42L, 42L), timestamps);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.dashutils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VolSurfaceTest {
+    // 2026-10-18 08:00 UTC
+    private static final long AS_OF = 1792310400000L;
+
+    @Test
+    public void testRecoversSviSmile() {
+        var truth = new SviParameters(0.02, 0.1, -0.4, 0.05, 0.15);
+        int count = 25;
+        var k = new double[count];
+        var w = new double[count];
+        for (int i = 0; i < count; i++) {
+            k[i] = -0.6 + 1.2 * i / (count - 1);
+            w[i] = truth.totalVariance(k[i]);
+        }
+
+        var cold = SviCalibrator.calibrate(k, w, count, null);
+        var warm = SviCalibrator.calibrate(k, w, count, cold);
+
+        for (int i = 0; i < count; i++) {
+            assertEquals(w[i], cold.totalVariance(k[i]), 1e-7, "Cold fit at k=" + k[i]);
+            assertEquals(w[i], warm.totalVariance(k[i]), 1e-7, "Warm fit at k=" + k[i]);
+        }
+    }
+
+    @Test
+    public void testFitStaysWithinNoArbitrageBounds() {
+        // Wings steeper than Roger Lee's bound allows
+        int count = 15;
+        var k = new double[count];
+        var w = new double[count];
+        for (int i = 0; i < count; i++) {
+            k[i] = -0.7 + 1.4 * i / (count - 1);
+            w[i] = 0.01 + 3.5 * Math.abs(k[i]);
+        }
+
+        var fit = SviCalibrator.calibrate(k, w, count, null);
+
+        assertTrue(fit.b() >= 0);
+        assertTrue(Math.abs(fit.rho()) <= 1);
+        assertTrue(fit.b() * (1 + Math.abs(fit.rho())) <= 2 + 1e-9, "Wings should respect the moment bound");
+        assertTrue(fit.minTotalVariance() >= -1e-12, "Total variance should stay non-negative");
+    }
+
+    @Test
+    public void testSurfaceInterpolatesTotalVariance() {
+        long firstExpiry = AS_OF + (long) (0.25 * BlackScholesKernel.MILLIS_PER_YEAR);
+        long secondExpiry = AS_OF + (long) (0.5 * BlackScholesKernel.MILLIS_PER_YEAR);
+        var flat50 = new SviParameters(0.5 * 0.5 * 0.25, 0, 0, 0, 0.1);
+        var flat60 = new SviParameters(0.6 * 0.6 * 0.5, 0, 0, 0, 0.1);
+        var surface = new VolSurface("BTCUSDT", 100_000, 0, 0, AS_OF, new long[] {firstExpiry, secondExpiry},
+                new SviParameters[] {flat50, flat60});
+
+        assertEquals(0.5, surface.impliedVol(100_000, firstExpiry), 1e-12);
+        assertEquals(0.6, surface.impliedVol(100_000, secondExpiry), 1e-12);
+        double midVariance = 0.5 * (0.0625 + 0.18);
+        assertEquals(midVariance, surface.totalVariance(0, 0.375), 1e-12);
+        assertEquals(0.5, surface.impliedVol(90_000, 0.1), 1e-12, "Flat vol before the first expiry");
+        assertEquals(0.6, surface.impliedVol(90_000, 2.0), 1e-12, "Flat vol after the last expiry");
+
+        // A later slice below an earlier one is floored to keep the surface free of calendar arbitrage
+        var inverted = new VolSurface("BTCUSDT", 100_000, 0, 0, AS_OF, new long[] {secondExpiry, secondExpiry + 1000},
+                new SviParameters[] {flat60, flat50});
+        assertTrue(inverted.totalVariance(0, 0.6) >= inverted.totalVariance(0, 0.5));
+    }
+
+    @Test
+    public void testEngineCalibratesFixtureChains() throws Exception {
+        HashMap<String, OptionChain> chains;
+        HashMap<String, OptionMarketData> marks;
+        try (var server = new StubBinanceServer(); var transport = server.transport()) {
+            var requester = new BinanceDataRequest(transport, true);
+            chains = requester.getOptionChain();
+            marks = requester.getOptionMarketData();
+        }
+        var columnar = ColumnarOptionChain.ofAll(chains, marks, new SymbolTable());
+        var spots = Map.of("BTCUSDT", 108012.34, "ETHUSDT", 3901.27);
+        var rates = Map.of("USDT", 0.05, "BTC", 0.002, "ETH", 0.003);
+
+        try (var pool = new ForkJoinPool(2)) {
+            var engine = new VolSurfaceEngine(pool);
+            var surfaces = engine.calibrate(columnar, spots, rates, AS_OF);
+            var refitted = engine.calibrate(columnar, spots, rates, AS_OF);
+
+            assertEquals(2, surfaces.size());
+            for (var underlying : List.of("BTCUSDT", "ETHUSDT")) {
+                var surface = surfaces.get(underlying);
+                assertEquals(2, surface.expiryCount());
+                var chain = columnar.get(underlying);
+                for (int row = 0; row < chain.size(); row++) {
+                    double fitted = surface.impliedVol(chain.strike(row), chain.expiryAt(row));
+                    assertEquals(chain.impliedVol(row), fitted, 0.01, chain.symbol(row));
+                }
+                double later = surface.totalVariance(0, BlackScholesKernel.yearFraction(AS_OF, surface.expiry(1)));
+                double earlier = surface.totalVariance(0, BlackScholesKernel.yearFraction(AS_OF, surface.expiry(0)));
+                assertTrue(later > earlier);
+                assertEquals(surface.impliedVol(100, 0.3), refitted.get(underlying).impliedVol(100, 0.3), 1e-6,
+                        "A warm started refit of the same data should land on the same smile");
+            }
+            assertEquals(4, engine.previousFitCount());
+
+            // Once the first expiries are past, their fits are dropped
+            long afterFirstExpiry = columnar.get("BTCUSDT").expiry(0);
+            engine.calibrate(Map.of("BTCUSDT", columnar.get("BTCUSDT")), spots, rates, afterFirstExpiry);
+            assertEquals(2, engine.previousFitCount());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.dashutils;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Minimal websocket server that accepts one client, waits for its first (subscribe) message and then replays
+ * recorded text frames from a fixture, one frame per line.
+ */
+class WebSocketReplayServer implements AutoCloseable {
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final ServerSocket serverSocket;
+    private final List<String> frames;
+    final LinkedBlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+    WebSocketReplayServer(String fixture) throws IOException {
+        try (var in = getClass().getResourceAsStream("/fixtures/binance/" + fixture)) {
+            frames = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().filter(line -> !line.isBlank()).toList();
+        }
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().start(this::serve);
+    }
+
+    URI uri() {
+        return URI.create("ws://127.0.0.1:" + serverSocket.getLocalPort() + "/eoptions/ws");
+    }
+
+    private void serve() {
+        try (Socket socket = serverSocket.accept()) {
+            var in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            var out = socket.getOutputStream();
+            handshake(in, out);
+
+            received.add(readFrame(in));
+            for (var frame : frames) writeFrame(out, frame);
+
+            // Keep the connection open until the client closes it, recording any later (subscribe) messages
+            while (true) received.add(readFrame(in));
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private static void handshake(DataInputStream in, OutputStream out) throws IOException {
+        String key = null;
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            if (line.toLowerCase().startsWith("sec-websocket-key:")) key = line.substring(18).trim();
+        }
+
+        String accept;
+        try {
+            var sha1 = MessageDigest.getInstance("SHA-1").digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.US_ASCII));
+            accept = Base64.getEncoder().encodeToString(sha1);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static String readLine(DataInputStream in) throws IOException {
+        var line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c == -1) throw new EOFException();
+            if (c != '\r') line.append((char) c);
+        }
+        return line.toString();
+    }
+
+    private static String readFrame(DataInputStream in) throws IOException {
+        int opcode = in.readUnsignedByte() & 0x0F;
+        int second = in.readUnsignedByte();
+        long length = second & 0x7F;
+        if (length == 126) length = in.readUnsignedShort();
+        else if (length == 127) length = in.readLong();
+
+        var mask = new byte[4];
+        if ((second & 0x80) != 0) in.readFully(mask);
+        var payload = new byte[(int) length];
+        in.readFully(payload);
+        for (int i = 0; i < payload.length; i++) payload[i] ^= mask[i % 4];
+
+        if (opcode == 0x8) throw new EOFException("Client closed");
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    private static void writeFrame(OutputStream out, String text) throws IOException {
+        var payload = text.getBytes(StandardCharsets.UTF_8);
+        out.write(0x81);
+        if (payload.length < 126) {
+            out.write(payload.length);
+        } else if (payload.length < 65536) {
+            out.write(126);
+            out.write(payload.length >>> 8);
+            out.write(payload.length & 0xFF);
+        } else {
+            out.write(127);
+            out.write(ByteBuffer.allocate(8).putLong(payload.length).array());
+        }
+        out.write(payload);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}